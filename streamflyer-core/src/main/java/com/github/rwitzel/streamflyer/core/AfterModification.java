@@ -47,6 +47,8 @@ import com.github.rwitzel.streamflyer.internal.thirdparty.ZzzValidate;
  * left in the buffer.
  * <li>(FETCH_MORE_INPUT: This is a synonym for SKIP if some characters can be skipped. Otherwise it is a MODIFY AGAIN
  * IMMEDIATELY.)
+ * <li>PASS THROUGH: Skip all modifiable characters in the buffer and never call the modifier again. The stream
+ * processor passes the rest of the stream through without buffering it. See {@link #isPassThrough()}.
  * </ul>
  * 
  * @author rwoo
@@ -80,6 +82,11 @@ public class AfterModification {
      */
     private boolean modifyAgainImmediately;
 
+    /**
+     * See {@link #isPassThrough()}.
+     */
+    private boolean passThrough;
+
     //
     // constructors
     //
@@ -101,9 +108,40 @@ public class AfterModification {
 
     }
 
+    /**
+     * @param numberOfCharactersToSkip
+     *            See {@link #getNumberOfCharactersToSkip()}
+     * @param modifyAgainImmediately
+     *            See {@link #isModifyAgainImmediately()}
+     * @param newMinimumLengthOfLookBehind
+     *            See {@link #getNewMinimumLengthOfLookBehind()}
+     * @param newNumberOfChars
+     *            See {@link #getNewNumberOfChars()}
+     * @param passThrough
+     *            See {@link #isPassThrough()}
+     * @since 1.2.1
+     */
+    public AfterModification(int numberOfCharactersToSkip, boolean modifyAgainImmediately,
+            int newMinimumLengthOfLookBehind, int newNumberOfChars, boolean passThrough) {
+
+        init(numberOfCharactersToSkip, modifyAgainImmediately, newMinimumLengthOfLookBehind, newNumberOfChars,
+                passThrough);
+
+    }
+
     protected void init(int numberOfCharactersToSkip_, boolean modifyAgainImmediately_,
             int newMinimumLengthOfLookBehind_, int newNumberOfChars_) {
 
+        init(numberOfCharactersToSkip_, modifyAgainImmediately_, newMinimumLengthOfLookBehind_, newNumberOfChars_,
+                false);
+    }
+
+    /**
+     * @since 1.2.1
+     */
+    protected void init(int numberOfCharactersToSkip_, boolean modifyAgainImmediately_,
+            int newMinimumLengthOfLookBehind_, int newNumberOfChars_, boolean passThrough_) {
+
         ZzzValidate.isZeroOrPositiveNumber(numberOfCharactersToSkip_, "numberOfCharactersToSkip");
         ZzzValidate.isZeroOrPositiveNumber(newMinimumLengthOfLookBehind_, "minimumLengthOfLookBehind");
         // (newNumberOfChars should not be zero if end of stream is
@@ -111,16 +149,23 @@ public class AfterModification {
         // don't know whether the end of stream is hit.)
         ZzzValidate.isZeroOrPositiveNumber(newNumberOfChars_, "newNumberOfChars_");
 
-        if (modifyAgainImmediately && numberOfCharactersToSkip_ != 0) {
+        if (modifyAgainImmediately_ && numberOfCharactersToSkip_ != 0) {
             throw new IllegalArgumentException("if modify again immediately,"
                     + " the number of characters to skip are ignored .. "
                     + "so why is the number of characters to skip " + numberOfCharactersToSkip_ + " instead of zero?");
         }
 
+        if (passThrough_ && modifyAgainImmediately_) {
+            throw new IllegalArgumentException("if the stream shall be passed through,"
+                    + " the modifier must not be called again .. "
+                    + "so why shall the modifier be called again immediately?");
+        }
+
         this.numberOfCharactersToSkip = numberOfCharactersToSkip_;
         this.modifyAgainImmediately = modifyAgainImmediately_;
         this.newMinimumLengthOfLookBehind = newMinimumLengthOfLookBehind_;
         this.newNumberOfChars = newNumberOfChars_;
+        this.passThrough = passThrough_;
     }
 
     //
@@ -182,12 +227,29 @@ public class AfterModification {
         return numberOfCharactersToSkip;
     }
 
+    /**
+     * @return Returns true if the modifier is done, i.e. if the modifier shall not be called again and all the
+     *         characters that follow the {@link #getNumberOfCharactersToSkip() skipped characters} shall be passed
+     *         through unmodified.
+     *         <p>
+     *         If this is true, then the number of characters to skip must be equal to the number of modifiable
+     *         characters in the buffer. {@link ModifyingReader} and {@link ModifyingWriter} release their buffers
+     *         after the skipped characters are consumed and delegate all further calls directly to the underlying
+     *         stream.
+     * @since 1.2.1
+     */
+    public boolean isPassThrough() {
+        return passThrough;
+    }
+
     /**
      * @return Returns an informal description of the type of the message, i.e. either SKIP or MODIFY AGAIN IMMEDIATELY
-     *         or STOP.
+     *         or STOP or PASS THROUGH.
      */
     public String getMessageType() {
-        if (numberOfCharactersToSkip != 0) {
+        if (passThrough) {
+            return "PASS THROUGH";
+        } else if (numberOfCharactersToSkip != 0) {
             return "SKIP";
         } else if (modifyAgainImmediately) {
             return "MODIFY AGAIN IMMEDIATELY";
@@ -214,6 +276,8 @@ public class AfterModification {
         builder.append(numberOfCharactersToSkip);
         builder.append(", \nmodifyAgainImmediately=");
         builder.append(modifyAgainImmediately);
+        builder.append(", \npassThrough=");
+        builder.append(passThrough);
         builder.append("]");
         return builder.toString();
     }
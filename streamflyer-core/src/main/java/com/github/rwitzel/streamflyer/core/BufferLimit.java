@@ -0,0 +1,131 @@
+/**
+ * Copyright (C) 2011 rwitzel75@googlemail.com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.rwitzel.streamflyer.core;
+
+import com.github.rwitzel.streamflyer.internal.thirdparty.ZzzValidate;
+
+/**
+ * Enforces the maximum number of characters in the buffer of {@link ModifyingReader} and {@link ModifyingWriter}.
+ * 
+ * @author rwoo
+ * @since 1.2.1
+ */
+class BufferLimit {
+
+    //
+    // injected properties
+    //
+
+    private final int maximumNumberOfCharactersInBuffer;
+
+    private final BufferLimitPolicy policy;
+
+    //
+    // state
+    //
+
+    /**
+     * The number of times the modifiable characters in the buffer were skipped because the buffer was full.
+     */
+    private long numberOfSkips = 0;
+
+    //
+    // constructors
+    //
+
+    BufferLimit(int maximumNumberOfCharactersInBuffer, BufferLimitPolicy policy) {
+        super();
+
+        ZzzValidate.isTrue(maximumNumberOfCharactersInBuffer >= 2,
+                "maximumNumberOfCharactersInBuffer must be greater than one but was "
+                        + maximumNumberOfCharactersInBuffer);
+        ZzzValidate.notNull(policy, "policy must not be null");
+
+        this.maximumNumberOfCharactersInBuffer = maximumNumberOfCharactersInBuffer;
+        this.policy = policy;
+    }
+
+    //
+    // package methods
+    //
+
+    /**
+     * @return Returns the given modification if the requested number of characters does not exceed the limit.
+     *         Otherwise returns a modification that requests fewer characters or, if the buffer is already full, skips
+     *         all modifiable characters in the buffer.
+     * @throws BufferLimitExceededException
+     *             Thrown if the limit is exceeded and the policy is {@link BufferLimitPolicy#FAIL}.
+     */
+    AfterModification check(AfterModification afterModification, StringBuilder characterBuffer,
+            int firstModifiableCharacterInBuffer) throws BufferLimitExceededException {
+
+        int requested = afterModification.getNewMinimumLengthOfLookBehind() + afterModification.getNewNumberOfChars();
+        if (requested <= maximumNumberOfCharactersInBuffer) {
+            return afterModification;
+        }
+
+        if (policy == BufferLimitPolicy.FAIL) {
+            throw new BufferLimitExceededException(maximumNumberOfCharactersInBuffer, requested);
+        }
+
+        int newMinimumLengthOfLookBehind = Math.min(afterModification.getNewMinimumLengthOfLookBehind(),
+                maximumNumberOfCharactersInBuffer - 1);
+        int newNumberOfChars = maximumNumberOfCharactersInBuffer - newMinimumLengthOfLookBehind;
+
+        if (characterBuffer.length() < maximumNumberOfCharactersInBuffer) {
+            // the buffer is not full yet -> give the modifier as many characters as allowed
+            return new AfterModification(afterModification.getNumberOfCharactersToSkip(),
+                    afterModification.isModifyAgainImmediately(), newMinimumLengthOfLookBehind, newNumberOfChars);
+        } else {
+            // the buffer is full but the modifier still requests more characters -> give up
+            numberOfSkips++;
+            return new AfterModification(characterBuffer.length() - firstModifiableCharacterInBuffer, false,
+                    newMinimumLengthOfLookBehind, newNumberOfChars);
+        }
+    }
+
+    int getMaximumNumberOfCharactersInBuffer() {
+        return maximumNumberOfCharactersInBuffer;
+    }
+
+    BufferLimitPolicy getPolicy() {
+        return policy;
+    }
+
+    long getNumberOfSkips() {
+        return numberOfSkips;
+    }
+
+    //
+    // override Object.*
+    //
+
+    /**
+     * @see java.lang.Object#toString()
+     */
+    @Override
+    public String toString() {
+        StringBuilder builder = new StringBuilder();
+        builder.append("BufferLimit [maximumNumberOfCharactersInBuffer=");
+        builder.append(maximumNumberOfCharactersInBuffer);
+        builder.append(", \npolicy=");
+        builder.append(policy);
+        builder.append(", \nnumberOfSkips=");
+        builder.append(numberOfSkips);
+        builder.append("]");
+        return builder.toString();
+    }
+}
@@ -0,0 +1,58 @@
+/**
+ * Copyright (C) 2011 rwitzel75@googlemail.com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.rwitzel.streamflyer.core;
+
+import java.io.IOException;
+
+/**
+ * Thrown by {@link ModifyingReader} and {@link ModifyingWriter} if the modifier requests more characters in the buffer
+ * than allowed and the {@link BufferLimitPolicy#FAIL} is configured.
+ * 
+ * @author rwoo
+ * @since 1.2.1
+ */
+public class BufferLimitExceededException extends IOException {
+
+    private static final long serialVersionUID = 1L;
+
+    private final int maximumNumberOfCharactersInBuffer;
+
+    private final int requestedNumberOfCharactersInBuffer;
+
+    public BufferLimitExceededException(int maximumNumberOfCharactersInBuffer,
+            int requestedNumberOfCharactersInBuffer) {
+        super("The modifier requested " + requestedNumberOfCharactersInBuffer
+                + " characters in the buffer but the buffer is limited to " + maximumNumberOfCharactersInBuffer
+                + " characters");
+        this.maximumNumberOfCharactersInBuffer = maximumNumberOfCharactersInBuffer;
+        this.requestedNumberOfCharactersInBuffer = requestedNumberOfCharactersInBuffer;
+    }
+
+    /**
+     * @return Returns the configured maximum number of characters in the buffer.
+     */
+    public int getMaximumNumberOfCharactersInBuffer() {
+        return maximumNumberOfCharactersInBuffer;
+    }
+
+    /**
+     * @return Returns the number of characters the modifier requested, i.e. the requested length of the look-behind
+     *         plus the requested number of characters behind the look-behind.
+     */
+    public int getRequestedNumberOfCharactersInBuffer() {
+        return requestedNumberOfCharactersInBuffer;
+    }
+}
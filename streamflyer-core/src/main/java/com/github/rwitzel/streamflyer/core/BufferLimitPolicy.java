@@ -0,0 +1,39 @@
+/**
+ * Copyright (C) 2011 rwitzel75@googlemail.com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.rwitzel.streamflyer.core;
+
+/**
+ * Describes what {@link ModifyingReader} and {@link ModifyingWriter} do if a modifier requests more characters in the
+ * buffer than allowed by the configured maximum.
+ * 
+ * @author rwoo
+ * @since 1.2.1
+ */
+public enum BufferLimitPolicy {
+
+    /**
+     * A {@link BufferLimitExceededException} is thrown as soon as the modifier requests more characters than allowed.
+     */
+    FAIL,
+
+    /**
+     * The modifier gets at most the allowed number of characters. If the buffer is full and the modifier still requests
+     * more characters (for example, because a match is not closed), the modifiable characters in the buffer are skipped
+     * without modification, i.e. the modifier gives up the open match.
+     */
+    SKIP
+
+}
@@ -0,0 +1,51 @@
+/**
+ * Copyright (C) 2011 rwitzel75@googlemail.com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.rwitzel.streamflyer.core;
+
+/**
+ * Is notified by a {@link ModifyingReader} or a {@link ModifyingWriter} about events concerning the character buffer.
+ * This helps to find out why the processing of a stream slows down, e.g. because the modifier requests more and more
+ * characters.
+ * <p>
+ * By default there is no listener. Implementations must be fast as they are called on the hot path.
+ * 
+ * @author rwoo
+ * @since 1.2.1
+ */
+public interface BufferListener {
+
+    /**
+     * Called after the capacity of the character buffer is increased.
+     * 
+     * @param oldCapacity
+     *            the capacity before the increase.
+     * @param newCapacity
+     *            the capacity after the increase.
+     */
+    public void onCapacityIncreased(int oldCapacity, int newCapacity);
+
+    /**
+     * Called after the {@link ModifyingReader} has read from the underlying reader. Not called by a
+     * {@link ModifyingWriter}.
+     * 
+     * @param numberOfCharactersRead
+     *            the number of characters read, or -1 if the end of the stream is hit.
+     * @param nanos
+     *            the nanoseconds the underlying reader has needed.
+     */
+    public void onDelegateRead(int numberOfCharactersRead, long nanos);
+
+}
@@ -0,0 +1,48 @@
+/**
+ * Copyright (C) 2011 rwitzel75@googlemail.com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.rwitzel.streamflyer.core;
+
+import java.io.Serializable;
+
+/**
+ * An object whose state that refers to the stream processed so far can be saved and restored, e.g. a {@link Modifier}
+ * that shall be used with {@link ModifyingReader#checkpoint()} or {@link ModifyingWriter#checkpoint()}.
+ * <p>
+ * Decorators should include the state of their delegates if the delegates implement this interface.
+ * 
+ * @author rwoo
+ * @since 1.2.1
+ */
+public interface Checkpointable {
+
+    /**
+     * This method is called only between two calls of {@link Modifier#modify(StringBuilder, int, boolean)}.
+     * 
+     * @return Returns the state that refers to the stream processed so far, or null if there is no such state. The
+     *         returned state must not be changed by later calls of this object.
+     */
+    public Serializable checkpoint();
+
+    /**
+     * Restores the given state. The state was returned by {@link #checkpoint()} of an object with the same
+     * configuration, e.g. a modifier created by the same {@link ModifierTemplate}, possibly in another JVM.
+     * 
+     * @param state
+     *            the state returned by {@link #checkpoint()}.
+     */
+    public void resume(Serializable state);
+
+}
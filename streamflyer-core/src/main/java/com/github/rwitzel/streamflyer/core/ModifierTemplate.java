@@ -0,0 +1,35 @@
+/**
+ * Copyright (C) 2011 rwitzel75@googlemail.com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.rwitzel.streamflyer.core;
+
+/**
+ * Creates {@link Modifier modifiers} of the same kind.
+ * <p>
+ * Most modifiers are not thread-safe, i.e. each stream needs its own modifier. A template holds the artifacts that can
+ * be shared by all modifiers, e.g. compiled regular expressions, so that creating a modifier for a stream is cheap.
+ * Implementations must be thread-safe.
+ * 
+ * @author rwoo
+ * @since 1.2.1
+ */
+public interface ModifierTemplate {
+
+    /**
+     * @return Returns a new modifier that can be used for a single stream.
+     */
+    public Modifier newModifier();
+
+}
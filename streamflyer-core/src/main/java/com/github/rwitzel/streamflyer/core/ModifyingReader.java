@@ -18,12 +18,17 @@ package com.github.rwitzel.streamflyer.core;
 import java.io.BufferedReader;
 import java.io.IOException;
 import java.io.Reader;
+import java.io.Serializable;
+import java.io.Writer;
+import java.nio.CharBuffer;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 
+import com.github.rwitzel.streamflyer.internal.thirdparty.ZzzValidate;
+
 /**
  * A {@link Reader} that allows a {@link Modifier} to modify the characters in the underlying stream.
  * <p>
@@ -36,6 +41,11 @@ import java.util.Map;
  */
 public class ModifyingReader extends Reader {
 
+    /**
+     * The size of the array {@link #transferTo(Writer)} copies the passed through characters with.
+     */
+    private static final int TRANSFER_BUFFER_SIZE = 8192;
+
     //
     // injected properties
     //
@@ -96,12 +106,50 @@ public class ModifyingReader extends Reader {
      */
     private boolean endOfStreamHit = false;
 
+    /**
+     * True if the modifier has requested to {@link AfterModification#isPassThrough() pass through} the rest of the
+     * stream. As soon as the skipped characters are read, the buffer is released and all reads are delegated to the
+     * underlying reader.
+     */
+    private boolean passThrough = false;
+
     /**
      * The holds the last {@link AfterModification} provided by the {@link #modifier}. This property serves debugging
      * purposes only.
      */
     private AfterModification lastAfterModificationForDebuggingOnly = null;
 
+    /**
+     * The array {@link #fill()} reads into. The array is reused in order to avoid an allocation for each fill.
+     */
+    private char[] fillBuffer = new char[0];
+
+    /**
+     * Is notified about events concerning the buffer. Null by default.
+     */
+    private BufferListener bufferListener;
+
+    /**
+     * Limits the number of characters in the buffer. Null by default, i.e. the buffer is not limited.
+     */
+    private BufferLimit bufferLimit;
+
+    /**
+     * True if the reader shall pass the characters to the modifier as soon as they are available, see
+     * {@link #setLowLatency(boolean)}. False by default.
+     */
+    private boolean lowLatency = false;
+
+    /**
+     * The number of characters read from the underlying reader so far.
+     */
+    private long inputOffset = 0;
+
+    /**
+     * The number of characters read from this reader so far.
+     */
+    private long outputOffset = 0;
+
     /**
      * @param reader
      *            The underlying reader that provides the original, not modified characters. For optimal performance
@@ -163,10 +211,15 @@ public class ModifyingReader extends Reader {
         // is the current capacity not big enough?
         if (characterBuffer.capacity() < requestedNumCharactersInBuffer) {
 
+            int oldCapacity = characterBuffer.capacity();
+
             // increase the capacity (we delegate to the default behavior of
             // StringBuffer)
             characterBuffer.ensureCapacity(requestedNumCharactersInBuffer);
 
+            if (bufferListener != null) {
+                bufferListener.onCapacityIncreased(oldCapacity, characterBuffer.capacity());
+            }
         }
 
     }
@@ -174,6 +227,9 @@ public class ModifyingReader extends Reader {
     /**
      * Reads more characters into the input buffer. This method will block until the buffer is filled with
      * {@link #requestedNumCharactersInBuffer} characters , or an I/O error occurs, or the end of the stream is reached.
+     * <p>
+     * In {@link #lowLatency low latency mode} this method returns as soon as the underlying reader is not
+     * {@link Reader#ready() ready} after a read, i.e. this method blocks only for the first read.
      */
     private void fill() throws IOException {
 
@@ -183,16 +239,29 @@ public class ModifyingReader extends Reader {
             return;
         }
 
-        char[] buffer = new char[length];
-        int offset = 0;
+        if (fillBuffer.length < length) {
+            fillBuffer = new char[length];
+        }
 
         while (length > 0) {
 
-            int readChars = delegate.read(buffer, offset, length);
+            int readChars;
+            if (bufferListener == null) {
+                readChars = delegate.read(fillBuffer, 0, length);
+            } else {
+                long start = System.nanoTime();
+                readChars = delegate.read(fillBuffer, 0, length);
+                bufferListener.onDelegateRead(readChars, System.nanoTime() - start);
+            }
             if (readChars != -1) {
-                characterBuffer.append(buffer, offset, readChars);
-                offset += readChars;
+                characterBuffer.append(fillBuffer, 0, readChars);
+                inputOffset += readChars;
                 length -= readChars;
+
+                // would the next read block? -> let the modifier process what we have
+                if (lowLatency && length > 0 && !delegate.ready()) {
+                    break;
+                }
             } else {
                 endOfStreamHit = true;
                 break;
@@ -202,6 +271,19 @@ public class ModifyingReader extends Reader {
 
     }
 
+    /**
+     * Releases the character buffer as it is not needed any longer if the rest of the stream is passed through.
+     */
+    private void releaseBuffer() {
+        if (characterBuffer.capacity() != 0) {
+            characterBuffer.setLength(0);
+            characterBuffer.trimToSize();
+            firstModifiableCharacterInBuffer = 0;
+            minimumLengthOfLookBehind = 0;
+            fillBuffer = new char[0];
+        }
+    }
+
     protected void onFaultyModifier(int errorCode, String errorMessage) {
         // should we silently ignore any errors and fallback to a meaningful
         // behavior? No because a faulty modifier should be fixed by a
@@ -230,25 +312,224 @@ public class ModifyingReader extends Reader {
         throw new FaultyModifierException(sb.toString(), description);
     }
 
+    //
+    // public methods
+    //
+
+    /**
+     * @param bufferListener
+     *            the listener that shall be notified about events concerning the character buffer, or
+     *            <code>null</code> if no listener shall be notified.
+     * @since 1.2.1
+     */
+    public void setBufferListener(BufferListener bufferListener) {
+        this.bufferListener = bufferListener;
+    }
+
+    /**
+     * Limits the number of characters in the buffer, i.e. the length of the look-behind plus the number of characters
+     * the modifier can process at once. Without a limit the buffer grows as long as the modifier requests more
+     * characters, for example, if a regular expression matches an unclosed comment.
+     * <p>
+     * The limit should be greater than the number of characters the modifier requests regularly.
+     * 
+     * @param maximumNumberOfCharactersInBuffer
+     *            the maximum number of characters in the buffer. Must be greater than one.
+     * @param policy
+     *            describes what happens if the modifier requests more characters than allowed.
+     * @since 1.2.1
+     */
+    public void setBufferLimit(int maximumNumberOfCharactersInBuffer, BufferLimitPolicy policy) {
+        this.bufferLimit = new BufferLimit(maximumNumberOfCharactersInBuffer, policy);
+    }
+
+    /**
+     * @return Returns how often the modifiable characters in the buffer were skipped without modification because the
+     *         buffer was full and the {@link BufferLimitPolicy#SKIP} is configured.
+     * @since 1.2.1
+     */
+    public long getNumberOfBufferLimitSkips() {
+        return bufferLimit == null ? 0 : bufferLimit.getNumberOfSkips();
+    }
+
+    /**
+     * Switches the low latency mode on or off. The mode is off by default.
+     * <p>
+     * By default the reader blocks until the underlying reader has provided as many characters as the modifier has
+     * requested, or until the end of the stream is hit. On an interactive or slow source, e.g. a socket, the client
+     * does not see a single character until the requested number of characters has arrived.
+     * <p>
+     * In low latency mode the reader passes the characters the underlying reader provides in a single read (plus the
+     * characters that are {@link Reader#ready() ready} thereafter) to the modifier, i.e. the modifier might get fewer
+     * characters than requested although the end of the stream is not hit. The modifier decides whether it can
+     * process these characters or whether it needs more input (as long as <code>endOfStreamHit</code> is false, more
+     * characters may come). Moreover, {@link #read(char[], int, int)} returns the characters the modifier has skipped
+     * so far if the next read from the underlying reader would block.
+     * <p>
+     * The output is the same in both modes as long as the modifier does not depend on the number of characters in the
+     * buffer.
+     * 
+     * @param lowLatency
+     *            true if the low latency mode shall be switched on.
+     * @since 1.2.1
+     */
+    public void setLowLatency(boolean lowLatency) {
+        this.lowLatency = lowLatency;
+    }
+
+    /**
+     * Rebinds this reader to another underlying reader so that another stream can be modified without creating a new
+     * reader, a new modifier and new buffers.
+     * <p>
+     * The modifier is {@link Resettable#reset() reset} if it implements {@link Resettable}. Otherwise the modifier must
+     * not hold any state that refers to the previous stream. The character buffer keeps its capacity. The
+     * configuration, e.g. the buffer limit and the buffer listener, is kept as well.
+     * <p>
+     * The previous underlying reader is not closed.
+     * 
+     * @param reader
+     *            The underlying reader that provides the original, not modified characters of the next stream.
+     * @since 1.2.1
+     */
+    public void reset(Reader reader) {
+
+        this.delegate = reader;
+
+        if (modifier instanceof Resettable) {
+            ((Resettable) modifier).reset();
+        }
+
+        // initialize the mutable state (see constructor)
+        this.numberOfCharactersToSkip = 0;
+        this.minimumLengthOfLookBehind = 0;
+        this.firstModifiableCharacterInBuffer = 0;
+        this.requestedNumCharactersInBuffer = 1;
+        this.endOfStreamHit = false;
+        this.passThrough = false;
+        this.lastAfterModificationForDebuggingOnly = null;
+        this.inputOffset = 0;
+        this.outputOffset = 0;
+        this.characterBuffer.setLength(0);
+        adjustCapacityOfBuffer();
+    }
+
+    /**
+     * Takes a snapshot of the state of this reader and its modifier. The snapshot can be taken between any two reads.
+     * The cost is a copy of the characters in the buffer that are needed to continue plus the cost of
+     * {@link Checkpointable#checkpoint()} of the modifier.
+     * 
+     * @return Returns the snapshot.
+     * @throws IllegalStateException
+     *             Thrown if the modifier does not implement {@link Checkpointable}.
+     * @since 1.2.1
+     */
+    public StreamCheckpoint checkpoint() {
+
+        Serializable modifierState = checkpointOfModifier();
+
+        // the characters needed by the look-behind of the next modification and the characters not read yet
+        int lookBehindStart = firstModifiableCharacterInBuffer + Math.max(numberOfCharactersToSkip, 0)
+                - minimumLengthOfLookBehind;
+        int start = Math.max(0, Math.min(firstModifiableCharacterInBuffer, lookBehindStart));
+
+        return new StreamCheckpoint(inputOffset, outputOffset, characterBuffer.substring(start),
+                firstModifiableCharacterInBuffer - start, minimumLengthOfLookBehind, requestedNumCharactersInBuffer,
+                numberOfCharactersToSkip, endOfStreamHit, passThrough, modifierState);
+    }
+
+    /**
+     * Restores the given snapshot. This reader must not be used before. The underlying reader must be positioned at the
+     * {@link StreamCheckpoint#getInputOffset() input offset} of the snapshot. The modifier must have the same
+     * configuration as the modifier of the reader the snapshot was taken from.
+     * 
+     * @param checkpoint
+     *            a snapshot taken by {@link #checkpoint()}.
+     * @throws IllegalStateException
+     *             Thrown if the modifier does not implement {@link Checkpointable}.
+     * @since 1.2.1
+     */
+    public void resume(StreamCheckpoint checkpoint) {
+
+        ZzzValidate.notNull(checkpoint, "checkpoint must not be null");
+
+        resumeModifier(checkpoint.getModifierState());
+
+        this.characterBuffer.setLength(0);
+        this.characterBuffer.append(checkpoint.getCharactersInBuffer());
+        this.firstModifiableCharacterInBuffer = checkpoint.getFirstModifiableCharacterInBuffer();
+        this.minimumLengthOfLookBehind = checkpoint.getMinimumLengthOfLookBehind();
+        this.requestedNumCharactersInBuffer = checkpoint.getRequestedNumberOfCharactersInBuffer();
+        this.numberOfCharactersToSkip = checkpoint.getNumberOfCharactersToSkip();
+        this.endOfStreamHit = checkpoint.isEndOfStreamHit();
+        this.passThrough = checkpoint.isPassThrough();
+        this.inputOffset = checkpoint.getInputOffset();
+        this.outputOffset = checkpoint.getOutputOffset();
+        adjustCapacityOfBuffer();
+    }
+
+    private Serializable checkpointOfModifier() {
+        if (!(modifier instanceof Checkpointable)) {
+            throw new IllegalStateException("the modifier does not implement Checkpointable: " + modifier);
+        }
+        return ((Checkpointable) modifier).checkpoint();
+    }
+
+    private void resumeModifier(Serializable modifierState) {
+        if (!(modifier instanceof Checkpointable)) {
+            throw new IllegalStateException("the modifier does not implement Checkpointable: " + modifier);
+        }
+        ((Checkpointable) modifier).resume(modifierState);
+    }
+
     //
     // interface Reader
     //
 
     /**
-     * TODO more doc
+     * Reads the characters the modifier has skipped, i.e. the characters the modifier will not modify any longer.
      * 
      * @see java.io.Reader#read(char[], int, int)
      */
     @Override
     public int read(char[] cbuf, int off, int len) throws IOException {
         int index = 0;
-        int read = 0;
-        while (index < len && (read = readCharacter()) != -1) {
-            cbuf[off + index] = (char) read;
-            index++;
+        while (index < len) {
+
+            // shall we return the characters we have instead of waiting for more input?
+            if (lowLatency && index > 0 && numberOfCharactersToSkip == 0 && !endOfStreamHit && !delegate.ready()) {
+                return index;
+            }
+
+            int available = prepareSkippedCharacters();
+
+            // are all the skipped characters read and shall the rest of the stream be passed through?
+            if (available == 0) {
+                if (index > 0) {
+                    // yes -> return the skipped characters first
+                    return index;
+                } else {
+                    // yes -> read directly from the underlying reader
+                    int read = delegate.read(cbuf, off, len);
+                    countPassedThrough(read);
+                    return read;
+                }
+            }
+
+            if (available == -1) {
+                break;
+            }
+
+            // copy the skipped characters at once
+            int count = Math.min(available, len - index);
+            characterBuffer.getChars(firstModifiableCharacterInBuffer, firstModifiableCharacterInBuffer + count, cbuf,
+                    off + index);
+            firstModifiableCharacterInBuffer += count;
+            numberOfCharactersToSkip -= count;
+            outputOffset += count;
+            index += count;
         }
 
-        if (index == 0 && read == -1) {
+        if (index == 0 && len > 0) {
             return -1;
         } else {
             return index;
@@ -256,14 +537,167 @@ public class ModifyingReader extends Reader {
     }
 
     /**
-     * Contract is similar to {@link java.io.Reader#read()}.
+     * @see java.io.Reader#read(java.nio.CharBuffer)
+     */
+    @Override
+    public int read(CharBuffer target) throws IOException {
+
+        if (!target.hasArray()) {
+            // e.g. a direct buffer or a read-only buffer
+            return super.read(target);
+        }
+
+        // read directly into the array backing the buffer
+        int read = read(target.array(), target.arrayOffset() + target.position(), target.remaining());
+        if (read > 0) {
+            target.position(target.position() + read);
+        }
+        return read;
+    }
+
+    /**
+     * Skips the characters without copying them.
+     * 
+     * @see java.io.Reader#skip(long)
+     */
+    @Override
+    public long skip(long n) throws IOException {
+
+        if (n < 0L) {
+            throw new IllegalArgumentException("skip value is negative");
+        }
+
+        long skipped = 0;
+        while (skipped < n) {
+
+            int available = prepareSkippedCharacters();
+
+            if (available == 0) {
+                // pass through -> skip in the underlying reader
+                long skippedByDelegate = delegate.skip(n - skipped);
+                countPassedThrough(skippedByDelegate);
+                return skipped + skippedByDelegate;
+            }
+
+            if (available == -1) {
+                break;
+            }
+
+            int count = (int) Math.min(available, n - skipped);
+            firstModifiableCharacterInBuffer += count;
+            numberOfCharactersToSkip -= count;
+            outputOffset += count;
+            skipped += count;
+        }
+        return skipped;
+    }
+
+    /**
+     * Reads all characters from this reader and writes them to the given writer. Each region of skipped characters is
+     * handed over to the writer by a single call of {@link Writer#append(CharSequence, int, int)}, i.e. the characters
+     * are not copied into a temporary array. If the rest of the stream is passed through, the characters are copied
+     * from the underlying reader to the writer.
      * <p>
-     * TODO more doc
+     * This method has the same contract as <code>Reader.transferTo(Writer)</code> which is available since Java 10.
+     * 
+     * @param out
+     *            the writer to write to. Must not be null.
+     * @return Returns the number of transferred characters.
+     * @throws IOException
+     *             Thrown if an I/O error occurs when reading or writing.
+     * @since 1.2.1
+     */
+    public long transferTo(Writer out) throws IOException {
+
+        if (out == null) {
+            throw new NullPointerException("out");
+        }
+
+        long transferred = 0;
+        while (true) {
+
+            int available = prepareSkippedCharacters();
+
+            if (available == 0) {
+                // pass through -> copy the rest of the stream
+                char[] buffer = new char[TRANSFER_BUFFER_SIZE];
+                int read;
+                while ((read = delegate.read(buffer, 0, buffer.length)) != -1) {
+                    out.write(buffer, 0, read);
+                    countPassedThrough(read);
+                    transferred += read;
+                }
+                return transferred;
+            }
+
+            if (available == -1) {
+                return transferred;
+            }
+
+            out.append(characterBuffer, firstModifiableCharacterInBuffer, firstModifiableCharacterInBuffer + available);
+            firstModifiableCharacterInBuffer += available;
+            numberOfCharactersToSkip -= available;
+            outputOffset += available;
+            transferred += available;
+        }
+    }
+
+    /**
+     * Contract is similar to {@link java.io.Reader#read()}.
      */
     protected int readCharacter() throws IOException {
 
+        int available = prepareSkippedCharacters();
+
+        if (available == 0) {
+            // pass through -> read directly from the underlying reader
+            int ch = delegate.read();
+            countPassedThrough(ch != -1 ? 1 : 0);
+            return ch;
+        }
+
+        if (available == -1) {
+            return -1;
+        }
+
+        // return the next unread character
+        char result = characterBuffer.charAt(firstModifiableCharacterInBuffer);
+
+        firstModifiableCharacterInBuffer++;
+        numberOfCharactersToSkip--;
+        outputOffset++;
+
+        return result;
+    }
+
+    /**
+     * Counts the characters that are passed through from the underlying reader.
+     * 
+     * @param numberOfCharacters
+     *            the number of characters, or -1 if the end of the stream is reached.
+     */
+    private void countPassedThrough(long numberOfCharacters) {
+        if (numberOfCharacters > 0) {
+            inputOffset += numberOfCharacters;
+            outputOffset += numberOfCharacters;
+        }
+    }
+
+    /**
+     * Calls the modifier until it has skipped some characters if all skipped characters are read.
+     * 
+     * @return Returns the number of skipped characters in the buffer that can be read, or zero if the rest of the
+     *         stream shall be read from the underlying reader (pass through), or -1 if the end of the stream is reached.
+     */
+    private int prepareSkippedCharacters() throws IOException {
+
         if (numberOfCharactersToSkip == 0) {
 
+            if (passThrough) {
+                releaseBuffer();
+                return 0;
+            }
+
             boolean modifyAgainImmediately = false;
 
             AfterModification afterModification = null;
@@ -273,6 +707,11 @@ public class ModifyingReader extends Reader {
 
                 afterModification = modifier.modify(characterBuffer, firstModifiableCharacterInBuffer, endOfStreamHit);
 
+                if (bufferLimit != null) {
+                    afterModification = bufferLimit.check(afterModification, characterBuffer,
+                            firstModifiableCharacterInBuffer);
+                }
+
                 lastAfterModificationForDebuggingOnly = afterModification;
 
                 // update minimumLengthOfLookBehind
@@ -292,9 +731,18 @@ public class ModifyingReader extends Reader {
                 }
 
                 modifyAgainImmediately = false;
+                // shall the rest of the stream be passed through?
+                if (afterModification.isPassThrough()) {
+                    if (afterModification.getNumberOfCharactersToSkip() != characterBuffer.length()
+                            - firstModifiableCharacterInBuffer) {
+                        onFaultyModifier(-17, "The rest of the stream shall be passed through but not all"
+                                + " modifiable characters in the buffer are skipped.");
+                    }
+                    passThrough = true;
+                }
                 // do we have to read at least a single character as there is no
                 // modifiable character left in the character buffer?
-                if (firstModifiableCharacterInBuffer >= characterBuffer.length() && !endOfStreamHit) {
+                else if (firstModifiableCharacterInBuffer >= characterBuffer.length() && !endOfStreamHit) {
                     // yes, we need fresh input ->
                     modifyAgainImmediately = true;
                 }
@@ -308,27 +756,29 @@ public class ModifyingReader extends Reader {
 
             numberOfCharactersToSkip = afterModification.getNumberOfCharactersToSkip();
 
+            if (passThrough && numberOfCharactersToSkip == 0) {
+                // nothing skipped -> read directly from the underlying reader
+                releaseBuffer();
+                return 0;
+            }
+
             if (!afterModification.isModifyAgainImmediately() && numberOfCharactersToSkip == 0 && !endOfStreamHit) {
                 onFaultyModifier(-16, "Not a single characters shall be " + "skipped but this is not possible of "
                         + "modifyAgain() returns false and the end of " + "stream is not reached yet.");
             }
-            numberOfCharactersToSkip--;
-        } else {
-            numberOfCharactersToSkip--;
-        }
 
-        // is the end of the stream reached?
-        if (firstModifiableCharacterInBuffer >= characterBuffer.length()) {
-            // yes -> return -1
-            return -1;
-        } else {
-            // no -> return the next unread character
-            char result = characterBuffer.charAt(firstModifiableCharacterInBuffer);
-
-            firstModifiableCharacterInBuffer++;
+            if (numberOfCharactersToSkip == 0) {
+                // the end of the stream is hit and nothing is skipped -> the remaining characters are read as they are
+                // (a negative value means that the modifier is not called any longer)
+                numberOfCharactersToSkip = -1;
+            }
+        }
 
-            return result;
+        int available = characterBuffer.length() - firstModifiableCharacterInBuffer;
+        if (numberOfCharactersToSkip > 0 && numberOfCharactersToSkip < available) {
+            available = numberOfCharactersToSkip;
         }
+        return available > 0 ? available : -1;
     }
 
     //
@@ -355,6 +805,10 @@ public class ModifyingReader extends Reader {
         builder.append(numberOfCharactersToSkip);
         builder.append(", \nendOfStreamHit=");
         builder.append(endOfStreamHit);
+        builder.append(", \npassThrough=");
+        builder.append(passThrough);
+        builder.append(", \nlowLatency=");
+        builder.append(lowLatency);
         builder.append(", \nlastModificationForDebuggingOnly=");
         builder.append(lastAfterModificationForDebuggingOnly);
         builder.append("]");
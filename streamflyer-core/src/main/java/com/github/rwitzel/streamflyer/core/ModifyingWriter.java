@@ -17,6 +17,7 @@ package com.github.rwitzel.streamflyer.core;
 
 import java.io.BufferedWriter;
 import java.io.IOException;
+import java.io.Serializable;
 import java.io.Writer;
 import java.util.ArrayList;
 import java.util.Collections;
@@ -24,6 +25,8 @@ import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 
+import com.github.rwitzel.streamflyer.internal.thirdparty.ZzzValidate;
+
 /**
  * A {@link Writer} that allows a {@link Modifier} to modify the characters in the underlying stream.
  * <p>
@@ -32,7 +35,8 @@ import java.util.Map;
  * ATTENTION! This writer flushes only characters that are confirmed by the given {@link Modifier}. EXAMPLE: Assume you
  * wrote 50 bytes to the writer and the modifier confirmed 25 of them by
  * {@link AfterModification#getNumberOfCharactersToSkip() skipping } them, then subsequent flushing will write only
- * these 25 confirmed characters.
+ * these 25 confirmed characters. Use {@link #setReleaseOnFlush(boolean)} and {@link #setMaximumHoldTime(long)} if the
+ * characters shall be confirmed earlier.
  * 
  * @author rwoo
  * @since 06.05.2011
@@ -96,6 +100,55 @@ public class ModifyingWriter extends Writer {
      */
     private boolean endOfStreamHit = false;
 
+    /**
+     * True if the modifier has requested to {@link AfterModification#isPassThrough() pass through} the rest of the
+     * stream. In this case the buffer is released and all writes are delegated to the underlying writer.
+     */
+    private boolean passThrough = false;
+
+    /**
+     * Is notified about events concerning the buffer. Null by default.
+     */
+    private BufferListener bufferListener;
+
+    /**
+     * Limits the number of characters in the buffer. Null by default, i.e. the buffer is not limited.
+     */
+    private BufferLimit bufferLimit;
+
+    /**
+     * True if {@link #flush()} shall ask the modifier to confirm the characters in the buffer. False by default.
+     */
+    private boolean releaseOnFlush = false;
+
+    /**
+     * The maximum time in nanoseconds the modifiable characters may stay in the buffer, or -1 if there is no maximum.
+     */
+    private long maximumHoldTime = -1;
+
+    /**
+     * The value of {@link System#nanoTime()} when the writer has noticed the modifiable characters in the buffer for
+     * the first time, or -1 if the clock is not started. The clock is restarted whenever the modifier confirms some
+     * characters, i.e. whenever {@link #firstModifiableCharacterInBuffer} advances.
+     */
+    private long holdingSince = -1;
+
+    /**
+     * The number of times modifiable characters were written without modification because they were held longer
+     * than {@link #maximumHoldTime}.
+     */
+    private long numberOfForcedReleases = 0;
+
+    /**
+     * The number of characters written to this writer so far.
+     */
+    private long inputOffset = 0;
+
+    /**
+     * The number of characters written to the underlying writer so far.
+     */
+    private long outputOffset = 0;
+
     /**
      * The holds the last modification provided by the {@link #modifier}. This property serves debugging purposes only.
      */
@@ -123,6 +176,191 @@ public class ModifyingWriter extends Writer {
         // adjustCapacityOfBuffer();
     }
 
+    //
+    // public methods
+    //
+
+    /**
+     * @param bufferListener
+     *            the listener that shall be notified about events concerning the character buffer, or
+     *            <code>null</code> if no listener shall be notified.
+     * @since 1.2.1
+     */
+    public void setBufferListener(BufferListener bufferListener) {
+        this.bufferListener = bufferListener;
+    }
+
+    /**
+     * Limits the number of characters in the buffer, i.e. the length of the look-behind plus the number of characters
+     * the modifier can process at once. Without a limit the buffer grows as long as the modifier requests more
+     * characters, for example, if a regular expression matches an unclosed comment.
+     * <p>
+     * The limit should be greater than the number of characters the modifier requests regularly.
+     * 
+     * @param maximumNumberOfCharactersInBuffer
+     *            the maximum number of characters in the buffer. Must be greater than one.
+     * @param policy
+     *            describes what happens if the modifier requests more characters than allowed.
+     * @since 1.2.1
+     */
+    public void setBufferLimit(int maximumNumberOfCharactersInBuffer, BufferLimitPolicy policy) {
+        this.bufferLimit = new BufferLimit(maximumNumberOfCharactersInBuffer, policy);
+    }
+
+    /**
+     * @return Returns how often the modifiable characters in the buffer were skipped without modification because the
+     *         buffer was full and the {@link BufferLimitPolicy#SKIP} is configured.
+     * @since 1.2.1
+     */
+    public long getNumberOfBufferLimitSkips() {
+        return bufferLimit == null ? 0 : bufferLimit.getNumberOfSkips();
+    }
+
+    /**
+     * Changes the behavior of {@link #flush()}. By default {@link #flush()} writes only the characters the modifier has
+     * already confirmed. If this option is switched on, {@link #flush()} asks the modifier to process the modifiable
+     * characters in the buffer first, although the buffer might contain fewer characters than the modifier has
+     * requested. The end of the stream is not signaled to the modifier, i.e. the modifier keeps the characters it
+     * cannot confirm yet, e.g. the characters of an open match.
+     * <p>
+     * This is useful for streaming responses like server-sent events where the client shall receive the characters
+     * as soon as the application flushes the writer.
+     * 
+     * @param releaseOnFlush
+     *            true if {@link #flush()} shall ask the modifier to confirm the characters in the buffer.
+     * @since 1.2.1
+     */
+    public void setReleaseOnFlush(boolean releaseOnFlush) {
+        this.releaseOnFlush = releaseOnFlush;
+    }
+
+    /**
+     * Limits the time the modifiable characters stay in the buffer. If the modifiable characters are held longer than
+     * the given time, the writer asks the modifier to confirm the characters (like {@link #flush()} does if
+     * {@link #setReleaseOnFlush(boolean) releaseOnFlush} is set) and writes the characters the modifier still holds
+     * <em>without modification</em>. Then the underlying writer is flushed.
+     * <p>
+     * The time is checked if characters are written or the writer is flushed. Therefore, flush the writer
+     * periodically if the application does not write regularly.
+     * 
+     * @param maximumHoldTimeInMillis
+     *            the maximum time in milliseconds, or -1 if the time shall not be limited.
+     * @since 1.2.1
+     */
+    public void setMaximumHoldTime(long maximumHoldTimeInMillis) {
+        this.maximumHoldTime = maximumHoldTimeInMillis < 0 ? -1 : maximumHoldTimeInMillis * 1000000L;
+        this.holdingSince = -1;
+    }
+
+    /**
+     * @return Returns how often modifiable characters were written without modification because they were held longer
+     *         than the {@link #setMaximumHoldTime(long) maximum hold time}.
+     * @since 1.2.1
+     */
+    public long getNumberOfForcedReleases() {
+        return numberOfForcedReleases;
+    }
+
+    /**
+     * Rebinds this writer to another underlying writer so that another stream can be modified without creating a new
+     * writer, a new modifier and new buffers.
+     * <p>
+     * The modifier is {@link Resettable#reset() reset} if it implements {@link Resettable}. Otherwise the modifier must
+     * not hold any state that refers to the previous stream. The character buffer keeps its capacity. The
+     * configuration, e.g. the buffer limit and the maximum hold time, is kept as well.
+     * <p>
+     * Characters of the previous stream that are not written to the previous underlying writer yet are discarded.
+     * Therefore, close the writer before, e.g. via {@link #close(boolean)} if the previous underlying writer shall not
+     * be closed.
+     * 
+     * @param writer
+     *            The underlying writer that receives the modified characters of the next stream.
+     * @since 1.2.1
+     */
+    public void reset(Writer writer) {
+
+        this.delegate = writer;
+
+        if (modifier instanceof Resettable) {
+            ((Resettable) modifier).reset();
+        }
+
+        // initialize the mutable state (see constructor)
+        this.numberOfCharactersToSkip = 0;
+        this.minimumLengthOfLookBehind = 0;
+        this.firstModifiableCharacterInBuffer = 0;
+        this.requestedNumCharactersInBuffer = 1;
+        this.endOfStreamHit = false;
+        this.passThrough = false;
+        this.holdingSince = -1;
+        this.lastAfterModificationForDebuggingOnly = null;
+        this.inputOffset = 0;
+        this.outputOffset = 0;
+        this.characterBuffer.setLength(0);
+    }
+
+    /**
+     * Takes a snapshot of the state of this writer and its modifier. The snapshot can be taken between any two writes.
+     * The underlying writer is flushed so that the {@link StreamCheckpoint#getOutputOffset() output offset} of the
+     * snapshot refers to characters that have left this writer.
+     * 
+     * @return Returns the snapshot.
+     * @throws IllegalStateException
+     *             Thrown if the modifier does not implement {@link Checkpointable}.
+     * @since 1.2.1
+     */
+    public StreamCheckpoint checkpoint() throws IOException {
+
+        if (!(modifier instanceof Checkpointable)) {
+            throw new IllegalStateException("the modifier does not implement Checkpointable: " + modifier);
+        }
+        Serializable modifierState = ((Checkpointable) modifier).checkpoint();
+
+        delegate.flush();
+
+        // the characters needed by the look-behind of the next modification and the characters not confirmed yet
+        int start = Math.max(0, firstModifiableCharacterInBuffer - minimumLengthOfLookBehind);
+
+        return new StreamCheckpoint(inputOffset, outputOffset, characterBuffer.substring(start),
+                firstModifiableCharacterInBuffer - start, minimumLengthOfLookBehind, requestedNumCharactersInBuffer,
+                0, endOfStreamHit, passThrough, modifierState);
+    }
+
+    /**
+     * Restores the given snapshot. This writer must not be used before. The underlying writer must append to the
+     * output truncated to the {@link StreamCheckpoint#getOutputOffset() output offset} of the snapshot, and the
+     * characters following the {@link StreamCheckpoint#getInputOffset() input offset} shall be written to this writer.
+     * The modifier must have the same configuration as the modifier of the writer the snapshot was taken from.
+     * 
+     * @param checkpoint
+     *            a snapshot taken by {@link #checkpoint()}.
+     * @throws IllegalStateException
+     *             Thrown if the modifier does not implement {@link Checkpointable}.
+     * @since 1.2.1
+     */
+    public void resume(StreamCheckpoint checkpoint) {
+
+        ZzzValidate.notNull(checkpoint, "checkpoint must not be null");
+        if (!(modifier instanceof Checkpointable)) {
+            throw new IllegalStateException("the modifier does not implement Checkpointable: " + modifier);
+        }
+
+        ((Checkpointable) modifier).resume(checkpoint.getModifierState());
+
+        this.characterBuffer.setLength(0);
+        this.characterBuffer.append(checkpoint.getCharactersInBuffer());
+        this.firstModifiableCharacterInBuffer = checkpoint.getFirstModifiableCharacterInBuffer();
+        this.minimumLengthOfLookBehind = checkpoint.getMinimumLengthOfLookBehind();
+        this.requestedNumCharactersInBuffer = checkpoint.getRequestedNumberOfCharactersInBuffer();
+        this.numberOfCharactersToSkip = 0;
+        this.endOfStreamHit = checkpoint.isEndOfStreamHit();
+        this.passThrough = checkpoint.isPassThrough();
+        this.holdingSince = -1;
+        this.inputOffset = checkpoint.getInputOffset();
+        this.outputOffset = checkpoint.getOutputOffset();
+        adjustCapacityOfBuffer();
+    }
+
     //
     // interface Writer
     //
@@ -133,6 +371,15 @@ public class ModifyingWriter extends Writer {
     @Override
     public void flush() throws IOException {
 
+        if (maximumHoldTime != -1 && checkHoldTime()) {
+            // the underlying writer is already flushed
+            return;
+        }
+
+        if (releaseOnFlush) {
+            release();
+        }
+
         // delegate to the underlying writer
         delegate.flush();
     }
@@ -165,15 +412,17 @@ public class ModifyingWriter extends Writer {
         // modify as long as characters are skipped (modify again makes not
         // much sense but there may some use cases that require modfiyAgain even
         // on the position after the last character)
-        while (modify()) {
+        while (!passThrough && modify()) {
             // loop
         }
 
         // write the remaining bytes to the underlying writer
         delegate.append(characterBuffer, firstModifiableCharacterInBuffer, characterBuffer.length());
+        outputOffset += characterBuffer.length() - firstModifiableCharacterInBuffer;
 
-        // clear same variables (only to tidy up)
-        characterBuffer = null;
+        // clear same variables (only to tidy up, the buffer is kept for reset(Writer))
+        characterBuffer.setLength(0);
+        firstModifiableCharacterInBuffer = 0;
 
         flush();
 
@@ -199,6 +448,15 @@ public class ModifyingWriter extends Writer {
 
         // are there some characters to append to the characterBuffer yet?
         while (len > 0) {
+
+            // shall the rest of the stream be passed through?
+            if (passThrough) {
+                // yes -> write directly to the underlying writer
+                delegate.write(cbuf, off, len);
+                countPassedThrough(len);
+                return;
+            }
+
             // yes -> append characters
 
             // determine the number of characters to add to the buffer
@@ -215,32 +473,90 @@ public class ModifyingWriter extends Writer {
 
             // append the characters to the characterBuffer
             characterBuffer.append(cbuf, off, numberOfCharactersToAppend);
+            inputOffset += numberOfCharactersToAppend;
 
             // update the variables offset and length
             off = off + numberOfCharactersToAppend;
             len = len - numberOfCharactersToAppend;
 
             // modify if there are enough characters in the buffer
-            while (characterBuffer.length() >= requestedNumCharactersInBuffer && modify()) {
+            while (!passThrough && characterBuffer.length() >= requestedNumCharactersInBuffer && modify()) {
                 // loop
             }
 
         }
+
+        if (maximumHoldTime != -1) {
+            checkHoldTime();
+        }
+    }
+
+    /**
+     * @see java.io.Writer#write(int)
+     */
+    @Override
+    public void write(int c) throws IOException {
+
+        if (passThrough && !endOfStreamHit) {
+            delegate.write(c);
+            countPassedThrough(1);
+        } else {
+            super.write(c);
+        }
+    }
+
+    /**
+     * @see java.io.Writer#write(java.lang.String, int, int)
+     */
+    @Override
+    public void write(String str, int off, int len) throws IOException {
+
+        if (passThrough && !endOfStreamHit) {
+            delegate.write(str, off, len);
+            countPassedThrough(len);
+        } else {
+            super.write(str, off, len);
+        }
     }
 
     /**
      * @return Returns true if some characters are skipped, i.e. written to the underlying writer, or the content of the
-     *         buffer shall be modified again immediately.
+     *         buffer shall be modified again immediately. Returns false if the rest of the stream shall be passed
+     *         through.
      * @throws IOException
      */
     private boolean modify() throws IOException {
         AfterModification afterModification = modifier.modify(characterBuffer, firstModifiableCharacterInBuffer,
                 endOfStreamHit);
 
+        if (bufferLimit != null) {
+            afterModification = bufferLimit.check(afterModification, characterBuffer, firstModifiableCharacterInBuffer);
+        }
+
         lastAfterModificationForDebuggingOnly = afterModification;
 
         numberOfCharactersToSkip = afterModification.getNumberOfCharactersToSkip();
 
+        if (afterModification.isPassThrough()) {
+
+            int end = firstModifiableCharacterInBuffer + numberOfCharactersToSkip;
+            if (end != characterBuffer.length()) {
+                onFaultyModifier(-17, "The rest of the stream shall be passed through but not all"
+                        + " modifiable characters in the buffer are skipped.");
+            }
+
+            // write away the skipped characters and release the buffer
+            delegate.append(characterBuffer, firstModifiableCharacterInBuffer, end);
+            outputOffset += end - firstModifiableCharacterInBuffer;
+            characterBuffer.setLength(0);
+            characterBuffer.trimToSize();
+            firstModifiableCharacterInBuffer = 0;
+            minimumLengthOfLookBehind = 0;
+            passThrough = true;
+
+            return false;
+        }
+
         boolean someCharactersSkippedOrModifyAgainImmediately = false;
 
         if (afterModification.isModifyAgainImmediately()) {
@@ -267,8 +583,12 @@ public class ModifyingWriter extends Writer {
                 }
 
                 delegate.append(characterBuffer, firstModifiableCharacterInBuffer, end);
+                outputOffset += end - firstModifiableCharacterInBuffer;
                 someCharactersSkippedOrModifyAgainImmediately = true;
                 firstModifiableCharacterInBuffer = end;
+
+                // the characters still held have not been held longer than the confirmed ones -> restart the clock
+                holdingSince = -1;
             } else { // if (numberOfCharactersToSkip == 0)
 
                 // This block is usually entered when the modifier decided to do
@@ -298,6 +618,73 @@ public class ModifyingWriter extends Writer {
         return someCharactersSkippedOrModifyAgainImmediately;
     }
 
+    /**
+     * Asks the modifier to process the modifiable characters in the buffer although the buffer might contain fewer
+     * characters than requested. Stops as soon as the modifier does not confirm any more characters.
+     */
+    private void release() throws IOException {
+
+        while (!passThrough && !endOfStreamHit && firstModifiableCharacterInBuffer < characterBuffer.length()) {
+            if (!modify() || lastAfterModificationForDebuggingOnly.isModifyAgainImmediately()
+                    || numberOfCharactersToSkip == 0) {
+                // the modifier holds the rest of the characters
+                break;
+            }
+        }
+    }
+
+    /**
+     * Releases the modifiable characters if they are held longer than {@link #maximumHoldTime}.
+     * 
+     * @return Returns true if the characters were released and the underlying writer was flushed.
+     */
+    private boolean checkHoldTime() throws IOException {
+
+        if (passThrough || endOfStreamHit || firstModifiableCharacterInBuffer >= characterBuffer.length()) {
+            holdingSince = -1;
+            return false;
+        }
+
+        long now = System.nanoTime();
+        if (holdingSince == -1) {
+            holdingSince = now;
+        }
+        if (now - holdingSince < maximumHoldTime) {
+            return false;
+        }
+
+        release();
+
+        if (passThrough || firstModifiableCharacterInBuffer >= characterBuffer.length()) {
+            holdingSince = -1;
+        } else {
+            if (holdingSince == -1) {
+                // the modifier has confirmed some characters -> the clock starts again for the characters it holds
+                holdingSince = now;
+            }
+            // does the modifier still hold characters that exceeded the limit? -> write them without modification
+            if (now - holdingSince >= maximumHoldTime) {
+                delegate.append(characterBuffer, firstModifiableCharacterInBuffer, characterBuffer.length());
+                outputOffset += characterBuffer.length() - firstModifiableCharacterInBuffer;
+                firstModifiableCharacterInBuffer = characterBuffer.length();
+                numberOfForcedReleases++;
+                removeCharactersInBufferNotNeededAnyLonger();
+                holdingSince = -1;
+            }
+        }
+
+        delegate.flush();
+        return true;
+    }
+
+    /**
+     * Counts the characters that are passed through to the underlying writer.
+     */
+    private void countPassedThrough(int numberOfCharacters) {
+        inputOffset += numberOfCharacters;
+        outputOffset += numberOfCharacters;
+    }
+
     /**
      * Updates the input buffer according to {@link #minimumLengthOfLookBehind} and
      * {@link #requestedNumCharactersInBuffer}, and then fills the buffer up to its capacity.
@@ -334,10 +721,15 @@ public class ModifyingWriter extends Writer {
         // is the current capacity not big enough?
         if (characterBuffer.capacity() < requestedNumCharactersInBuffer) {
 
+            int oldCapacity = characterBuffer.capacity();
+
             // increase the capacity (we delegate to the default behavior of
             // StringBuffer)
             characterBuffer.ensureCapacity(requestedNumCharactersInBuffer);
 
+            if (bufferListener != null) {
+                bufferListener.onCapacityIncreased(oldCapacity, characterBuffer.capacity());
+            }
         }
 
     }
@@ -392,6 +784,12 @@ public class ModifyingWriter extends Writer {
         builder.append(numberOfCharactersToSkip);
         builder.append(", \nendOfStreamHit=");
         builder.append(endOfStreamHit);
+        builder.append(", \npassThrough=");
+        builder.append(passThrough);
+        builder.append(", \nreleaseOnFlush=");
+        builder.append(releaseOnFlush);
+        builder.append(", \nmaximumHoldTime=");
+        builder.append(maximumHoldTime);
         builder.append(", \nlastModificationForDebuggingOnly=");
         builder.append(lastAfterModificationForDebuggingOnly);
         builder.append("]");
@@ -0,0 +1,39 @@
+/**
+ * Copyright (C) 2011 rwitzel75@googlemail.com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.rwitzel.streamflyer.core;
+
+/**
+ * An object that can be returned to its initial state so that it can be reused for another stream.
+ * <p>
+ * Creating a {@link Modifier} can be expensive, e.g. if regular expressions must be compiled or buffers must be
+ * allocated. If many (small) streams are processed one after another, a {@link Modifier} that implements this interface
+ * can be reset instead, see {@link ModifyingReader#reset(java.io.Reader)} and
+ * {@link ModifyingWriter#reset(java.io.Writer)}. The compiled regular expressions and the allocated buffers are kept.
+ * <p>
+ * Decorators should reset their delegates if the delegates implement this interface.
+ * 
+ * @author rwoo
+ * @since 1.2.1
+ */
+public interface Resettable {
+
+    /**
+     * Returns this object to the state it had after construction, i.e. discards all state that refers to the stream
+     * processed so far. The configuration, e.g. injected properties and listeners, is kept.
+     */
+    public void reset();
+
+}
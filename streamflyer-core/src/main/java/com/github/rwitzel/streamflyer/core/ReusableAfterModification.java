@@ -0,0 +1,64 @@
+/**
+ * Copyright (C) 2011 rwitzel75@googlemail.com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.rwitzel.streamflyer.core;
+
+/**
+ * A mutable {@link AfterModification} that a modifier can return again and again instead of creating a new message for
+ * each call of {@link Modifier#modify(StringBuilder, int, boolean)}.
+ * <p>
+ * {@link ModifyingReader} and {@link ModifyingWriter} evaluate the returned message before they call the modifier
+ * again. Therefore, a modifier may reuse the message as soon as it is called again. Modifiers that decorate other
+ * modifiers must not keep a reference to a message returned by the decorated modifier.
+ * 
+ * @author rwoo
+ * @since 1.2.1
+ */
+public class ReusableAfterModification extends AfterModification {
+
+    /**
+     * Creates a STOP message.
+     */
+    public ReusableAfterModification() {
+        super(0, false, 0, 1);
+    }
+
+    /**
+     * Sets the values of the message.
+     * 
+     * @return Returns this message.
+     * @see AfterModification#AfterModification(int, boolean, int, int)
+     */
+    public ReusableAfterModification set(int numberOfCharactersToSkip, boolean modifyAgainImmediately,
+            int newMinimumLengthOfLookBehind, int newNumberOfChars) {
+
+        init(numberOfCharactersToSkip, modifyAgainImmediately, newMinimumLengthOfLookBehind, newNumberOfChars, false);
+        return this;
+    }
+
+    /**
+     * Sets the values of the message.
+     * 
+     * @return Returns this message.
+     * @see AfterModification#AfterModification(int, boolean, int, int, boolean)
+     */
+    public ReusableAfterModification set(int numberOfCharactersToSkip, boolean modifyAgainImmediately,
+            int newMinimumLengthOfLookBehind, int newNumberOfChars, boolean passThrough) {
+
+        init(numberOfCharactersToSkip, modifyAgainImmediately, newMinimumLengthOfLookBehind, newNumberOfChars,
+                passThrough);
+        return this;
+    }
+}
@@ -0,0 +1,182 @@
+/**
+ * Copyright (C) 2011 rwitzel75@googlemail.com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.rwitzel.streamflyer.core;
+
+import java.io.Serializable;
+
+/**
+ * A snapshot of the state of a {@link ModifyingReader} or a {@link ModifyingWriter} and its {@link Modifier}, see
+ * {@link ModifyingReader#checkpoint()} and {@link ModifyingWriter#checkpoint()}.
+ * <p>
+ * A long-running transformation can be resumed from a snapshot: Position the input at the
+ * {@link #getInputOffset() input offset}, truncate the output to the {@link #getOutputOffset() output offset}, create a
+ * reader (or writer) with a modifier of the same configuration, and call {@link ModifyingReader#resume(StreamCheckpoint)} (or
+ * {@link ModifyingWriter#resume(StreamCheckpoint)}).
+ * <p>
+ * EXAMPLE:
+ * <code><pre class="prettyprint lang-java">// take a snapshot every 100 MB
+StreamCheckpoint checkpoint = modifyingReader.checkpoint();
+// ... save the checkpoint via an ObjectOutputStream ...
+
+// after a crash
+Reader input = openInputAt(checkpoint.getInputOffset());
+Writer output = openOutputTruncatedTo(checkpoint.getOutputOffset());
+ModifyingReader modifyingReader = new ModifyingReader(input, template.newModifier());
+modifyingReader.resume(checkpoint);
+</pre></code>
+ * <p>
+ * The snapshot contains the characters in the buffer that are needed to continue, i.e. the look-behind and the
+ * characters that are not confirmed by the modifier yet. Therefore, a snapshot is cheap, its size is roughly given by
+ * the number of characters the modifier requests.
+ * 
+ * @author rwoo
+ * @since 1.2.1
+ */
+public class StreamCheckpoint implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    private final long inputOffset;
+
+    private final long outputOffset;
+
+    private final String charactersInBuffer;
+
+    private final int firstModifiableCharacterInBuffer;
+
+    private final int minimumLengthOfLookBehind;
+
+    private final int requestedNumberOfCharactersInBuffer;
+
+    private final int numberOfCharactersToSkip;
+
+    private final boolean endOfStreamHit;
+
+    private final boolean passThrough;
+
+    private final Serializable modifierState;
+
+    StreamCheckpoint(long inputOffset, long outputOffset, String charactersInBuffer,
+            int firstModifiableCharacterInBuffer, int minimumLengthOfLookBehind,
+            int requestedNumberOfCharactersInBuffer, int numberOfCharactersToSkip, boolean endOfStreamHit,
+            boolean passThrough, Serializable modifierState) {
+        super();
+        this.inputOffset = inputOffset;
+        this.outputOffset = outputOffset;
+        this.charactersInBuffer = charactersInBuffer;
+        this.firstModifiableCharacterInBuffer = firstModifiableCharacterInBuffer;
+        this.minimumLengthOfLookBehind = minimumLengthOfLookBehind;
+        this.requestedNumberOfCharactersInBuffer = requestedNumberOfCharactersInBuffer;
+        this.numberOfCharactersToSkip = numberOfCharactersToSkip;
+        this.endOfStreamHit = endOfStreamHit;
+        this.passThrough = passThrough;
+        this.modifierState = modifierState;
+    }
+
+    /**
+     * @return Returns the number of characters read from the underlying reader (or written to the modifying writer) so
+     *         far. The input must be resumed at this offset.
+     */
+    public long getInputOffset() {
+        return inputOffset;
+    }
+
+    /**
+     * @return Returns the number of characters read from the modifying reader (or written to the underlying writer) so
+     *         far. The output must be resumed at this offset.
+     */
+    public long getOutputOffset() {
+        return outputOffset;
+    }
+
+    /**
+     * @return Returns the look-behind followed by the characters that are read from the input but not written to the
+     *         output yet.
+     */
+    public String getCharactersInBuffer() {
+        return charactersInBuffer;
+    }
+
+    /**
+     * @return Returns the length of the look-behind in {@link #getCharactersInBuffer()}.
+     */
+    public int getFirstModifiableCharacterInBuffer() {
+        return firstModifiableCharacterInBuffer;
+    }
+
+    public int getMinimumLengthOfLookBehind() {
+        return minimumLengthOfLookBehind;
+    }
+
+    public int getRequestedNumberOfCharactersInBuffer() {
+        return requestedNumberOfCharactersInBuffer;
+    }
+
+    /**
+     * @return Returns the number of modifiable characters in the buffer the modifier has already confirmed.
+     */
+    public int getNumberOfCharactersToSkip() {
+        return numberOfCharactersToSkip;
+    }
+
+    public boolean isEndOfStreamHit() {
+        return endOfStreamHit;
+    }
+
+    /**
+     * @return Returns true if the rest of the stream is passed through without modification.
+     */
+    public boolean isPassThrough() {
+        return passThrough;
+    }
+
+    /**
+     * @return Returns the state returned by {@link Checkpointable#checkpoint()} of the modifier.
+     */
+    public Serializable getModifierState() {
+        return modifierState;
+    }
+
+    /**
+     * @see java.lang.Object#toString()
+     */
+    @Override
+    public String toString() {
+        StringBuilder builder = new StringBuilder();
+        builder.append("StreamCheckpoint [\ninputOffset=");
+        builder.append(inputOffset);
+        builder.append(", \noutputOffset=");
+        builder.append(outputOffset);
+        builder.append(", \ncharactersInBuffer=");
+        builder.append(charactersInBuffer);
+        builder.append(", \nfirstModifiableCharacterInBuffer=");
+        builder.append(firstModifiableCharacterInBuffer);
+        builder.append(", \nminimumLengthOfLookBehind=");
+        builder.append(minimumLengthOfLookBehind);
+        builder.append(", \nrequestedNumberOfCharactersInBuffer=");
+        builder.append(requestedNumberOfCharactersInBuffer);
+        builder.append(", \nnumberOfCharactersToSkip=");
+        builder.append(numberOfCharactersToSkip);
+        builder.append(", \nendOfStreamHit=");
+        builder.append(endOfStreamHit);
+        builder.append(", \npassThrough=");
+        builder.append(passThrough);
+        builder.append(", \nmodifierState=");
+        builder.append(modifierState);
+        builder.append("]");
+        return builder.toString();
+    }
+}
@@ -28,6 +28,28 @@ import java.util.regex.MatchResult;
  */
 public abstract class AbstractMatchProcessor implements MatchProcessor {
 
+    /**
+     * If not null, then {@link #createResult(MatchResult, int, boolean)} returns this result again and again.
+     */
+    private ReusableMatchProcessorResult reusableResult;
+
+    protected AbstractMatchProcessor() {
+        this(false);
+    }
+
+    /**
+     * @param reuseResult
+     *            True if {@link #createResult(MatchResult, int, boolean)} shall return the same
+     *            {@link ReusableMatchProcessorResult} again and again instead of creating a new result for each match.
+     * @since 1.2.1
+     */
+    protected AbstractMatchProcessor(boolean reuseResult) {
+        super();
+        if (reuseResult) {
+            reusableResult = new ReusableMatchProcessorResult();
+        }
+    }
+
     /**
      * @param matchResult
      *            the {@link MatchResult} given to the {@link MatchProcessor}.
@@ -52,7 +74,11 @@ public abstract class AbstractMatchProcessor implements MatchProcessor {
         // increase the *from* to avoid endless loops)
         int offset = matchStart == matchEnd ? 1 : 0;
 
-        return new MatchProcessorResult(newMatchEnd + offset, continueMatching);
+        if (reusableResult != null) {
+            return reusableResult.set(newMatchEnd + offset, continueMatching);
+        } else {
+            return new MatchProcessorResult(newMatchEnd + offset, continueMatching);
+        }
     }
 
 }
@@ -0,0 +1,327 @@
+/**
+ * Copyright (C) 2011 rwitzel75@googlemail.com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.rwitzel.streamflyer.regex;
+
+import java.util.regex.Matcher;
+
+/**
+ * An {@link OnStreamStandardMatcher} that limits the effort spent on a single match attempt. This protects against
+ * regular expressions that backtrack catastrophically on certain input, e.g. <code>(a+)+b</code> on a long run of
+ * <code>a</code>.
+ * <p>
+ * The JDK matcher works on a {@link CharSequence} that counts the calls of {@link CharSequence#charAt(int)}. An attempt
+ * exceeds its budget if it accesses more characters than allowed or, optionally, if it takes longer than allowed. The
+ * elapsed time is checked every {@value #DEADLINE_CHECK_INTERVAL} character accesses. What happens then is defined by
+ * the {@link MatchBudgetPolicy}.
+ * <p>
+ * The counts of the attempts and of the character accesses are available via the getters, e.g. for monitoring.
+ * <p>
+ * Usage:
+ * 
+ * <pre>
+ * Matcher jdkMatcher = Pattern.compile(regex).matcher(&quot;&quot;);
+ * jdkMatcher.useTransparentBounds(true);
+ * jdkMatcher.useAnchoringBounds(false);
+ * OnStreamMatcher matcher = new BudgetedOnStreamMatcher(jdkMatcher, 100000, 0, MatchBudgetPolicy.SKIP);
+ * Modifier modifier = new RegexModifier(matcher, new ReplacingProcessor(replacement), 1, 2048);
+ * </pre>
+ * 
+ * @author rwoo
+ * @since 1.2.1
+ */
+public class BudgetedOnStreamMatcher extends OnStreamStandardMatcher {
+
+    /**
+     * The number of character accesses after which the elapsed time of the attempt is checked.
+     */
+    public static final int DEADLINE_CHECK_INTERVAL = 1024;
+
+    /**
+     * Thrown by {@link BudgetedCharSequence} to abort the current attempt. The instance is reused, so no stack trace is
+     * filled in.
+     */
+    private static class AttemptAbortedException extends RuntimeException {
+
+        private static final long serialVersionUID = 1L;
+
+        @Override
+        public synchronized Throwable fillInStackTrace() {
+            return this;
+        }
+    }
+
+    private static final AttemptAbortedException ATTEMPT_ABORTED = new AttemptAbortedException();
+
+    /**
+     * Counts the character accesses of the current attempt and aborts the attempt if the budget is exceeded.
+     */
+    private class BudgetedCharSequence implements CharSequence {
+
+        private CharSequence delegate;
+
+        @Override
+        public char charAt(int index) {
+            if (++charAccesses >= nextBudgetCheck) {
+                checkBudget();
+            }
+            return delegate.charAt(index);
+        }
+
+        @Override
+        public int length() {
+            return delegate.length();
+        }
+
+        @Override
+        public CharSequence subSequence(int start, int end) {
+            return delegate.subSequence(start, end);
+        }
+
+        @Override
+        public String toString() {
+            return delegate.toString();
+        }
+    }
+
+    //
+    // injected properties
+    //
+
+    protected long maxCharAccessesPerAttempt;
+
+    protected long maxNanosPerAttempt;
+
+    protected MatchBudgetPolicy policy;
+
+    //
+    // state
+    //
+
+    private final BudgetedCharSequence budgetedInput = new BudgetedCharSequence();
+
+    /**
+     * The number of character accesses of the current attempt.
+     */
+    private long charAccesses;
+
+    /**
+     * If {@link #charAccesses} reaches this number, {@link #checkBudget()} is called.
+     */
+    private long nextBudgetCheck;
+
+    /**
+     * The start of the current attempt in nanoseconds. Only set if {@link #maxNanosPerAttempt} is positive.
+     */
+    private long attemptStart;
+
+    /**
+     * True if the last attempt exceeded its budget.
+     */
+    private boolean lastAttemptAborted = false;
+
+    private long numberOfAttempts = 0;
+
+    private long numberOfAbortedAttempts = 0;
+
+    private long totalCharAccesses = 0;
+
+    private long maxCharAccessesOfAnAttempt = 0;
+
+    //
+    // constructors
+    //
+
+    /**
+     * @param matcher
+     *            See {@link OnStreamStandardMatcher#OnStreamStandardMatcher(Matcher)}.
+     * @param maxCharAccessesPerAttempt
+     *            the maximum number of characters a single match attempt may access. Must be positive.
+     * @param maxNanosPerAttempt
+     *            the maximum time in nanoseconds a single match attempt may take, or zero if the time is not limited.
+     * @param policy
+     *            describes what happens if an attempt exceeds its budget.
+     */
+    public BudgetedOnStreamMatcher(Matcher matcher, long maxCharAccessesPerAttempt, long maxNanosPerAttempt,
+            MatchBudgetPolicy policy) {
+        super(matcher);
+
+        if (maxCharAccessesPerAttempt <= 0) {
+            throw new IllegalArgumentException("maxCharAccessesPerAttempt must be positive but was "
+                    + maxCharAccessesPerAttempt);
+        }
+        if (maxNanosPerAttempt < 0) {
+            throw new IllegalArgumentException("maxNanosPerAttempt must not be negative but was "
+                    + maxNanosPerAttempt);
+        }
+        if (policy == null) {
+            throw new IllegalArgumentException("policy must not be null");
+        }
+
+        this.maxCharAccessesPerAttempt = maxCharAccessesPerAttempt;
+        this.maxNanosPerAttempt = maxNanosPerAttempt;
+        this.policy = policy;
+    }
+
+    //
+    // override OnStreamStandardMatcher.*
+    //
+
+    /**
+     * @see com.github.rwitzel.streamflyer.regex.OnStreamStandardMatcher#reset(java.lang.CharSequence)
+     */
+    @Override
+    public void reset(CharSequence input_) {
+        budgetedInput.delegate = input_;
+        matcher.reset(budgetedInput);
+        // the scanner shall not access the characters via the budgeted sequence
+        this.input = input_;
+    }
+
+    /**
+     * @see com.github.rwitzel.streamflyer.regex.OnStreamStandardMatcher#lookingAt(int)
+     */
+    @Override
+    protected boolean lookingAt(int from) {
+
+        charAccesses = 0;
+        updateNextBudgetCheck();
+        if (maxNanosPerAttempt > 0) {
+            attemptStart = System.nanoTime();
+        }
+        lastAttemptAborted = false;
+
+        try {
+            return super.lookingAt(from);
+        } catch (AttemptAbortedException e) {
+            lastAttemptAborted = true;
+            numberOfAbortedAttempts++;
+            if (policy == MatchBudgetPolicy.FAIL) {
+                throw new MatchBudgetExceededException("The match attempt at position " + from
+                        + " exceeded its budget (" + charAccesses + " character accesses) in " + this, from);
+            }
+            return false;
+        } finally {
+            numberOfAttempts++;
+            totalCharAccesses += charAccesses;
+            if (charAccesses > maxCharAccessesOfAnAttempt) {
+                maxCharAccessesOfAnAttempt = charAccesses;
+            }
+        }
+    }
+
+    /**
+     * Returns false if the last attempt exceeded its budget. Otherwise we would fetch more input and try again.
+     * 
+     * @see com.github.rwitzel.streamflyer.regex.OnStreamStandardMatcher#hitEnd()
+     */
+    @Override
+    public boolean hitEnd() {
+        return !lastAttemptAborted && super.hitEnd();
+    }
+
+    /**
+     * @see com.github.rwitzel.streamflyer.regex.OnStreamStandardMatcher#requireEnd()
+     */
+    @Override
+    public boolean requireEnd() {
+        return !lastAttemptAborted && super.requireEnd();
+    }
+
+    //
+    // private methods
+    //
+
+    private void updateNextBudgetCheck() {
+        if (maxCharAccessesPerAttempt - charAccesses < DEADLINE_CHECK_INTERVAL) {
+            nextBudgetCheck = maxCharAccessesPerAttempt + 1;
+        } else {
+            nextBudgetCheck = charAccesses + DEADLINE_CHECK_INTERVAL;
+        }
+    }
+
+    private void checkBudget() {
+        if (charAccesses > maxCharAccessesPerAttempt) {
+            throw ATTEMPT_ABORTED;
+        }
+        if (maxNanosPerAttempt > 0 && System.nanoTime() - attemptStart > maxNanosPerAttempt) {
+            throw ATTEMPT_ABORTED;
+        }
+        updateNextBudgetCheck();
+    }
+
+    //
+    // public methods
+    //
+
+    /**
+     * @return Returns the number of match attempts.
+     */
+    public long getNumberOfAttempts() {
+        return numberOfAttempts;
+    }
+
+    /**
+     * @return Returns the number of match attempts that exceeded their budget.
+     */
+    public long getNumberOfAbortedAttempts() {
+        return numberOfAbortedAttempts;
+    }
+
+    /**
+     * @return Returns the number of character accesses of all match attempts.
+     */
+    public long getTotalCharAccesses() {
+        return totalCharAccesses;
+    }
+
+    /**
+     * @return Returns the greatest number of character accesses of a single match attempt. Compare this number with
+     *         the budget to see how much of the budget is used.
+     */
+    public long getMaxCharAccessesOfAnAttempt() {
+        return maxCharAccessesOfAnAttempt;
+    }
+
+    //
+    // override Object.*
+    //
+
+    /**
+     * @see java.lang.Object#toString()
+     */
+    @Override
+    public String toString() {
+        StringBuilder builder = new StringBuilder();
+        builder.append("BudgetedOnStreamMatcher [pattern=");
+        builder.append(matcher.pattern());
+        builder.append(", \nmaxCharAccessesPerAttempt=");
+        builder.append(maxCharAccessesPerAttempt);
+        builder.append(", \nmaxNanosPerAttempt=");
+        builder.append(maxNanosPerAttempt);
+        builder.append(", \npolicy=");
+        builder.append(policy);
+        builder.append(", \nnumberOfAttempts=");
+        builder.append(numberOfAttempts);
+        builder.append(", \nnumberOfAbortedAttempts=");
+        builder.append(numberOfAbortedAttempts);
+        builder.append(", \ntotalCharAccesses=");
+        builder.append(totalCharAccesses);
+        builder.append(", \nmaxCharAccessesOfAnAttempt=");
+        builder.append(maxCharAccessesOfAnAttempt);
+        builder.append("]");
+        return builder.toString();
+    }
+}
@@ -0,0 +1,90 @@
+/**
+ * Copyright (C) 2011 rwitzel75@googlemail.com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.rwitzel.streamflyer.regex;
+
+/**
+ * A snapshot of the number of times a {@link RegexModifier} has passed each {@link RegexModifierCheckpoint checkpoint},
+ * see {@link RegexModifier#getCheckpointCounts()}.
+ * <p>
+ * The ratios help to find out whether a pattern is streaming-hostile. EXAMPLE: A high ratio of
+ * {@link RegexModifierCheckpoint#MATCH_OPEN} and {@link RegexModifierCheckpoint#NOMATCH_FETCH} means that the modifier
+ * often needs more input to decide about a match. Then consider a higher value for <code>newNumberOfChars</code> or a
+ * pattern without greedy operators.
+ * 
+ * @author rwoo
+ * @since 1.2.1
+ */
+public class CheckpointCounts {
+
+    private final long[] counts;
+
+    /**
+     * @param counts
+     *            the counts indexed by {@link RegexModifierCheckpoint#ordinal()}. The array is copied.
+     */
+    public CheckpointCounts(long[] counts) {
+        super();
+        this.counts = counts.clone();
+    }
+
+    /**
+     * @return Returns the number of times the given checkpoint is passed.
+     */
+    public long getCount(RegexModifierCheckpoint checkpoint) {
+        return counts[checkpoint.ordinal()];
+    }
+
+    /**
+     * @return Returns the number of times any checkpoint is passed.
+     */
+    public long getTotal() {
+        long total = 0;
+        for (long count : counts) {
+            total += count;
+        }
+        return total;
+    }
+
+    /**
+     * @return Returns the ratio of the given checkpoint, i.e. a number between zero and one, or zero if no checkpoint
+     *         is passed yet.
+     */
+    public double getRatio(RegexModifierCheckpoint checkpoint) {
+        long total = getTotal();
+        return total == 0 ? 0 : (double) getCount(checkpoint) / total;
+    }
+
+    //
+    // override Object.*
+    //
+
+    /**
+     * @see java.lang.Object#toString()
+     */
+    @Override
+    public String toString() {
+        StringBuilder builder = new StringBuilder();
+        builder.append("CheckpointCounts [");
+        for (RegexModifierCheckpoint checkpoint : RegexModifierCheckpoint.values()) {
+            builder.append("\n");
+            builder.append(checkpoint);
+            builder.append("=");
+            builder.append(getCount(checkpoint));
+        }
+        builder.append("]");
+        return builder.toString();
+    }
+}
@@ -0,0 +1,42 @@
+/**
+ * Copyright (C) 2011 rwitzel75@googlemail.com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.rwitzel.streamflyer.regex;
+
+/**
+ * Thrown by a {@link BudgetedOnStreamMatcher} if a match attempt exceeds its budget and the
+ * {@link MatchBudgetPolicy#FAIL} is configured.
+ * 
+ * @author rwoo
+ * @since 1.2.1
+ */
+public class MatchBudgetExceededException extends RuntimeException {
+
+    private static final long serialVersionUID = 1L;
+
+    private final int position;
+
+    public MatchBudgetExceededException(String message, int position) {
+        super(message);
+        this.position = position;
+    }
+
+    /**
+     * @return Returns the position in the character buffer the failed match attempt started at.
+     */
+    public int getPosition() {
+        return position;
+    }
+}
@@ -0,0 +1,37 @@
+/**
+ * Copyright (C) 2011 rwitzel75@googlemail.com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.rwitzel.streamflyer.regex;
+
+/**
+ * Describes what a {@link BudgetedOnStreamMatcher} does if a match attempt exceeds its budget.
+ * 
+ * @author rwoo
+ * @since 1.2.1
+ */
+public enum MatchBudgetPolicy {
+
+    /**
+     * The attempt is regarded as failed, i.e. no match starts at the position of the attempt. The matcher continues with
+     * the next position.
+     */
+    SKIP,
+
+    /**
+     * A {@link MatchBudgetExceededException} is thrown.
+     */
+    FAIL
+
+}
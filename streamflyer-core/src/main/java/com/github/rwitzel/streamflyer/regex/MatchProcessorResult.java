@@ -47,6 +47,23 @@ public class MatchProcessorResult {
      */
     public MatchProcessorResult(int firstModifiableCharacterInBuffer, boolean continueMatching) {
         super();
+        init(firstModifiableCharacterInBuffer, continueMatching);
+    }
+
+    /**
+     * For subclasses only.
+     * 
+     * @since 1.2.1
+     */
+    protected MatchProcessorResult() {
+        super();
+    }
+
+    /**
+     * @since 1.2.1
+     */
+    @SuppressWarnings("hiding")
+    protected void init(int firstModifiableCharacterInBuffer, boolean continueMatching) {
         this.firstModifiableCharacterInBuffer = firstModifiableCharacterInBuffer;
         this.continueMatching = continueMatching;
     }
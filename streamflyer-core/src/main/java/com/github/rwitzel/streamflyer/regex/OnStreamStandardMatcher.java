@@ -16,6 +16,9 @@
 package com.github.rwitzel.streamflyer.regex;
 
 import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import com.github.rwitzel.streamflyer.util.CharScanner;
 
 /**
  * Implements {@link OnStreamMatcher} using any JDK > 5.0.
@@ -23,6 +26,10 @@ import java.util.regex.Matcher;
  * This implementation is the slowest implementation of the three implementations - it takes five times as much time as
  * {@link String#replaceAll(String, String)} needs to match and replace data in an character stream that is read
  * entirely into a {@link CharSequence}.
+ * <p>
+ * If every match of the regular expression must start with a certain character (see
+ * {@link #firstCharacterOfEachMatch(Pattern)}), then the matcher uses a {@link CharScanner} to jump to the next
+ * occurrence of this character instead of trying to match at each position.
  * 
  * @author rwoo
  * @since 20.06.2011
@@ -35,6 +42,13 @@ public class OnStreamStandardMatcher implements OnStreamMatcher {
 
     protected Matcher matcher;
 
+    /**
+     * The character each match must start with, or -1 if there is no such character.
+     */
+    protected int firstCharacter;
+
+    protected CharScanner scanner;
+
     //
     // state
     //
@@ -59,6 +73,68 @@ public class OnStreamStandardMatcher implements OnStreamMatcher {
     public OnStreamStandardMatcher(Matcher matcher) {
         super();
         this.matcher = matcher;
+        this.firstCharacter = firstCharacterOfEachMatch(matcher.pattern());
+        this.scanner = firstCharacter == -1 ? null : CharScanner.newInstance();
+    }
+
+    /**
+     * Finds out whether each match of the given pattern must start with a certain character. This is the case if the
+     * regular expression starts with a literal character that is not quantified and the regular expression does not
+     * contain alternatives. Patterns that match case-insensitively are not supported.
+     * 
+     * @param pattern
+     * @return Returns the character each match of the given pattern must start with, or -1 if there is no such
+     *         character (or if the character cannot be determined).
+     */
+    protected static int firstCharacterOfEachMatch(Pattern pattern) {
+
+        if ((pattern.flags() & (Pattern.CASE_INSENSITIVE | Pattern.COMMENTS | Pattern.CANON_EQ)) != 0) {
+            return -1;
+        }
+
+        String regex = pattern.pattern();
+        if (regex.length() == 0) {
+            return -1;
+        }
+
+        char ch = regex.charAt(0);
+        if ((pattern.flags() & Pattern.LITERAL) != 0) {
+            return isSurrogate(ch) ? -1 : ch;
+        }
+
+        // alternatives might start with any character
+        if (regex.indexOf('|') != -1) {
+            return -1;
+        }
+
+        int next;
+        if (ch == '\\') {
+            // escaped characters like \< or \. are literals but \d, \Q, \1 and \u0041 are not (or not supported)
+            if (regex.length() < 2 || Character.isLetterOrDigit(regex.charAt(1))) {
+                return -1;
+            }
+            ch = regex.charAt(1);
+            next = 2;
+        } else if (".[]()^$*+?{}".indexOf(ch) != -1) {
+            return -1;
+        } else {
+            next = 1;
+        }
+
+        if (isSurrogate(ch)) {
+            return -1;
+        }
+
+        // a quantified character might not be part of the match
+        if (next < regex.length() && "?*{".indexOf(regex.charAt(next)) != -1) {
+            return -1;
+        }
+
+        return ch;
+    }
+
+    private static boolean isSurrogate(char ch) {
+        return ch >= Character.MIN_SURROGATE && ch <= Character.MAX_SURROGATE;
     }
 
     /**
@@ -87,11 +163,17 @@ public class OnStreamStandardMatcher implements OnStreamMatcher {
 
         for (; lastFrom <= maxFrom; lastFrom++) {
 
-            matcher.region(lastFrom, input.length());
+            if (scanner != null && lastFrom < maxFrom) {
+                // a match cannot start before the next occurrence of the first character. At these positions the
+                // matcher would fail without hitting the end of the input, so we can skip them.
+                int candidate = scanner.indexOf(input, (char) firstCharacter, lastFrom,
+                        Math.min(maxFrom, input.length()));
+                lastFrom = candidate == -1 ? maxFrom : candidate;
+            }
 
-            result = matcher.lookingAt();
+            result = lookingAt(lastFrom);
 
-            if (result || matcher.hitEnd()) {
+            if (result || hitEnd()) {
                 break;
             }
 
@@ -100,6 +182,20 @@ public class OnStreamStandardMatcher implements OnStreamMatcher {
         return result;
     }
 
+    /**
+     * Tries to match the pattern at the given position.
+     * 
+     * @param from
+     *            the position the match must start at.
+     * @return Returns true if the pattern matches at the given position.
+     */
+    protected boolean lookingAt(int from) {
+
+        matcher.region(from, input.length());
+
+        return matcher.lookingAt();
+    }
+
     /**
      * @see com.github.rwitzel.streamflyer.regex.OnStreamMatcher#lastFrom()
      */
@@ -0,0 +1,408 @@
+/**
+ * Copyright (C) 2011 rwitzel75@googlemail.com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.rwitzel.streamflyer.regex;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.regex.Pattern;
+
+/**
+ * A size-bounded cache of compiled {@link Pattern patterns} (together with the number of their capturing groups) and
+ * of parsed replacements of {@link ReplacingProcessor replacing processors}.
+ * <p>
+ * The modifiers of this library use the {@link #getShared() shared cache}, so that a regular expression used by many
+ * modifiers is compiled only once as long as it is in the cache. The maximum weight of the shared cache is given by the
+ * system property {@value #MAXIMUM_WEIGHT_PROPERTY} (default: {@value #DEFAULT_MAXIMUM_WEIGHT}) and can be changed by
+ * {@link #setMaximumWeight(long)}.
+ * <p>
+ * The size of the cache is limited by the sum of the estimated memory weights of the cached entries, see
+ * {@link #estimateWeight(String, boolean)}. If the limit is exceeded, the least recently used entries are evicted.
+ * <p>
+ * This class is thread-safe. A lookup of a cached entry takes no lock. It only updates two atomic counters (the access
+ * clock and the number of hits). A lookup of an entry that is not cached compiles the pattern outside the lock, so a
+ * regular expression might be compiled more than once if several threads request it at the same time. Then the entry
+ * is added under the lock. If the cache is full, the least recently used entry is found by scanning all entries, i.e.
+ * an eviction is more expensive than with a linked list in access order. This is accepted as evictions happen on misses
+ * only, which compile a pattern anyway.
+ * 
+ * @author rwoo
+ * @since 1.2.1
+ */
+public class PatternCache {
+
+    /**
+     * The default maximum weight, i.e. approximately the number of bytes the cached entries may occupy.
+     */
+    public static final long DEFAULT_MAXIMUM_WEIGHT = 4L * 1024 * 1024;
+
+    /**
+     * The name of the system property that may specify the maximum weight of the {@link #getShared() shared cache}.
+     */
+    public static final String MAXIMUM_WEIGHT_PROPERTY = PatternCache.class.getName() + ".maximumWeight";
+
+    private static final PatternCache SHARED = new PatternCache(getMaximumWeightOfSharedCache());
+
+    /**
+     * The key of a cached entry.
+     */
+    private static class Key {
+
+        private final boolean pattern;
+
+        private final String string;
+
+        private final int flags;
+
+        private final int hashCode;
+
+        Key(boolean pattern, String string, int flags) {
+            this.pattern = pattern;
+            this.string = string;
+            this.flags = flags;
+            this.hashCode = 31 * (31 * string.hashCode() + flags) + (pattern ? 1 : 0);
+        }
+
+        @Override
+        public int hashCode() {
+            return hashCode;
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (!(obj instanceof Key)) {
+                return false;
+            }
+            Key other = (Key) obj;
+            return pattern == other.pattern && flags == other.flags && string.equals(other.string);
+        }
+    }
+
+    /**
+     * A cached entry.
+     */
+    private static class Entry {
+
+        private final Object value;
+
+        private final int groupCount;
+
+        private final long weight;
+
+        /**
+         * The value of {@link PatternCache#clock} when the entry was used the last time.
+         */
+        private volatile long lastAccess;
+
+        Entry(Object value, int groupCount, long weight) {
+            this.value = value;
+            this.groupCount = groupCount;
+            this.weight = weight;
+        }
+    }
+
+    //
+    // injected properties
+    //
+
+    private volatile long maximumWeight;
+
+    //
+    // state
+    //
+
+    /**
+     * The cached entries. Read without lock, modified while holding the lock on this.
+     */
+    private final ConcurrentHashMap<Key, Entry> entries = new ConcurrentHashMap<Key, Entry>(64);
+
+    /**
+     * Counts the accesses to the entries, see {@link Entry#lastAccess}.
+     */
+    private final AtomicLong clock = new AtomicLong();
+
+    /**
+     * The sum of the weights of the cached entries. Guarded by this.
+     */
+    private long weight = 0;
+
+    private final AtomicLong hits = new AtomicLong();
+
+    private final AtomicLong misses = new AtomicLong();
+
+    /**
+     * Guarded by this.
+     */
+    private long evictions = 0;
+
+    //
+    // constructors
+    //
+
+    /**
+     * @param maximumWeight
+     *            the maximum sum of the estimated weights of the cached entries, i.e. approximately the number of bytes
+     *            the cached entries may occupy. Zero disables the cache.
+     */
+    public PatternCache(long maximumWeight) {
+        super();
+
+        if (maximumWeight < 0) {
+            throw new IllegalArgumentException("maximumWeight must not be negative but was " + maximumWeight);
+        }
+
+        this.maximumWeight = maximumWeight;
+    }
+
+    /**
+     * @return Returns the maximum weight given by the system property {@value #MAXIMUM_WEIGHT_PROPERTY}, or
+     *         {@link #DEFAULT_MAXIMUM_WEIGHT} if there is no such property or its value is not a non-negative number.
+     */
+    private static long getMaximumWeightOfSharedCache() {
+
+        String value = null;
+        try {
+            value = System.getProperty(MAXIMUM_WEIGHT_PROPERTY);
+        } catch (SecurityException e) {
+            // fall back to default
+        }
+
+        if (value != null) {
+            try {
+                long maximumWeight = Long.parseLong(value.trim());
+                if (maximumWeight >= 0) {
+                    return maximumWeight;
+                }
+            } catch (NumberFormatException e) {
+                // fall back to default
+            }
+        }
+
+        return DEFAULT_MAXIMUM_WEIGHT;
+    }
+
+    //
+    // public methods
+    //
+
+    /**
+     * @return Returns the cache that is used by the modifiers of this library.
+     */
+    public static PatternCache getShared() {
+        return SHARED;
+    }
+
+    /**
+     * @return Returns the compiled pattern, see {@link Pattern#compile(String, int)}.
+     */
+    public Pattern getPattern(String regex, int flags) {
+        return (Pattern) getEntry(new Key(true, regex, flags)).value;
+    }
+
+    /**
+     * @return Returns the number of capturing groups of the given regular expression (compiled without flags).
+     */
+    public int getGroupCount(String regex) {
+        return getEntry(new Key(true, regex, 0)).groupCount;
+    }
+
+    /**
+     * @return Returns the unmodifiable list of parts of the given replacement, see
+     *         {@link ReplacingProcessor#parseReplacement(String)}.
+     */
+    @SuppressWarnings("unchecked")
+    List<Object> getParsedReplacement(String replacement) {
+        return (List<Object>) getEntry(new Key(false, replacement, 0)).value;
+    }
+
+    private Entry getEntry(Key key) {
+
+        Entry entry = entries.get(key);
+        if (entry != null) {
+            entry.lastAccess = clock.incrementAndGet();
+            hits.incrementAndGet();
+            return entry;
+        }
+        misses.incrementAndGet();
+
+        entry = createEntry(key);
+
+        synchronized (this) {
+            Entry existingEntry = entries.get(key);
+            if (existingEntry != null) {
+                // another thread was faster
+                return existingEntry;
+            }
+
+            if (entry.weight <= maximumWeight) {
+                entry.lastAccess = clock.incrementAndGet();
+                entries.put(key, entry);
+                weight += entry.weight;
+                evict();
+            }
+        }
+
+        return entry;
+    }
+
+    private Entry createEntry(Key key) {
+        long entryWeight = estimateWeight(key.string, key.pattern);
+        if (key.pattern) {
+            Pattern pattern = Pattern.compile(key.string, key.flags);
+            return new Entry(pattern, pattern.matcher("").groupCount(), entryWeight);
+        } else {
+            List<Object> parts = Collections.unmodifiableList(ReplacingProcessor.parse(key.string));
+            return new Entry(parts, 0, entryWeight);
+        }
+    }
+
+    /**
+     * Evicts the least recently used entries until the weight does not exceed the maximum weight. Must be called while
+     * holding the lock.
+     */
+    private void evict() {
+        while (weight > maximumWeight && !entries.isEmpty()) {
+
+            // find the least recently used entry
+            Key leastRecentlyUsedKey = null;
+            long leastRecentAccess = Long.MAX_VALUE;
+            for (Map.Entry<Key, Entry> mapEntry : entries.entrySet()) {
+                long lastAccess = mapEntry.getValue().lastAccess;
+                if (lastAccess < leastRecentAccess) {
+                    leastRecentAccess = lastAccess;
+                    leastRecentlyUsedKey = mapEntry.getKey();
+                }
+            }
+
+            weight -= entries.remove(leastRecentlyUsedKey).weight;
+            evictions++;
+        }
+    }
+
+    /**
+     * Estimates the memory occupied by a compiled pattern or a parsed replacement. Subclasses may override this
+     * method to apply another weight.
+     * 
+     * @param string
+     *            the regular expression or the replacement
+     * @param pattern
+     *            true if the given string is a regular expression, false if it is a replacement
+     * @return Returns the estimated weight of the entry, approximately in bytes.
+     */
+    protected long estimateWeight(String string, boolean pattern) {
+        if (pattern) {
+            // a compiled pattern consists of several nodes per character of the regular expression
+            return 256 + 64L * string.length();
+        } else {
+            return 64 + 4L * string.length();
+        }
+    }
+
+    /**
+     * Removes all entries. The statistics are not reset.
+     */
+    public synchronized void clear() {
+        entries.clear();
+        weight = 0;
+    }
+
+    /**
+     * @return Returns the number of cached entries.
+     */
+    public int size() {
+        return entries.size();
+    }
+
+    /**
+     * @return Returns the sum of the estimated weights of the cached entries.
+     */
+    public synchronized long getWeight() {
+        return weight;
+    }
+
+    /**
+     * @return Returns the maximum sum of the estimated weights of the cached entries.
+     */
+    public long getMaximumWeight() {
+        return maximumWeight;
+    }
+
+    /**
+     * Changes the maximum weight. Evicts the least recently used entries if the cached entries are heavier than the
+     * given maximum weight.
+     * 
+     * @param maximumWeight
+     *            the maximum sum of the estimated weights of the cached entries. Zero disables the cache.
+     */
+    public synchronized void setMaximumWeight(long maximumWeight) {
+
+        if (maximumWeight < 0) {
+            throw new IllegalArgumentException("maximumWeight must not be negative but was " + maximumWeight);
+        }
+
+        this.maximumWeight = maximumWeight;
+        evict();
+    }
+
+    /**
+     * @return Returns how often a requested entry was found in the cache.
+     */
+    public long getHits() {
+        return hits.get();
+    }
+
+    /**
+     * @return Returns how often a requested entry was not found in the cache.
+     */
+    public long getMisses() {
+        return misses.get();
+    }
+
+    /**
+     * @return Returns the number of evicted entries.
+     */
+    public synchronized long getEvictions() {
+        return evictions;
+    }
+
+    //
+    // override Object.*
+    //
+
+    /**
+     * @see java.lang.Object#toString()
+     */
+    @Override
+    public synchronized String toString() {
+        StringBuilder builder = new StringBuilder();
+        builder.append("PatternCache [size=");
+        builder.append(entries.size());
+        builder.append(", \nweight=");
+        builder.append(weight);
+        builder.append(", \nmaximumWeight=");
+        builder.append(maximumWeight);
+        builder.append(", \nhits=");
+        builder.append(hits.get());
+        builder.append(", \nmisses=");
+        builder.append(misses.get());
+        builder.append(", \nevictions=");
+        builder.append(evictions);
+        builder.append("]");
+        return builder.toString();
+    }
+}
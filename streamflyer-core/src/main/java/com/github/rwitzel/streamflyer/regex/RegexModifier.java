@@ -15,12 +15,15 @@
  */
 package com.github.rwitzel.streamflyer.regex;
 
+import java.io.Serializable;
 import java.util.regex.MatchResult;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
 import com.github.rwitzel.streamflyer.core.AfterModification;
+import com.github.rwitzel.streamflyer.core.Checkpointable;
 import com.github.rwitzel.streamflyer.core.Modifier;
+import com.github.rwitzel.streamflyer.core.Resettable;
 import com.github.rwitzel.streamflyer.internal.thirdparty.ZzzAssert;
 import com.github.rwitzel.streamflyer.regex.addons.stateful.StateMachine;
 import com.github.rwitzel.streamflyer.util.ModificationFactory;
@@ -138,7 +141,7 @@ Modifier myModifier = new RegexModifier("^.*ERROR.*$", Pattern.MULTILINE, new Ma
  * @author rwoo
  * @since 18.06.2011
  */
-public class RegexModifier implements Modifier {
+public class RegexModifier implements Modifier, Resettable, Checkpointable {
 
     // * <p>
     // * <h2>A summary of the internal algorithm (some details are left
@@ -198,6 +201,16 @@ public class RegexModifier implements Modifier {
 
     protected int newNumberOfChars = -1;
 
+    /**
+     * Is notified if a checkpoint is passed. Null by default.
+     */
+    protected RegexModifierListener listener;
+
+    /**
+     * Provides the current {@link RuleSet}. Null by default, i.e. the matcher and the match processor are not swapped.
+     */
+    protected RuleSetHolder ruleSetHolder;
+
     //
     // state
     //
@@ -211,6 +224,24 @@ public class RegexModifier implements Modifier {
      */
     private int unseenCharactersToSkip = 0;
 
+    /**
+     * The number of times each checkpoint is passed, indexed by {@link RegexModifierCheckpoint#ordinal()}, or null if
+     * the checkpoints shall not be counted. This property is volatile so that the counting can be toggled by another
+     * thread at runtime.
+     */
+    private volatile long[] checkpointCounts = null;
+
+    /**
+     * The rule set that was applied last.
+     */
+    private RuleSet appliedRuleSet = null;
+
+    /**
+     * True if the last call of {@link #modify(StringBuilder, int, boolean)} requested more input in order to complete a
+     * match, i.e. a match might be open. In this case the rule set must not be swapped.
+     */
+    private boolean matchMightBeOpen = false;
+
     //
     // constructors
     //
@@ -259,13 +290,35 @@ public class RegexModifier implements Modifier {
         this(regex, flags, new ReplacingProcessor(replacement), minimumLengthOfLookBehind, newNumberOfChars);
     }
 
+    /**
+     * Like {@link #RegexModifier(String, int, String, int, int)} but the modifier may reuse its results.
+     * 
+     * @param reuseResults
+     *            True if the modifier shall return the same {@link AfterModification} again and again (see
+     *            {@link ModificationFactory#ModificationFactory(int, int, boolean)}), and if the replacing match
+     *            processor shall return the same {@link MatchProcessorResult} again and again (see
+     *            {@link ReplacingProcessor#ReplacingProcessor(String, boolean)}). This avoids the allocation of
+     *            short-lived objects if there are many matches. The messages returned by the modifier are valid only
+     *            until the modifier is called again.
+     * @since 1.2.1
+     */
+    public RegexModifier(String regex, int flags, String replacement, int minimumLengthOfLookBehind,
+            int newNumberOfChars, boolean reuseResults) {
+        this(regex, flags, new ReplacingProcessor(replacement, reuseResults), minimumLengthOfLookBehind,
+                newNumberOfChars);
+
+        if (reuseResults) {
+            this.factory = new ModificationFactory(minimumLengthOfLookBehind, newNumberOfChars, true);
+        }
+    }
+
     /**
      * See {@link #RegexModifier(String, int, String, int, int)}.
      */
     public RegexModifier(String regex, int flags, MatchProcessor matchProcessor, int minimumLengthOfLookBehind,
             int newNumberOfChars) {
 
-        Matcher jdkMatcher = Pattern.compile(regex, flags).matcher("");
+        Matcher jdkMatcher = PatternCache.getShared().getPattern(regex, flags).matcher("");
         jdkMatcher.useTransparentBounds(true);
         jdkMatcher.useAnchoringBounds(false);
         init(new OnStreamStandardMatcher(jdkMatcher), matchProcessor, minimumLengthOfLookBehind, newNumberOfChars);
@@ -314,15 +367,43 @@ public class RegexModifier implements Modifier {
     public AfterModification modify(StringBuilder characterBuffer, int firstModifiableCharacterInBuffer,
             boolean endOfStreamHit) {
 
+        if (ruleSetHolder == null) {
+            return modifyWithCurrentRules(characterBuffer, firstModifiableCharacterInBuffer, endOfStreamHit);
+        }
+
+        // has a new rule set been published? (we swap the rules only if no match is open)
+        if (!matchMightBeOpen) {
+            RuleSet ruleSet = ruleSetHolder.getRuleSet();
+            if (ruleSet != appliedRuleSet) {
+                ruleSet.applyTo(this);
+                appliedRuleSet = ruleSet;
+            }
+        }
+
+        // (set by onCheckpoint(..))
+        matchMightBeOpen = false;
+
+        return modifyWithCurrentRules(characterBuffer, firstModifiableCharacterInBuffer, endOfStreamHit);
+    }
+
+    /**
+     * Modifies the buffer using the current matcher and the current match processor.
+     * 
+     * @see com.github.rwitzel.streamflyer.core.Modifier#modify(java.lang.StringBuilder, int, boolean)
+     */
+    private AfterModification modifyWithCurrentRules(StringBuilder characterBuffer,
+            int firstModifiableCharacterInBuffer, boolean endOfStreamHit) {
+
         // the first position we will match from.
-        Integer minFrom = null;
+        // (-1 means not determined yet)
+        int minFrom = -1;
 
         while (true) {
 
             // determine the range [minFrom, maxFrom] that will contain the
             // first character of the matching string
 
-            if (minFrom == null) {
+            if (minFrom == -1) {
                 minFrom = firstModifiableCharacterInBuffer;
 
                 if (unseenCharactersToSkip > 0) {
@@ -381,6 +462,9 @@ public class RegexModifier implements Modifier {
                     AfterModification mod = factory.fetchMoreInput(numberOfCharactersToSkip, characterBuffer,
                             firstModifiableCharacterInBuffer, endOfStreamHit);
 
+                    onCheckpoint(RegexModifierCheckpoint.MATCH_OPEN, characterBuffer, firstModifiableCharacterInBuffer,
+                            endOfStreamHit, mod);
+
                     assert __checkpoint( //
                             "name", "match_open", //
                             "minLen", firstModifiableCharacterInBuffer, //
@@ -413,6 +497,9 @@ public class RegexModifier implements Modifier {
                         // (match_n_continue) no skip needed yet -> continue
                         // matching on the existing buffer content
 
+                        onCheckpoint(RegexModifierCheckpoint.MATCH_N_CONTINUE, characterBuffer,
+                                firstModifiableCharacterInBuffer, endOfStreamHit, null);
+
                         assert __checkpoint( //
                                 "name", "match_n_continue", //
                                 "minLen", firstModifiableCharacterInBuffer, //
@@ -458,6 +545,9 @@ public class RegexModifier implements Modifier {
                             AfterModification mod = factory.fetchMoreInput(numberOfCharactersToSkip, characterBuffer,
                                     firstModifiableCharacterInBuffer, false);
 
+                            onCheckpoint(RegexModifierCheckpoint.MATCH_N_REFILL, characterBuffer,
+                                    firstModifiableCharacterInBuffer, endOfStreamHit, mod);
+
                             assert __checkpoint( //
                                     "name", "match_n_refill", //
                                     "minLen", firstModifiableCharacterInBuffer, //
@@ -473,6 +563,9 @@ public class RegexModifier implements Modifier {
                             AfterModification mod = factory.skipOrStop(numberOfCharactersToSkip, characterBuffer,
                                     firstModifiableCharacterInBuffer, endOfStreamHit);
 
+                            onCheckpoint(RegexModifierCheckpoint.MATCH_N_SKIP, characterBuffer,
+                                    firstModifiableCharacterInBuffer, endOfStreamHit, mod);
+
                             assert __checkpoint( //
                                     "name", "match_n_skip", //
                                     "minLen", firstModifiableCharacterInBuffer, //
@@ -505,6 +598,9 @@ public class RegexModifier implements Modifier {
                         AfterModification mod = factory.skipOrStop(numberOfCharactersToSkip, characterBuffer,
                                 firstModifiableCharacterInBuffer, endOfStreamHit);
 
+                        onCheckpoint(RegexModifierCheckpoint.NOMATCH_EOS, characterBuffer,
+                                firstModifiableCharacterInBuffer, endOfStreamHit, mod);
+
                         assert __checkpoint( //
                                 "name", "nomatch_eos", //
                                 "minLen", firstModifiableCharacterInBuffer, //
@@ -528,6 +624,9 @@ public class RegexModifier implements Modifier {
                         AfterModification mod = factory.fetchMoreInput(numberOfCharactersToSkip, characterBuffer,
                                 firstModifiableCharacterInBuffer, endOfStreamHit);
 
+                        onCheckpoint(RegexModifierCheckpoint.NOMATCH_FETCH, characterBuffer,
+                                firstModifiableCharacterInBuffer, endOfStreamHit, mod);
+
                         assert __checkpoint( //
                                 "name", "nomatch_fetch", //
                                 "minLen", firstModifiableCharacterInBuffer, //
@@ -547,6 +646,9 @@ public class RegexModifier implements Modifier {
                     AfterModification mod = factory.skipOrStop(numberOfCharactersToSkip, characterBuffer,
                             firstModifiableCharacterInBuffer, endOfStreamHit);
 
+                    onCheckpoint(RegexModifierCheckpoint.NOMATCH_SKIP, characterBuffer,
+                            firstModifiableCharacterInBuffer, endOfStreamHit, mod);
+
                     assert __checkpoint( //
                             "name", "nomatch_skip", //
                             "minLen", firstModifiableCharacterInBuffer, //
@@ -576,6 +678,148 @@ public class RegexModifier implements Modifier {
         return true;
     }
 
+    /**
+     * This method is called if a certain line of code is reached ("checkpoint"), i.e. if the modifier has made a
+     * decision. In contrast to {@link #__checkpoint(Object...)} this method is always called. Therefore, it must be
+     * cheap if nobody is interested in checkpoints. (Not to be confused with {@link #checkpoint()}, which saves the
+     * state of the modifier.)
+     */
+    private void onCheckpoint(RegexModifierCheckpoint checkpoint, StringBuilder characterBuffer,
+            int firstModifiableCharacterInBuffer, boolean endOfStreamHit, AfterModification afterModification) {
+
+        long[] counts = checkpointCounts;
+        if (counts != null) {
+            counts[checkpoint.ordinal()]++;
+        }
+
+        // more input requested for the characters that are not skipped?
+        if (checkpoint == RegexModifierCheckpoint.MATCH_OPEN || checkpoint == RegexModifierCheckpoint.NOMATCH_FETCH) {
+            int firstUnskippedCharacter = firstModifiableCharacterInBuffer
+                    + afterModification.getNumberOfCharactersToSkip();
+            matchMightBeOpen = firstUnskippedCharacter < characterBuffer.length();
+        }
+
+        if (listener != null) {
+            listener.onCheckpoint(checkpoint, characterBuffer, firstModifiableCharacterInBuffer, endOfStreamHit,
+                    afterModification);
+        }
+    }
+
+    //
+    // interface Resettable
+    //
+
+    /**
+     * Resets the state of this modifier, and the state of the matcher, the match processor and the modification factory
+     * if they implement {@link Resettable}. The current rule set is kept.
+     * 
+     * @see com.github.rwitzel.streamflyer.core.Resettable#reset()
+     * @since 1.2.1
+     */
+    @Override
+    public void reset() {
+        unseenCharactersToSkip = 0;
+        matchMightBeOpen = false;
+
+        if (matcher instanceof Resettable) {
+            ((Resettable) matcher).reset();
+        }
+        if (matchProcessor instanceof Resettable) {
+            ((Resettable) matchProcessor).reset();
+        }
+        if (factory instanceof Resettable) {
+            ((Resettable) factory).reset();
+        }
+    }
+
+    //
+    // interface Checkpointable
+    //
+
+    /**
+     * The state contains {@link #unseenCharactersToSkip} and the state of the matcher, the match processor and the
+     * modification factory if they implement {@link Checkpointable}, e.g. the current state of a {@link StateMachine}.
+     * 
+     * @see com.github.rwitzel.streamflyer.core.Checkpointable#checkpoint()
+     * @since 1.2.1
+     */
+    @Override
+    public Serializable checkpoint() {
+        return new Serializable[] { unseenCharactersToSkip, matchMightBeOpen, checkpointOf(matcher),
+                checkpointOf(matchProcessor), checkpointOf(factory) };
+    }
+
+    /**
+     * @see com.github.rwitzel.streamflyer.core.Checkpointable#resume(java.io.Serializable)
+     * @since 1.2.1
+     */
+    @Override
+    public void resume(Serializable state) {
+        Serializable[] states = (Serializable[]) state;
+        unseenCharactersToSkip = (Integer) states[0];
+        matchMightBeOpen = (Boolean) states[1];
+        resume(matcher, states[2]);
+        resume(matchProcessor, states[3]);
+        resume(factory, states[4]);
+    }
+
+    private static Serializable checkpointOf(Object object) {
+        return object instanceof Checkpointable ? ((Checkpointable) object).checkpoint() : null;
+    }
+
+    private static void resume(Object object, Serializable state) {
+        if (object instanceof Checkpointable) {
+            ((Checkpointable) object).resume(state);
+        }
+    }
+
+    //
+    // public methods
+    //
+
+    /**
+     * @param listener
+     *            the listener that shall be notified if the modifier passes a checkpoint, or <code>null</code> if no
+     *            listener shall be notified.
+     * @since 1.2.1
+     */
+    @SuppressWarnings("hiding")
+    public void setListener(RegexModifierListener listener) {
+        this.listener = listener;
+    }
+
+    /**
+     * Switches the counting of the passed {@link RegexModifierCheckpoint checkpoints} on or off. The counting is off by
+     * default. Switching the counting on resets the counts. If the counting is on, the overhead is an increment of a
+     * primitive counter per call of {@link #modify(StringBuilder, int, boolean)}.
+     * 
+     * @param countingCheckpoints
+     *            true if the checkpoints shall be counted.
+     * @since 1.2.1
+     */
+    public void setCountingCheckpoints(boolean countingCheckpoints) {
+        checkpointCounts = countingCheckpoints ? new long[RegexModifierCheckpoint.values().length] : null;
+    }
+
+    /**
+     * @return Returns true if the checkpoints are counted.
+     * @since 1.2.1
+     */
+    public boolean isCountingCheckpoints() {
+        return checkpointCounts != null;
+    }
+
+    /**
+     * @return Returns a snapshot of the checkpoint counts, or null if the checkpoints are not counted, see
+     *         {@link #setCountingCheckpoints(boolean)}. If the snapshot is taken by another thread than the thread
+     *         that uses this modifier, the counts might be slightly outdated.
+     * @since 1.2.1
+     */
+    public CheckpointCounts getCheckpointCounts() {
+        long[] counts = checkpointCounts;
+        return counts == null ? null : new CheckpointCounts(counts);
+    }
+
     //
     // override Object.*
     //
@@ -610,4 +854,37 @@ public class RegexModifier implements Modifier {
         this.matchProcessor = matchProcessor;
     }
 
+    /**
+     * Replaces the matcher. Call this method only between two calls of {@link #modify(StringBuilder, int, boolean)}.
+     * 
+     * @param matcher
+     *            The {@link #matcher} to set.
+     * @since 1.2.1
+     */
+    public void setMatcher(OnStreamMatcher matcher) {
+        this.matcher = matcher;
+    }
+
+    /**
+     * Lets the modifier consult the given holder for the current rule set. If a new rule set is published, the modifier
+     * {@link RuleSet#applyTo(RegexModifier) applies} it at the next safe position, i.e. at the next call of
+     * {@link #modify(StringBuilder, int, boolean)} that does not continue an open match.
+     * 
+     * @param ruleSetHolder
+     *            the holder, or null if the rules shall not be swapped.
+     * @since 1.2.1
+     */
+    public void setRuleSetHolder(RuleSetHolder ruleSetHolder) {
+        this.ruleSetHolder = ruleSetHolder;
+        this.appliedRuleSet = null;
+    }
+
+    /**
+     * @return Returns the {@link #matchProcessor}.
+     * @since 1.2.1
+     */
+    public MatchProcessor getMatchProcessor() {
+        return matchProcessor;
+    }
+
 }
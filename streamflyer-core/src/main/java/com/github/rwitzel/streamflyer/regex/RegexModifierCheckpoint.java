@@ -0,0 +1,63 @@
+/**
+ * Copyright (C) 2011 rwitzel75@googlemail.com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.rwitzel.streamflyer.regex;
+
+/**
+ * The decision points of {@link RegexModifier#modify(StringBuilder, int, boolean)}. Each call of this method ends at
+ * exactly one of these checkpoints apart from {@link #MATCH_N_CONTINUE} which may be passed several times before.
+ * 
+ * @author rwoo
+ * @since 1.2.1
+ */
+public enum RegexModifierCheckpoint {
+
+    /**
+     * A match is found but the match might change with more input -> FETCH MORE INPUT.
+     */
+    MATCH_OPEN,
+
+    /**
+     * A match is processed and the matching continues on the existing buffer content.
+     */
+    MATCH_N_CONTINUE,
+
+    /**
+     * A match is processed but there are no characters left in the buffer after the replacement -> MODIFY AGAIN
+     * IMMEDIATELY.
+     */
+    MATCH_N_REFILL,
+
+    /**
+     * A match is processed and there are characters left in the buffer -> SKIP.
+     */
+    MATCH_N_SKIP,
+
+    /**
+     * No match is found and the end of the stream is hit -> SKIP or STOP.
+     */
+    NOMATCH_EOS,
+
+    /**
+     * No match is found but the end of the buffer is hit -> FETCH MORE INPUT.
+     */
+    NOMATCH_FETCH,
+
+    /**
+     * No match is found and the end of the buffer is not hit -> SKIP.
+     */
+    NOMATCH_SKIP;
+
+}
@@ -0,0 +1,49 @@
+/**
+ * Copyright (C) 2011 rwitzel75@googlemail.com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.rwitzel.streamflyer.regex;
+
+import com.github.rwitzel.streamflyer.core.AfterModification;
+
+/**
+ * Is notified when {@link RegexModifier#modify(StringBuilder, int, boolean)} passes a
+ * {@link RegexModifierCheckpoint checkpoint}. Useful to find out why the processing of a stream slows down, e.g.
+ * because the pattern causes {@link RegexModifierCheckpoint#MATCH_OPEN} again and again so that the buffer grows.
+ * <p>
+ * By default a {@link RegexModifier} has no listener, see {@link RegexModifier#setListener(RegexModifierListener)}.
+ * Implementations must be fast as they are called on the hot path. They must not modify the given buffer.
+ * 
+ * @author rwoo
+ * @since 1.2.1
+ */
+public interface RegexModifierListener {
+
+    /**
+     * @param checkpoint
+     *            the passed checkpoint.
+     * @param characterBuffer
+     *            the buffer given to the modifier (after the modification).
+     * @param firstModifiableCharacterInBuffer
+     *            the value given to the modifier.
+     * @param endOfStreamHit
+     *            the value given to the modifier.
+     * @param afterModification
+     *            the message returned by the modifier, or <code>null</code> in case of
+     *            {@link RegexModifierCheckpoint#MATCH_N_CONTINUE}.
+     */
+    public void onCheckpoint(RegexModifierCheckpoint checkpoint, StringBuilder characterBuffer,
+            int firstModifiableCharacterInBuffer, boolean endOfStreamHit, AfterModification afterModification);
+
+}
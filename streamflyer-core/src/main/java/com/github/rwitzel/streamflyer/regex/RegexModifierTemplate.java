@@ -0,0 +1,145 @@
+/**
+ * Copyright (C) 2011 rwitzel75@googlemail.com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.rwitzel.streamflyer.regex;
+
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import com.github.rwitzel.streamflyer.core.AfterModification;
+import com.github.rwitzel.streamflyer.core.Modifier;
+import com.github.rwitzel.streamflyer.core.ModifierTemplate;
+import com.github.rwitzel.streamflyer.internal.thirdparty.ZzzValidate;
+
+/**
+ * Creates {@link RegexModifier regex modifiers} that share the compiled regular expression and the match processor.
+ * <p>
+ * The regular expression is compiled and the replacement is parsed only once, when the template is created. Thereafter,
+ * {@link #newModifier()} only creates a matcher and a modifier.
+ * <p>
+ * This class is thread-safe if the match processor is thread-safe. A {@link ReplacingProcessor} that does not reuse its
+ * results is thread-safe.
+ * <p>
+ * A template is also a {@link RuleSet}, i.e. it can be {@link RuleSetHolder#publish(RuleSet) published} to replace the
+ * regular expression and the match processor of running modifiers.
+ * 
+ * @author rwoo
+ * @since 1.2.1
+ */
+public class RegexModifierTemplate implements ModifierTemplate, RuleSet {
+
+    //
+    // injected properties
+    //
+
+    private final Pattern pattern;
+
+    private final MatchProcessor matchProcessor;
+
+    private final int minimumLengthOfLookBehind;
+
+    private final int newNumberOfChars;
+
+    //
+    // constructors
+    //
+
+    /**
+     * See {@link RegexModifier#RegexModifier(String, int, String, int, int)}.
+     */
+    public RegexModifierTemplate(String regex, int flags, String replacement, int minimumLengthOfLookBehind,
+            int newNumberOfChars) {
+        this(regex, flags, new ReplacingProcessor(replacement), minimumLengthOfLookBehind, newNumberOfChars);
+    }
+
+    /**
+     * @param regex
+     *            See {@link RegexModifier#RegexModifier(String, int, MatchProcessor, int, int)}.
+     * @param flags
+     *            See {@link RegexModifier#RegexModifier(String, int, MatchProcessor, int, int)}.
+     * @param matchProcessor
+     *            The match processor shared by all modifiers. Must be thread-safe.
+     * @param minimumLengthOfLookBehind
+     *            See {@link AfterModification#getNewMinimumLengthOfLookBehind()}.
+     * @param newNumberOfChars
+     *            See {@link AfterModification#getNewNumberOfChars()}.
+     */
+    public RegexModifierTemplate(String regex, int flags, MatchProcessor matchProcessor,
+            int minimumLengthOfLookBehind, int newNumberOfChars) {
+        super();
+
+        ZzzValidate.notNull(regex, "regex must not be null");
+        ZzzValidate.notNull(matchProcessor, "matchProcessor must not be null");
+
+        this.pattern = PatternCache.getShared().getPattern(regex, flags);
+        this.matchProcessor = matchProcessor;
+        this.minimumLengthOfLookBehind = minimumLengthOfLookBehind;
+        this.newNumberOfChars = newNumberOfChars;
+    }
+
+    //
+    // override ModifierTemplate.*
+    //
+
+    /**
+     * @see com.github.rwitzel.streamflyer.core.ModifierTemplate#newModifier()
+     */
+    @Override
+    public Modifier newModifier() {
+        return new RegexModifier(newMatcher(), matchProcessor, minimumLengthOfLookBehind, newNumberOfChars);
+    }
+
+    private OnStreamMatcher newMatcher() {
+        Matcher jdkMatcher = pattern.matcher("");
+        jdkMatcher.useTransparentBounds(true);
+        jdkMatcher.useAnchoringBounds(false);
+        return new OnStreamStandardMatcher(jdkMatcher);
+    }
+
+    //
+    // override RuleSet.*
+    //
+
+    /**
+     * @see com.github.rwitzel.streamflyer.regex.RuleSet#applyTo(com.github.rwitzel.streamflyer.regex.RegexModifier)
+     */
+    @Override
+    public void applyTo(RegexModifier modifier) {
+        modifier.setMatcher(newMatcher());
+        modifier.setMatchProcessor(matchProcessor);
+    }
+
+    //
+    // override Object.*
+    //
+
+    /**
+     * @see java.lang.Object#toString()
+     */
+    @Override
+    public String toString() {
+        StringBuilder builder = new StringBuilder();
+        builder.append("RegexModifierTemplate [pattern=");
+        builder.append(pattern);
+        builder.append(", \nmatchProcessor=");
+        builder.append(matchProcessor);
+        builder.append(", \nminimumLengthOfLookBehind=");
+        builder.append(minimumLengthOfLookBehind);
+        builder.append(", \nnewNumberOfChars=");
+        builder.append(newNumberOfChars);
+        builder.append("]");
+        return builder.toString();
+    }
+}
@@ -71,13 +71,23 @@ public class ReplacingProcessor extends AbstractMatchProcessor implements MatchP
      * @param replacement
      */
     public ReplacingProcessor(String replacement) {
-        super();
+        this(replacement, false);
+    }
+
+    /**
+     * @param replacement
+     * @param reuseResult
+     *            See {@link AbstractMatchProcessor#AbstractMatchProcessor(boolean)}.
+     * @since 1.2.1
+     */
+    public ReplacingProcessor(String replacement, boolean reuseResult) {
+        super(reuseResult);
 
         // validate arguments
         ZzzValidate.notNull(replacement, "replacement must not be null");
 
         // parse replacement
-        this.parts = parseReplacement(replacement);
+        this.parts = PatternCache.getShared().getParsedReplacement(replacement);
 
         if (parts.size() == 1 && (parts.get(0) instanceof CharSequence)) {
 
@@ -96,6 +106,13 @@ public class ReplacingProcessor extends AbstractMatchProcessor implements MatchP
      * @return Returns the parts of the matchProcessor
      */
     List<Object> parseReplacement(String replacement) {
+        return parse(replacement);
+    }
+
+    /**
+     * @return Returns the parts of the given replacement: Strings and the numbers of the referenced groups.
+     */
+    static List<Object> parse(String replacement) {
 
         List<Object> compiledReplacement = new ArrayList<Object>();
 
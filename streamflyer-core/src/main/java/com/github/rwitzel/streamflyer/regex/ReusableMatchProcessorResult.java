@@ -0,0 +1,44 @@
+/**
+ * Copyright (C) 2011 rwitzel75@googlemail.com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.rwitzel.streamflyer.regex;
+
+/**
+ * A mutable {@link MatchProcessorResult} that a {@link MatchProcessor} can return again and again instead of creating a
+ * new result for each match.
+ * <p>
+ * {@link RegexModifier} evaluates the result before it calls the match processor again. Therefore, a match processor
+ * may reuse the result as soon as it is called again.
+ * 
+ * @author rwoo
+ * @since 1.2.1
+ */
+public class ReusableMatchProcessorResult extends MatchProcessorResult {
+
+    public ReusableMatchProcessorResult() {
+        super();
+    }
+
+    /**
+     * Sets the values of the result.
+     * 
+     * @return Returns this result.
+     * @see MatchProcessorResult#MatchProcessorResult(int, boolean)
+     */
+    public ReusableMatchProcessorResult set(int firstModifiableCharacterInBuffer, boolean continueMatching) {
+        init(firstModifiableCharacterInBuffer, continueMatching);
+        return this;
+    }
+}
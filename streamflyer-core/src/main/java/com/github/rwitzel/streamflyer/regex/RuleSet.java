@@ -0,0 +1,39 @@
+/**
+ * Copyright (C) 2011 rwitzel75@googlemail.com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.rwitzel.streamflyer.regex;
+
+/**
+ * A set of rules a {@link RegexModifier} can be switched to at runtime, see {@link RuleSetHolder}.
+ * <p>
+ * A rule set is shared by all modifiers that consult the same holder. Therefore, implementations must be immutable and
+ * thread-safe. They hold the compiled artifacts and create the stateful objects, e.g. the matcher, for each modifier.
+ * 
+ * @author rwoo
+ * @since 1.2.1
+ */
+public interface RuleSet {
+
+    /**
+     * Sets a new {@link RegexModifier#setMatcher(OnStreamMatcher) matcher} and a new
+     * {@link RegexModifier#setMatchProcessor(MatchProcessor) match processor} on the given modifier. The look-behind
+     * and the number of characters the modifier requests are not changed.
+     * 
+     * @param modifier
+     *            the modifier the rules shall be applied to.
+     */
+    public void applyTo(RegexModifier modifier);
+
+}
@@ -0,0 +1,76 @@
+/**
+ * Copyright (C) 2011 rwitzel75@googlemail.com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.rwitzel.streamflyer.regex;
+
+import java.util.concurrent.atomic.AtomicReference;
+
+import com.github.rwitzel.streamflyer.internal.thirdparty.ZzzValidate;
+
+/**
+ * Holds the current {@link RuleSet} of one or more {@link RegexModifier modifiers}, e.g. of the modifiers of
+ * long-running streams.
+ * <p>
+ * A new rule set is published by an atomic swap of the reference. Each modifier reads the reference once per call of
+ * {@link RegexModifier#modify(StringBuilder, int, boolean)}, i.e. there is no locking, and applies a new rule set only
+ * if no match is open.
+ * <p>
+ * Usage:
+ * 
+ * <pre>
+ * RegexModifierTemplate rules = new RegexModifierTemplate(&quot;a&quot;, 0, &quot;b&quot;, 1, 2048);
+ * RuleSetHolder holder = new RuleSetHolder(rules);
+ * RegexModifier modifier = (RegexModifier) rules.newModifier();
+ * modifier.setRuleSetHolder(holder);
+ * ...
+ * holder.publish(new RegexModifierTemplate(&quot;a&quot;, 0, &quot;c&quot;, 1, 2048));
+ * </pre>
+ * 
+ * @author rwoo
+ * @since 1.2.1
+ */
+public class RuleSetHolder {
+
+    private final AtomicReference<RuleSet> ruleSet;
+
+    public RuleSetHolder(RuleSet initialRuleSet) {
+        super();
+
+        ZzzValidate.notNull(initialRuleSet, "initialRuleSet must not be null");
+
+        this.ruleSet = new AtomicReference<RuleSet>(initialRuleSet);
+    }
+
+    /**
+     * @return Returns the current rule set.
+     */
+    public RuleSet getRuleSet() {
+        return ruleSet.get();
+    }
+
+    /**
+     * Publishes a new rule set. The modifiers apply the new rule set at their next safe position.
+     * 
+     * @param newRuleSet
+     *            the new rule set. Must not be null.
+     * @return Returns the previous rule set.
+     */
+    public RuleSet publish(RuleSet newRuleSet) {
+
+        ZzzValidate.notNull(newRuleSet, "newRuleSet must not be null");
+
+        return ruleSet.getAndSet(newRuleSet);
+    }
+}
@@ -19,6 +19,7 @@ import java.util.regex.MatchResult;
 
 import com.github.rwitzel.streamflyer.core.AfterModification;
 import com.github.rwitzel.streamflyer.core.Modifier;
+import com.github.rwitzel.streamflyer.core.Resettable;
 import com.github.rwitzel.streamflyer.regex.RegexModifier;
 
 /**
@@ -38,7 +39,7 @@ import com.github.rwitzel.streamflyer.regex.RegexModifier;
  * @author rwoo
  * @since 1.1.0
  */
-public class NoMatch {
+public class NoMatch implements Resettable {
 
     /**
      * The position of the first character that might belong to a noMatch.
@@ -85,4 +86,14 @@ public class NoMatch {
         return mod;
     }
 
+    /**
+     * Sets the {@link #startPosition} back to zero. Subclasses that hold further state should override this method.
+     * 
+     * @see com.github.rwitzel.streamflyer.core.Resettable#reset()
+     * @since 1.2.1
+     */
+    @Override
+    public void reset() {
+        startPosition = 0;
+    }
 }
@@ -17,6 +17,7 @@ package com.github.rwitzel.streamflyer.regex.addons.nomatch;
 
 import java.util.regex.MatchResult;
 
+import com.github.rwitzel.streamflyer.core.Resettable;
 import com.github.rwitzel.streamflyer.regex.MatchProcessor;
 import com.github.rwitzel.streamflyer.regex.MatchProcessorResult;
 import com.github.rwitzel.streamflyer.regex.RegexModifier;
@@ -30,7 +31,7 @@ import com.github.rwitzel.streamflyer.regex.addons.stateful.StateMachine;
  * @author rwoo
  * @since 1.1.0
  */
-public class NoMatchAwareMatchProcessor implements MatchProcessor {
+public class NoMatchAwareMatchProcessor implements MatchProcessor, Resettable {
 
     protected MatchProcessor delegate;
 
@@ -68,4 +69,15 @@ public class NoMatchAwareMatchProcessor implements MatchProcessor {
         return result;
     }
 
+    /**
+     * @see com.github.rwitzel.streamflyer.core.Resettable#reset()
+     * @since 1.2.1
+     */
+    @Override
+    public void reset() {
+        if (delegate instanceof Resettable) {
+            ((Resettable) delegate).reset();
+        }
+        noMatch.reset();
+    }
 }
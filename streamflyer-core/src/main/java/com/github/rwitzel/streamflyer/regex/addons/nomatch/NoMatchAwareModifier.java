@@ -17,6 +17,7 @@ package com.github.rwitzel.streamflyer.regex.addons.nomatch;
 
 import com.github.rwitzel.streamflyer.core.AfterModification;
 import com.github.rwitzel.streamflyer.core.Modifier;
+import com.github.rwitzel.streamflyer.core.Resettable;
 
 /**
  * This {@link Modifier} updates the start position of the next {@link NoMatch noMatch} and delegates to another
@@ -25,7 +26,7 @@ import com.github.rwitzel.streamflyer.core.Modifier;
  * @author rwoo
  * @since 1.1.0
  */
-public class NoMatchAwareModifier implements Modifier {
+public class NoMatchAwareModifier implements Modifier, Resettable {
 
     private Modifier delegate;
 
@@ -55,4 +56,15 @@ public class NoMatchAwareModifier implements Modifier {
         return mod;
     }
 
+    /**
+     * @see com.github.rwitzel.streamflyer.core.Resettable#reset()
+     * @since 1.2.1
+     */
+    @Override
+    public void reset() {
+        if (delegate instanceof Resettable) {
+            ((Resettable) delegate).reset();
+        }
+        noMatch.reset();
+    }
 }
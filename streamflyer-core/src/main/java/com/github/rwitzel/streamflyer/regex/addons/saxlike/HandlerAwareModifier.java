@@ -19,6 +19,7 @@ import java.util.List;
 
 import com.github.rwitzel.streamflyer.core.AfterModification;
 import com.github.rwitzel.streamflyer.core.Modifier;
+import com.github.rwitzel.streamflyer.core.Resettable;
 import com.github.rwitzel.streamflyer.regex.RegexModifier;
 import com.github.rwitzel.streamflyer.regex.addons.nomatch.NoMatchAwareMatchProcessor;
 import com.github.rwitzel.streamflyer.regex.addons.nomatch.NoMatchAwareModifier;
@@ -32,7 +33,7 @@ import com.github.rwitzel.streamflyer.regex.addons.tokens.TokensMatcher;
  * @author rwoo
  * @since 1.1.0
  */
-public class HandlerAwareModifier implements Modifier {
+public class HandlerAwareModifier implements Modifier, Resettable {
 
     private Modifier delegate;
 
@@ -67,4 +68,15 @@ public class HandlerAwareModifier implements Modifier {
         // delegate
         return delegate.modify(characterBuffer, firstModifiableCharacterInBuffer, endOfStreamHit);
     }
+
+    /**
+     * Resets the modifier the handler is attached to. The handler itself is not reset.
+     * 
+     * @see com.github.rwitzel.streamflyer.core.Resettable#reset()
+     * @since 1.2.1
+     */
+    @Override
+    public void reset() {
+        ((Resettable) delegate).reset();
+    }
 }
@@ -15,8 +15,15 @@
  */
 package com.github.rwitzel.streamflyer.regex.addons.stateful;
 
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
 import java.util.regex.MatchResult;
 
+import com.github.rwitzel.streamflyer.core.Checkpointable;
+import com.github.rwitzel.streamflyer.core.Resettable;
 import com.github.rwitzel.streamflyer.regex.MatchProcessor;
 import com.github.rwitzel.streamflyer.regex.MatchProcessorResult;
 import com.github.rwitzel.streamflyer.regex.OnStreamMatcher;
@@ -30,7 +37,12 @@ import com.github.rwitzel.streamflyer.regex.addons.util.DelegatingMatcher;
  * @author rwoo
  * @since 1.1.0
  */
-public class StateMachine implements MatchProcessor {
+public class StateMachine implements MatchProcessor, Resettable, Checkpointable {
+
+    /**
+     * The state the state machine starts with.
+     */
+    private State initialState;
 
     /**
      * The most recently reached state.
@@ -57,6 +69,7 @@ public class StateMachine implements MatchProcessor {
      */
     public StateMachine(State initialState, DelegatingMatcher delegatingMatcher) {
         super();
+        this.initialState = initialState;
         this.delegatingMatcher = delegatingMatcher;
         changeStateTo(initialState);
     }
@@ -96,4 +109,53 @@ public class StateMachine implements MatchProcessor {
         return result;
     }
 
+    /**
+     * Changes the {@link #currentState} back to the initial state.
+     * 
+     * @see com.github.rwitzel.streamflyer.core.Resettable#reset()
+     * @since 1.2.1
+     */
+    @Override
+    public void reset() {
+        changeStateTo(initialState);
+    }
+
+    /**
+     * @return Returns the name of the {@link #currentState}. Therefore, the names of the states must be unique.
+     * @see com.github.rwitzel.streamflyer.core.Checkpointable#checkpoint()
+     * @since 1.2.1
+     */
+    @Override
+    public Serializable checkpoint() {
+        return currentState.getToken().getName();
+    }
+
+    /**
+     * Changes the {@link #currentState} to the state with the given name. The state is searched among the states that
+     * are reachable from the initial state.
+     * 
+     * @see com.github.rwitzel.streamflyer.core.Checkpointable#resume(java.io.Serializable)
+     * @since 1.2.1
+     */
+    @Override
+    public void resume(Serializable state) {
+
+        // breadth-first search
+        Set<State> visited = new HashSet<State>();
+        List<State> queue = new ArrayList<State>();
+        queue.add(initialState);
+        for (int index = 0; index < queue.size(); index++) {
+            State candidate = queue.get(index);
+            if (candidate.getToken().getName().equals(state)) {
+                changeStateTo(candidate);
+                return;
+            }
+            if (visited.add(candidate) && candidate.getTransitions() != null) {
+                queue.addAll(candidate.getTransitions().getEndStates());
+            }
+        }
+
+        throw new IllegalArgumentException("state " + state + " is not reachable from " + initialState.getToken());
+    }
+
 }
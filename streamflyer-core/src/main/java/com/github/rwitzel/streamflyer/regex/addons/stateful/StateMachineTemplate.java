@@ -0,0 +1,200 @@
+/**
+ * Copyright (C) 2011 rwitzel75@googlemail.com
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.rwitzel.streamflyer.regex.addons.stateful;
+
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Pattern;
+
+import com.github.rwitzel.streamflyer.core.Modifier;
+import com.github.rwitzel.streamflyer.core.ModifierTemplate;
+import com.github.rwitzel.streamflyer.internal.thirdparty.ZzzValidate;
+import com.github.rwitzel.streamflyer.regex.RegexModifier;
+import com.github.rwitzel.streamflyer.regex.RuleSet;
+import com.github.rwitzel.streamflyer.regex.RuleSetHolder;
+import com.github.rwitzel.streamflyer.regex.addons.tokens.Token;
+import com.github.rwitzel.streamflyer.regex.addons.tokens.TokensMatcher;
+import com.github.rwitzel.streamflyer.regex.addons.util.DelegatingMatcher;
+
+/**
+ * Creates {@link RegexModifier regex modifiers} that are driven by a {@link StateMachine}.
+ * <p>
+ * The states and transitions of a state machine have a state, i.e. they cannot be shared between streams. Therefore,
+ * the template takes the states reachable from the initial state as a blueprint. The alternations of the tokens of the
+ * end states of all transitions are compiled only once, when the template is created. {@link #newModifier()} copies
+ * the states and transitions and reuses the compiled alternations, the {@link State#getToken() tokens} and the
+ * {@link Transitions#getTransitionGuard() transition guards}.
+ * <p>
+ * This class is thread-safe if the match processors of the tokens and the transition guards are thread-safe.
+ * <p>
+ * A template is also a {@link RuleSet}, i.e. it can be {@link RuleSetHolder#publish(RuleSet) published} to replace the
+ * state machine of running modifiers. The new state machine starts in its initial state.
+ * 
+ * @author rwoo
+ * @since 1.2.1
+ */
+public class StateMachineTemplate implements ModifierTemplate, RuleSet {
+
+    //
+    // injected properties
+    //
+
+    private final int minimumLengthOfLookBehind;
+
+    private final int newNumberOfChars;
+
+    //
+    // state
+    //
+
+    /**
+     * The states reachable from the initial state. The first state is the initial state.
+     */
+    private final List<State> states = new ArrayList<State>();
+
+    /**
+     * The compiled alternations of the tokens of the end states for each state with transitions.
+     */
+    private final Map<State, Pattern> patterns = new IdentityHashMap<State, Pattern>();
+
+    //
+    // constructors
+    //
+
+    /**
+     * @param initialState
+     *            the initial state of the blueprint. The blueprint must not be changed after the template is created.
+     * @param minimumLengthOfLookBehind
+     *            See {@link RegexModifier#RegexModifier(com.github.rwitzel.streamflyer.regex.OnStreamMatcher,
+     *            com.github.rwitzel.streamflyer.regex.MatchProcessor, int, int)}.
+     * @param newNumberOfChars
+     *            See {@link RegexModifier#RegexModifier(com.github.rwitzel.streamflyer.regex.OnStreamMatcher,
+     *            com.github.rwitzel.streamflyer.regex.MatchProcessor, int, int)}.
+     */
+    public StateMachineTemplate(State initialState, int minimumLengthOfLookBehind, int newNumberOfChars) {
+        super();
+
+        ZzzValidate.notNull(initialState, "initialState must not be null");
+
+        this.minimumLengthOfLookBehind = minimumLengthOfLookBehind;
+        this.newNumberOfChars = newNumberOfChars;
+
+        // collect the reachable states and compile the alternations
+        states.add(initialState);
+        for (int index = 0; index < states.size(); index++) {
+            State state = states.get(index);
+            Transitions transitions = state.getTransitions();
+            if (transitions != null) {
+                List<State> endStates = transitions.getEndStates();
+                List<Token> tokens = new ArrayList<Token>();
+                for (State endState : endStates) {
+                    tokens.add(endState.getToken());
+                    if (!containsIdentical(states, endState)) {
+                        states.add(endState);
+                    }
+                }
+                patterns.put(state, TokensMatcher.compileRegexThatMatchesAnyToken(tokens));
+            }
+        }
+    }
+
+    private static boolean containsIdentical(List<State> states, State state) {
+        for (State existingState : states) {
+            if (existingState == state) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    //
+    // override ModifierTemplate.*
+    //
+
+    /**
+     * @see com.github.rwitzel.streamflyer.core.ModifierTemplate#newModifier()
+     */
+    @Override
+    public Modifier newModifier() {
+        DelegatingMatcher delegatingMatcher = new DelegatingMatcher();
+        return new RegexModifier(delegatingMatcher, newStateMachine(delegatingMatcher), minimumLengthOfLookBehind,
+                newNumberOfChars);
+    }
+
+    //
+    // override RuleSet.*
+    //
+
+    /**
+     * @see com.github.rwitzel.streamflyer.regex.RuleSet#applyTo(com.github.rwitzel.streamflyer.regex.RegexModifier)
+     */
+    @Override
+    public void applyTo(RegexModifier modifier) {
+        DelegatingMatcher delegatingMatcher = new DelegatingMatcher();
+        StateMachine stateMachine = newStateMachine(delegatingMatcher);
+        modifier.setMatcher(delegatingMatcher);
+        modifier.setMatchProcessor(stateMachine);
+    }
+
+    /**
+     * @return Returns a state machine that operates on copies of the states and transitions of the blueprint.
+     */
+    private StateMachine newStateMachine(DelegatingMatcher delegatingMatcher) {
+
+        // copy the states
+        Map<State, State> copies = new IdentityHashMap<State, State>();
+        for (State state : states) {
+            copies.put(state, new State(state.getToken()));
+        }
+
+        // copy the transitions
+        for (State state : states) {
+            Transitions transitions = state.getTransitions();
+            if (transitions != null) {
+                List<State> endStates = new ArrayList<State>();
+                for (State endState : transitions.getEndStates()) {
+                    endStates.add(copies.get(endState));
+                }
+                copies.get(state).setTransitions(
+                        new Transitions(endStates, transitions.getTransitionGuard(), patterns.get(state)));
+            }
+        }
+
+        return new StateMachine(copies.get(states.get(0)), delegatingMatcher);
+    }
+
+    //
+    // override Object.*
+    //
+
+    /**
+     * @see java.lang.Object#toString()
+     */
+    @Override
+    public String toString() {
+        StringBuilder builder = new StringBuilder();
+        builder.append("StateMachineTemplate [numberOfStates=");
+        builder.append(states.size());
+        builder.append(", \nminimumLengthOfLookBehind=");
+        builder.append(minimumLengthOfLookBehind);
+        builder.append(", \nnewNumberOfChars=");
+        builder.append(newNumberOfChars);
+        builder.append("]");
+        return builder.toString();
+    }
+}
@@ -18,6 +18,7 @@ package com.github.rwitzel.streamflyer.regex.addons.stateful;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.regex.MatchResult;
+import java.util.regex.Pattern;
 
 import com.github.rwitzel.streamflyer.regex.MatchProcessorResult;
 import com.github.rwitzel.streamflyer.regex.OnStreamMatcher;
@@ -72,6 +73,26 @@ public class Transitions extends TokenProcessor {
         this.matcher = new TokensMatcher(mapToTokens(endStates));
     }
 
+    /**
+     * Like {@link #Transitions(List, TransitionGuard)} but the alternation of the tokens of the end states is already
+     * compiled.
+     * 
+     * @param endStates
+     *            the states that can be reached by these transitions. Must not be null.
+     * @param transitionGuard
+     *            The guard that is called before a transition is executed. Must not be null.
+     * @param pattern
+     *            the compiled alternation of the tokens of the end states, see
+     *            {@link TokensMatcher#compileRegexThatMatchesAnyToken(List)}.
+     * @since 1.2.1
+     */
+    public Transitions(List<State> endStates, TransitionGuard transitionGuard, Pattern pattern) {
+        super(mapToTokens(endStates));
+        this.endStates = endStates;
+        this.transitionGuard = transitionGuard;
+        this.matcher = new TokensMatcher(pattern);
+    }
+
     /**
      * (Functional style. Waiting for Java 8.)
      * 
@@ -108,6 +129,22 @@ public class Transitions extends TokenProcessor {
         return matcher;
     }
 
+    /**
+     * @return Returns the states that can be reached by these transitions.
+     * @since 1.2.1
+     */
+    public List<State> getEndStates() {
+        return endStates;
+    }
+
+    /**
+     * @return Returns the guard that is called before a transition is executed.
+     * @since 1.2.1
+     */
+    public TransitionGuard getTransitionGuard() {
+        return transitionGuard;
+    }
+
     @Override
     protected MatchProcessorResult processToken(Token token, StringBuilder characterBuffer,
             int firstModifiableCharacterInBuffer, MatchResult matchResult) {
@@ -15,10 +15,9 @@
  */
 package com.github.rwitzel.streamflyer.regex.addons.tokens;
 
-import java.util.regex.Pattern;
-
 import com.github.rwitzel.streamflyer.internal.thirdparty.ZzzValidate;
 import com.github.rwitzel.streamflyer.regex.MatchProcessor;
+import com.github.rwitzel.streamflyer.regex.PatternCache;
 import com.github.rwitzel.streamflyer.regex.ReplacingProcessor;
 import com.github.rwitzel.streamflyer.regex.addons.util.DoNothingProcessor;
 import com.github.rwitzel.streamflyer.regex.addons.util.EmbeddedFlagUtil;
@@ -107,7 +106,7 @@ public class Token {
         this.name = name;
         this.regex = regex;
         this.matchProcessor = matchProcessor;
-        this.capturingGroupCount = Pattern.compile(regex).matcher("").groupCount();
+        this.capturingGroupCount = PatternCache.getShared().getGroupCount(regex);
     }
 
     public String getName() {
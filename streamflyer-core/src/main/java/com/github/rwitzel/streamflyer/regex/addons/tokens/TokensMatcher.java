@@ -21,6 +21,7 @@ import java.util.regex.Pattern;
 
 import com.github.rwitzel.streamflyer.regex.OnStreamMatcher;
 import com.github.rwitzel.streamflyer.regex.OnStreamStandardMatcher;
+import com.github.rwitzel.streamflyer.regex.PatternCache;
 import com.github.rwitzel.streamflyer.regex.RegexModifier;
 import com.github.rwitzel.streamflyer.regex.addons.util.DelegatingMatcher;
 
@@ -44,10 +45,34 @@ public class TokensMatcher extends DelegatingMatcher {
         setDelegate(createMatcher(createRegexThatMatchesAnyToken(tokens)));
     }
 
+    /**
+     * @param pattern
+     *            the {@link #compileRegexThatMatchesAnyToken(List) compiled alternation of the tokens}, e.g. shared
+     *            by all matchers created by a {@link TokensTemplate}.
+     * @since 1.2.1
+     */
+    public TokensMatcher(Pattern pattern) {
+        super();
+        setDelegate(createMatcher(pattern));
+    }
+
     /**
      * @return Returns a regular expression that matches all tokens.
      */
     String createRegexThatMatchesAnyToken(List<Token> tokens) {
+        return regexThatMatchesAnyToken(tokens);
+    }
+
+    /**
+     * @return Returns the compiled regular expression that matches all tokens. The pattern can be passed to
+     *         {@link #TokensMatcher(Pattern)}.
+     * @since 1.2.1
+     */
+    public static Pattern compileRegexThatMatchesAnyToken(List<Token> tokens) {
+        return PatternCache.getShared().getPattern(regexThatMatchesAnyToken(tokens), 0);
+    }
+
+    private static String regexThatMatchesAnyToken(List<Token> tokens) {
         String regex = null;
         for (Token token : tokens) {
             if (regex == null) {
@@ -63,8 +88,16 @@ public class TokensMatcher extends DelegatingMatcher {
      * @return Returns the matcher that can be used with a {@link RegexModifier} to match an alternative of tokens
      */
     protected OnStreamMatcher createMatcher(String regexTokenAlternatives) {
+        return createMatcher(PatternCache.getShared().getPattern(regexTokenAlternatives, 0));
+    }
+
+    /**
+     * @return Returns the matcher that can be used with a {@link RegexModifier} to match an alternative of tokens
+     * @since 1.2.1
+     */
+    protected OnStreamMatcher createMatcher(Pattern patternTokenAlternatives) {
         // use the default implementation
-        Matcher matcher = Pattern.compile(regexTokenAlternatives, 0).matcher("");
+        Matcher matcher = patternTokenAlternatives.matcher("");
         matcher.useTransparentBounds(true);
         matcher.useAnchoringBounds(false);
         return new OnStreamStandardMatcher(matcher);
@@ -0,0 +1,132 @@
+/**
+ * Copyright (C) 2011 rwitzel75@googlemail.com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.rwitzel.streamflyer.regex.addons.tokens;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.regex.Pattern;
+
+import com.github.rwitzel.streamflyer.core.Modifier;
+import com.github.rwitzel.streamflyer.core.ModifierTemplate;
+import com.github.rwitzel.streamflyer.internal.thirdparty.ZzzValidate;
+import com.github.rwitzel.streamflyer.regex.RegexModifier;
+import com.github.rwitzel.streamflyer.regex.RuleSet;
+import com.github.rwitzel.streamflyer.regex.RuleSetHolder;
+
+/**
+ * Creates {@link RegexModifier regex modifiers} that match a list of {@link Token tokens}, i.e. modifiers that use a
+ * {@link TokensMatcher} and a {@link TokenProcessor}.
+ * <p>
+ * The alternation of the tokens is compiled only once, when the template is created. The tokens and the token
+ * processor are shared by all modifiers.
+ * <p>
+ * This class is thread-safe if the {@link Token#getMatchProcessor() match processors} of the tokens are thread-safe.
+ * <p>
+ * A template is also a {@link RuleSet}, i.e. it can be {@link RuleSetHolder#publish(RuleSet) published} to replace the
+ * tokens of running modifiers.
+ * 
+ * @author rwoo
+ * @since 1.2.1
+ */
+public class TokensTemplate implements ModifierTemplate, RuleSet {
+
+    //
+    // injected properties
+    //
+
+    private final List<Token> tokens;
+
+    private final Pattern pattern;
+
+    private final TokenProcessor tokenProcessor;
+
+    private final int minimumLengthOfLookBehind;
+
+    private final int newNumberOfChars;
+
+    //
+    // constructors
+    //
+
+    /**
+     * @param tokens
+     *            the tokens to match. Must not be empty.
+     * @param minimumLengthOfLookBehind
+     *            See {@link RegexModifier#RegexModifier(com.github.rwitzel.streamflyer.regex.OnStreamMatcher,
+     *            com.github.rwitzel.streamflyer.regex.MatchProcessor, int, int)}.
+     * @param newNumberOfChars
+     *            See {@link RegexModifier#RegexModifier(com.github.rwitzel.streamflyer.regex.OnStreamMatcher,
+     *            com.github.rwitzel.streamflyer.regex.MatchProcessor, int, int)}.
+     */
+    public TokensTemplate(List<Token> tokens, int minimumLengthOfLookBehind, int newNumberOfChars) {
+        super();
+
+        ZzzValidate.isNotEmpty(tokens, "tokens");
+
+        this.tokens = Collections.unmodifiableList(new ArrayList<Token>(tokens));
+        this.pattern = TokensMatcher.compileRegexThatMatchesAnyToken(this.tokens);
+        this.tokenProcessor = new TokenProcessor(this.tokens);
+        this.minimumLengthOfLookBehind = minimumLengthOfLookBehind;
+        this.newNumberOfChars = newNumberOfChars;
+    }
+
+    //
+    // override ModifierTemplate.*
+    //
+
+    /**
+     * @see com.github.rwitzel.streamflyer.core.ModifierTemplate#newModifier()
+     */
+    @Override
+    public Modifier newModifier() {
+        return new RegexModifier(new TokensMatcher(pattern), tokenProcessor, minimumLengthOfLookBehind,
+                newNumberOfChars);
+    }
+
+    //
+    // override RuleSet.*
+    //
+
+    /**
+     * @see com.github.rwitzel.streamflyer.regex.RuleSet#applyTo(com.github.rwitzel.streamflyer.regex.RegexModifier)
+     */
+    @Override
+    public void applyTo(RegexModifier modifier) {
+        modifier.setMatcher(new TokensMatcher(pattern));
+        modifier.setMatchProcessor(tokenProcessor);
+    }
+
+    //
+    // override Object.*
+    //
+
+    /**
+     * @see java.lang.Object#toString()
+     */
+    @Override
+    public String toString() {
+        StringBuilder builder = new StringBuilder();
+        builder.append("TokensTemplate [tokens=");
+        builder.append(tokens);
+        builder.append(", \nminimumLengthOfLookBehind=");
+        builder.append(minimumLengthOfLookBehind);
+        builder.append(", \nnewNumberOfChars=");
+        builder.append(newNumberOfChars);
+        builder.append("]");
+        return builder.toString();
+    }
+}
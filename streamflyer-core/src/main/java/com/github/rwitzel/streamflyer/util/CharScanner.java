@@ -0,0 +1,219 @@
+/**
+ * Copyright (C) 2011 rwitzel75@googlemail.com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.rwitzel.streamflyer.util;
+
+/**
+ * Scans character sequences for single characters or for characters that are not valid in XML documents.
+ * <p>
+ * The scanner copies the scanned region chunk by chunk into an array and applies a tight loop to the array. This avoids
+ * the overhead of {@link CharSequence#charAt(int)} and of the regular expression engine for the (long) runs of
+ * characters that do not need any treatment.
+ * <p>
+ * The scanning kernels {@link #indexOf(char[], int, int, char)} and
+ * {@link #indexOfInvalidXmlCharacter(char[], int, int, boolean)} can be replaced by subclasses, for example, by an
+ * implementation that processes several characters at once. Such an implementation can be registered via the system
+ * property {@value #IMPLEMENTATION_PROPERTY}. {@link #newInstance()} falls back to this (scalar) implementation if the
+ * property is not set or the class cannot be instantiated.
+ * <p>
+ * This class is not thread-safe as the chunk is reused.
+ *
+ * @author rwoo
+ * @since 1.2.1
+ */
+public class CharScanner {
+
+    /**
+     * The name of the system property that may specify the class name of a subclass. The subclass must have a public
+     * no-argument constructor.
+     */
+    public static final String IMPLEMENTATION_PROPERTY = CharScanner.class.getName();
+
+    /**
+     * The size of the first chunk that is copied. The size is doubled for each following chunk until
+     * {@link #MAX_CHUNK_SIZE} is reached. So we don't copy many characters if the searched character is near.
+     */
+    private static final int MIN_CHUNK_SIZE = 64;
+
+    private static final int MAX_CHUNK_SIZE = 1024;
+
+    //
+    // state
+    //
+
+    /**
+     * The region of the scanned character sequence that is currently scanned.
+     */
+    private final char[] chunk = new char[MAX_CHUNK_SIZE];
+
+    //
+    // factory methods
+    //
+
+    /**
+     * @return Returns a new instance of the class given by the system property {@value #IMPLEMENTATION_PROPERTY}, or a
+     *         new instance of {@link CharScanner} if there is no such property or the class cannot be instantiated.
+     */
+    public static CharScanner newInstance() {
+
+        String className = null;
+        try {
+            className = System.getProperty(IMPLEMENTATION_PROPERTY);
+        } catch (SecurityException e) {
+            // fall back to scalar implementation
+        }
+
+        if (className != null) {
+            try {
+                return (CharScanner) Class.forName(className).newInstance();
+            } catch (Exception e) {
+                // fall back to scalar implementation
+            } catch (LinkageError e) {
+                // fall back to scalar implementation (e.g. the required JDK module is not available)
+            }
+        }
+
+        return new CharScanner();
+    }
+
+    //
+    // scan methods
+    //
+
+    /**
+     * @param input
+     *            the character sequence to scan
+     * @param ch
+     *            the character to find
+     * @param from
+     *            the first position to scan (inclusive)
+     * @param to
+     *            the last position to scan (exclusive)
+     * @return Returns the position of the first occurrence of the given character in the given region of the input, or
+     *         -1 if the region does not contain the character.
+     */
+    public int indexOf(CharSequence input, char ch, int from, int to) {
+
+        int chunkSize = MIN_CHUNK_SIZE;
+        for (int start = from; start < to; start += chunkSize) {
+
+            if (chunkSize < MAX_CHUNK_SIZE && start != from) {
+                chunkSize *= 2;
+            }
+            int end = Math.min(to, start + chunkSize);
+
+            copyToChunk(input, start, end);
+            int index = indexOf(chunk, 0, end - start, ch);
+            if (index != -1) {
+                return start + index;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * @param input
+     *            the character sequence to scan
+     * @param from
+     *            the first position to scan (inclusive)
+     * @param to
+     *            the last position to scan (exclusive)
+     * @param xml11
+     *            true if the characters shall be validated against XML 1.1, false if against XML 1.0.
+     * @return Returns the position of the first character in the given region of the input that is not a valid XML
+     *         character in the basic multilingual plane, or -1 if there is no such character. Surrogates are regarded
+     *         as invalid characters.
+     */
+    public int indexOfInvalidXmlCharacter(CharSequence input, int from, int to, boolean xml11) {
+
+        for (int start = from; start < to; start += MAX_CHUNK_SIZE) {
+
+            int end = Math.min(to, start + MAX_CHUNK_SIZE);
+
+            copyToChunk(input, start, end);
+            int index = indexOfInvalidXmlCharacter(chunk, 0, end - start, xml11);
+            if (index != -1) {
+                return start + index;
+            }
+        }
+        return -1;
+    }
+
+    private void copyToChunk(CharSequence input, int start, int end) {
+        if (input instanceof StringBuilder) {
+            ((StringBuilder) input).getChars(start, end, chunk, 0);
+        } else if (input instanceof String) {
+            ((String) input).getChars(start, end, chunk, 0);
+        } else if (input instanceof StringBuffer) {
+            ((StringBuffer) input).getChars(start, end, chunk, 0);
+        } else {
+            for (int index = start; index < end; index++) {
+                chunk[index - start] = input.charAt(index);
+            }
+        }
+    }
+
+    //
+    // scanning kernels
+    //
+
+    /**
+     * @return Returns the position of the first occurrence of the given character in the given region of the array,
+     *         or -1 if the region does not contain the character.
+     */
+    protected int indexOf(char[] chars, int from, int to, char ch) {
+        for (int index = from; index < to; index++) {
+            if (chars[index] == ch) {
+                return index;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * @return Returns the position of the first character in the given region of the array that is not a valid XML
+     *         character in the basic multilingual plane, or -1 if there is no such character.
+     */
+    protected int indexOfInvalidXmlCharacter(char[] chars, int from, int to, boolean xml11) {
+
+        if (xml11) {
+            for (int index = from; index < to; index++) {
+                char ch = chars[index];
+                // most characters are in the range U+0001 - U+D7FF
+                if (ch < 0xD800) {
+                    if (ch == 0) {
+                        return index;
+                    }
+                } else if (ch < 0xE000 || ch > 0xFFFD) {
+                    return index;
+                }
+            }
+        } else {
+            for (int index = from; index < to; index++) {
+                char ch = chars[index];
+                // most characters are in the range U+0020 - U+D7FF
+                if (ch < 0xD800) {
+                    if (ch < 0x20 && ch != 0x9 && ch != 0xA && ch != 0xD) {
+                        return index;
+                    }
+                } else if (ch < 0xE000 || ch > 0xFFFD) {
+                    return index;
+                }
+            }
+        }
+        return -1;
+    }
+
+}
@@ -0,0 +1,495 @@
+/**
+ * Copyright (C) 2011 rwitzel75@googlemail.com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.rwitzel.streamflyer.util;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.Reader;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.CodingErrorAction;
+import java.util.concurrent.locks.LockSupport;
+
+import com.github.rwitzel.streamflyer.core.ModifyingReader;
+import com.github.rwitzel.streamflyer.internal.thirdparty.ZzzValidate;
+
+/**
+ * A {@link Reader} that follows a file that is still being written, e.g. a log file (like <code>tail -F</code>).
+ * <p>
+ * If the reader reaches the current end of the file, it does not return -1 but waits until more characters are
+ * appended. It polls the file with an interval that starts with the minimum polling interval and is doubled up to the
+ * maximum polling interval as long as nothing is appended. The reader returns -1 only if it is {@link #stop() stopped}
+ * and the end of the file is reached, or if it is {@link #close() closed}.
+ * <p>
+ * Wrapped by a {@link ModifyingReader} the end of the stream is not hit at the current end of the file, i.e. a match
+ * that is open at the current end of the file is completed as soon as more characters are appended. Switch on the
+ * {@link ModifyingReader#setLowLatency(boolean) low latency mode} of the modifying reader so that the characters are
+ * passed to the modifier as soon as they are appended.
+ * <p>
+ * At the current end of the file the reader detects
+ * <ul>
+ * <li>the truncation of the file, i.e. the file is shorter than the number of bytes read. The reader continues at the
+ * start of the file.</li>
+ * <li>the rotation of the file, i.e. the file was renamed (or deleted) and a new file has been created. The reader
+ * reads the new file from its start. The rotation is detected if the length of the new file differs from the length of
+ * the followed file, or if the new file is modified and its first bytes differ from the first bytes of the followed
+ * file. (Java 6 does not provide the identity of a file.)</li>
+ * </ul>
+ * Each byte is read and decoded only once.
+ * <p>
+ * This class is not thread-safe, i.e. only a single thread may read from it. {@link #stop()} and {@link #close()} may
+ * be called by any thread.
+ * 
+ * @author rwoo
+ * @since 1.2.1
+ */
+public class FollowingFileReader extends Reader {
+
+    public static final long DEFAULT_MINIMUM_POLLING_INTERVAL = 10;
+
+    public static final long DEFAULT_MAXIMUM_POLLING_INTERVAL = 1000;
+
+    private static final int BYTE_BUFFER_SIZE = 8192;
+
+    /**
+     * The number of bytes at the start of the files that are compared in order to detect a rotation.
+     */
+    private static final int FINGERPRINT_LENGTH = 64;
+
+    //
+    // injected properties
+    //
+
+    private final File file;
+
+    private final Charset charset;
+
+    private final long minimumPollingInterval;
+
+    private final long maximumPollingInterval;
+
+    //
+    // state
+    //
+
+    private FileInputStream input;
+
+    private FileChannel channel;
+
+    /**
+     * The number of bytes read from {@link #channel}.
+     */
+    private long position = 0;
+
+    /**
+     * The bytes read from {@link #channel} but not decoded yet. The buffer is ready for reading from the channel.
+     */
+    private final ByteBuffer bytes = ByteBuffer.allocate(BYTE_BUFFER_SIZE);
+
+    /**
+     * True if the last decoding stopped because the given region was full, i.e. {@link #bytes} may still contain
+     * complete characters. False if the bytes left over are an incomplete character (if any).
+     */
+    private boolean regionFull = false;
+
+    private final CharsetDecoder decoder;
+
+    /**
+     * The characters decoded but not read yet if the caller requests fewer characters than a surrogate pair or if
+     * {@link #ready()} has to decode the bytes left over in order to find out whether they contain a character.
+     */
+    private final char[] pending = new char[2];
+
+    private int pendingStart = 0;
+
+    private int pendingEnd = 0;
+
+    /**
+     * The time the file the path refers to was modified, taken at the last check of the file.
+     */
+    private long lastModified;
+
+    private long numberOfTruncations = 0;
+
+    private long numberOfRotations = 0;
+
+    private volatile boolean stopped = false;
+
+    private volatile boolean closed = false;
+
+    /**
+     * The thread that waits for more characters, or null if no thread waits.
+     */
+    private volatile Thread waiting;
+
+    //
+    // constructors
+    //
+
+    public FollowingFileReader(File file, Charset charset) throws FileNotFoundException {
+        this(file, charset, DEFAULT_MINIMUM_POLLING_INTERVAL, DEFAULT_MAXIMUM_POLLING_INTERVAL);
+    }
+
+    /**
+     * @param file
+     *            the file to follow. Must exist.
+     * @param charset
+     *            the encoding of the file. Malformed input is replaced like {@link java.io.InputStreamReader} does.
+     * @param minimumPollingInterval
+     *            the time in milliseconds the reader waits at the end of the file first.
+     * @param maximumPollingInterval
+     *            the maximum time in milliseconds the reader waits at the end of the file before it checks the file
+     *            again.
+     * @throws FileNotFoundException
+     *             Thrown if the file cannot be opened.
+     */
+    public FollowingFileReader(File file, Charset charset, long minimumPollingInterval, long maximumPollingInterval)
+            throws FileNotFoundException {
+        super();
+
+        ZzzValidate.notNull(file, "file must not be null");
+        ZzzValidate.notNull(charset, "charset must not be null");
+        ZzzValidate.isTrue(minimumPollingInterval > 0, "minimumPollingInterval must be positive but was "
+                + minimumPollingInterval);
+        ZzzValidate.isTrue(maximumPollingInterval >= minimumPollingInterval,
+                "maximumPollingInterval must not be smaller than minimumPollingInterval but was "
+                        + maximumPollingInterval);
+
+        this.file = file;
+        this.charset = charset;
+        this.minimumPollingInterval = minimumPollingInterval;
+        this.maximumPollingInterval = maximumPollingInterval;
+        this.decoder = charset.newDecoder().onMalformedInput(CodingErrorAction.REPLACE)
+                .onUnmappableCharacter(CodingErrorAction.REPLACE);
+
+        this.lastModified = file.lastModified();
+        this.input = new FileInputStream(file);
+        this.channel = input.getChannel();
+    }
+
+    //
+    // override Reader.*
+    //
+
+    /**
+     * Reads the characters that are available. Waits if the current end of the file is reached.
+     * 
+     * @return Returns the number of characters read, or -1 if this reader is stopped and the end of the file is reached
+     *         or if this reader is closed.
+     * @throws InterruptedIOException
+     *             Thrown if the thread is interrupted while waiting for more characters.
+     * @see java.io.Reader#read(char[], int, int)
+     */
+    @Override
+    public int read(char[] cbuf, int off, int len) throws IOException {
+
+        if (len == 0) {
+            return 0;
+        }
+
+        try {
+            long pollingInterval = minimumPollingInterval;
+            while (!closed) {
+
+                int read = readAvailable(cbuf, off, len);
+                if (read > 0) {
+                    return read;
+                }
+
+                // the current end of the file is reached
+                if (stopped) {
+                    return -1;
+                }
+                if (followTruncationOrRotation()) {
+                    continue;
+                }
+
+                // wait (the interval is increased as long as nothing is appended)
+                await(pollingInterval);
+                pollingInterval = Math.min(2 * pollingInterval, maximumPollingInterval);
+            }
+        } catch (ClosedChannelException e) {
+            if (!closed) {
+                throw e;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * @return Returns true if characters are available at the moment.
+     * @see java.io.Reader#ready()
+     */
+    @Override
+    public boolean ready() throws IOException {
+
+        if (closed) {
+            return false;
+        }
+
+        // (the available characters are not decoded here, otherwise the next read would be cut down to the pending
+        // characters)
+        try {
+            if (pendingStart < pendingEnd || channel.size() > position) {
+                return true;
+            }
+        } catch (ClosedChannelException e) {
+            if (!closed) {
+                throw e;
+            }
+            return false;
+        }
+
+        if (!regionFull) {
+            // the bytes left over (if any) are an incomplete character
+            return false;
+        }
+
+        // the bytes left over might contain characters -> decode them
+        pendingStart = 0;
+        pendingEnd = decode(pending, 0, pending.length);
+        return pendingStart < pendingEnd;
+    }
+
+    /**
+     * Closes the file. A thread that waits for more characters returns -1.
+     * 
+     * @see java.io.Reader#close()
+     */
+    @Override
+    public void close() throws IOException {
+
+        if (closed) {
+            return;
+        }
+
+        closed = true;
+        LockSupport.unpark(waiting);
+        input.close();
+    }
+
+    //
+    // public methods
+    //
+
+    /**
+     * Stops following the file, i.e. the reader returns -1 as soon as the current end of the file is reached. A thread
+     * that waits for more characters returns -1.
+     */
+    public void stop() {
+        stopped = true;
+        LockSupport.unpark(waiting);
+    }
+
+    /**
+     * @return Returns the number of bytes read from the file that is currently followed.
+     */
+    public long getPosition() {
+        return position;
+    }
+
+    /**
+     * @return Returns how often the file was truncated.
+     */
+    public long getNumberOfTruncations() {
+        return numberOfTruncations;
+    }
+
+    /**
+     * @return Returns how often the file was rotated.
+     */
+    public long getNumberOfRotations() {
+        return numberOfRotations;
+    }
+
+    //
+    // private methods
+    //
+
+    /**
+     * @return Returns the number of characters read without waiting, maybe zero.
+     */
+    private int readAvailable(char[] cbuf, int off, int len) throws IOException {
+
+        if (pendingStart == pendingEnd) {
+            if (len >= pending.length) {
+                return decode(cbuf, off, len);
+            }
+            // (a supplementary character does not fit into the given region)
+            pendingStart = 0;
+            pendingEnd = decode(pending, 0, pending.length);
+        }
+
+        int count = Math.min(len, pendingEnd - pendingStart);
+        System.arraycopy(pending, pendingStart, cbuf, off, count);
+        pendingStart += count;
+        return count;
+    }
+
+    /**
+     * Decodes the available bytes into the given region. Reads more bytes from the file if needed.
+     * 
+     * @return Returns the number of decoded characters, maybe zero.
+     */
+    private int decode(char[] cbuf, int off, int len) throws IOException {
+
+        CharBuffer chars = CharBuffer.wrap(cbuf, off, len);
+        while (true) {
+
+            bytes.flip();
+            regionFull = decoder.decode(bytes, chars, false).isOverflow();
+            bytes.compact();
+
+            if (chars.position() > off) {
+                return chars.position() - off;
+            }
+
+            // (the remaining bytes are not a complete character)
+            int read = channel.read(bytes);
+            if (read <= 0) {
+                return 0;
+            }
+            position += read;
+        }
+    }
+
+    /**
+     * Checks the file at the current end of the file.
+     * 
+     * @return Returns true if the reader shall try to read again, i.e. more bytes are appended or the file is truncated
+     *         or rotated.
+     */
+    private boolean followTruncationOrRotation() throws IOException {
+
+        // (the file the path refers to is checked first, the followed file is growing meanwhile)
+        long lengthOfFile = file.length();
+        long lastModifiedOfFile = file.lastModified();
+        long size = channel.size();
+
+        if (size > position) {
+            // more bytes are appended meanwhile
+            return true;
+        }
+
+        if (size < position) {
+            // the file is truncated -> continue at the start of the file
+            channel.position(0);
+            startReadingAtStartOfFile();
+            numberOfTruncations++;
+            return true;
+        }
+
+        boolean modified = lastModifiedOfFile != lastModified;
+        lastModified = lastModifiedOfFile;
+
+        if ((lengthOfFile != size || modified) && file.exists()) {
+
+            FileInputStream newInput;
+            try {
+                newInput = new FileInputStream(file);
+            } catch (FileNotFoundException e) {
+                // the new file is not created yet (try again later)
+                return false;
+            }
+
+            // (the followed file does not grow, i.e. a file of the same length might be the followed file)
+            if (lengthOfFile == size && haveSameStart(channel, newInput.getChannel(), size)) {
+                newInput.close();
+                return false;
+            }
+
+            // the path refers to another file -> follow the new file
+            input.close();
+            input = newInput;
+            channel = newInput.getChannel();
+            startReadingAtStartOfFile();
+            numberOfRotations++;
+            return true;
+        }
+
+        return false;
+    }
+
+    private boolean haveSameStart(FileChannel channel1, FileChannel channel2, long size) throws IOException {
+        int length = (int) Math.min(size, FINGERPRINT_LENGTH);
+        return readStart(channel1, length).equals(readStart(channel2, length));
+    }
+
+    private ByteBuffer readStart(FileChannel fileChannel, int length) throws IOException {
+        ByteBuffer start = ByteBuffer.allocate(length);
+        while (start.hasRemaining() && fileChannel.read(start, start.position()) > 0) {
+            // loop
+        }
+        start.flip();
+        return start;
+    }
+
+    private void startReadingAtStartOfFile() {
+        // (the bytes of an incomplete character at the end of the previous content are dropped)
+        position = 0;
+        bytes.clear();
+        regionFull = false;
+        decoder.reset();
+    }
+
+    private void await(long millis) throws InterruptedIOException {
+
+        waiting = Thread.currentThread();
+        if (!stopped && !closed) {
+            LockSupport.parkNanos(this, millis * 1000000L);
+        }
+        waiting = null;
+
+        if (Thread.interrupted()) {
+            throw new InterruptedIOException("interrupted while waiting for more characters in " + file);
+        }
+    }
+
+    //
+    // override Object.*
+    //
+
+    /**
+     * @see java.lang.Object#toString()
+     */
+    @Override
+    public String toString() {
+        StringBuilder builder = new StringBuilder();
+        builder.append("FollowingFileReader [file=");
+        builder.append(file);
+        builder.append(", \ncharset=");
+        builder.append(charset);
+        builder.append(", \nposition=");
+        builder.append(position);
+        builder.append(", \nnumberOfTruncations=");
+        builder.append(numberOfTruncations);
+        builder.append(", \nnumberOfRotations=");
+        builder.append(numberOfRotations);
+        builder.append(", \nstopped=");
+        builder.append(stopped);
+        builder.append(", \nclosed=");
+        builder.append(closed);
+        builder.append("]");
+        return builder.toString();
+    }
+}
@@ -18,6 +18,7 @@ package com.github.rwitzel.streamflyer.util;
 import com.github.rwitzel.streamflyer.core.AfterModification;
 import com.github.rwitzel.streamflyer.core.Modifier;
 import com.github.rwitzel.streamflyer.core.ModifyingReader;
+import com.github.rwitzel.streamflyer.core.ReusableAfterModification;
 import com.github.rwitzel.streamflyer.internal.thirdparty.ZzzValidate;
 
 /**
@@ -31,16 +32,32 @@ import com.github.rwitzel.streamflyer.internal.thirdparty.ZzzValidate;
  * <li>{@link #skipOrStop(int, StringBuilder, int, boolean)}
  * <li>{@link #stop(StringBuilder, int, boolean)}
  * </ul>
+ * <p>
+ * If the factory is created with <code>reuseAfterModification</code> set to true, the factory returns the same
+ * {@link ReusableAfterModification} again and again, i.e. the returned message is valid only until the factory is used
+ * the next time. This avoids the allocation of a new message for each call of
+ * {@link Modifier#modify(StringBuilder, int, boolean)}.
  * 
  * @author rwoo
  * @since 27.06.2011
  */
 public class ModificationFactory {
 
+    /**
+     * The message returned by {@link #stop(StringBuilder, int, boolean)}. As {@link AfterModification} is immutable, all
+     * factories can share this message.
+     */
+    private static final AfterModification STOP = new AfterModification(0, false, 0, 1); // 1 <- doesn't matter
+
     private int minimumLengthOfLookBehind;
 
     private int newNumberOfChars;
 
+    /**
+     * If not null, then this message is returned again and again.
+     */
+    private ReusableAfterModification reusableAfterModification;
+
     /**
      * To be used by subclasses only.
      */
@@ -61,6 +78,41 @@ public class ModificationFactory {
         this.newNumberOfChars = newNumberOfChars;
     }
 
+    /**
+     * @param minimumLengthOfLookBehind
+     * @param newNumberOfChars
+     * @param reuseAfterModification
+     *            True if the factory shall return the same {@link ReusableAfterModification} again and again, see class
+     *            comment.
+     * @since 1.2.1
+     */
+    public ModificationFactory(int minimumLengthOfLookBehind, int newNumberOfChars, boolean reuseAfterModification) {
+        this(minimumLengthOfLookBehind, newNumberOfChars);
+
+        if (reuseAfterModification) {
+            this.reusableAfterModification = new ReusableAfterModification();
+        }
+    }
+
+    //
+    // protected methods
+    //
+
+    /**
+     * @return Returns a new {@link AfterModification} or the {@link #reusableAfterModification}.
+     */
+    protected AfterModification create(int numberOfCharactersToSkip, boolean modifyAgainImmediately,
+            int newMinimumLengthOfLookBehind, int newNumberOfChars_, boolean passThrough) {
+
+        if (reusableAfterModification != null) {
+            return reusableAfterModification.set(numberOfCharactersToSkip, modifyAgainImmediately,
+                    newMinimumLengthOfLookBehind, newNumberOfChars_, passThrough);
+        } else {
+            return new AfterModification(numberOfCharactersToSkip, modifyAgainImmediately,
+                    newMinimumLengthOfLookBehind, newNumberOfChars_, passThrough);
+        }
+    }
+
     //
     // public methods
     //
@@ -159,7 +211,7 @@ public class ModificationFactory {
         int newNumberOfChars_ = this.newNumberOfChars;
 
         // (4) create and return the modification
-        return new AfterModification(numberOfCharactersToSkip, false, minimumLengthOfLookBehind_, newNumberOfChars_);
+        return create(numberOfCharactersToSkip, false, minimumLengthOfLookBehind_, newNumberOfChars_, false);
     }
 
     /**
@@ -218,11 +270,11 @@ public class ModificationFactory {
         if (numberOfCharactersToSkip > 0) {
 
             // we skip some characters - and try to match again then
-            return new AfterModification(numberOfCharactersToSkip, false, minimumLengthOfLookBehind_, newNumberOfChars_);
+            return create(numberOfCharactersToSkip, false, minimumLengthOfLookBehind_, newNumberOfChars_, false);
         } else {
             // modify again immediately
-            return new AfterModification(0, true, //
-                    minimumLengthOfLookBehind_, newNumberOfChars_);
+            return create(0, true, //
+                    minimumLengthOfLookBehind_, newNumberOfChars_, false);
         }
     }
 
@@ -236,7 +288,7 @@ public class ModificationFactory {
      */
     public AfterModification modifyAgainImmediately(int newNumberOfChars_, int firstModifiableCharacterInBuffer) {
 
-        return new AfterModification(0, true, firstModifiableCharacterInBuffer, newNumberOfChars_);
+        return create(0, true, firstModifiableCharacterInBuffer, newNumberOfChars_, false);
     }
 
     /**
@@ -259,7 +311,25 @@ public class ModificationFactory {
             throw new IllegalStateException(msg);
         }
 
-        return new AfterModification(0, false, 0, 1); // 1 <- doesn't matter
+        return STOP;
+    }
+
+    /**
+     * Use this method if the modifier is done, i.e. if the modifier will never modify any of the remaining characters
+     * of the stream (PASS THROUGH). The modifiable characters in the buffer are skipped and the stream processor
+     * passes the rest of the stream through without buffering and without calling the modifier again.
+     * 
+     * @param characterBuffer
+     * @param firstModifiableCharacterInBuffer
+     * @param endOfStreamHit
+     * @return Returns a modification that skips all modifiable characters in the buffer and requests that the rest of
+     *         the stream is passed through.
+     * @since 1.2.1
+     */
+    public AfterModification passThrough(StringBuilder characterBuffer, int firstModifiableCharacterInBuffer,
+            boolean endOfStreamHit) {
+
+        return create(characterBuffer.length() - firstModifiableCharacterInBuffer, false, 0, 1, true);
     }
 
     //
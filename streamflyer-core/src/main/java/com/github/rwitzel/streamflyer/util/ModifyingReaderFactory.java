@@ -15,20 +15,20 @@
  */
 package com.github.rwitzel.streamflyer.util;
 
-import java.io.BufferedInputStream;
 import java.io.BufferedReader;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.Reader;
 
-import org.apache.commons.io.input.XmlStreamReader;
-
 import com.github.rwitzel.streamflyer.core.Modifier;
+import com.github.rwitzel.streamflyer.core.ModifierTemplate;
 import com.github.rwitzel.streamflyer.core.ModifyingReader;
 import com.github.rwitzel.streamflyer.regex.RegexModifier;
 import com.github.rwitzel.streamflyer.xml.InvalidXmlCharacterModifier;
+import com.github.rwitzel.streamflyer.xml.WellFormednessCheckingModifier;
+import com.github.rwitzel.streamflyer.xml.XmlNotWellFormedException;
+import com.github.rwitzel.streamflyer.xml.XmlPrologSniffer;
 import com.github.rwitzel.streamflyer.xml.XmlVersionModifier;
-import com.github.rwitzel.streamflyer.xml.XmlVersionReader;
 
 /**
  * Provides short-cuts to create {@link ModifyingReader modifying readers} using defaults.
@@ -44,17 +44,27 @@ public class ModifyingReaderFactory {
 
     public ModifyingReader createInvalidXmlCharacterReplacingReader(InputStream xmlStream, String replacement)
             throws IOException {
+        return createInvalidXmlCharacterReplacingReader(xmlStream, replacement, false);
+    }
 
-        // buffer stream
-        // (is this really necessary to get optimal performance?)
-        if (!(xmlStream instanceof BufferedInputStream)) {
-            xmlStream = new BufferedInputStream(xmlStream);
-        }
-
-        // get the XML version
-        XmlStreamReader xmlReader = new XmlStreamReader(xmlStream);
-        XmlVersionReader xmlVersionReader = new XmlVersionReader(xmlReader);
-        String xmlVersion = xmlVersionReader.getXmlVersion();
+    /**
+     * Like {@link #createInvalidXmlCharacterReplacingReader(InputStream, String)} but checks the well-formedness of the
+     * XML document in the same pass if the last argument is true.
+     * 
+     * @param xmlStream
+     * @param replacement
+     * @param checkWellFormedness
+     *            If this is true, the returned reader throws a {@link XmlNotWellFormedException} as soon as it detects
+     *            that the document is not well-formed, see {@link WellFormednessCheckingModifier}.
+     * @return Returns the reader that replaces invalid XML characters.
+     * @throws IOException
+     */
+    public ModifyingReader createInvalidXmlCharacterReplacingReader(InputStream xmlStream, String replacement,
+            boolean checkWellFormedness) throws IOException {
+
+        // get the encoding and the XML version (in a single pass over the head of the stream)
+        XmlPrologSniffer sniffer = new XmlPrologSniffer(xmlStream);
+        String xmlVersion = sniffer.getXmlVersion();
 
         // what kind of replacement?
         boolean dollarZero;
@@ -66,24 +76,21 @@ public class ModifyingReaderFactory {
 
         // create the reader that replaces invalid XML characters
         Modifier modifier = new InvalidXmlCharacterModifier(8192, replacement, xmlVersion, dollarZero);
-        return new ModifyingReader(xmlVersionReader, modifier);
+        if (checkWellFormedness) {
+            modifier = new WellFormednessCheckingModifier(modifier);
+        }
+        return new ModifyingReader(sniffer.getReader(), modifier);
     }
 
     public ModifyingReader createXmlVersionModifyingReader(InputStream xmlStream, String newXmlVersion)
             throws IOException {
 
-        // buffer stream
-        // (is this really necessary to get optimal performance?)
-        if (!(xmlStream instanceof BufferedInputStream)) {
-            xmlStream = new BufferedInputStream(xmlStream);
-        }
-
-        XmlStreamReader xmlReader = new XmlStreamReader(xmlStream);
-        XmlVersionReader xmlVersionReader = new XmlVersionReader(xmlReader);
+        // get the encoding
+        XmlPrologSniffer sniffer = new XmlPrologSniffer(xmlStream);
 
         // create the reader that replaces the XML version in prolog
         Modifier modifier = new XmlVersionModifier(newXmlVersion, 8192);
-        return new ModifyingReader(xmlVersionReader, modifier);
+        return new ModifyingReader(sniffer.getReader(), modifier);
     }
 
     public ModifyingReader createRegexModifyingReader(Reader input, String regex, String replacement) {
@@ -100,10 +107,30 @@ public class ModifyingReaderFactory {
         }
 
         // create modifier
+        // (the modifier is not visible to the caller, therefore it can reuse its results)
         Modifier modifier = new RegexModifier(regex, flags, replacement, minimumLengthOfLookBehind,
-                requestedCapacityOfCharacterBuffer);
+                requestedCapacityOfCharacterBuffer, true);
 
         // create and return reader
         return new ModifyingReader(input, modifier);
     }
+
+    /**
+     * @param input
+     *            the reader that provides the characters to modify.
+     * @param template
+     *            creates the modifier for the returned reader, e.g. a
+     *            {@link com.github.rwitzel.streamflyer.regex.RegexModifierTemplate}.
+     * @return Returns a reader that modifies the characters of the given reader on-the-fly.
+     * @since 1.2.1
+     */
+    public ModifyingReader createModifyingReader(Reader input, ModifierTemplate template) {
+
+        // buffer stream
+        if (!(input instanceof BufferedReader)) {
+            input = new BufferedReader(input);
+        }
+
+        return new ModifyingReader(input, template.newModifier());
+    }
 }
@@ -19,6 +19,7 @@ import java.io.BufferedWriter;
 import java.io.Writer;
 
 import com.github.rwitzel.streamflyer.core.Modifier;
+import com.github.rwitzel.streamflyer.core.ModifierTemplate;
 import com.github.rwitzel.streamflyer.core.ModifyingWriter;
 import com.github.rwitzel.streamflyer.regex.RegexModifier;
 
@@ -53,10 +54,30 @@ public class ModifyingWriterFactory {
         }
 
         // create modifier
+        // (the modifier is not visible to the caller, therefore it can reuse its results)
         Modifier modifier = new RegexModifier(regex, flags, replacement, minimumLengthOfLookBehind,
-                requestedCapacityOfCharacterBuffer);
+                requestedCapacityOfCharacterBuffer, true);
 
         // create and return Writer
         return new ModifyingWriter(output, modifier);
     }
+
+    /**
+     * @param output
+     *            the writer the modified characters are written to.
+     * @param template
+     *            creates the modifier for the returned writer, e.g. a
+     *            {@link com.github.rwitzel.streamflyer.regex.RegexModifierTemplate}.
+     * @return Returns a writer that modifies the written characters on-the-fly.
+     * @since 1.2.1
+     */
+    public ModifyingWriter createModifyingWriter(Writer output, ModifierTemplate template) {
+
+        // buffer stream
+        if (!(output instanceof BufferedWriter)) {
+            output = new BufferedWriter(output);
+        }
+
+        return new ModifyingWriter(output, template.newModifier());
+    }
 }
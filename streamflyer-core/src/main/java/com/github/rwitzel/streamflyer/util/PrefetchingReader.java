@@ -0,0 +1,406 @@
+/**
+ * Copyright (C) 2011 rwitzel75@googlemail.com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.rwitzel.streamflyer.util;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
+
+import com.github.rwitzel.streamflyer.core.ModifyingReader;
+import com.github.rwitzel.streamflyer.internal.thirdparty.ZzzValidate;
+
+/**
+ * A {@link Reader} that reads the underlying reader in a background thread ahead of the consumer.
+ * <p>
+ * Wrap a blocking source, e.g. a network or disk-backed reader, with this reader before passing it to a
+ * {@link ModifyingReader}. Then the background thread reads the next chunks of characters while the modifier processes
+ * the current characters, i.e. waiting for I/O and matching overlap.
+ * <p>
+ * The chunks are handed over to the consumer through a ring of reused chunks. There is a single producer (the
+ * background thread) and a single consumer (the thread that reads from this reader). Each side updates only its own
+ * position in the ring, i.e. no locks are involved. A side waits (parks) only if the ring is full or empty.
+ * <p>
+ * Exceptions thrown by the underlying reader are rethrown to the consumer in the order of the stream. The background
+ * thread terminates if the end of the stream is reached, an exception is thrown or this reader is closed.
+ * <p>
+ * {@link #close()} does not wait for a read of the underlying reader that is in progress, e.g. a read of an idle
+ * network source. Instead, the background thread is interrupted and closes the underlying reader as soon as the read
+ * returns. So the underlying reader is never closed while it is read (many readers hold a lock while reading and
+ * closing). An exception thrown by the delayed close is dropped.
+ * <p>
+ * This class is not thread-safe, i.e. only a single thread may read from it.
+ * 
+ * @author rwoo
+ * @since 1.2.1
+ */
+public class PrefetchingReader extends Reader {
+
+    public static final int DEFAULT_CHUNK_SIZE = 8192;
+
+    public static final int DEFAULT_NUMBER_OF_CHUNKS = 4;
+
+    private static final AtomicInteger THREAD_NUMBER = new AtomicInteger();
+
+    /**
+     * A slot in the ring.
+     */
+    private static class Chunk {
+
+        private final char[] chars;
+
+        /**
+         * The number of characters in {@link #chars}, or -1 if the end of the stream is reached or an exception is
+         * thrown.
+         */
+        private int length;
+
+        /**
+         * The exception thrown by the underlying reader. Null by default.
+         */
+        private Throwable exception;
+
+        private Chunk(int chunkSize) {
+            this.chars = new char[chunkSize];
+        }
+    }
+
+    //
+    // injected properties
+    //
+
+    private final Reader delegate;
+
+    //
+    // state
+    //
+
+    private final Chunk[] ring;
+
+    /**
+     * The number of chunks the consumer has released. The consumer holds the chunk at this position.
+     */
+    private volatile long head = 0;
+
+    /**
+     * The number of chunks the producer has filled.
+     */
+    private volatile long tail = 0;
+
+    private volatile boolean closed = false;
+
+    /**
+     * True if the background thread does not read the underlying reader any longer.
+     */
+    private volatile boolean producerTerminated = false;
+
+    /**
+     * True if the underlying reader is closed (or is being closed).
+     */
+    private final AtomicBoolean delegateClosed = new AtomicBoolean(false);
+
+    private final Thread producer;
+
+    /**
+     * The thread that waits for the next chunk, or null if no thread has waited yet.
+     */
+    private volatile Thread consumer;
+
+    /**
+     * The chunk the consumer reads from, or null if the consumer has not taken a chunk yet.
+     */
+    private Chunk current;
+
+    /**
+     * The position of the next character to read in {@link #current}.
+     */
+    private int position;
+
+    //
+    // constructors
+    //
+
+    public PrefetchingReader(Reader delegate) {
+        this(delegate, DEFAULT_CHUNK_SIZE, DEFAULT_NUMBER_OF_CHUNKS, null);
+    }
+
+    /**
+     * @param delegate
+     *            the reader to read ahead from.
+     * @param chunkSize
+     *            the maximum number of characters the background thread reads at once.
+     * @param numberOfChunks
+     *            the number of chunks in the ring. Must be at least two. The background thread reads at most
+     *            <code>numberOfChunks - 1</code> chunks ahead of the chunk the consumer reads from.
+     * @param threadFactory
+     *            creates the background thread, or null if a daemon thread shall be created. Pass the factory of
+     *            virtual threads if available.
+     */
+    public PrefetchingReader(Reader delegate, int chunkSize, int numberOfChunks, ThreadFactory threadFactory) {
+        super();
+
+        ZzzValidate.notNull(delegate, "delegate must not be null");
+        ZzzValidate.isTrue(chunkSize > 0, "chunkSize must be positive but was " + chunkSize);
+        ZzzValidate.isTrue(numberOfChunks >= 2, "numberOfChunks must be at least two but was " + numberOfChunks);
+
+        this.delegate = delegate;
+        this.ring = new Chunk[numberOfChunks];
+        for (int index = 0; index < numberOfChunks; index++) {
+            ring[index] = new Chunk(chunkSize);
+        }
+
+        Runnable prefetching = new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    prefetch();
+                } finally {
+                    producerTerminated = true;
+                    if (closed) {
+                        // (the close is not reported to anybody)
+                        Thread.interrupted();
+                        try {
+                            closeDelegate();
+                        } catch (IOException e) {
+                            // ignore
+                        }
+                    }
+                }
+            }
+        };
+        if (threadFactory == null) {
+            producer = new Thread(prefetching, "streamflyer-prefetch-" + THREAD_NUMBER.incrementAndGet());
+            producer.setDaemon(true);
+        } else {
+            producer = threadFactory.newThread(prefetching);
+        }
+        producer.start();
+    }
+
+    //
+    // producer
+    //
+
+    /**
+     * Reads chunks from the underlying reader until the end of the stream is reached, an exception is thrown or this
+     * reader is closed.
+     */
+    private void prefetch() {
+
+        while (!closed) {
+
+            // wait for a free chunk
+            while (tail - head == ring.length) {
+                if (closed) {
+                    return;
+                }
+                LockSupport.park(this);
+            }
+
+            Chunk chunk = ring[(int) (tail % ring.length)];
+            try {
+                chunk.length = delegate.read(chunk.chars, 0, chunk.chars.length);
+            } catch (Throwable e) {
+                chunk.length = -1;
+                chunk.exception = e;
+            }
+
+            // publish the chunk (volatile write)
+            tail = tail + 1;
+            LockSupport.unpark(consumer);
+
+            if (chunk.length == -1) {
+                return;
+            }
+        }
+    }
+
+    //
+    // consumer
+    //
+
+    /**
+     * @return Returns true if the consumer can take the next chunk without waiting.
+     */
+    private boolean isNextChunkAvailable() {
+        return tail > (current == null ? head : head + 1);
+    }
+
+    /**
+     * Releases the current chunk and waits for the next chunk.
+     */
+    private void takeNextChunk() throws IOException {
+
+        if (current != null) {
+            current = null;
+            head = head + 1;
+            LockSupport.unpark(producer);
+        }
+
+        if (tail == head) {
+            consumer = Thread.currentThread();
+            while (tail == head) {
+                if (closed) {
+                    throw new IOException("Stream closed");
+                }
+                LockSupport.park(this);
+            }
+        }
+
+        current = ring[(int) (head % ring.length)];
+        position = 0;
+    }
+
+    private void rethrow(Throwable exception) throws IOException {
+        if (exception instanceof IOException) {
+            throw (IOException) exception;
+        } else if (exception instanceof RuntimeException) {
+            throw (RuntimeException) exception;
+        } else if (exception instanceof Error) {
+            throw (Error) exception;
+        } else {
+            throw new IOException(exception.toString());
+        }
+    }
+
+    //
+    // override Reader.*
+    //
+
+    /**
+     * @see java.io.Reader#read(char[], int, int)
+     */
+    @Override
+    public int read(char[] cbuf, int off, int len) throws IOException {
+
+        if (closed) {
+            throw new IOException("Stream closed");
+        }
+        if (len == 0) {
+            return 0;
+        }
+
+        int index = 0;
+        while (true) {
+
+            // is the current chunk read?
+            if (current == null || position >= current.length) {
+
+                // is the end of the stream reached?
+                if (current != null && current.length == -1) {
+                    if (index > 0) {
+                        return index;
+                    }
+                    if (current.exception != null) {
+                        rethrow(current.exception);
+                    }
+                    return -1;
+                }
+
+                // return what we have instead of waiting for the next chunk
+                if (index > 0 && !isNextChunkAvailable()) {
+                    return index;
+                }
+
+                takeNextChunk();
+                continue;
+            }
+
+            int count = Math.min(current.length - position, len - index);
+            System.arraycopy(current.chars, position, cbuf, off + index, count);
+            position += count;
+            index += count;
+
+            if (index == len) {
+                return index;
+            }
+        }
+    }
+
+    /**
+     * @return Returns true if there are characters that can be read without waiting for the background thread.
+     * @see java.io.Reader#ready()
+     */
+    @Override
+    public boolean ready() throws IOException {
+
+        if (closed) {
+            throw new IOException("Stream closed");
+        }
+
+        return (current != null && position < current.length) || isNextChunkAvailable();
+    }
+
+    /**
+     * Stops the background thread and closes the underlying reader. Does not wait for a read of the underlying reader
+     * that is in progress, see class comment.
+     * 
+     * @see java.io.Reader#close()
+     */
+    @Override
+    public void close() throws IOException {
+
+        if (closed) {
+            return;
+        }
+
+        closed = true;
+        producer.interrupt();
+        LockSupport.unpark(consumer);
+        current = null;
+
+        // the background thread closes the underlying reader if it is still reading
+        if (producerTerminated) {
+            closeDelegate();
+        }
+    }
+
+    /**
+     * Closes the underlying reader unless it is already closed. Called by the consumer and the background thread, the
+     * first of both closes the underlying reader.
+     */
+    private void closeDelegate() throws IOException {
+        if (delegateClosed.compareAndSet(false, true)) {
+            delegate.close();
+        }
+    }
+
+    //
+    // override Object.*
+    //
+
+    /**
+     * @see java.lang.Object#toString()
+     */
+    @Override
+    public String toString() {
+        StringBuilder builder = new StringBuilder();
+        builder.append("PrefetchingReader [delegate=");
+        builder.append(delegate);
+        builder.append(", \nnumberOfChunks=");
+        builder.append(ring.length);
+        builder.append(", \nhead=");
+        builder.append(head);
+        builder.append(", \ntail=");
+        builder.append(tail);
+        builder.append(", \nclosed=");
+        builder.append(closed);
+        builder.append("]");
+        return builder.toString();
+    }
+}
@@ -0,0 +1,453 @@
+/**
+ * Copyright (C) 2011 rwitzel75@googlemail.com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.rwitzel.streamflyer.util;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
+
+import com.github.rwitzel.streamflyer.core.ModifyingWriter;
+import com.github.rwitzel.streamflyer.internal.thirdparty.ZzzValidate;
+
+/**
+ * A {@link Writer} that writes to the underlying writer in a background thread.
+ * <p>
+ * Pass this writer to a {@link ModifyingWriter} if the underlying writer might be slow, e.g. a writer on a socket. Then
+ * the thread that writes to the {@link ModifyingWriter} can continue matching while the background thread writes the
+ * completed output.
+ * <p>
+ * The characters are collected in chunks of a ring. A full chunk is handed over to the background thread. There is a
+ * single producer (the thread that writes to this writer) and a single consumer (the background thread). Each side
+ * updates only its own position in the ring, i.e. no locks are involved. The producer waits (parks) if all chunks are
+ * in use (backpressure), the background thread waits if there is nothing to write.
+ * <p>
+ * An exception thrown by the underlying writer is rethrown to the producer by the next call of a write method,
+ * {@link #flush()} or {@link #close()}. {@link #flush()} and {@link #close()} wait until the background thread has
+ * written, flushed or closed the underlying writer. The background thread terminates if the writer is closed.
+ * Therefore, always close this writer.
+ * <p>
+ * This class is not thread-safe, i.e. only a single thread may write to it.
+ * 
+ * @author rwoo
+ * @since 1.2.1
+ */
+public class WriteBehindWriter extends Writer {
+
+    public static final int DEFAULT_CHUNK_SIZE = 8192;
+
+    public static final int DEFAULT_NUMBER_OF_CHUNKS = 4;
+
+    private static final AtomicInteger THREAD_NUMBER = new AtomicInteger();
+
+    /**
+     * A slot in the ring.
+     */
+    private static class Chunk {
+
+        private final char[] chars;
+
+        private int length;
+
+        /**
+         * True if the underlying writer shall be flushed after the characters are written.
+         */
+        private boolean flush;
+
+        /**
+         * True if the underlying writer shall be closed after the characters are written.
+         */
+        private boolean close;
+
+        private Chunk(int chunkSize) {
+            this.chars = new char[chunkSize];
+        }
+    }
+
+    //
+    // injected properties
+    //
+
+    private final Writer delegate;
+
+    //
+    // state
+    //
+
+    private final Chunk[] ring;
+
+    /**
+     * The number of chunks the background thread has written.
+     */
+    private volatile long head = 0;
+
+    /**
+     * The number of chunks the producer has handed over.
+     */
+    private volatile long tail = 0;
+
+    /**
+     * The exception thrown by the underlying writer. Null by default.
+     */
+    private volatile Throwable failure;
+
+    private final Thread consumer;
+
+    /**
+     * The thread that waits for a free chunk, or null if no thread has waited yet.
+     */
+    private volatile Thread producer;
+
+    /**
+     * The chunk the producer writes to, or null if the producer has not taken a chunk yet.
+     */
+    private Chunk current;
+
+    private boolean closed = false;
+
+    //
+    // constructors
+    //
+
+    public WriteBehindWriter(Writer delegate) {
+        this(delegate, DEFAULT_CHUNK_SIZE, DEFAULT_NUMBER_OF_CHUNKS, null);
+    }
+
+    /**
+     * @param delegate
+     *            the writer the background thread writes to.
+     * @param chunkSize
+     *            the number of characters that are collected before they are handed over to the background thread.
+     * @param numberOfChunks
+     *            the number of chunks in the ring. Must be at least two.
+     * @param threadFactory
+     *            creates the background thread, or null if a daemon thread shall be created. Pass the factory of
+     *            virtual threads if available.
+     */
+    public WriteBehindWriter(Writer delegate, int chunkSize, int numberOfChunks, ThreadFactory threadFactory) {
+        super();
+
+        ZzzValidate.notNull(delegate, "delegate must not be null");
+        ZzzValidate.isTrue(chunkSize > 0, "chunkSize must be positive but was " + chunkSize);
+        ZzzValidate.isTrue(numberOfChunks >= 2, "numberOfChunks must be at least two but was " + numberOfChunks);
+
+        this.delegate = delegate;
+        this.ring = new Chunk[numberOfChunks];
+        for (int index = 0; index < numberOfChunks; index++) {
+            ring[index] = new Chunk(chunkSize);
+        }
+
+        Runnable writing = new Runnable() {
+            @Override
+            public void run() {
+                writeBehind();
+            }
+        };
+        if (threadFactory == null) {
+            consumer = new Thread(writing, "streamflyer-write-behind-" + THREAD_NUMBER.incrementAndGet());
+            consumer.setDaemon(true);
+        } else {
+            consumer = threadFactory.newThread(writing);
+        }
+        consumer.start();
+    }
+
+    //
+    // consumer
+    //
+
+    /**
+     * Writes the handed over chunks to the underlying writer until the writer is closed.
+     */
+    private void writeBehind() {
+
+        while (true) {
+
+            // wait for a chunk
+            while (head == tail) {
+                LockSupport.park(this);
+            }
+
+            Chunk chunk = ring[(int) (head % ring.length)];
+
+            // after an exception the characters are discarded
+            if (failure == null) {
+                try {
+                    if (chunk.length > 0) {
+                        delegate.write(chunk.chars, 0, chunk.length);
+                    }
+                    if (chunk.flush) {
+                        delegate.flush();
+                    }
+                } catch (Throwable e) {
+                    failure = e;
+                }
+            }
+
+            boolean close = chunk.close;
+            if (close) {
+                try {
+                    delegate.close();
+                } catch (Throwable e) {
+                    if (failure == null) {
+                        failure = e;
+                    }
+                }
+            }
+
+            // release the chunk (volatile write)
+            head = head + 1;
+            LockSupport.unpark(producer);
+
+            if (close) {
+                return;
+            }
+        }
+    }
+
+    //
+    // producer
+    //
+
+    /**
+     * @return Returns the chunk to write to. Waits for a free chunk if all chunks are in use.
+     */
+    private Chunk currentChunk() {
+
+        if (current == null) {
+
+            if (tail - head == ring.length) {
+                producer = Thread.currentThread();
+                while (tail - head == ring.length) {
+                    LockSupport.park(this);
+                }
+            }
+
+            current = ring[(int) (tail % ring.length)];
+            current.length = 0;
+            current.flush = false;
+            current.close = false;
+        }
+        return current;
+    }
+
+    /**
+     * Hands the current chunk over to the background thread.
+     */
+    private void handOver() {
+        current = null;
+        tail = tail + 1;
+        LockSupport.unpark(consumer);
+    }
+
+    /**
+     * Waits until the background thread has processed all handed over chunks.
+     */
+    private void awaitWritten() {
+        if (head != tail) {
+            producer = Thread.currentThread();
+            while (head != tail) {
+                LockSupport.park(this);
+            }
+        }
+    }
+
+    private void checkFailure() throws IOException {
+        Throwable exception = failure;
+        if (exception == null) {
+            return;
+        } else if (exception instanceof IOException) {
+            throw (IOException) exception;
+        } else if (exception instanceof RuntimeException) {
+            throw (RuntimeException) exception;
+        } else if (exception instanceof Error) {
+            throw (Error) exception;
+        } else {
+            throw new IOException(exception.toString());
+        }
+    }
+
+    private void ensureOpen() throws IOException {
+        if (closed) {
+            throw new IOException("Stream closed");
+        }
+        checkFailure();
+    }
+
+    /**
+     * Copies the given characters into the chunks.
+     */
+    private void copy(CharSequence csq, int start, int end) {
+
+        while (start < end) {
+            Chunk chunk = currentChunk();
+            int count = Math.min(end - start, chunk.chars.length - chunk.length);
+
+            if (csq instanceof String) {
+                ((String) csq).getChars(start, start + count, chunk.chars, chunk.length);
+            } else if (csq instanceof StringBuilder) {
+                ((StringBuilder) csq).getChars(start, start + count, chunk.chars, chunk.length);
+            } else if (csq instanceof StringBuffer) {
+                ((StringBuffer) csq).getChars(start, start + count, chunk.chars, chunk.length);
+            } else {
+                for (int index = 0; index < count; index++) {
+                    chunk.chars[chunk.length + index] = csq.charAt(start + index);
+                }
+            }
+
+            chunk.length += count;
+            start += count;
+            if (chunk.length == chunk.chars.length) {
+                handOver();
+            }
+        }
+    }
+
+    //
+    // override Writer.*
+    //
+
+    /**
+     * @see java.io.Writer#write(char[], int, int)
+     */
+    @Override
+    public void write(char[] cbuf, int off, int len) throws IOException {
+
+        ensureOpen();
+
+        while (len > 0) {
+            Chunk chunk = currentChunk();
+            int count = Math.min(len, chunk.chars.length - chunk.length);
+            System.arraycopy(cbuf, off, chunk.chars, chunk.length, count);
+            chunk.length += count;
+            off += count;
+            len -= count;
+            if (chunk.length == chunk.chars.length) {
+                handOver();
+            }
+        }
+    }
+
+    /**
+     * @see java.io.Writer#write(int)
+     */
+    @Override
+    public void write(int c) throws IOException {
+
+        ensureOpen();
+
+        Chunk chunk = currentChunk();
+        chunk.chars[chunk.length++] = (char) c;
+        if (chunk.length == chunk.chars.length) {
+            handOver();
+        }
+    }
+
+    /**
+     * @see java.io.Writer#write(java.lang.String, int, int)
+     */
+    @Override
+    public void write(String str, int off, int len) throws IOException {
+
+        ensureOpen();
+
+        copy(str, off, off + len);
+    }
+
+    /**
+     * Copies the characters directly into the chunks, i.e. no temporary string is created.
+     * 
+     * @see java.io.Writer#append(java.lang.CharSequence, int, int)
+     */
+    @Override
+    public Writer append(CharSequence csq, int start, int end) throws IOException {
+
+        ensureOpen();
+
+        CharSequence cs = (csq == null ? "null" : csq);
+        if (start < 0 || start > end || end > cs.length()) {
+            throw new IndexOutOfBoundsException("start " + start + ", end " + end + ", length " + cs.length());
+        }
+        copy(cs, start, end);
+        return this;
+    }
+
+    /**
+     * Hands the collected characters over to the background thread and waits until the background thread has written
+     * them and flushed the underlying writer.
+     * 
+     * @see java.io.Writer#flush()
+     */
+    @Override
+    public void flush() throws IOException {
+
+        ensureOpen();
+
+        currentChunk().flush = true;
+        handOver();
+        awaitWritten();
+
+        checkFailure();
+    }
+
+    /**
+     * Hands the collected characters over to the background thread and waits until the background thread has written
+     * them and closed the underlying writer. Then the background thread terminates.
+     * 
+     * @see java.io.Writer#close()
+     */
+    @Override
+    public void close() throws IOException {
+
+        if (closed) {
+            return;
+        }
+        closed = true;
+
+        currentChunk().close = true;
+        handOver();
+        awaitWritten();
+
+        checkFailure();
+    }
+
+    //
+    // override Object.*
+    //
+
+    /**
+     * @see java.lang.Object#toString()
+     */
+    @Override
+    public String toString() {
+        StringBuilder builder = new StringBuilder();
+        builder.append("WriteBehindWriter [delegate=");
+        builder.append(delegate);
+        builder.append(", \nnumberOfChunks=");
+        builder.append(ring.length);
+        builder.append(", \nhead=");
+        builder.append(head);
+        builder.append(", \ntail=");
+        builder.append(tail);
+        builder.append(", \nclosed=");
+        builder.append(closed);
+        builder.append(", \nfailure=");
+        builder.append(failure);
+        builder.append("]");
+        return builder.toString();
+    }
+}
@@ -0,0 +1,94 @@
+/**
+ * Copyright (C) 2011 rwitzel75@googlemail.com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.rwitzel.streamflyer.util.metrics;
+
+import java.util.regex.MatchResult;
+
+import com.github.rwitzel.streamflyer.internal.thirdparty.ZzzValidate;
+import com.github.rwitzel.streamflyer.regex.MatchProcessor;
+import com.github.rwitzel.streamflyer.regex.MatchProcessorResult;
+
+/**
+ * Records the number of matches in the given {@link ModifierMetrics}.
+ * <p>
+ * The matches are counted locally and added to the metrics every {@value MetricsModifier#FLUSH_INTERVAL} matches.
+ * Call {@link #flush()} at the end of the stream.
+ * 
+ * @author rwoo
+ * @since 1.2.1
+ */
+public class MetricsMatchProcessor implements MatchProcessor {
+
+    //
+    // injected properties
+    //
+
+    protected MatchProcessor delegate;
+
+    protected ModifierMetrics metrics;
+
+    //
+    // state
+    //
+
+    private long matches;
+
+    //
+    // constructors
+    //
+
+    public MetricsMatchProcessor(MatchProcessor delegate, ModifierMetrics metrics) {
+        super();
+
+        ZzzValidate.notNull(delegate, "delegate must not be null");
+        ZzzValidate.notNull(metrics, "metrics must not be null");
+
+        this.delegate = delegate;
+        this.metrics = metrics;
+    }
+
+    //
+    // override MatchProcessor.*
+    //
+
+    /**
+     * @see com.github.rwitzel.streamflyer.regex.MatchProcessor#process(java.lang.StringBuilder, int,
+     *      java.util.regex.MatchResult)
+     */
+    @Override
+    public MatchProcessorResult process(StringBuilder characterBuffer, int firstModifiableCharacterInBuffer,
+            MatchResult matchResult) {
+
+        matches++;
+        if (matches == MetricsModifier.FLUSH_INTERVAL) {
+            flush();
+        }
+
+        return delegate.process(characterBuffer, firstModifiableCharacterInBuffer, matchResult);
+    }
+
+    //
+    // public methods
+    //
+
+    /**
+     * Adds the locally counted matches to the metrics.
+     */
+    public void flush() {
+        metrics.addMatches(matches);
+        matches = 0;
+    }
+}
@@ -0,0 +1,108 @@
+/**
+ * Copyright (C) 2011 rwitzel75@googlemail.com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.rwitzel.streamflyer.util.metrics;
+
+import com.github.rwitzel.streamflyer.core.AfterModification;
+import com.github.rwitzel.streamflyer.util.ModificationFactory;
+import com.github.rwitzel.streamflyer.util.statistics.ModificationFactoryDecorator;
+
+/**
+ * Records the calls of {@link #fetchMoreInput(int, StringBuilder, int, boolean)} in the given {@link ModifierMetrics}.
+ * <p>
+ * The calls are counted locally and added to the metrics every {@value MetricsModifier#FLUSH_INTERVAL} calls. Call
+ * {@link #flush()} at the end of the stream unless the modifier {@link #stop(StringBuilder, int, boolean) stops}.
+ * <p>
+ * EXAMPLE: <code><pre class="prettyprint lang-java">RegexModifier modifier = new RegexModifier(matcher, matchProcessor, 1, 2048) {
+    protected void init(OnStreamMatcher matcher, MatchProcessor matchProcessor, int minimumLengthOfLookBehind,
+            int newNumberOfChars) {
+        super.init(matcher, matchProcessor, minimumLengthOfLookBehind, newNumberOfChars);
+        this.factory = new MetricsModificationFactory(this.factory, metrics);
+    }
+};</pre></code>
+ * 
+ * @author rwoo
+ * @since 1.2.1
+ */
+public class MetricsModificationFactory extends ModificationFactoryDecorator {
+
+    //
+    // injected properties
+    //
+
+    protected ModifierMetrics metrics;
+
+    //
+    // state
+    //
+
+    private long fetchMoreInput;
+
+    //
+    // constructors
+    //
+
+    public MetricsModificationFactory(ModificationFactory delegate, ModifierMetrics metrics) {
+        super(delegate);
+
+        this.metrics = metrics;
+    }
+
+    //
+    // interface ModificationFactory.* methods
+    //
+
+    /**
+     * @see com.github.rwitzel.streamflyer.util.statistics.ModificationFactoryDecorator#fetchMoreInput(int,
+     *      java.lang.StringBuilder, int, boolean)
+     */
+    @Override
+    public AfterModification fetchMoreInput(int numberOfCharactersToSkip, StringBuilder characterBuffer,
+            int firstModifiableCharacterInBuffer, boolean endOfStreamHit) {
+
+        fetchMoreInput++;
+        if (fetchMoreInput == MetricsModifier.FLUSH_INTERVAL) {
+            flush();
+        }
+
+        return super.fetchMoreInput(numberOfCharactersToSkip, characterBuffer, firstModifiableCharacterInBuffer,
+                endOfStreamHit);
+    }
+
+    /**
+     * @see com.github.rwitzel.streamflyer.util.statistics.ModificationFactoryDecorator#stop(java.lang.StringBuilder, int,
+     *      boolean)
+     */
+    @Override
+    public AfterModification stop(StringBuilder characterBuffer, int firstModifiableCharacterInBuffer,
+            boolean endOfStreamHit) {
+
+        flush();
+
+        return super.stop(characterBuffer, firstModifiableCharacterInBuffer, endOfStreamHit);
+    }
+
+    //
+    // public methods
+    //
+
+    /**
+     * Adds the locally counted calls to the metrics.
+     */
+    public void flush() {
+        metrics.addFetchMoreInput(fetchMoreInput);
+        fetchMoreInput = 0;
+    }
+}
@@ -0,0 +1,209 @@
+/**
+ * Copyright (C) 2011 rwitzel75@googlemail.com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.rwitzel.streamflyer.util.metrics;
+
+import com.github.rwitzel.streamflyer.core.AfterModification;
+import com.github.rwitzel.streamflyer.core.Modifier;
+import com.github.rwitzel.streamflyer.core.Resettable;
+import com.github.rwitzel.streamflyer.internal.thirdparty.ZzzValidate;
+
+/**
+ * Records the {@link ModifierMetrics metrics} of the given modifier: the calls of
+ * {@link Modifier#modify(StringBuilder, int, boolean)}, the time spent in this method, the characters in and out, the
+ * number of SKIP and MODIFY AGAIN IMMEDIATELY messages, and the high-water mark of the buffer size.
+ * <p>
+ * The counts are accumulated in this decorator and added to the (shared) metrics every {@value #FLUSH_INTERVAL} calls
+ * and if the end of the stream is hit. Call {@link #flush()} if you want to add the counts earlier.
+ * <p>
+ * If the given modifier decides to {@link AfterModification#isPassThrough() pass through} the rest of the stream, the
+ * counts are added to the metrics immediately, as the modifier is not called any longer. The characters passed
+ * through afterwards are not counted.
+ * <p>
+ * Use {@link MetricsModificationFactory} and {@link MetricsMatchProcessor} to record the calls of
+ * {@link com.github.rwitzel.streamflyer.util.ModificationFactory#fetchMoreInput(int, StringBuilder, int, boolean)} and
+ * the number of matches.
+ * <p>
+ * Like most modifiers, this decorator is not thread-safe, i.e. use a decorator for each stream.
+ * 
+ * @author rwoo
+ * @since 1.2.1
+ */
+public class MetricsModifier implements Modifier, Resettable {
+
+    /**
+     * The number of calls after which the accumulated counts are added to the metrics.
+     */
+    public static final int FLUSH_INTERVAL = 1024;
+
+    //
+    // injected properties
+    //
+
+    protected Modifier delegate;
+
+    protected ModifierMetrics metrics;
+
+    /**
+     * If not null, this match processor is flushed together with this modifier.
+     */
+    protected MetricsMatchProcessor matchProcessor;
+
+    //
+    // state
+    //
+
+    private long modifyCalls;
+
+    private long nanosInModify;
+
+    private long charactersIn;
+
+    private long charactersOut;
+
+    private long skips;
+
+    private long modifyAgainImmediately;
+
+    private long bufferHighWaterMark;
+
+    //
+    // constructors
+    //
+
+    /**
+     * Records the metrics under the class name of the given modifier.
+     * <p>
+     * EXAMPLE: <code><pre class="prettyprint lang-java">MetricsRegistry registry = new SimpleMetricsRegistry(); // shared by all streams
+// ... for each stream
+Reader reader = new ModifyingReader(input, new MetricsModifier(new RegexModifier("a+", 0, "b"), registry));</pre></code>
+     */
+    public MetricsModifier(Modifier delegate, MetricsRegistry registry) {
+        this(delegate, registry.getMetrics(delegate.getClass().getName()));
+    }
+
+    public MetricsModifier(Modifier delegate, ModifierMetrics metrics) {
+        super();
+
+        ZzzValidate.notNull(delegate, "delegate must not be null");
+        ZzzValidate.notNull(metrics, "metrics must not be null");
+
+        this.delegate = delegate;
+        this.metrics = metrics;
+    }
+
+    /**
+     * @param delegate
+     * @param metrics
+     * @param matchProcessor
+     *            the match processor used by the given modifier. It is {@link #flush() flushed} together with this
+     *            modifier.
+     */
+    public MetricsModifier(Modifier delegate, ModifierMetrics metrics, MetricsMatchProcessor matchProcessor) {
+        this(delegate, metrics);
+
+        this.matchProcessor = matchProcessor;
+    }
+
+    //
+    // override Modifier.*
+    //
+
+    /**
+     * @see com.github.rwitzel.streamflyer.core.Modifier#modify(java.lang.StringBuilder, int, boolean)
+     */
+    @Override
+    public AfterModification modify(StringBuilder characterBuffer, int firstModifiableCharacterInBuffer,
+            boolean endOfStreamHit) {
+
+        int lengthBefore = characterBuffer.length();
+        if (bufferHighWaterMark < lengthBefore) {
+            bufferHighWaterMark = lengthBefore;
+        }
+
+        long start = System.nanoTime();
+        AfterModification afterModification = delegate.modify(characterBuffer, firstModifiableCharacterInBuffer,
+                endOfStreamHit);
+        nanosInModify += System.nanoTime() - start;
+
+        modifyCalls++;
+
+        // (the characters inserted by the modifier are not input, even if they are skipped by a later call)
+        charactersIn -= characterBuffer.length() - lengthBefore;
+
+        if (afterModification.isModifyAgainImmediately()) {
+            modifyAgainImmediately++;
+        } else {
+            int skipped = afterModification.getNumberOfCharactersToSkip();
+            if (skipped > 0) {
+                skips++;
+                charactersOut += skipped;
+            }
+            charactersIn += skipped;
+        }
+
+        if (endOfStreamHit || afterModification.isPassThrough() || modifyCalls % FLUSH_INTERVAL == 0) {
+            flush();
+        }
+
+        return afterModification;
+    }
+
+    //
+    // override Resettable.*
+    //
+
+    /**
+     * Flushes the accumulated counts and resets the delegate if the delegate implements {@link Resettable}. The metrics
+     * keep counting across streams.
+     * 
+     * @see com.github.rwitzel.streamflyer.core.Resettable#reset()
+     */
+    @Override
+    public void reset() {
+        flush();
+        if (delegate instanceof Resettable) {
+            ((Resettable) delegate).reset();
+        }
+    }
+
+    //
+    // public methods
+    //
+
+    /**
+     * Adds the accumulated counts to the metrics.
+     */
+    public void flush() {
+        if (matchProcessor != null) {
+            matchProcessor.flush();
+        }
+
+        metrics.addModifierCounts(modifyCalls, nanosInModify, charactersIn, charactersOut, skips,
+                modifyAgainImmediately);
+        metrics.updateBufferHighWaterMark(bufferHighWaterMark);
+
+        modifyCalls = 0;
+        nanosInModify = 0;
+        charactersIn = 0;
+        charactersOut = 0;
+        skips = 0;
+        modifyAgainImmediately = 0;
+    }
+
+    public ModifierMetrics getMetrics() {
+        return metrics;
+    }
+}
@@ -0,0 +1,36 @@
+/**
+ * Copyright (C) 2011 rwitzel75@googlemail.com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.rwitzel.streamflyer.util.metrics;
+
+/**
+ * Provides the {@link ModifierMetrics} for a certain type of modifier. Implement this interface to expose the metrics
+ * via your monitoring system.
+ * <p>
+ * Implementations must be thread-safe.
+ * 
+ * @author rwoo
+ * @since 1.2.1
+ */
+public interface MetricsRegistry {
+
+    /**
+     * @param name
+     *            the name of the type of the modifier, e.g. the class name of the modifier.
+     * @return Returns the metrics with the given name. Creates the metrics if they don't exist yet. Never returns null.
+     */
+    public ModifierMetrics getMetrics(String name);
+
+}
@@ -0,0 +1,223 @@
+/**
+ * Copyright (C) 2011 rwitzel75@googlemail.com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.rwitzel.streamflyer.util.metrics;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Thread-safe counters that are aggregated across all the streams that are modified by a certain type of modifier.
+ * <p>
+ * The decorators in this package do not update these counters for each event. Instead they accumulate the counts of
+ * a single stream in plain fields and add them here from time to time, see {@link MetricsModifier#flush()}. So the
+ * contention on the atomic counters stays low even if thousands of streams are processed concurrently.
+ * 
+ * @author rwoo
+ * @since 1.2.1
+ */
+public class ModifierMetrics {
+
+    //
+    // injected properties
+    //
+
+    private final String name;
+
+    //
+    // state
+    //
+
+    private final AtomicLong modifyCalls = new AtomicLong();
+
+    private final AtomicLong nanosInModify = new AtomicLong();
+
+    private final AtomicLong charactersIn = new AtomicLong();
+
+    private final AtomicLong charactersOut = new AtomicLong();
+
+    private final AtomicLong skips = new AtomicLong();
+
+    private final AtomicLong modifyAgainImmediately = new AtomicLong();
+
+    private final AtomicLong fetchMoreInput = new AtomicLong();
+
+    private final AtomicLong matches = new AtomicLong();
+
+    private final AtomicLong bufferHighWaterMark = new AtomicLong();
+
+    //
+    // constructors
+    //
+
+    public ModifierMetrics(String name) {
+        super();
+        this.name = name;
+    }
+
+    //
+    // update methods
+    //
+
+    /**
+     * Adds the counts of a modifier.
+     */
+    public void addModifierCounts(long modifyCalls_, long nanosInModify_, long charactersIn_, long charactersOut_,
+            long skips_, long modifyAgainImmediately_) {
+        add(modifyCalls, modifyCalls_);
+        add(nanosInModify, nanosInModify_);
+        add(charactersIn, charactersIn_);
+        add(charactersOut, charactersOut_);
+        add(skips, skips_);
+        add(modifyAgainImmediately, modifyAgainImmediately_);
+    }
+
+    public void addFetchMoreInput(long fetchMoreInput_) {
+        add(fetchMoreInput, fetchMoreInput_);
+    }
+
+    public void addMatches(long matches_) {
+        add(matches, matches_);
+    }
+
+    /**
+     * Updates the {@link #getBufferHighWaterMark() high-water mark} if the given size is greater.
+     */
+    public void updateBufferHighWaterMark(long bufferSize) {
+        long current;
+        while ((current = bufferHighWaterMark.get()) < bufferSize) {
+            if (bufferHighWaterMark.compareAndSet(current, bufferSize)) {
+                break;
+            }
+        }
+    }
+
+    private void add(AtomicLong counter, long delta) {
+        if (delta != 0) {
+            counter.addAndGet(delta);
+        }
+    }
+
+    //
+    // getter methods
+    //
+
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * @return Returns the number of calls of
+     *         {@link com.github.rwitzel.streamflyer.core.Modifier#modify(StringBuilder, int, boolean)}.
+     */
+    public long getModifyCalls() {
+        return modifyCalls.get();
+    }
+
+    /**
+     * @return Returns the nanoseconds spent in
+     *         {@link com.github.rwitzel.streamflyer.core.Modifier#modify(StringBuilder, int, boolean)}.
+     */
+    public long getNanosInModify() {
+        return nanosInModify.get();
+    }
+
+    /**
+     * @return Returns the number of characters that are given to the modifier, i.e. the number of characters that are
+     *         skipped minus the number of characters that are inserted by the modifier (deleted characters count
+     *         negative).
+     */
+    public long getCharactersIn() {
+        return charactersIn.get();
+    }
+
+    /**
+     * @return Returns the number of characters that are skipped by the modifier, i.e. the number of characters that
+     *         are passed to the reader or the writer.
+     */
+    public long getCharactersOut() {
+        return charactersOut.get();
+    }
+
+    /**
+     * @return Returns the number of messages that skip at least one character.
+     */
+    public long getSkips() {
+        return skips.get();
+    }
+
+    /**
+     * @return Returns the number of MODIFY AGAIN IMMEDIATELY messages.
+     */
+    public long getModifyAgainImmediately() {
+        return modifyAgainImmediately.get();
+    }
+
+    /**
+     * @return Returns the number of calls of
+     *         {@link com.github.rwitzel.streamflyer.util.ModificationFactory#fetchMoreInput(int, StringBuilder, int, boolean)}
+     *         .
+     */
+    public long getFetchMoreInput() {
+        return fetchMoreInput.get();
+    }
+
+    /**
+     * @return Returns the number of processed matches.
+     */
+    public long getMatches() {
+        return matches.get();
+    }
+
+    /**
+     * @return Returns the maximum length of a character buffer given to the modifier.
+     */
+    public long getBufferHighWaterMark() {
+        return bufferHighWaterMark.get();
+    }
+
+    //
+    // override Object.*
+    //
+
+    /**
+     * @see java.lang.Object#toString()
+     */
+    @Override
+    public String toString() {
+        StringBuilder builder = new StringBuilder();
+        builder.append("ModifierMetrics [\nname=");
+        builder.append(name);
+        builder.append(", \nmodifyCalls=");
+        builder.append(modifyCalls);
+        builder.append(", \nnanosInModify=");
+        builder.append(nanosInModify);
+        builder.append(", \ncharactersIn=");
+        builder.append(charactersIn);
+        builder.append(", \ncharactersOut=");
+        builder.append(charactersOut);
+        builder.append(", \nskips=");
+        builder.append(skips);
+        builder.append(", \nmodifyAgainImmediately=");
+        builder.append(modifyAgainImmediately);
+        builder.append(", \nfetchMoreInput=");
+        builder.append(fetchMoreInput);
+        builder.append(", \nmatches=");
+        builder.append(matches);
+        builder.append(", \nbufferHighWaterMark=");
+        builder.append(bufferHighWaterMark);
+        builder.append("]");
+        return builder.toString();
+    }
+}
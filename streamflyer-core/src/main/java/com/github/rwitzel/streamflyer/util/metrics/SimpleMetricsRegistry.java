@@ -0,0 +1,58 @@
+/**
+ * Copyright (C) 2011 rwitzel75@googlemail.com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.rwitzel.streamflyer.util.metrics;
+
+import java.util.Collections;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Keeps the metrics in memory.
+ * 
+ * @author rwoo
+ * @since 1.2.1
+ */
+public class SimpleMetricsRegistry implements MetricsRegistry {
+
+    private final ConcurrentMap<String, ModifierMetrics> metricsByName = //
+    new ConcurrentHashMap<String, ModifierMetrics>();
+
+    /**
+     * @see com.github.rwitzel.streamflyer.util.metrics.MetricsRegistry#getMetrics(java.lang.String)
+     */
+    @Override
+    public ModifierMetrics getMetrics(String name) {
+
+        ModifierMetrics metrics = metricsByName.get(name);
+        if (metrics == null) {
+            ModifierMetrics newMetrics = new ModifierMetrics(name);
+            metrics = metricsByName.putIfAbsent(name, newMetrics);
+            if (metrics == null) {
+                metrics = newMetrics;
+            }
+        }
+        return metrics;
+    }
+
+    /**
+     * @return Returns all metrics sorted by name.
+     */
+    public Map<String, ModifierMetrics> getAllMetrics() {
+        return Collections.unmodifiableMap(new TreeMap<String, ModifierMetrics>(metricsByName));
+    }
+}
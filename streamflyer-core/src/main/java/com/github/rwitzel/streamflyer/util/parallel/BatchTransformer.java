@@ -0,0 +1,385 @@
+/**
+ * Copyright (C) 2011 rwitzel75@googlemail.com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.rwitzel.streamflyer.util.parallel;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import com.github.rwitzel.streamflyer.core.ModifierTemplate;
+import com.github.rwitzel.streamflyer.core.Resettable;
+import com.github.rwitzel.streamflyer.internal.thirdparty.ZzzValidate;
+
+/**
+ * Modifies many small documents, e.g. XML or JSON snippets, in parallel.
+ * <p>
+ * The transformer submits <code>parallelism</code> workers to the given executor. Each worker claims the next document
+ * that is not processed yet, i.e. a worker that has processed short documents simply processes more documents than a
+ * worker that has processed long documents (self-scheduling). For a list of documents the next document is claimed by
+ * incrementing an atomic counter. Each worker reuses its output buffer for all documents. If the modifiers created by
+ * the template are {@link Resettable}, each worker reuses its modifier as well.
+ * <p>
+ * The results can be delivered in the order of the documents or in the order of completion, see {@link ResultOrder}.
+ * <p>
+ * This class is thread-safe if the template is thread-safe. The executor is not shut down by this transformer.
+ * 
+ * @author rwoo
+ * @since 1.2.1
+ */
+public class BatchTransformer {
+
+    /**
+     * Describes in which order the results are delivered to a {@link ResultHandler}.
+     */
+    public enum ResultOrder {
+
+        /**
+         * The results are delivered in the order of the documents. The handler is called by a single thread at a time.
+         * Only a limited number of results is held back until the results of the preceding documents are available.
+         */
+        ORDERED,
+
+        /**
+         * The results are delivered as soon as they are available. The handler is called by the workers concurrently,
+         * i.e. the handler must be thread-safe.
+         */
+        UNORDERED
+    }
+
+    /**
+     * Receives the modified documents.
+     */
+    public interface ResultHandler {
+
+        /**
+         * @param index
+         *            the position of the document in the input.
+         * @param result
+         *            the modified document.
+         */
+        public void onResult(int index, String result);
+    }
+
+    //
+    // injected properties
+    //
+
+    private final ModifierTemplate template;
+
+    private final ExecutorService executor;
+
+    private final int parallelism;
+
+    //
+    // constructors
+    //
+
+    /**
+     * @param template
+     *            creates the modifiers for the documents.
+     * @param executor
+     *            the executor that runs the workers. It should provide at least <code>parallelism</code> threads.
+     * @param parallelism
+     *            the number of workers.
+     */
+    public BatchTransformer(ModifierTemplate template, ExecutorService executor, int parallelism) {
+        super();
+
+        ZzzValidate.notNull(template, "template must not be null");
+        ZzzValidate.notNull(executor, "executor must not be null");
+        ZzzValidate.isTrue(parallelism > 0, "parallelism must be positive but was " + parallelism);
+
+        this.template = template;
+        this.executor = executor;
+        this.parallelism = parallelism;
+    }
+
+    //
+    // public methods
+    //
+
+    /**
+     * Modifies the given documents.
+     * 
+     * @param documents
+     *            the documents to modify.
+     * @return Returns the modified documents in the order of the given documents.
+     * @throws IOException
+     *             Thrown if the modification of a document fails. The remaining documents are not processed.
+     */
+    public List<String> transform(final List<? extends CharSequence> documents) throws IOException {
+
+        final String[] results = new String[documents.size()];
+        final AtomicInteger nextIndex = new AtomicInteger();
+
+        runWorkers(new WorkerFactory() {
+            @Override
+            public Callable<Void> newWorker(final Worker worker) {
+                return new Callable<Void>() {
+                    @Override
+                    public Void call() throws Exception {
+                        int index;
+                        while ((index = nextIndex.getAndIncrement()) < results.length) {
+                            results[index] = worker.transform(documents.get(index));
+                        }
+                        return null;
+                    }
+                };
+            }
+
+            @Override
+            public void stop() {
+                nextIndex.set(results.length);
+            }
+        });
+
+        return Arrays.asList(results);
+    }
+
+    /**
+     * Modifies the documents provided by the given iterator. The iterator is accessed by a single thread at a time.
+     * 
+     * @param documents
+     *            the documents to modify.
+     * @param handler
+     *            receives the modified documents.
+     * @param order
+     *            the order in which the handler receives the modified documents.
+     * @throws IOException
+     *             Thrown if the modification of a document fails. The remaining documents are not processed.
+     */
+    public void transform(Iterator<? extends CharSequence> documents, ResultHandler handler, ResultOrder order)
+            throws IOException {
+
+        ZzzValidate.notNull(handler, "handler must not be null");
+        ZzzValidate.notNull(order, "order must not be null");
+
+        final Session session = new Session(documents, handler, order == ResultOrder.ORDERED, 4 * parallelism);
+
+        runWorkers(new WorkerFactory() {
+            @Override
+            public Callable<Void> newWorker(final Worker worker) {
+                return new Callable<Void>() {
+                    @Override
+                    public Void call() throws Exception {
+                        Session.Claim claim;
+                        while ((claim = session.claim()) != null) {
+                            session.complete(claim.index, worker.transform(claim.document));
+                        }
+                        return null;
+                    }
+                };
+            }
+
+            @Override
+            public void stop() {
+                session.stop();
+            }
+        });
+    }
+
+    //
+    // workers
+    //
+
+    /**
+     * The state of a worker that is reused for all documents the worker processes.
+     */
+    protected class Worker {
+
+        private final DocumentModifier documentModifier = new DocumentModifier(template);
+
+        /**
+         * @return Returns the modified document.
+         */
+        protected String transform(CharSequence document) throws IOException {
+            return documentModifier.modify(document);
+        }
+    }
+
+    private interface WorkerFactory {
+
+        public Callable<Void> newWorker(Worker worker);
+
+        /**
+         * Stops claiming further documents.
+         */
+        public void stop();
+    }
+
+    /**
+     * Runs the workers and waits for their completion.
+     */
+    private void runWorkers(final WorkerFactory workerFactory) throws IOException {
+
+        List<Future<Void>> futures = new ArrayList<Future<Void>>(parallelism);
+        for (int index = 0; index < parallelism; index++) {
+            final Callable<Void> worker = workerFactory.newWorker(new Worker());
+            futures.add(executor.submit(new Callable<Void>() {
+                @Override
+                public Void call() throws Exception {
+                    try {
+                        return worker.call();
+                    } catch (Exception e) {
+                        // the other workers shall not claim further documents
+                        workerFactory.stop();
+                        throw e;
+                    } catch (Error e) {
+                        workerFactory.stop();
+                        throw e;
+                    }
+                }
+            }));
+        }
+
+        Throwable failure = null;
+        for (Future<Void> future : futures) {
+            try {
+                future.get();
+            } catch (InterruptedException e) {
+                workerFactory.stop();
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException("interrupted while waiting for the workers");
+            } catch (ExecutionException e) {
+                if (failure == null) {
+                    failure = e.getCause();
+                }
+            }
+        }
+
+        if (failure instanceof IOException) {
+            throw (IOException) failure;
+        } else if (failure instanceof RuntimeException) {
+            throw (RuntimeException) failure;
+        } else if (failure instanceof Error) {
+            throw (Error) failure;
+        } else if (failure != null) {
+            throw new IOException(String.valueOf(failure));
+        }
+    }
+
+    /**
+     * Hands out the documents of an iterator to the workers and delivers the results to the handler.
+     */
+    private static class Session {
+
+        private static class Claim {
+
+            private final int index;
+
+            private final CharSequence document;
+
+            private Claim(int index, CharSequence document) {
+                this.index = index;
+                this.document = document;
+            }
+        }
+
+        private final Iterator<? extends CharSequence> documents;
+
+        private final ResultHandler handler;
+
+        private final boolean ordered;
+
+        /**
+         * The maximum number of documents that are claimed but not delivered yet (if ordered).
+         */
+        private final int window;
+
+        private int nextIndex = 0;
+
+        private int nextIndexToDeliver = 0;
+
+        /**
+         * The results that are held back until the results of the preceding documents are delivered (if ordered).
+         */
+        private final Map<Integer, String> completed = new HashMap<Integer, String>();
+
+        private boolean stopped = false;
+
+        private Session(Iterator<? extends CharSequence> documents, ResultHandler handler, boolean ordered,
+                int window) {
+            this.documents = documents;
+            this.handler = handler;
+            this.ordered = ordered;
+            this.window = window;
+        }
+
+        /**
+         * @return Returns the next document to process, or null if there are no documents left.
+         */
+        private synchronized Claim claim() throws InterruptedException {
+            if (ordered) {
+                while (!stopped && nextIndex - nextIndexToDeliver >= window) {
+                    wait();
+                }
+            }
+            if (stopped || !documents.hasNext()) {
+                return null;
+            }
+            return new Claim(nextIndex++, documents.next());
+        }
+
+        private void complete(int index, String result) {
+            if (!ordered) {
+                handler.onResult(index, result);
+                return;
+            }
+            synchronized (this) {
+                completed.put(index, result);
+                String next;
+                while ((next = completed.remove(nextIndexToDeliver)) != null) {
+                    handler.onResult(nextIndexToDeliver, next);
+                    nextIndexToDeliver++;
+                }
+                notifyAll();
+            }
+        }
+
+        private synchronized void stop() {
+            stopped = true;
+            notifyAll();
+        }
+    }
+
+    //
+    // override Object.*
+    //
+
+    /**
+     * @see java.lang.Object#toString()
+     */
+    @Override
+    public String toString() {
+        StringBuilder builder = new StringBuilder();
+        builder.append("BatchTransformer [template=");
+        builder.append(template);
+        builder.append(", \nparallelism=");
+        builder.append(parallelism);
+        builder.append("]");
+        return builder.toString();
+    }
+}
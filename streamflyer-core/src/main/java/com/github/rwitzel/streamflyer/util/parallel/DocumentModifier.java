@@ -0,0 +1,85 @@
+/**
+ * Copyright (C) 2011 rwitzel75@googlemail.com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.rwitzel.streamflyer.util.parallel;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.io.StringWriter;
+
+import com.github.rwitzel.streamflyer.core.Modifier;
+import com.github.rwitzel.streamflyer.core.ModifierTemplate;
+import com.github.rwitzel.streamflyer.core.ModifyingReader;
+import com.github.rwitzel.streamflyer.core.Resettable;
+
+/**
+ * Modifies documents one after another. If the modifiers created by the template are {@link Resettable}, the modifier
+ * and the {@link ModifyingReader} are reset for each document instead of being created anew, i.e. the compiled
+ * regular expressions and the buffers are reused.
+ * <p>
+ * This class is not thread-safe.
+ * 
+ * @author rwoo
+ * @since 1.2.1
+ */
+class DocumentModifier {
+
+    //
+    // injected properties
+    //
+
+    private final ModifierTemplate template;
+
+    //
+    // state
+    //
+
+    private final StringWriter output = new StringWriter();
+
+    private Modifier modifier;
+
+    private ModifyingReader reader;
+
+    //
+    // constructors
+    //
+
+    DocumentModifier(ModifierTemplate template) {
+        super();
+        this.template = template;
+    }
+
+    //
+    // methods
+    //
+
+    /**
+     * @return Returns the modified document.
+     */
+    String modify(CharSequence document) throws IOException {
+
+        StringReader input = new StringReader(document.toString());
+        if (reader != null && modifier instanceof Resettable) {
+            reader.reset(input);
+        } else {
+            modifier = template.newModifier();
+            reader = new ModifyingReader(input, modifier);
+        }
+
+        output.getBuffer().setLength(0);
+        reader.transferTo(output);
+        return output.toString();
+    }
+}
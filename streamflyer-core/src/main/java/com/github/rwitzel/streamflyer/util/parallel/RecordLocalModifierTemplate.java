@@ -0,0 +1,56 @@
+/**
+ * Copyright (C) 2011 rwitzel75@googlemail.com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.rwitzel.streamflyer.util.parallel;
+
+import com.github.rwitzel.streamflyer.core.Modifier;
+import com.github.rwitzel.streamflyer.core.ModifierTemplate;
+
+/**
+ * A {@link ModifierTemplate} whose modifiers can process the records of a stream independently of each other.
+ * <p>
+ * EXAMPLE:
+ * 
+ * <pre>
+ * final ModifierTemplate template = new RegexModifierTemplate(&quot;\\d+&quot;, 0, &quot;#&quot;, 0, 2048);
+ * RecordLocalModifierTemplate recordLocalTemplate = new RecordLocalModifierTemplate() {
+ * 
+ *     public Modifier newModifier() {
+ *         return template.newModifier();
+ *     }
+ * 
+ *     public boolean neverMatchesAcross(char delimiter) {
+ *         return delimiter == '\n'; // the regular expression does not match line breaks
+ *     }
+ * };
+ * </pre>
+ * 
+ * @author rwoo
+ * @since 1.2.1
+ */
+public interface RecordLocalModifierTemplate extends ModifierTemplate {
+
+    /**
+     * Declares whether the modifiers of this template process each record independently of the records before and
+     * after it, i.e. whether the modifiers never match across a record boundary, never look behind the start of the
+     * record, and produce the same output for a record regardless of the records processed before.
+     * 
+     * @param delimiter
+     *            the character that terminates a record.
+     * @return Returns true if the {@link Modifier modifiers} of this template never match across the given delimiter.
+     */
+    public boolean neverMatchesAcross(char delimiter);
+
+}
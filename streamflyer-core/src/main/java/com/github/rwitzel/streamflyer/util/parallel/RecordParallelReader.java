@@ -0,0 +1,368 @@
+/**
+ * Copyright (C) 2011 rwitzel75@googlemail.com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.rwitzel.streamflyer.util.parallel;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.Reader;
+import java.util.LinkedList;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+
+import com.github.rwitzel.streamflyer.core.Resettable;
+import com.github.rwitzel.streamflyer.internal.thirdparty.ZzzValidate;
+
+/**
+ * A {@link Reader} that modifies the records of a stream in parallel, e.g. the lines of a log or of an NDJSON stream.
+ * <p>
+ * The reader cuts the input into batches at record boundaries, i.e. each batch ends with the delimiter (or with the
+ * end of the stream). The batches are modified concurrently by the given executor. Each batch is modified by a modifier
+ * created by the given template. A modifier is reused for several batches if it is {@link Resettable}. The modified
+ * batches are returned in the order of the input.
+ * <p>
+ * The reader reads ahead at most <code>maximumNumberOfBatchesInFlight</code> batches, i.e. the memory consumption is
+ * roughly given by <code>maximumNumberOfBatchesInFlight * batchSize</code> (plus the length of the longest record as a
+ * batch is not cut within a record).
+ * <p>
+ * The reader reads ahead only as far as the underlying reader is {@link Reader#ready() ready}, i.e. a modified batch
+ * is returned as soon as it is available, and the complete records read so far are modified as soon as the underlying
+ * reader would block. This keeps the latency low for sources like sockets. The batches are modified in parallel only
+ * if the underlying reader implements {@link Reader#ready()}.
+ * <p>
+ * This reader can be used only with modifiers that never match across record boundaries, see
+ * {@link RecordLocalModifierTemplate#neverMatchesAcross(char)}.
+ * <p>
+ * This class is not thread-safe. The executor is not shut down by this reader.
+ * 
+ * @author rwoo
+ * @since 1.2.1
+ */
+public class RecordParallelReader extends Reader {
+
+    //
+    // injected properties
+    //
+
+    private final Reader delegate;
+
+    private final RecordLocalModifierTemplate template;
+
+    private final char delimiter;
+
+    private final int batchSize;
+
+    private final int maximumNumberOfBatchesInFlight;
+
+    private final ExecutorService executor;
+
+    //
+    // state
+    //
+
+    /**
+     * The batches that are submitted to the executor, in the order of the input.
+     */
+    private final LinkedList<Future<String>> batchesInFlight = new LinkedList<Future<String>>();
+
+    /**
+     * The document modifiers that are not used by a batch at the moment. There are at most as many document modifiers
+     * as batches in flight.
+     */
+    private final ConcurrentLinkedQueue<DocumentModifier> idleDocumentModifiers = //
+    new ConcurrentLinkedQueue<DocumentModifier>();
+
+    /**
+     * The characters read from the underlying reader that are not assigned to a batch yet.
+     */
+    private StringBuilder pending = new StringBuilder();
+
+    private final char[] readBuffer;
+
+    private boolean endOfInput = false;
+
+    /**
+     * The modified batch that is read from.
+     */
+    private String current = "";
+
+    /**
+     * The position of the next character to read in {@link #current}.
+     */
+    private int position = 0;
+
+    private boolean closed = false;
+
+    //
+    // constructors
+    //
+
+    /**
+     * @param delegate
+     *            the reader that provides the records.
+     * @param template
+     *            creates the modifiers for the batches. The modifiers must never match across the delimiter.
+     * @param delimiter
+     *            the character that terminates a record, e.g. a line feed.
+     * @param batchSize
+     *            the minimum number of characters of a batch (unless the end of the stream is reached).
+     * @param maximumNumberOfBatchesInFlight
+     *            the maximum number of batches that are read ahead.
+     * @param executor
+     *            the executor that modifies the batches.
+     * @throws IllegalArgumentException
+     *             Thrown if the modifiers of the template might match across the delimiter.
+     */
+    public RecordParallelReader(Reader delegate, RecordLocalModifierTemplate template, char delimiter, int batchSize,
+            int maximumNumberOfBatchesInFlight, ExecutorService executor) {
+        super();
+
+        ZzzValidate.notNull(delegate, "delegate must not be null");
+        ZzzValidate.notNull(template, "template must not be null");
+        ZzzValidate.notNull(executor, "executor must not be null");
+        ZzzValidate.isTrue(batchSize > 0, "batchSize must be positive but was " + batchSize);
+        ZzzValidate.isTrue(maximumNumberOfBatchesInFlight > 0,
+                "maximumNumberOfBatchesInFlight must be positive but was " + maximumNumberOfBatchesInFlight);
+        if (!template.neverMatchesAcross(delimiter)) {
+            throw new IllegalArgumentException("the modifiers of " + template
+                    + " might match across the delimiter (int) " + (int) delimiter);
+        }
+
+        this.delegate = delegate;
+        this.template = template;
+        this.delimiter = delimiter;
+        this.batchSize = batchSize;
+        this.maximumNumberOfBatchesInFlight = maximumNumberOfBatchesInFlight;
+        this.executor = executor;
+        this.readBuffer = new char[Math.min(batchSize, 8192)];
+    }
+
+    //
+    // batches
+    //
+
+    /**
+     * @param mayBlock
+     *            True if the underlying reader may be read although it is not ready.
+     * @return Returns the next batch of records, or null if the end of the input is reached or, if the underlying
+     *         reader may not block, if there is no batch available without blocking.
+     */
+    private String nextBatch(boolean mayBlock) throws IOException {
+
+        int scanFrom = 0;
+        while (true) {
+
+            // is the batch big enough and complete?
+            if (pending.length() >= batchSize) {
+                for (int index = Math.max(scanFrom, batchSize - 1); index < pending.length(); index++) {
+                    if (pending.charAt(index) == delimiter) {
+                        String batch = pending.substring(0, index + 1);
+                        pending.delete(0, index + 1);
+                        return batch;
+                    }
+                }
+                scanFrom = pending.length();
+            }
+
+            if (endOfInput) {
+                if (pending.length() == 0) {
+                    return null;
+                }
+                String batch = pending.toString();
+                pending.setLength(0);
+                return batch;
+            }
+
+            if (!delegate.ready()) {
+                if (!mayBlock) {
+                    return null;
+                }
+                // the underlying reader would block -> take the complete records read so far
+                int lastDelimiter = pending.lastIndexOf(String.valueOf(delimiter));
+                if (lastDelimiter != -1) {
+                    String batch = pending.substring(0, lastDelimiter + 1);
+                    pending.delete(0, lastDelimiter + 1);
+                    return batch;
+                }
+            }
+
+            int read = delegate.read(readBuffer, 0, readBuffer.length);
+            if (read == -1) {
+                endOfInput = true;
+            } else {
+                pending.append(readBuffer, 0, read);
+            }
+        }
+    }
+
+    /**
+     * Submits batches until the maximum number of batches in flight is reached, or the end of the input, or the
+     * underlying reader would block.
+     * 
+     * @param mayBlock
+     *            True if the underlying reader may block until the first batch is read.
+     */
+    private void submitBatches(boolean mayBlock) throws IOException {
+
+        while (batchesInFlight.size() < maximumNumberOfBatchesInFlight) {
+
+            final String batch = nextBatch(mayBlock);
+            if (batch == null) {
+                return;
+            }
+            mayBlock = false;
+
+            batchesInFlight.add(executor.submit(new Callable<String>() {
+                @Override
+                public String call() throws Exception {
+                    return modify(batch);
+                }
+            }));
+        }
+    }
+
+    /**
+     * Modifies a batch. This method is called by the executor.
+     */
+    protected String modify(String batch) throws IOException {
+        DocumentModifier documentModifier = idleDocumentModifiers.poll();
+        if (documentModifier == null) {
+            documentModifier = new DocumentModifier(template);
+        }
+        try {
+            return documentModifier.modify(batch);
+        } finally {
+            idleDocumentModifiers.offer(documentModifier);
+        }
+    }
+
+    /**
+     * Waits for the next modified batch.
+     * 
+     * @return Returns false if there is no batch left.
+     */
+    private boolean takeNextBatch() throws IOException {
+
+        // read ahead as far as the underlying reader is ready, wait for input only if there is no batch in flight
+        submitBatches(batchesInFlight.isEmpty());
+
+        Future<String> future = batchesInFlight.poll();
+        if (future == null) {
+            return false;
+        }
+
+        try {
+            current = future.get();
+            position = 0;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("interrupted while waiting for a modified batch");
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof IOException) {
+                throw (IOException) cause;
+            } else if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            } else if (cause instanceof Error) {
+                throw (Error) cause;
+            } else {
+                throw new IOException(String.valueOf(cause));
+            }
+        }
+
+        return true;
+    }
+
+    //
+    // override Reader.*
+    //
+
+    /**
+     * @see java.io.Reader#read(char[], int, int)
+     */
+    @Override
+    public int read(char[] cbuf, int off, int len) throws IOException {
+
+        if (closed) {
+            throw new IOException("Stream closed");
+        }
+        if (len == 0) {
+            return 0;
+        }
+
+        while (position == current.length()) {
+            if (!takeNextBatch()) {
+                return -1;
+            }
+        }
+
+        int count = Math.min(len, current.length() - position);
+        current.getChars(position, position + count, cbuf, off);
+        position += count;
+        return count;
+    }
+
+    /**
+     * Cancels the batches in flight and closes the underlying reader.
+     * 
+     * @see java.io.Reader#close()
+     */
+    @Override
+    public void close() throws IOException {
+
+        if (closed) {
+            return;
+        }
+        closed = true;
+
+        for (Future<String> future : batchesInFlight) {
+            future.cancel(true);
+        }
+        batchesInFlight.clear();
+        pending = null;
+        current = "";
+
+        delegate.close();
+    }
+
+    //
+    // override Object.*
+    //
+
+    /**
+     * @see java.lang.Object#toString()
+     */
+    @Override
+    public String toString() {
+        StringBuilder builder = new StringBuilder();
+        builder.append("RecordParallelReader [template=");
+        builder.append(template);
+        builder.append(", \ndelimiter=");
+        builder.append((int) delimiter);
+        builder.append(", \nbatchSize=");
+        builder.append(batchSize);
+        builder.append(", \nmaximumNumberOfBatchesInFlight=");
+        builder.append(maximumNumberOfBatchesInFlight);
+        builder.append(", \nbatchesInFlight=");
+        builder.append(batchesInFlight.size());
+        builder.append(", \nendOfInput=");
+        builder.append(endOfInput);
+        builder.append("]");
+        return builder.toString();
+    }
+}
@@ -15,6 +15,8 @@
  */
 package com.github.rwitzel.streamflyer.util.statistics;
 
+import java.io.Serializable;
+
 import com.github.rwitzel.streamflyer.core.AfterModification;
 import com.github.rwitzel.streamflyer.util.ModificationFactory;
 
@@ -22,6 +24,13 @@ import com.github.rwitzel.streamflyer.util.ModificationFactory;
  * Keeps track of the current line and column in the stream.
  * <p>
  * This might be useful for reporting modifications.
+ * <p>
+ * The skipped characters are copied chunk by chunk into an array and the line breaks are counted in a tight loop. If a
+ * subclass overrides {@link #onCharacterSkipped(char)}, this method is called for each skipped character instead.
+ * <p>
+ * In order to get the line and the column of a match without skipping the characters in front of the match, use
+ * {@link #getLineAt(CharSequence, int, int)} and {@link #getColumnAt(CharSequence, int, int)}. These methods compute
+ * the position on demand, i.e. only if the position is actually needed.
  * 
  * @author rwoo
  * @since 28.06.2011
@@ -55,6 +64,31 @@ public class LineColumnAwareModificationFactory extends ModificationFactoryDecor
      */
     protected char lastChar = ' ';
 
+    /**
+     * The size of {@link #chunk}.
+     */
+    private static final int CHUNK_SIZE = 1024;
+
+    /**
+     * The skipped characters are copied into this array. Created on demand.
+     */
+    private char[] chunk;
+
+    /**
+     * True if {@link #onCharacterSkipped(char)} shall be called for each skipped character.
+     */
+    private final boolean characterCallbacks;
+
+    /**
+     * The line computed by {@link #locate(CharSequence, int, int)}.
+     */
+    private long locatedLine;
+
+    /**
+     * The column computed by {@link #locate(CharSequence, int, int)}.
+     */
+    private long locatedColumn;
+
     //
     // constructors
     //
@@ -65,6 +99,20 @@ public class LineColumnAwareModificationFactory extends ModificationFactoryDecor
     public LineColumnAwareModificationFactory(ModificationFactory delegate) {
         super(delegate);
 
+        this.characterCallbacks = isOnCharacterSkippedOverridden();
+    }
+
+    private boolean isOnCharacterSkippedOverridden() {
+        for (Class<?> type = getClass(); type != LineColumnAwareModificationFactory.class; type = type
+                .getSuperclass()) {
+            try {
+                type.getDeclaredMethod("onCharacterSkipped", char.class);
+                return true;
+            } catch (NoSuchMethodException e) {
+                // try the superclass
+            }
+        }
+        return false;
     }
 
     //
@@ -164,13 +212,85 @@ public class LineColumnAwareModificationFactory extends ModificationFactoryDecor
         return afterModification;
     }
 
+    /**
+     * Note: The line and the column are not updated for the characters that are passed through after the skipped
+     * characters.
+     * 
+     * @see com.github.rwitzel.streamflyer.util.statistics.ModificationFactoryDecorator#passThrough(java.lang.StringBuilder,
+     *      int, boolean)
+     */
+    @Override
+    public AfterModification passThrough(StringBuilder characterBuffer, int firstModifiableCharacterInBuffer,
+            boolean endOfStreamHit) {
+
+        AfterModification afterModification = super.passThrough(characterBuffer, firstModifiableCharacterInBuffer,
+                endOfStreamHit);
+
+        onCharactersSkipped(afterModification.getNumberOfCharactersToSkip(), characterBuffer,
+                firstModifiableCharacterInBuffer);
+
+        return afterModification;
+    }
+
     protected void onCharactersSkipped(int numberOfCharactersToSkip, StringBuilder characterBuffer,
             int firstModifiableCharacterInBuffer) {
 
         int end = firstModifiableCharacterInBuffer + numberOfCharactersToSkip;
 
-        for (int index = firstModifiableCharacterInBuffer; index < end; index++) {
-            onCharacterSkipped(characterBuffer.charAt(index));
+        if (characterCallbacks) {
+            for (int index = firstModifiableCharacterInBuffer; index < end; index++) {
+                onCharacterSkipped(characterBuffer.charAt(index));
+            }
+            return;
+        }
+
+        if (chunk == null) {
+            chunk = new char[CHUNK_SIZE];
+        }
+
+        for (int start = firstModifiableCharacterInBuffer; start < end; start += CHUNK_SIZE) {
+
+            int chunkEnd = Math.min(end, start + CHUNK_SIZE);
+            characterBuffer.getChars(start, chunkEnd, chunk, 0);
+            onCharactersSkipped(chunk, chunkEnd - start);
+        }
+    }
+
+    /**
+     * Updates current position, current line, current column for the given characters.
+     */
+    private void onCharactersSkipped(char[] chars, int length) {
+
+        long line = currentLine;
+        char last = lastChar;
+        // the position of the last line break in the array
+        int lastLineBreak = -1;
+
+        for (int index = 0; index < length; index++) {
+            char ch = chars[index];
+            // (most characters are not line breaks -> a single comparison)
+            if (ch <= '\r') {
+                if (ch == '\r') {
+                    line++;
+                    lastLineBreak = index;
+                } else if (ch == '\n') {
+                    if (last != '\r') {
+                        line++;
+                    }
+                    lastLineBreak = index;
+                }
+            }
+            last = ch;
+        }
+
+        if (length > 0) {
+            currentLine = line;
+            lastChar = last;
+            if (lastLineBreak == -1) {
+                currentColumn += length;
+            } else {
+                currentColumn = length - lastLineBreak - 1;
+            }
         }
     }
 
@@ -192,10 +312,112 @@ public class LineColumnAwareModificationFactory extends ModificationFactoryDecor
         lastChar = ch;
     }
 
+    /**
+     * Computes the line and the column of the given position into {@link #locatedLine} and {@link #locatedColumn}.
+     */
+    private void locate(CharSequence characterBuffer, int firstModifiableCharacterInBuffer, int position) {
+
+        if (position < firstModifiableCharacterInBuffer || position > characterBuffer.length()) {
+            throw new IllegalArgumentException("position " + position + " is not in the range ["
+                    + firstModifiableCharacterInBuffer + ", " + characterBuffer.length() + "]");
+        }
+
+        long line = currentLine;
+        long column = currentColumn;
+        char last = lastChar;
+
+        for (int index = firstModifiableCharacterInBuffer; index < position; index++) {
+            char ch = characterBuffer.charAt(index);
+            if (ch == '\r') {
+                line++;
+                column = 0;
+            } else if (ch == '\n') {
+                if (last != '\r') {
+                    line++;
+                    column = 0;
+                }
+            } else {
+                column++;
+            }
+            last = ch;
+        }
+
+        locatedLine = line;
+        locatedColumn = column;
+    }
+
+    //
+    // override ModificationFactoryDecorator.*
+    //
+
+    /**
+     * @see com.github.rwitzel.streamflyer.util.statistics.ModificationFactoryDecorator#reset()
+     */
+    @Override
+    public void reset() {
+        super.reset();
+        currentLine = 0;
+        currentColumn = 0;
+        lastChar = ' ';
+    }
+
+    /**
+     * The state contains the {@link #currentLine}, the {@link #currentColumn}, the {@link #lastChar} and the state of
+     * the delegate.
+     * 
+     * @see com.github.rwitzel.streamflyer.util.statistics.ModificationFactoryDecorator#checkpoint()
+     */
+    @Override
+    public Serializable checkpoint() {
+        return new Serializable[] { super.checkpoint(), currentLine, currentColumn, lastChar };
+    }
+
+    /**
+     * @see com.github.rwitzel.streamflyer.util.statistics.ModificationFactoryDecorator#resume(java.io.Serializable)
+     */
+    @Override
+    public void resume(Serializable state) {
+        Serializable[] states = (Serializable[]) state;
+        super.resume(states[0]);
+        currentLine = (Long) states[1];
+        currentColumn = (Long) states[2];
+        lastChar = (Character) states[3];
+    }
+
     //
     // getter methods
     //
 
+    /**
+     * Computes the line of a modifiable character in the buffer, e.g. of the start of a match, on demand. The
+     * characters in front of the given position do not have to be skipped.
+     * 
+     * @param characterBuffer
+     *            the character buffer given to the modifier.
+     * @param firstModifiableCharacterInBuffer
+     *            the first modifiable character given to the modifier, i.e. the position in the buffer that
+     *            corresponds to {@link #getCurrentLine()} and {@link #getCurrentColumn()}.
+     * @param position
+     *            a position in the range [firstModifiableCharacterInBuffer, characterBuffer.length()].
+     * @return Returns the index of the line of the given position.
+     * @since 1.2.1
+     */
+    public long getLineAt(CharSequence characterBuffer, int firstModifiableCharacterInBuffer, int position) {
+        locate(characterBuffer, firstModifiableCharacterInBuffer, position);
+        return locatedLine;
+    }
+
+    /**
+     * Like {@link #getLineAt(CharSequence, int, int)} but computes the column.
+     * 
+     * @return Returns the index of the column of the given position.
+     * @since 1.2.1
+     */
+    public long getColumnAt(CharSequence characterBuffer, int firstModifiableCharacterInBuffer, int position) {
+        locate(characterBuffer, firstModifiableCharacterInBuffer, position);
+        return locatedColumn;
+    }
+
     /**
      * @return Returns the {@link #currentColumn}.
      */
@@ -15,7 +15,11 @@
  */
 package com.github.rwitzel.streamflyer.util.statistics;
 
+import java.io.Serializable;
+
 import com.github.rwitzel.streamflyer.core.AfterModification;
+import com.github.rwitzel.streamflyer.core.Checkpointable;
+import com.github.rwitzel.streamflyer.core.Resettable;
 import com.github.rwitzel.streamflyer.internal.thirdparty.ZzzValidate;
 import com.github.rwitzel.streamflyer.util.ModificationFactory;
 
@@ -28,7 +32,7 @@ import com.github.rwitzel.streamflyer.util.ModificationFactory;
  * @author rwoo
  * @since 27.06.2011
  */
-public abstract class ModificationFactoryDecorator extends ModificationFactory {
+public abstract class ModificationFactoryDecorator extends ModificationFactory implements Resettable, Checkpointable {
 
     private ModificationFactory delegate;
 
@@ -87,6 +91,14 @@ public abstract class ModificationFactoryDecorator extends ModificationFactory {
         return delegate.stop(characterBuffer, firstModifiableCharacterInBuffer, endOfStreamHit);
     }
 
+    @Override
+    public AfterModification passThrough(StringBuilder characterBuffer, int firstModifiableCharacterInBuffer,
+            boolean endOfStreamHit) {
+
+        // delegate
+        return delegate.passThrough(characterBuffer, firstModifiableCharacterInBuffer, endOfStreamHit);
+    }
+
     /**
      * @see com.github.rwitzel.streamflyer.util.ModificationFactory#getNewNumberOfChars()
      */
@@ -97,6 +109,45 @@ public abstract class ModificationFactoryDecorator extends ModificationFactory {
         return delegate.getNewNumberOfChars();
     }
 
+    /**
+     * Resets the delegate if the delegate implements {@link Resettable}. Subclasses that hold state that refers to the
+     * stream should override this method.
+     * 
+     * @see com.github.rwitzel.streamflyer.core.Resettable#reset()
+     */
+    @Override
+    public void reset() {
+        if (delegate instanceof Resettable) {
+            ((Resettable) delegate).reset();
+        }
+    }
+
+    /**
+     * Returns the state of the delegate if the delegate implements {@link Checkpointable}, otherwise null. Subclasses
+     * that hold state that refers to the stream should override this method and include the state returned by this
+     * method.
+     * 
+     * @see com.github.rwitzel.streamflyer.core.Checkpointable#checkpoint()
+     * @since 1.2.1
+     */
+    @Override
+    public Serializable checkpoint() {
+        return delegate instanceof Checkpointable ? ((Checkpointable) delegate).checkpoint() : null;
+    }
+
+    /**
+     * Resumes the delegate if the delegate implements {@link Checkpointable}.
+     * 
+     * @see com.github.rwitzel.streamflyer.core.Checkpointable#resume(java.io.Serializable)
+     * @since 1.2.1
+     */
+    @Override
+    public void resume(Serializable state) {
+        if (delegate instanceof Checkpointable) {
+            ((Checkpointable) delegate).resume(state);
+        }
+    }
+
     /**
      * @see java.lang.Object#toString()
      */
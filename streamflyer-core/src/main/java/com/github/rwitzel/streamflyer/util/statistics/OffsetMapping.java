@@ -0,0 +1,298 @@
+/**
+ * Copyright (C) 2011 rwitzel75@googlemail.com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.rwitzel.streamflyer.util.statistics;
+
+/**
+ * Maps offsets in the modified output to offsets in the original input and vice versa.
+ * <p>
+ * The mapping is a list of edits. Each edit replaces a number of characters of the input (the deleted characters) with
+ * a number of characters in the output (the inserted characters). The edits are added in ascending order while the
+ * stream is modified, usually by an {@link OffsetMappingModifier}.
+ * <p>
+ * The edits are stored delta-encoded in int arrays, i.e. each edit occupies three ints: the number of unchanged
+ * characters between the previous edit and this edit, the number of deleted characters and the number of inserted
+ * characters. The absolute positions of every {@value #INDEX_INTERVAL}th edit are stored in a sparse index. Thus, an
+ * offset is mapped by a binary search in the sparse index followed by a scan of at most {@value #INDEX_INTERVAL} edits.
+ * <p>
+ * An offset that points into the deleted characters of an edit is mapped to the first inserted character of the edit.
+ * An offset that points into the inserted characters of an edit is mapped to the first deleted character of the edit.
+ * <p>
+ * This class is not thread-safe. Read the mapping after the stream is processed.
+ * 
+ * @author rwoo
+ * @since 1.2.1
+ */
+public class OffsetMapping {
+
+    /**
+     * The absolute positions of every {@value #INDEX_INTERVAL}th edit are stored in the sparse index.
+     */
+    private static final int INDEX_INTERVAL = 32;
+
+    //
+    // state
+    //
+
+    /**
+     * The number of unchanged characters between the end of the previous edit and the start of the edit.
+     */
+    private int[] gaps = new int[INDEX_INTERVAL];
+
+    /**
+     * The number of deleted characters of the edit.
+     */
+    private int[] deleted = new int[INDEX_INTERVAL];
+
+    /**
+     * The number of inserted characters of the edit.
+     */
+    private int[] inserted = new int[INDEX_INTERVAL];
+
+    /**
+     * The number of edits.
+     */
+    private int size = 0;
+
+    /**
+     * The input offsets of every {@value #INDEX_INTERVAL}th edit.
+     */
+    private long[] indexedInputStarts = new long[1];
+
+    /**
+     * The output offsets of every {@value #INDEX_INTERVAL}th edit.
+     */
+    private long[] indexedOutputStarts = new long[1];
+
+    /**
+     * The output offset of the last edit.
+     */
+    private long lastOutputStart = 0;
+
+    /**
+     * The input offset after the deleted characters of the last edit.
+     */
+    private long lastInputEnd = 0;
+
+    /**
+     * The output offset after the inserted characters of the last edit.
+     */
+    private long lastOutputEnd = 0;
+
+    //
+    // public methods
+    //
+
+    /**
+     * Adds an edit.
+     * <p>
+     * If the edit overlaps or touches the inserted characters of the previous edit, the edits are merged.
+     * 
+     * @param outputPosition
+     *            The position of the edit in the output, i.e. the input offset of the edit plus the number of inserted
+     *            characters minus the number of deleted characters of all previous edits. Must not be smaller than the
+     *            output position of the previous edit.
+     * @param deletedLength
+     *            The number of characters the edit removes.
+     * @param insertedLength
+     *            The number of characters the edit inserts.
+     */
+    public void addEdit(long outputPosition, int deletedLength, int insertedLength) {
+
+        if (deletedLength < 0) {
+            throw new IllegalArgumentException("deletedLength must not be negative but was " + deletedLength);
+        }
+        if (insertedLength < 0) {
+            throw new IllegalArgumentException("insertedLength must not be negative but was " + insertedLength);
+        }
+        if (outputPosition < (size > 0 ? lastOutputStart : 0)) {
+            throw new IllegalArgumentException("outputPosition " + outputPosition
+                    + " must not be smaller than the position of the previous edit " + lastOutputStart);
+        }
+
+        if (size > 0 && outputPosition <= lastOutputEnd) {
+
+            // merge with the previous edit: the new edit deletes some of the inserted characters of the previous edit
+            // and possibly some input characters behind the previous edit
+            int deletedInsertedCharacters = (int) Math.min(deletedLength, lastOutputEnd - outputPosition);
+            int deletedInputCharacters = deletedLength - deletedInsertedCharacters;
+
+            deleted[size - 1] += deletedInputCharacters;
+            inserted[size - 1] += insertedLength - deletedInsertedCharacters;
+
+            lastInputEnd += deletedInputCharacters;
+            lastOutputEnd = lastOutputStart + inserted[size - 1];
+
+        } else {
+
+            long gap = outputPosition - lastOutputEnd;
+            // gaps that don't fit into an int are split by edits that neither delete nor insert characters
+            while (gap > Integer.MAX_VALUE) {
+                append(Integer.MAX_VALUE, 0, 0);
+                gap -= Integer.MAX_VALUE;
+            }
+            append((int) gap, deletedLength, insertedLength);
+        }
+    }
+
+    private void append(int gap, int deletedLength, int insertedLength) {
+
+        if (size == gaps.length) {
+            int newCapacity = size * 2;
+            gaps = copyOf(gaps, newCapacity);
+            deleted = copyOf(deleted, newCapacity);
+            inserted = copyOf(inserted, newCapacity);
+        }
+
+        long inputStart = lastInputEnd + gap;
+        long outputStart = lastOutputEnd + gap;
+
+        if (size % INDEX_INTERVAL == 0) {
+            int block = size / INDEX_INTERVAL;
+            if (block == indexedInputStarts.length) {
+                indexedInputStarts = copyOf(indexedInputStarts, block * 2);
+                indexedOutputStarts = copyOf(indexedOutputStarts, block * 2);
+            }
+            indexedInputStarts[block] = inputStart;
+            indexedOutputStarts[block] = outputStart;
+        }
+
+        gaps[size] = gap;
+        deleted[size] = deletedLength;
+        inserted[size] = insertedLength;
+        size++;
+
+        lastOutputStart = outputStart;
+        lastInputEnd = inputStart + deletedLength;
+        lastOutputEnd = outputStart + insertedLength;
+    }
+
+    private static int[] copyOf(int[] array, int newLength) {
+        int[] copy = new int[newLength];
+        System.arraycopy(array, 0, copy, 0, array.length);
+        return copy;
+    }
+
+    private static long[] copyOf(long[] array, int newLength) {
+        long[] copy = new long[newLength];
+        System.arraycopy(array, 0, copy, 0, array.length);
+        return copy;
+    }
+
+    /**
+     * @param inputOffset
+     *            an offset in the original input
+     * @return Returns the corresponding offset in the modified output.
+     */
+    public long toOutputOffset(long inputOffset) {
+        return map(inputOffset, true);
+    }
+
+    /**
+     * @param outputOffset
+     *            an offset in the modified output
+     * @return Returns the corresponding offset in the original input.
+     */
+    public long toInputOffset(long outputOffset) {
+        return map(outputOffset, false);
+    }
+
+    private long map(long offset, boolean fromInput) {
+
+        if (offset < 0) {
+            throw new IllegalArgumentException("offset must not be negative but was " + offset);
+        }
+
+        // find the last indexed edit that starts at or before the offset
+        long[] indexedStarts = fromInput ? indexedInputStarts : indexedOutputStarts;
+        int block = -1;
+        int low = 0;
+        int high = (size + INDEX_INTERVAL - 1) / INDEX_INTERVAL - 1;
+        while (low <= high) {
+            int middle = (low + high) >>> 1;
+            if (indexedStarts[middle] <= offset) {
+                block = middle;
+                low = middle + 1;
+            } else {
+                high = middle - 1;
+            }
+        }
+
+        if (block == -1) {
+            // there is no edit in front of the offset
+            return offset;
+        }
+
+        // scan the edits of the block (and the first edit of the next block)
+        int first = block * INDEX_INTERVAL;
+        long inputStart = indexedInputStarts[block];
+        long outputStart = indexedOutputStarts[block];
+        long inputEnd = 0;
+        long outputEnd = 0;
+        for (int index = first; index < size; index++) {
+
+            if (index != first) {
+                inputStart = inputEnd + gaps[index];
+                outputStart = outputEnd + gaps[index];
+            }
+            inputEnd = inputStart + deleted[index];
+            outputEnd = outputStart + inserted[index];
+
+            if (fromInput) {
+                if (offset < inputStart) {
+                    return outputStart - (inputStart - offset);
+                } else if (offset < inputEnd) {
+                    return outputStart;
+                }
+            } else {
+                if (offset < outputStart) {
+                    return inputStart - (outputStart - offset);
+                } else if (offset < outputEnd) {
+                    return inputStart;
+                }
+            }
+        }
+
+        // the offset is behind the last edit
+        return fromInput ? outputEnd + (offset - inputEnd) : inputEnd + (offset - outputEnd);
+    }
+
+    /**
+     * @return Returns the number of recorded edits.
+     */
+    public int getNumberOfEdits() {
+        return size;
+    }
+
+    //
+    // override Object.*
+    //
+
+    /**
+     * @see java.lang.Object#toString()
+     */
+    @Override
+    public String toString() {
+        StringBuilder builder = new StringBuilder();
+        builder.append("OffsetMapping [numberOfEdits=");
+        builder.append(size);
+        builder.append(", \nlastInputEnd=");
+        builder.append(lastInputEnd);
+        builder.append(", \nlastOutputEnd=");
+        builder.append(lastOutputEnd);
+        builder.append("]");
+        return builder.toString();
+    }
+}
@@ -0,0 +1,91 @@
+/**
+ * Copyright (C) 2011 rwitzel75@googlemail.com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.rwitzel.streamflyer.util.statistics;
+
+import java.util.regex.MatchResult;
+
+import com.github.rwitzel.streamflyer.internal.thirdparty.ZzzValidate;
+import com.github.rwitzel.streamflyer.regex.MatchProcessor;
+import com.github.rwitzel.streamflyer.regex.MatchProcessorResult;
+
+/**
+ * Records the replacement of each match as an edit in the given {@link OffsetMappingModifier}.
+ * <p>
+ * The delegate is expected to modify the characters of the match only. If the delegate does not change the length of
+ * the buffer, no edit is recorded.
+ * <p>
+ * Usage:
+ * 
+ * <pre>
+ * RegexModifier regexModifier = new RegexModifier(&quot;ab&quot;, 0, &quot;xyz&quot;);
+ * OffsetMappingModifier modifier = new OffsetMappingModifier(regexModifier);
+ * regexModifier.setMatchProcessor(new OffsetMappingMatchProcessor(regexModifier.getMatchProcessor(), modifier));
+ * </pre>
+ * 
+ * @author rwoo
+ * @since 1.2.1
+ */
+public class OffsetMappingMatchProcessor implements MatchProcessor {
+
+    //
+    // injected properties
+    //
+
+    protected MatchProcessor delegate;
+
+    protected OffsetMappingModifier offsetMappingModifier;
+
+    //
+    // constructors
+    //
+
+    public OffsetMappingMatchProcessor(MatchProcessor delegate, OffsetMappingModifier offsetMappingModifier) {
+        super();
+
+        ZzzValidate.notNull(delegate, "delegate must not be null");
+        ZzzValidate.notNull(offsetMappingModifier, "offsetMappingModifier must not be null");
+
+        this.delegate = delegate;
+        this.offsetMappingModifier = offsetMappingModifier;
+    }
+
+    //
+    // override MatchProcessor.*
+    //
+
+    /**
+     * @see com.github.rwitzel.streamflyer.regex.MatchProcessor#process(java.lang.StringBuilder, int,
+     *      java.util.regex.MatchResult)
+     */
+    @Override
+    public MatchProcessorResult process(StringBuilder characterBuffer, int firstModifiableCharacterInBuffer,
+            MatchResult matchResult) {
+
+        int start = matchResult.start();
+        int matchLength = matchResult.end() - start;
+        int lengthBefore = characterBuffer.length();
+
+        MatchProcessorResult result = delegate.process(characterBuffer, firstModifiableCharacterInBuffer,
+                matchResult);
+
+        int delta = characterBuffer.length() - lengthBefore;
+        if (delta != 0) {
+            offsetMappingModifier.recordEdit(start, matchLength, matchLength + delta);
+        }
+
+        return result;
+    }
+}
@@ -0,0 +1,195 @@
+/**
+ * Copyright (C) 2011 rwitzel75@googlemail.com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.rwitzel.streamflyer.util.statistics;
+
+import com.github.rwitzel.streamflyer.core.AfterModification;
+import com.github.rwitzel.streamflyer.core.Modifier;
+import com.github.rwitzel.streamflyer.core.Resettable;
+import com.github.rwitzel.streamflyer.internal.thirdparty.ZzzValidate;
+
+/**
+ * Records the edits of the given modifier in an {@link OffsetMapping} so that offsets in the modified output can be
+ * mapped to offsets in the original input (and vice versa) after the stream is processed.
+ * <p>
+ * The edits are recorded in two ways:
+ * <ul>
+ * <li>Exactly: the delegate (or a {@link OffsetMappingMatchProcessor} used by the delegate) calls
+ * {@link #recordEdit(int, int, int)} for each replacement.</li>
+ * <li>Coarsely: if no edit is recorded during a call of {@link #modify(StringBuilder, int, boolean)} but the length of
+ * the buffer is changed by the delegate, then the modifiable characters of the buffer are regarded as replaced as a
+ * whole. Offsets at the boundaries of such regions are mapped exactly, offsets in between are mapped to the start of
+ * the region.</li>
+ * </ul>
+ * <p>
+ * Like most modifiers, this decorator is not thread-safe, i.e. use a decorator for each stream.
+ * 
+ * @author rwoo
+ * @since 1.2.1
+ */
+public class OffsetMappingModifier implements Modifier, Resettable {
+
+    //
+    // injected properties
+    //
+
+    protected Modifier delegate;
+
+    protected OffsetMapping offsetMapping;
+
+    //
+    // state
+    //
+
+    /**
+     * The position in the output of the first modifiable character in the buffer, i.e. the number of characters that
+     * are skipped so far.
+     */
+    private long outputPosition = 0;
+
+    /**
+     * The first modifiable character in the buffer given to the current call of
+     * {@link #modify(StringBuilder, int, boolean)}.
+     */
+    private int firstModifiableCharacterInBuffer = 0;
+
+    /**
+     * True if an edit is recorded during the current call of {@link #modify(StringBuilder, int, boolean)}.
+     */
+    private boolean editRecorded;
+
+    //
+    // constructors
+    //
+
+    public OffsetMappingModifier(Modifier delegate) {
+        this(delegate, new OffsetMapping());
+    }
+
+    public OffsetMappingModifier(Modifier delegate, OffsetMapping offsetMapping) {
+        super();
+
+        ZzzValidate.notNull(delegate, "delegate must not be null");
+        ZzzValidate.notNull(offsetMapping, "offsetMapping must not be null");
+
+        this.delegate = delegate;
+        this.offsetMapping = offsetMapping;
+    }
+
+    //
+    // override Modifier.*
+    //
+
+    /**
+     * @see com.github.rwitzel.streamflyer.core.Modifier#modify(java.lang.StringBuilder, int, boolean)
+     */
+    @Override
+    public AfterModification modify(StringBuilder characterBuffer, int firstModifiableCharacterInBuffer,
+            boolean endOfStreamHit) {
+
+        this.firstModifiableCharacterInBuffer = firstModifiableCharacterInBuffer;
+        editRecorded = false;
+        int lengthBefore = characterBuffer.length();
+
+        AfterModification afterModification = delegate.modify(characterBuffer, firstModifiableCharacterInBuffer,
+                endOfStreamHit);
+
+        if (!editRecorded && characterBuffer.length() != lengthBefore) {
+            recordEdit(firstModifiableCharacterInBuffer, lengthBefore - firstModifiableCharacterInBuffer,
+                    characterBuffer.length() - firstModifiableCharacterInBuffer);
+        }
+
+        outputPosition += afterModification.getNumberOfCharactersToSkip();
+
+        return afterModification;
+    }
+
+    //
+    // override Resettable.*
+    //
+
+    /**
+     * Resets the delegate if the delegate implements {@link Resettable}. The edits of the next stream are recorded in a
+     * new {@link OffsetMapping}, i.e. the mapping returned by {@link #getOffsetMapping()} so far is not changed any
+     * longer.
+     * 
+     * @see com.github.rwitzel.streamflyer.core.Resettable#reset()
+     */
+    @Override
+    public void reset() {
+        if (delegate instanceof Resettable) {
+            ((Resettable) delegate).reset();
+        }
+        offsetMapping = new OffsetMapping();
+        outputPosition = 0;
+        firstModifiableCharacterInBuffer = 0;
+        editRecorded = false;
+    }
+
+    //
+    // public methods
+    //
+
+    /**
+     * Records an edit in the character buffer given to the current call of
+     * {@link #modify(StringBuilder, int, boolean)}. The edits must be recorded in ascending order.
+     * 
+     * @param positionInBuffer
+     *            the position of the edit in the character buffer. Must not be smaller than the first modifiable
+     *            character in the buffer.
+     * @param deletedLength
+     *            the number of characters that are replaced.
+     * @param insertedLength
+     *            the number of characters that replace the deleted characters.
+     */
+    public void recordEdit(int positionInBuffer, int deletedLength, int insertedLength) {
+
+        if (positionInBuffer < firstModifiableCharacterInBuffer) {
+            throw new IllegalArgumentException("positionInBuffer " + positionInBuffer
+                    + " must not be smaller than the first modifiable character " + firstModifiableCharacterInBuffer);
+        }
+
+        offsetMapping.addEdit(outputPosition + positionInBuffer - firstModifiableCharacterInBuffer, deletedLength,
+                insertedLength);
+        editRecorded = true;
+    }
+
+    /**
+     * @return Returns the {@link #offsetMapping}.
+     */
+    public OffsetMapping getOffsetMapping() {
+        return offsetMapping;
+    }
+
+    //
+    // override Object.*
+    //
+
+    /**
+     * @see java.lang.Object#toString()
+     */
+    @Override
+    public String toString() {
+        StringBuilder builder = new StringBuilder();
+        builder.append("OffsetMappingModifier [delegate=");
+        builder.append(delegate);
+        builder.append(", \noffsetMapping=");
+        builder.append(offsetMapping);
+        builder.append(", \noutputPosition=");
+        builder.append(outputPosition);
+        builder.append("]");
+        return builder.toString();
+    }
+}
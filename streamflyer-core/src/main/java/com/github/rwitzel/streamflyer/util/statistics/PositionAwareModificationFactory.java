@@ -15,6 +15,8 @@
  */
 package com.github.rwitzel.streamflyer.util.statistics;
 
+import java.io.Serializable;
+
 import com.github.rwitzel.streamflyer.core.AfterModification;
 import com.github.rwitzel.streamflyer.util.ModificationFactory;
 
@@ -138,6 +140,55 @@ public class PositionAwareModificationFactory extends ModificationFactoryDecorat
         return afterModification;
     }
 
+    /**
+     * @see com.github.rwitzel.streamflyer.util.statistics.ModificationFactoryDecorator#passThrough(java.lang.StringBuilder,
+     *      int, boolean)
+     */
+    @Override
+    public AfterModification passThrough(StringBuilder characterBuffer, int firstModifiableCharacterInBuffer,
+            boolean endOfStreamHit) {
+
+        AfterModification afterModification = super.passThrough(characterBuffer, firstModifiableCharacterInBuffer,
+                endOfStreamHit);
+
+        currentPosition += afterModification.getNumberOfCharactersToSkip();
+
+        return afterModification;
+    }
+
+    //
+    // override ModificationFactoryDecorator.*
+    //
+
+    /**
+     * @see com.github.rwitzel.streamflyer.util.statistics.ModificationFactoryDecorator#reset()
+     */
+    @Override
+    public void reset() {
+        super.reset();
+        currentPosition = 0;
+    }
+
+    /**
+     * The state contains the {@link #currentPosition} and the state of the delegate.
+     * 
+     * @see com.github.rwitzel.streamflyer.util.statistics.ModificationFactoryDecorator#checkpoint()
+     */
+    @Override
+    public Serializable checkpoint() {
+        return new Serializable[] { super.checkpoint(), currentPosition };
+    }
+
+    /**
+     * @see com.github.rwitzel.streamflyer.util.statistics.ModificationFactoryDecorator#resume(java.io.Serializable)
+     */
+    @Override
+    public void resume(Serializable state) {
+        Serializable[] states = (Serializable[]) state;
+        super.resume(states[0]);
+        currentPosition = (Long) states[1];
+    }
+
     //
     // getter methods
     //
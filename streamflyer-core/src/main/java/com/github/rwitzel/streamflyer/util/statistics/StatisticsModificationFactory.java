@@ -117,6 +117,17 @@ public class StatisticsModificationFactory extends ModificationFactoryDecorator
         return count(super.stop(characterBuffer, firstModifiableCharacterInBuffer, endOfStreamHit));
     }
 
+    /**
+     * @see com.github.rwitzel.streamflyer.util.statistics.ModificationFactoryDecorator#passThrough(java.lang.StringBuilder,
+     *      int, boolean)
+     */
+    @Override
+    public AfterModification passThrough(StringBuilder characterBuffer, int firstModifiableCharacterInBuffer,
+            boolean endOfStreamHit) {
+
+        return count(super.passThrough(characterBuffer, firstModifiableCharacterInBuffer, endOfStreamHit));
+    }
+
     protected AfterModification count(AfterModification afterModification) {
 
         // update
@@ -132,7 +143,7 @@ public class StatisticsModificationFactory extends ModificationFactoryDecorator
             maxRequestedNewNumberOfChars = afterModification.getNewNumberOfChars();
         }
 
-        if (afterModification.getNewNumberOfChars() < afterModification.getNewNumberOfChars()) {
+        if (getNewNumberOfChars() < afterModification.getNewNumberOfChars()) {
             numMoreInputThanDefault++;
         }
 
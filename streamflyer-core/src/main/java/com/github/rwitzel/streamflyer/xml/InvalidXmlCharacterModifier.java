@@ -16,12 +16,16 @@
 package com.github.rwitzel.streamflyer.xml;
 
 import java.io.InputStream;
+import java.io.Serializable;
 import java.util.regex.Matcher;
-import java.util.regex.Pattern;
 
 import com.github.rwitzel.streamflyer.core.AfterModification;
+import com.github.rwitzel.streamflyer.core.Checkpointable;
 import com.github.rwitzel.streamflyer.core.Modifier;
+import com.github.rwitzel.streamflyer.core.Resettable;
 import com.github.rwitzel.streamflyer.internal.thirdparty.ZzzValidate;
+import com.github.rwitzel.streamflyer.regex.PatternCache;
+import com.github.rwitzel.streamflyer.util.CharScanner;
 import com.github.rwitzel.streamflyer.util.ModificationFactory;
 import com.github.rwitzel.streamflyer.util.ModifyingReaderFactory;
 import com.github.rwitzel.streamflyer.util.statistics.LineColumnAwareModificationFactory;
@@ -103,7 +107,7 @@ assertEquals("foo[INVALID XML CHAR FOUND: U+D8FF]bar", actualOutput);</pre></cod
  * @author rwoo
  * @since 23.06.2011
  */
-public class InvalidXmlCharacterModifier implements Modifier {
+public class InvalidXmlCharacterModifier implements Modifier, Resettable, Checkpointable {
 
     /**
      * http://www.w3.org/TR/xml/#charsets (referring to the fifth edition of the specification)
@@ -115,6 +119,12 @@ public class InvalidXmlCharacterModifier implements Modifier {
      */
     public static final String XML_11_VERSION = "1.1";
 
+    private static final String INVALID_XML_10_CHARACTER_REGEX = //
+            "[^\\u0020-\\uD7FF\\u0009\\u000A\\u000D\\uE000-\\uFFFD\\u10000-\\u10FFFF]";
+
+    private static final String INVALID_XML_11_CHARACTER_REGEX = //
+            "[^\\u0001-\\uD7FF\\uE000-\\uFFFD\\u10000-\\u10FFFF]";
+
     //
     // injected properties
     //
@@ -137,6 +147,17 @@ public class InvalidXmlCharacterModifier implements Modifier {
      */
     protected boolean dollarZero;
 
+    /**
+     * Finds the candidates for invalid XML characters much faster than {@link #matcher}. This is <code>null</code> if
+     * the regular expressions are customized by a subclass.
+     */
+    protected CharScanner scanner;
+
+    /**
+     * True if {@link #scanner} shall look for invalid XML 1.1 characters, false if for invalid XML 1.0 characters.
+     */
+    protected boolean xml11;
+
     //
     // constructors
     //
@@ -169,15 +190,24 @@ public class InvalidXmlCharacterModifier implements Modifier {
         this.dollarZero = dollarZero;
 
         // initialize matcher
-        Pattern pattern;
+        String regex;
+        String defaultRegex;
         if (XML_10_VERSION.equals(xmlVersion)) {
-            pattern = Pattern.compile(getInvalidXmlCharacterRegex_Xml10());
+            regex = getInvalidXmlCharacterRegex_Xml10();
+            defaultRegex = INVALID_XML_10_CHARACTER_REGEX;
         } else if (XML_11_VERSION.equals(xmlVersion)) {
-            pattern = Pattern.compile(getInvalidXmlCharacterRegex_Xml11());
+            regex = getInvalidXmlCharacterRegex_Xml11();
+            defaultRegex = INVALID_XML_11_CHARACTER_REGEX;
         } else {
             throw new IllegalArgumentException("xmlVersion has the illegal " + "(or unsupported) value " + xmlVersion);
         }
-        this.matcher = pattern.matcher("");
+        this.matcher = PatternCache.getShared().getPattern(regex, 0).matcher("");
+
+        // the scanner knows only the invalid characters given by the default regular expressions
+        if (defaultRegex.equals(regex)) {
+            this.scanner = CharScanner.newInstance();
+            this.xml11 = XML_11_VERSION.equals(xmlVersion);
+        }
     }
 
     /**
@@ -194,7 +224,7 @@ public class InvalidXmlCharacterModifier implements Modifier {
         // Most characters are probably from the range U+0020 -U+D7FF.
         // Therefore, in order to optimize performance, we move this range to
         // the start of the regular expression.
-        return "[^\\u0020-\\uD7FF\\u0009\\u000A\\u000D\\uE000-\\uFFFD\\u10000-\\u10FFFF]";
+        return INVALID_XML_10_CHARACTER_REGEX;
     }
 
     /**
@@ -208,7 +238,7 @@ public class InvalidXmlCharacterModifier implements Modifier {
      * @return Returns a regular expression that matches invalid XML 1.1 characters.
      */
     protected String getInvalidXmlCharacterRegex_Xml11() {
-        return "[^\\u0001-\\uD7FF\\uE000-\\uFFFD\\u10000-\\u10FFFF]";
+        return INVALID_XML_11_CHARACTER_REGEX;
     }
 
     //
@@ -230,8 +260,17 @@ public class InvalidXmlCharacterModifier implements Modifier {
         // characterBuffer.append(newCharacterBuffer);
 
         int start = firstModifiableCharacterInBuffer;
-        while (matcher.find(start)) {
-            start = onMatch(characterBuffer);
+        if (scanner != null) {
+            // each match starts at a character found by the scanner, i.e. the matcher must not inspect the valid
+            // characters before
+            while ((start = scanner.indexOfInvalidXmlCharacter(characterBuffer, start, characterBuffer.length(),
+                    xml11)) != -1 && matcher.find(start)) {
+                start = onMatch(characterBuffer);
+            }
+        } else {
+            while (matcher.find(start)) {
+                start = onMatch(characterBuffer);
+            }
         }
 
         return factory.skipEntireBuffer(characterBuffer, firstModifiableCharacterInBuffer, endOfStreamHit);
@@ -277,6 +316,50 @@ public class InvalidXmlCharacterModifier implements Modifier {
         }
     }
 
+    //
+    // override Resettable.*
+    //
+
+    /**
+     * The modifier itself holds no state that refers to the stream. Resets the modification factory if it implements
+     * {@link Resettable}, e.g. a {@link PositionAwareModificationFactory}.
+     * 
+     * @see com.github.rwitzel.streamflyer.core.Resettable#reset()
+     * @since 1.2.1
+     */
+    @Override
+    public void reset() {
+        if (factory instanceof Resettable) {
+            ((Resettable) factory).reset();
+        }
+    }
+
+    //
+    // override Checkpointable.*
+    //
+
+    /**
+     * @return Returns the state of the modification factory if it implements {@link Checkpointable} (e.g. the
+     *         position of a {@link PositionAwareModificationFactory}), otherwise null.
+     * @see com.github.rwitzel.streamflyer.core.Checkpointable#checkpoint()
+     * @since 1.2.1
+     */
+    @Override
+    public Serializable checkpoint() {
+        return factory instanceof Checkpointable ? ((Checkpointable) factory).checkpoint() : null;
+    }
+
+    /**
+     * @see com.github.rwitzel.streamflyer.core.Checkpointable#resume(java.io.Serializable)
+     * @since 1.2.1
+     */
+    @Override
+    public void resume(Serializable state) {
+        if (factory instanceof Checkpointable) {
+            ((Checkpointable) factory).resume(state);
+        }
+    }
+
     //
     // override Object.*
     //
@@ -0,0 +1,149 @@
+/**
+ * Copyright (C) 2011 rwitzel75@googlemail.com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.rwitzel.streamflyer.xml;
+
+import com.github.rwitzel.streamflyer.core.AfterModification;
+import com.github.rwitzel.streamflyer.core.Modifier;
+import com.github.rwitzel.streamflyer.core.Resettable;
+import com.github.rwitzel.streamflyer.internal.thirdparty.ZzzValidate;
+
+/**
+ * Checks the well-formedness of the XML document that is produced by the given modifier, see
+ * {@link XmlWellFormednessChecker}. Thereby the document is checked in the same pass over the stream that modifies the
+ * document, e.g. that replaces invalid XML characters via {@link InvalidXmlCharacterModifier}.
+ * <p>
+ * The characters are checked as soon as the given modifier skips them, i.e. after their modification. So the offsets
+ * reported by {@link XmlNotWellFormedException} refer to the modified stream.
+ * <p>
+ * As the checker must see all characters of the stream, a {@link AfterModification#isPassThrough() pass through}
+ * requested by the given modifier is converted into a skip. Afterwards the given modifier is not called any longer.
+ * 
+ * @author rwoo
+ * @since 1.2.1
+ */
+public class WellFormednessCheckingModifier implements Modifier, Resettable {
+
+    //
+    // injected properties
+    //
+
+    protected Modifier delegate;
+
+    protected XmlWellFormednessChecker checker;
+
+    /**
+     * The number of characters requested after the given modifier has requested to pass through the rest of the
+     * stream.
+     */
+    protected int newNumberOfCharsAfterPassThrough = 8192;
+
+    //
+    // state
+    //
+
+    private boolean endOfDocumentChecked = false;
+
+    /**
+     * True if the given modifier has requested to pass through the rest of the stream.
+     */
+    private boolean delegatePassesThrough = false;
+
+    //
+    // constructors
+    //
+
+    public WellFormednessCheckingModifier(Modifier delegate) {
+        this(delegate, new XmlWellFormednessChecker());
+    }
+
+    public WellFormednessCheckingModifier(Modifier delegate, XmlWellFormednessChecker checker) {
+        super();
+
+        ZzzValidate.notNull(delegate, "delegate must not be null");
+        ZzzValidate.notNull(checker, "checker must not be null");
+
+        this.delegate = delegate;
+        this.checker = checker;
+    }
+
+    //
+    // override Modifier.*
+    //
+
+    /**
+     * @see com.github.rwitzel.streamflyer.core.Modifier#modify(java.lang.StringBuilder, int, boolean)
+     */
+    @Override
+    public AfterModification modify(StringBuilder characterBuffer, int firstModifiableCharacterInBuffer,
+            boolean endOfStreamHit) {
+
+        AfterModification afterModification;
+        if (delegatePassesThrough) {
+            afterModification = new AfterModification(characterBuffer.length() - firstModifiableCharacterInBuffer,
+                    false, 0, newNumberOfCharsAfterPassThrough);
+        } else {
+            afterModification = delegate.modify(characterBuffer, firstModifiableCharacterInBuffer, endOfStreamHit);
+
+            if (afterModification.isPassThrough()) {
+                // the checker must see the rest of the stream -> convert into a skip
+                delegatePassesThrough = true;
+                afterModification = new AfterModification(afterModification.getNumberOfCharactersToSkip(), false,
+                        0, newNumberOfCharsAfterPassThrough);
+            }
+        }
+
+        // check the characters that are skipped, i.e. will not be modified any longer
+        int endOfSkippedCharacters = firstModifiableCharacterInBuffer
+                + afterModification.getNumberOfCharactersToSkip();
+        checker.check(characterBuffer, firstModifiableCharacterInBuffer, endOfSkippedCharacters);
+
+        // all characters skipped?
+        if (endOfStreamHit && !afterModification.isModifyAgainImmediately()
+                && endOfSkippedCharacters >= characterBuffer.length() && !endOfDocumentChecked) {
+            endOfDocumentChecked = true;
+            checker.endOfDocument();
+        }
+
+        return afterModification;
+    }
+
+    //
+    // override Resettable.*
+    //
+
+    /**
+     * Resets the checker and the delegate if the delegate implements {@link Resettable}.
+     * 
+     * @see com.github.rwitzel.streamflyer.core.Resettable#reset()
+     */
+    @Override
+    public void reset() {
+        if (delegate instanceof Resettable) {
+            ((Resettable) delegate).reset();
+        }
+        checker.reset();
+        endOfDocumentChecked = false;
+        delegatePassesThrough = false;
+    }
+
+    //
+    // public methods
+    //
+
+    public XmlWellFormednessChecker getChecker() {
+        return checker;
+    }
+}
@@ -0,0 +1,40 @@
+/**
+ * Copyright (C) 2011 rwitzel75@googlemail.com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.rwitzel.streamflyer.xml;
+
+/**
+ * Thrown by {@link XmlWellFormednessChecker} if an XML document is not well-formed.
+ * 
+ * @author rwoo
+ * @since 1.2.1
+ */
+@SuppressWarnings("serial")
+public class XmlNotWellFormedException extends RuntimeException {
+
+    private final long offset;
+
+    public XmlNotWellFormedException(String message, long offset) {
+        super(message + " (at character offset " + offset + ")");
+        this.offset = offset;
+    }
+
+    /**
+     * @return Returns the offset of the character that violates the well-formedness of the XML document.
+     */
+    public long getOffset() {
+        return offset;
+    }
+}
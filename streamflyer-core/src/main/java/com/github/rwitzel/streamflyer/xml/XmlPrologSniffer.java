@@ -0,0 +1,344 @@
+/**
+ * Copyright (C) 2011 rwitzel75@googlemail.com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.rwitzel.streamflyer.xml;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.io.SequenceInputStream;
+import java.nio.charset.Charset;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import com.github.rwitzel.streamflyer.internal.thirdparty.ZzzValidate;
+
+/**
+ * Detects the encoding and the XML version of the XML document in the given byte stream, and provides a
+ * {@link #getReader() reader} for the characters of the document.
+ * <p>
+ * In contrast to the combination of a {@link java.io.BufferedInputStream}, a
+ * {@link org.apache.commons.io.input.XmlStreamReader} and a {@link XmlVersionReader}, the head of the stream is read
+ * only once into a single byte array. This array is used to detect the byte order mark (BOM), to detect the encoding,
+ * and to find the XML version. Then the head (without BOM) is passed to the returned reader, followed by the rest of
+ * the stream. No mark/reset and no additional buffering layers are needed.
+ * <p>
+ * The head of the stream is read until the end of the XML prolog but not more than {@value #MAX_SNIFFED_BYTES} bytes. If
+ * the document does not start with a prolog, only the first four bytes are read.
+ * <p>
+ * The encoding is detected as follows (see appendix F of the XML specification): A BOM determines the encoding. Without
+ * BOM, the encoding given in the prolog is taken. If there is no such encoding or if the declared encoding is
+ * UTF-16/UTF-32 without BOM, the encoding is derived from the first four bytes of the stream. The default is UTF-8.
+ * <p>
+ * The XML version is "1.0" if there is no XML version in the prolog.
+ * 
+ * @author rwoo
+ * @since 1.2.1
+ */
+public class XmlPrologSniffer {
+
+    /**
+     * The maximum number of bytes that are read to sniff the prolog. The prolog may contain many, many whitespace
+     * characters -> 4096.
+     */
+    public static final int MAX_SNIFFED_BYTES = 4096;
+
+    private static final Pattern VERSION = Pattern.compile("^<\\?xml\\s[^>]*?version\\s*=\\s*['\"](1\\.[01])['\"]");
+
+    private static final Pattern ENCODING = Pattern
+            .compile("^<\\?xml\\s[^>]*?encoding\\s*=\\s*['\"]([A-Za-z][A-Za-z0-9._\\-]*)['\"]");
+
+    private static final Charset UTF_8 = Charset.forName("UTF-8");
+
+    private static final Charset ISO_8859_1 = Charset.forName("ISO-8859-1");
+
+    private static final Charset UTF_16BE = Charset.forName("UTF-16BE");
+
+    private static final Charset UTF_16LE = Charset.forName("UTF-16LE");
+
+    //
+    // state
+    //
+
+    /**
+     * The sniffed head of the stream.
+     */
+    private byte[] head;
+
+    /**
+     * The number of bytes in {@link #head}.
+     */
+    private int headLength;
+
+    /**
+     * The number of bytes of the BOM at the start of {@link #head}.
+     */
+    private int bomLength;
+
+    /**
+     * The number of bytes per character of the encoding family detected from the first bytes: 1 (an encoding that is
+     * compatible with ASCII, e.g. UTF-8), 2 (UTF-16) or 4 (UTF-32).
+     */
+    private int bytesPerCharacter = 1;
+
+    /**
+     * True if the encoding family detected from the first bytes is big-endian. Irrelevant if
+     * {@link #bytesPerCharacter} is one.
+     */
+    private boolean bigEndian = true;
+
+    /**
+     * The encoding given by the BOM, or null if there is no BOM.
+     */
+    private String bomEncoding;
+
+    private String encoding;
+
+    private String xmlVersion;
+
+    private Reader reader;
+
+    //
+    // constructors
+    //
+
+    /**
+     * Reads the head of the given stream and detects the encoding and the XML version.
+     * 
+     * @param xmlStream
+     *            the byte stream of the XML document. Must not be buffered for optimal performance.
+     * @throws IOException
+     *             Thrown if the stream cannot be read, or if the detected encoding is not supported.
+     */
+    public XmlPrologSniffer(InputStream xmlStream) throws IOException {
+        super();
+
+        ZzzValidate.notNull(xmlStream, "xmlStream must not be null");
+
+        head = new byte[MAX_SNIFFED_BYTES];
+
+        // (1) read the first four bytes, detect the BOM and the encoding family
+        read(xmlStream, 4);
+        detectBomAndEncodingFamily();
+
+        // (2) read the rest of the prolog (if there is a prolog)
+        String prolog = "";
+        if (startsWithProlog()) {
+            int end;
+            while ((end = indexOfEndOfProlog()) == -1 && headLength < MAX_SNIFFED_BYTES) {
+                if (!read(xmlStream, headLength + 1)) {
+                    break;
+                }
+            }
+            int prologLength = (end == -1 ? headLength : end + bytesPerCharacter) - bomLength;
+            prologLength -= prologLength % bytesPerCharacter;
+            prolog = new String(head, bomLength, prologLength, familyCharset());
+        }
+
+        // (3) detect XML version and encoding
+        Matcher versionMatcher = VERSION.matcher(prolog);
+        xmlVersion = versionMatcher.find() ? versionMatcher.group(1) : "1.0";
+
+        Matcher encodingMatcher = ENCODING.matcher(prolog);
+        String declaredEncoding = encodingMatcher.find() ? encodingMatcher.group(1) : null;
+        Charset charset = charset(declaredEncoding);
+        encoding = charset.name();
+
+        // (4) create the reader that reads the head (without BOM) and then the rest of the stream
+        InputStream input = xmlStream;
+        if (headLength > bomLength) {
+            input = new SequenceInputStream(new ByteArrayInputStream(head, bomLength, headLength - bomLength),
+                    xmlStream);
+        }
+        reader = new InputStreamReader(input, charset);
+    }
+
+    //
+    // private methods
+    //
+
+    /**
+     * Reads from the given stream into {@link #head} until the head contains at least the given number of bytes.
+     * 
+     * @return Returns false if the end of the stream is hit.
+     */
+    private boolean read(InputStream xmlStream, int minimumHeadLength) throws IOException {
+        while (headLength < minimumHeadLength) {
+            int read = xmlStream.read(head, headLength, MAX_SNIFFED_BYTES - headLength);
+            if (read == -1) {
+                return false;
+            }
+            headLength += read;
+        }
+        return true;
+    }
+
+    private void detectBomAndEncodingFamily() {
+
+        if (startsWith(0xEF, 0xBB, 0xBF)) {
+            bomLength = 3;
+            bomEncoding = "UTF-8";
+        } else if (startsWith(0x00, 0x00, 0xFE, 0xFF)) {
+            bomLength = 4;
+            bytesPerCharacter = 4;
+            bomEncoding = "UTF-32BE";
+        } else if (startsWith(0xFF, 0xFE, 0x00, 0x00)) {
+            bomLength = 4;
+            bytesPerCharacter = 4;
+            bigEndian = false;
+            bomEncoding = "UTF-32LE";
+        } else if (startsWith(0xFE, 0xFF)) {
+            bomLength = 2;
+            bytesPerCharacter = 2;
+            bomEncoding = "UTF-16BE";
+        } else if (startsWith(0xFF, 0xFE)) {
+            bomLength = 2;
+            bytesPerCharacter = 2;
+            bigEndian = false;
+            bomEncoding = "UTF-16LE";
+        }
+        // no BOM -> detect the encoding family via '<'
+        else if (startsWith(0x00, 0x00, 0x00, 0x3C)) {
+            bytesPerCharacter = 4;
+        } else if (startsWith(0x3C, 0x00, 0x00, 0x00)) {
+            bytesPerCharacter = 4;
+            bigEndian = false;
+        } else if (startsWith(0x00, 0x3C)) {
+            bytesPerCharacter = 2;
+        } else if (startsWith(0x3C, 0x00)) {
+            bytesPerCharacter = 2;
+            bigEndian = false;
+        }
+    }
+
+    private boolean startsWith(int... bytes) {
+        if (headLength < bytes.length) {
+            return false;
+        }
+        for (int index = 0; index < bytes.length; index++) {
+            if ((head[index] & 0xFF) != bytes[index]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * @return Returns true if the head (after the BOM) starts with "&lt;?".
+     */
+    private boolean startsWithProlog() {
+        return isCharacterAt(bomLength, '<') && isCharacterAt(bomLength + bytesPerCharacter, '?');
+    }
+
+    /**
+     * @return Returns the position of the first byte of the first '>' in the head, or -1 if the head does not contain a
+     *         '>'.
+     */
+    private int indexOfEndOfProlog() {
+        for (int position = bomLength; position < headLength; position += bytesPerCharacter) {
+            if (isCharacterAt(position, '>')) {
+                return position;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * @return Returns true if the bytes at the given position of the head encode the given ASCII character.
+     */
+    private boolean isCharacterAt(int position, char ch) {
+        if (position + bytesPerCharacter > headLength) {
+            return false;
+        }
+        int significantByte = bigEndian ? position + bytesPerCharacter - 1 : position;
+        for (int index = position; index < position + bytesPerCharacter; index++) {
+            if (head[index] != (index == significantByte ? (byte) ch : 0)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * @return Returns a charset that is appropriate to decode the ASCII characters of the prolog.
+     */
+    private Charset familyCharset() {
+        switch (bytesPerCharacter) {
+        case 1:
+            return ISO_8859_1;
+        case 2:
+            return bigEndian ? UTF_16BE : UTF_16LE;
+        default:
+            return Charset.forName(bigEndian ? "UTF-32BE" : "UTF-32LE");
+        }
+    }
+
+    private Charset charset(String declaredEncoding) throws IOException {
+
+        // is there a BOM?
+        if (bomEncoding != null) {
+            return bomEncoding.equals("UTF-8") ? UTF_8 : Charset.forName(bomEncoding);
+        }
+
+        // is the encoding family not compatible with ASCII?
+        if (bytesPerCharacter != 1) {
+            return familyCharset();
+        }
+
+        // is no encoding declared or an encoding that contradicts the first bytes?
+        if (declaredEncoding == null || declaredEncoding.toUpperCase().startsWith("UTF-16")
+                || declaredEncoding.toUpperCase().startsWith("UTF-32")) {
+            return UTF_8;
+        }
+
+        if (declaredEncoding.equalsIgnoreCase("UTF-8")) {
+            return UTF_8;
+        }
+        try {
+            return Charset.forName(declaredEncoding);
+        } catch (IllegalArgumentException e) {
+            throw new IOException("encoding '" + declaredEncoding + "' declared in the XML prolog is not supported");
+        }
+    }
+
+    //
+    // public methods
+    //
+
+    /**
+     * @return Returns the name of the detected encoding.
+     */
+    public String getEncoding() {
+        return encoding;
+    }
+
+    /**
+     * @return Returns the XML version read from the prolog. If there is no XML version given, then version "1.0" is
+     *         assumed and returned.
+     */
+    public String getXmlVersion() {
+        return xmlVersion;
+    }
+
+    /**
+     * @return Returns the reader that provides the characters of the XML document (without BOM). The reader is not
+     *         buffered by a {@link java.io.BufferedReader} as {@link InputStreamReader} reads chunks of bytes anyway.
+     */
+    public Reader getReader() {
+        return reader;
+    }
+}
@@ -15,13 +15,16 @@
  */
 package com.github.rwitzel.streamflyer.xml;
 
+import java.io.Serializable;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
 import org.apache.commons.io.input.XmlStreamReader;
 
 import com.github.rwitzel.streamflyer.core.AfterModification;
+import com.github.rwitzel.streamflyer.core.Checkpointable;
 import com.github.rwitzel.streamflyer.core.Modifier;
+import com.github.rwitzel.streamflyer.core.Resettable;
 import com.github.rwitzel.streamflyer.internal.thirdparty.ZzzValidate;
 import com.github.rwitzel.streamflyer.util.ModificationFactory;
 
@@ -80,7 +83,7 @@ assertTrue(xml.startsWith("&lt;?xml version='1.1'"));
  * @author rwoo
  * @since 27.06.2011
  */
-public class XmlVersionModifier implements Modifier {
+public class XmlVersionModifier implements Modifier, Resettable, Checkpointable {
 
     //
     // constants
@@ -88,6 +91,11 @@ public class XmlVersionModifier implements Modifier {
 
     public final int INITIAL_NUMBER_OF_CHARACTERS = 4096;
 
+    private static final Pattern PROLOG_WITH_VERSION = Pattern
+            .compile("^<\\?xml[^>]*version\\s*=\\s*['\"](1.[01])['\"]");
+
+    private static final Pattern PROLOG_START = Pattern.compile("^<\\?xml");
+
     /**
      * The internal state of {@link XmlVersionModifier}.
      * <p>
@@ -152,7 +160,7 @@ public class XmlVersionModifier implements Modifier {
 
         case NO_LONGER_MODIFYING:
 
-            return factory.skipEntireBuffer(characterBuffer, firstModifiableCharacterInBuffer, endOfStreamHit);
+            return factory.passThrough(characterBuffer, firstModifiableCharacterInBuffer, endOfStreamHit);
 
         case INITIAL:
 
@@ -166,15 +174,24 @@ public class XmlVersionModifier implements Modifier {
             // (Should we do aware of BOMs here? No. I consider it the
             // responsibility of the caller to provide characters without BOM.)
 
-            Matcher matcher = Pattern.compile("^<\\?xml[^>]*version\\s*=\\s*['\"](1.[01])['\"]").matcher(
-                    characterBuffer);
-            if (matcher.find()) {
+            Matcher matcher = PROLOG_WITH_VERSION.matcher(characterBuffer);
+            boolean found = matcher.find();
+            if (!found && !endOfStreamHit
+                    && characterBuffer.length() - firstModifiableCharacterInBuffer < INITIAL_NUMBER_OF_CHARACTERS
+                    && mightBeStartOfProlog(characterBuffer)) {
+
+                // the stream processor has provided fewer characters than requested (more may come) -> wait for the
+                // rest of the prolog
+                return factory.modifyAgainImmediately(INITIAL_NUMBER_OF_CHARACTERS, firstModifiableCharacterInBuffer);
+            }
+
+            if (found) {
 
                 // replace version in prolog
                 characterBuffer.replace(matcher.start(1), matcher.end(1), xmlVersion);
             } else {
                 // is there a prolog that is too long?
-                Matcher matcher2 = Pattern.compile("^<\\?xml").matcher(characterBuffer);
+                Matcher matcher2 = PROLOG_START.matcher(characterBuffer);
                 if (matcher2.find()) {
                     // this is not normal at all -> throw exception
                     throw new XmlPrologRidiculouslyLongException(characterBuffer.toString());
@@ -186,7 +203,8 @@ public class XmlVersionModifier implements Modifier {
 
             state = XmlVersionModifierState.NO_LONGER_MODIFYING;
 
-            return factory.skipEntireBuffer(characterBuffer, firstModifiableCharacterInBuffer, endOfStreamHit);
+            // the rest of the stream is not modified any longer
+            return factory.passThrough(characterBuffer, firstModifiableCharacterInBuffer, endOfStreamHit);
 
         default:
             throw new IllegalStateException("state " + state + " not supported");
@@ -194,4 +212,53 @@ public class XmlVersionModifier implements Modifier {
         }
 
     }
+
+    //
+    // Resettable.* methods
+    //
+
+    /**
+     * @see com.github.rwitzel.streamflyer.core.Resettable#reset()
+     * @since 1.2.1
+     */
+    @Override
+    public void reset() {
+        state = XmlVersionModifierState.INITIAL;
+    }
+
+    //
+    // Checkpointable.* methods
+    //
+
+    /**
+     * @see com.github.rwitzel.streamflyer.core.Checkpointable#checkpoint()
+     * @since 1.2.1
+     */
+    @Override
+    public Serializable checkpoint() {
+        return state;
+    }
+
+    /**
+     * @see com.github.rwitzel.streamflyer.core.Checkpointable#resume(java.io.Serializable)
+     * @since 1.2.1
+     */
+    @Override
+    public void resume(Serializable state) {
+        this.state = (XmlVersionModifierState) state;
+    }
+
+    /**
+     * @return Returns true if the buffer starts with the start of a prolog or is a prefix of the start of a prolog.
+     */
+    private boolean mightBeStartOfProlog(StringBuilder characterBuffer) {
+        String prologStart = "<?xml";
+        int length = Math.min(prologStart.length(), characterBuffer.length());
+        for (int index = 0; index < length; index++) {
+            if (characterBuffer.charAt(index) != prologStart.charAt(index)) {
+                return false;
+            }
+        }
+        return true;
+    }
 }
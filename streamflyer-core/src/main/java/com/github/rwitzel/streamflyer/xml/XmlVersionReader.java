@@ -23,12 +23,18 @@ import java.util.regex.Pattern;
 
 /**
  * This reader makes the XML version of the XML document in the character stream available.
+ * <p>
+ * If you read the XML document from a byte stream, consider {@link XmlPrologSniffer} that detects the encoding and the
+ * XML version in a single pass without marking and resetting a buffered reader.
  * 
  * @author rwoo
  * @since 27.06.2011
  */
 public class XmlVersionReader extends BufferedReader {
 
+    private static final Pattern PROLOG_WITH_VERSION = Pattern
+            .compile("<\\?xml[^>]*version\\s*=\\s*['\"]((1.0)|(1.1))['\"].*");
+
     private String xmlVersion;
 
     //
@@ -51,7 +57,7 @@ public class XmlVersionReader extends BufferedReader {
         // (Should we do aware of BOMs here? No. I consider it the
         // responsibility of the caller to provide characters without BOM.)
 
-        Matcher matcher = Pattern.compile("<\\?xml[^>]*version\\s*=\\s*['\"]((1.0)|(1.1))['\"].*").matcher(prolog);
+        Matcher matcher = PROLOG_WITH_VERSION.matcher(prolog);
         if (matcher.matches()) {
             return matcher.group(1);
         } else {
@@ -0,0 +1,784 @@
+/**
+ * Copyright (C) 2011 rwitzel75@googlemail.com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.rwitzel.streamflyer.xml;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import com.github.rwitzel.streamflyer.core.Resettable;
+
+/**
+ * Checks the well-formedness of an XML document that is fed piece by piece into the checker.
+ * <p>
+ * The checker verifies
+ * <ul>
+ * <li>that start tags and end tags are balanced and there is exactly one root element,</li>
+ * <li>the syntax of tags, that attribute values are quoted and that the attributes of a tag are unique,</li>
+ * <li>the syntax of entity references and character references (declarations of entities are not checked), and that
+ * character references refer to characters allowed by the XML version of the document,</li>
+ * <li>the syntax of the XML declaration, which is allowed only at the start of the document,</li>
+ * <li>the syntax of comments, CDATA sections, processing instructions and the document type declaration.</li>
+ * </ul>
+ * The first violation is reported by a {@link XmlNotWellFormedException} that contains the offset of the violating
+ * character.
+ * <p>
+ * The memory consumption is bounded by the nesting depth of the elements and the number of attributes of a start tag,
+ * as only the names of the open elements and the names of the attributes of the current start tag are stored. Names
+ * longer than the maximum name length are rejected.
+ * <p>
+ * This class is not thread-safe.
+ *
+ * @author rwoo
+ * @since 1.2.1
+ */
+public class XmlWellFormednessChecker implements Resettable {
+
+    public static final int DEFAULT_MAXIMUM_NAME_LENGTH = 1024;
+
+    /**
+     * The content of the XML declaration after the target <code>xml</code>, see the production rules
+     * <code>XMLDecl</code>, <code>VersionInfo</code>, <code>EncodingDecl</code> and <code>SDDecl</code> of the XML
+     * specification.
+     */
+    private static final Pattern XML_DECLARATION_CONTENT = Pattern.compile("" //
+            + "[ \\t\\r\\n]+version[ \\t\\r\\n]*=[ \\t\\r\\n]*(\"1\\.[0-9]+\"|'1\\.[0-9]+')" //
+            + "([ \\t\\r\\n]+encoding[ \\t\\r\\n]*=[ \\t\\r\\n]*" //
+            + "(\"[A-Za-z][A-Za-z0-9._-]*\"|'[A-Za-z][A-Za-z0-9._-]*'))?" //
+            + "([ \\t\\r\\n]+standalone[ \\t\\r\\n]*=[ \\t\\r\\n]*(\"(yes|no)\"|'(yes|no)'))?" //
+            + "[ \\t\\r\\n]*");
+
+    /**
+     * The highest code point, see {@link Character#MAX_CODE_POINT}.
+     */
+    private static final int MAX_CODE_POINT = 0x10FFFF;
+
+    /**
+     * The states of {@link XmlWellFormednessChecker}.
+     */
+    private enum State {
+        TEXT, //
+        TAG_START, // after '<'
+        START_TAG_NAME, //
+        IN_START_TAG, // expecting an attribute, '/' or '>'
+        ATTRIBUTE_NAME, //
+        AFTER_ATTRIBUTE_NAME, //
+        BEFORE_ATTRIBUTE_VALUE, //
+        ATTRIBUTE_VALUE, //
+        AFTER_ATTRIBUTE_VALUE, //
+        EMPTY_ELEMENT_TAG_END, // after '/' in a start tag
+        END_TAG_START, // after '</'
+        END_TAG_NAME, //
+        AFTER_END_TAG_NAME, //
+        MARKUP_DECLARATION, // after '<!'
+        KEYWORD, // matching the rest of "--", "[CDATA[" or "DOCTYPE"
+        COMMENT, //
+        COMMENT_DASH, //
+        COMMENT_DASH_DASH, //
+        CDATA, //
+        CDATA_BRACKET, //
+        CDATA_BRACKET_BRACKET, //
+        PROCESSING_INSTRUCTION_TARGET, // after '<?'
+        PROCESSING_INSTRUCTION, //
+        PROCESSING_INSTRUCTION_QUESTION_MARK, //
+        XML_DECLARATION, // after '<?xml'
+        XML_DECLARATION_QUESTION_MARK, //
+        DOCTYPE, //
+        REFERENCE_START, // after '&'
+        CHARACTER_REFERENCE_START, // after '&#'
+        DECIMAL_REFERENCE, //
+        HEX_REFERENCE_START, // after '&#x'
+        HEX_REFERENCE, //
+        ENTITY_REFERENCE
+    }
+
+    //
+    // injected properties
+    //
+
+    private final int maximumNameLength;
+
+    //
+    // state
+    //
+
+    private State state = State.TEXT;
+
+    /**
+     * The state to return to after a reference or a keyword.
+     */
+    private State returnState;
+
+    /**
+     * The offset of the next character.
+     */
+    private long offset = 0;
+
+    /**
+     * The names of the open elements.
+     */
+    private final List<String> openElements = new ArrayList<String>();
+
+    /**
+     * The name of the current tag, the target of the current processing instruction, or the content of the XML
+     * declaration.
+     */
+    private final StringBuilder name = new StringBuilder();
+
+    private final StringBuilder attributeName = new StringBuilder();
+
+    /**
+     * The names of the attributes of the current start tag.
+     */
+    private final Set<String> attributeNames = new HashSet<String>();
+
+    /**
+     * The value of the current character reference.
+     */
+    private int referenceValue;
+
+    /**
+     * True if the XML declaration specifies version 1.1.
+     */
+    private boolean xml11 = false;
+
+    /**
+     * True if the document starts with a byte order mark.
+     */
+    private boolean byteOrderMark = false;
+
+    /**
+     * The offset of the last '&lt;'.
+     */
+    private long tagStart;
+
+    private boolean rootElementStarted = false;
+
+    private boolean doctypeFound = false;
+
+    /**
+     * The quote character of the current attribute value or of the current literal in the document type declaration.
+     */
+    private char quote;
+
+    /**
+     * The number of consecutive closing brackets in the text (needed to detect the forbidden "]]&gt;").
+     */
+    private int closingBrackets;
+
+    /**
+     * The nesting depth of brackets in the document type declaration.
+     */
+    private int doctypeBrackets;
+
+    private String keyword;
+
+    private int keywordIndex;
+
+    //
+    // constructors
+    //
+
+    public XmlWellFormednessChecker() {
+        this(DEFAULT_MAXIMUM_NAME_LENGTH);
+    }
+
+    /**
+     * @param maximumNameLength
+     *            the maximum length of the names of elements, attributes and processing instruction targets.
+     */
+    public XmlWellFormednessChecker(int maximumNameLength) {
+        super();
+
+        if (maximumNameLength < 1) {
+            throw new IllegalArgumentException("maximumNameLength must be positive but was " + maximumNameLength);
+        }
+
+        this.maximumNameLength = maximumNameLength;
+    }
+
+    //
+    // public methods
+    //
+
+    /**
+     * Checks the given characters. They are the characters of the XML document that follow the characters checked so
+     * far.
+     *
+     * @param characters
+     * @param start
+     *            the position of the first character to check (inclusive)
+     * @param end
+     *            the position of the last character to check (exclusive)
+     * @throws XmlNotWellFormedException
+     *             if the document is not well-formed
+     */
+    public void check(CharSequence characters, int start, int end) {
+        for (int index = start; index < end; index++) {
+            check(characters.charAt(index));
+            offset++;
+        }
+    }
+
+    /**
+     * Checks that the document is complete.
+     *
+     * @throws XmlNotWellFormedException
+     *             if the document is not well-formed
+     */
+    public void endOfDocument() {
+        if (state != State.TEXT) {
+            throw error("unexpected end of document");
+        }
+        if (!openElements.isEmpty()) {
+            throw error("element '" + openElements.get(openElements.size() - 1) + "' is not closed");
+        }
+        if (!rootElementStarted) {
+            throw error("root element is missing");
+        }
+    }
+
+    /**
+     * Prepares the checker for another document. The buffers are kept.
+     *
+     * @see com.github.rwitzel.streamflyer.core.Resettable#reset()
+     */
+    @Override
+    public void reset() {
+        state = State.TEXT;
+        returnState = null;
+        offset = 0;
+        openElements.clear();
+        name.setLength(0);
+        attributeName.setLength(0);
+        attributeNames.clear();
+        referenceValue = 0;
+        xml11 = false;
+        byteOrderMark = false;
+        tagStart = 0;
+        rootElementStarted = false;
+        doctypeFound = false;
+        quote = 0;
+        closingBrackets = 0;
+        doctypeBrackets = 0;
+        keyword = null;
+        keywordIndex = 0;
+    }
+
+    /**
+     * @return Returns the number of checked characters.
+     */
+    public long getOffset() {
+        return offset;
+    }
+
+    /**
+     * @return Returns the number of open elements.
+     */
+    public int getDepth() {
+        return openElements.size();
+    }
+
+    //
+    // private methods
+    //
+
+    private void check(char ch) {
+
+        switch (state) {
+
+        case TEXT:
+            if (ch == '<') {
+                tagStart = offset;
+                state = State.TAG_START;
+            } else if (openElements.isEmpty()) {
+                // outside of the root element (the byte order mark is tolerated)
+                if (ch == '\uFEFF' && offset == 0) {
+                    byteOrderMark = true;
+                } else if (!isWhitespace(ch)) {
+                    throw error("content is not allowed outside of the root element");
+                }
+            } else if (ch == '&') {
+                startReference(State.TEXT);
+            } else if (ch == '>' && closingBrackets >= 2) {
+                throw error("']]>' is not allowed in content");
+            }
+            closingBrackets = ch == ']' ? closingBrackets + 1 : 0;
+            break;
+
+        case TAG_START:
+            if (ch == '/') {
+                state = State.END_TAG_START;
+            } else if (ch == '!') {
+                state = State.MARKUP_DECLARATION;
+            } else if (ch == '?') {
+                name.setLength(0);
+                state = State.PROCESSING_INSTRUCTION_TARGET;
+            } else if (isNameStartCharacter(ch)) {
+                if (openElements.isEmpty() && rootElementStarted) {
+                    throw error("only one root element is allowed");
+                }
+                name.setLength(0);
+                appendToName(name, ch);
+                attributeNames.clear();
+                state = State.START_TAG_NAME;
+            } else {
+                throw error("invalid start of a tag");
+            }
+            break;
+
+        case START_TAG_NAME:
+            if (isNameCharacter(ch)) {
+                appendToName(name, ch);
+            } else {
+                inStartTag(ch);
+            }
+            break;
+
+        case IN_START_TAG:
+            if (isNameStartCharacter(ch)) {
+                attributeName.setLength(0);
+                appendToName(attributeName, ch);
+                state = State.ATTRIBUTE_NAME;
+            } else if (!isWhitespace(ch)) {
+                inStartTag(ch);
+            }
+            break;
+
+        case ATTRIBUTE_NAME:
+            if (ch == '=') {
+                endAttributeName();
+                state = State.BEFORE_ATTRIBUTE_VALUE;
+            } else if (isWhitespace(ch)) {
+                endAttributeName();
+                state = State.AFTER_ATTRIBUTE_NAME;
+            } else if (isNameCharacter(ch)) {
+                appendToName(attributeName, ch);
+            } else {
+                throw error("'=' expected after attribute name");
+            }
+            break;
+
+        case AFTER_ATTRIBUTE_NAME:
+            if (ch == '=') {
+                state = State.BEFORE_ATTRIBUTE_VALUE;
+            } else if (!isWhitespace(ch)) {
+                throw error("'=' expected after attribute name");
+            }
+            break;
+
+        case BEFORE_ATTRIBUTE_VALUE:
+            if (ch == '"' || ch == '\'') {
+                quote = ch;
+                state = State.ATTRIBUTE_VALUE;
+            } else if (!isWhitespace(ch)) {
+                throw error("attribute value must be quoted");
+            }
+            break;
+
+        case ATTRIBUTE_VALUE:
+            if (ch == quote) {
+                state = State.AFTER_ATTRIBUTE_VALUE;
+            } else if (ch == '<') {
+                throw error("'<' is not allowed in attribute values");
+            } else if (ch == '&') {
+                startReference(State.ATTRIBUTE_VALUE);
+            }
+            break;
+
+        case AFTER_ATTRIBUTE_VALUE:
+            if (isWhitespace(ch)) {
+                state = State.IN_START_TAG;
+            } else if (ch == '/' || ch == '>') {
+                inStartTag(ch);
+            } else {
+                throw error("whitespace expected between attributes");
+            }
+            break;
+
+        case EMPTY_ELEMENT_TAG_END:
+            if (ch != '>') {
+                throw error("'>' expected after '/'");
+            }
+            rootElementStarted = true;
+            state = State.TEXT;
+            break;
+
+        case END_TAG_START:
+            if (!isNameStartCharacter(ch)) {
+                throw error("invalid start of an end tag");
+            }
+            name.setLength(0);
+            appendToName(name, ch);
+            state = State.END_TAG_NAME;
+            break;
+
+        case END_TAG_NAME:
+            if (isNameCharacter(ch)) {
+                appendToName(name, ch);
+            } else if (isWhitespace(ch)) {
+                state = State.AFTER_END_TAG_NAME;
+            } else if (ch == '>') {
+                endTag();
+            } else {
+                throw error("invalid character in end tag");
+            }
+            break;
+
+        case AFTER_END_TAG_NAME:
+            if (ch == '>') {
+                endTag();
+            } else if (!isWhitespace(ch)) {
+                throw error("'>' expected in end tag");
+            }
+            break;
+
+        case MARKUP_DECLARATION:
+            if (ch == '-') {
+                startKeyword("-", State.COMMENT);
+            } else if (ch == '[') {
+                if (openElements.isEmpty()) {
+                    throw error("CDATA section is not allowed outside of the root element");
+                }
+                startKeyword("CDATA[", State.CDATA);
+            } else if (ch == 'D') {
+                if (doctypeFound || rootElementStarted) {
+                    throw error("document type declaration is not allowed here");
+                }
+                doctypeFound = true;
+                startKeyword("OCTYPE", State.DOCTYPE);
+            } else {
+                throw error("invalid markup declaration");
+            }
+            break;
+
+        case KEYWORD:
+            if (ch != keyword.charAt(keywordIndex)) {
+                throw error("invalid markup declaration");
+            }
+            keywordIndex++;
+            if (keywordIndex == keyword.length()) {
+                state = returnState;
+                quote = 0;
+                doctypeBrackets = 0;
+            }
+            break;
+
+        case COMMENT:
+            if (ch == '-') {
+                state = State.COMMENT_DASH;
+            }
+            break;
+
+        case COMMENT_DASH:
+            state = ch == '-' ? State.COMMENT_DASH_DASH : State.COMMENT;
+            break;
+
+        case COMMENT_DASH_DASH:
+            if (ch != '>') {
+                throw error("'--' is not allowed in comments");
+            }
+            state = State.TEXT;
+            break;
+
+        case CDATA:
+            if (ch == ']') {
+                state = State.CDATA_BRACKET;
+            }
+            break;
+
+        case CDATA_BRACKET:
+            state = ch == ']' ? State.CDATA_BRACKET_BRACKET : State.CDATA;
+            break;
+
+        case CDATA_BRACKET_BRACKET:
+            if (ch == '>') {
+                state = State.TEXT;
+            } else if (ch != ']') {
+                state = State.CDATA;
+            }
+            break;
+
+        case PROCESSING_INSTRUCTION_TARGET:
+            if (name.length() == 0 ? isNameStartCharacter(ch) : isNameCharacter(ch)) {
+                appendToName(name, ch);
+            } else if (name.length() > 0 && (isWhitespace(ch) || ch == '?')) {
+                boolean xmlDeclaration = endProcessingInstructionTarget();
+                if (xmlDeclaration) {
+                    // the content of the declaration is collected in the name
+                    name.setLength(0);
+                    if (ch == '?') {
+                        state = State.XML_DECLARATION_QUESTION_MARK;
+                    } else {
+                        name.append(ch);
+                        state = State.XML_DECLARATION;
+                    }
+                } else {
+                    state = ch == '?' ? State.PROCESSING_INSTRUCTION_QUESTION_MARK : State.PROCESSING_INSTRUCTION;
+                }
+            } else {
+                throw error("invalid processing instruction target");
+            }
+            break;
+
+        case PROCESSING_INSTRUCTION:
+            if (ch == '?') {
+                state = State.PROCESSING_INSTRUCTION_QUESTION_MARK;
+            }
+            break;
+
+        case PROCESSING_INSTRUCTION_QUESTION_MARK:
+            if (ch == '>') {
+                state = State.TEXT;
+            } else if (ch != '?') {
+                state = State.PROCESSING_INSTRUCTION;
+            }
+            break;
+
+        case XML_DECLARATION:
+            if (ch == '?') {
+                state = State.XML_DECLARATION_QUESTION_MARK;
+            } else if (name.length() >= maximumNameLength) {
+                throw error("XML declaration is longer than " + maximumNameLength + " characters");
+            } else {
+                name.append(ch);
+            }
+            break;
+
+        case XML_DECLARATION_QUESTION_MARK:
+            if (ch != '>') {
+                throw error("'>' expected after '?' in XML declaration");
+            }
+            endXmlDeclaration();
+            state = State.TEXT;
+            break;
+
+        case DOCTYPE:
+            if (quote != 0) {
+                if (ch == quote) {
+                    quote = 0;
+                }
+            } else if (ch == '"' || ch == '\'') {
+                quote = ch;
+            } else if (ch == '[') {
+                doctypeBrackets++;
+            } else if (ch == ']') {
+                doctypeBrackets--;
+            } else if (ch == '>' && doctypeBrackets == 0) {
+                state = State.TEXT;
+            }
+            break;
+
+        case REFERENCE_START:
+            if (ch == '#') {
+                state = State.CHARACTER_REFERENCE_START;
+            } else if (isNameStartCharacter(ch)) {
+                state = State.ENTITY_REFERENCE;
+            } else {
+                throw error("invalid reference");
+            }
+            break;
+
+        case CHARACTER_REFERENCE_START:
+            if (ch == 'x') {
+                state = State.HEX_REFERENCE_START;
+            } else if (ch >= '0' && ch <= '9') {
+                referenceValue = ch - '0';
+                state = State.DECIMAL_REFERENCE;
+            } else {
+                throw error("invalid character reference");
+            }
+            break;
+
+        case DECIMAL_REFERENCE:
+            if (ch == ';') {
+                endCharacterReference();
+            } else if (ch >= '0' && ch <= '9') {
+                addToReferenceValue(10, ch - '0');
+            } else {
+                throw error("invalid character reference");
+            }
+            break;
+
+        case HEX_REFERENCE_START:
+            if (!isHexDigit(ch)) {
+                throw error("invalid character reference");
+            }
+            referenceValue = Character.digit(ch, 16);
+            state = State.HEX_REFERENCE;
+            break;
+
+        case HEX_REFERENCE:
+            if (ch == ';') {
+                endCharacterReference();
+            } else if (isHexDigit(ch)) {
+                addToReferenceValue(16, Character.digit(ch, 16));
+            } else {
+                throw error("invalid character reference");
+            }
+            break;
+
+        case ENTITY_REFERENCE:
+            if (ch == ';') {
+                state = returnState;
+            } else if (!isNameCharacter(ch)) {
+                throw error("invalid entity reference");
+            }
+            break;
+
+        default:
+            throw new IllegalStateException("state " + state + " not supported");
+        }
+    }
+
+    /**
+     * Handles the given character which is not part of a name within a start tag.
+     */
+    private void inStartTag(char ch) {
+        if (ch == '>') {
+            openElements.add(name.toString());
+            rootElementStarted = true;
+            state = State.TEXT;
+        } else if (ch == '/') {
+            state = State.EMPTY_ELEMENT_TAG_END;
+        } else if (isWhitespace(ch)) {
+            state = State.IN_START_TAG;
+        } else {
+            throw error("invalid character in start tag");
+        }
+    }
+
+    private void endAttributeName() {
+        String attribute = attributeName.toString();
+        if (!attributeNames.add(attribute)) {
+            throw error("duplicate attribute '" + attribute + "'");
+        }
+    }
+
+    /**
+     * Checks the target of a processing instruction, which is stored in {@link #name}.
+     * 
+     * @return Returns true if the processing instruction is the XML declaration.
+     */
+    private boolean endProcessingInstructionTarget() {
+        if (!"xml".equalsIgnoreCase(name.toString())) {
+            return false;
+        } else if (!"xml".contentEquals(name)) {
+            throw error("processing instruction target '" + name + "' is reserved");
+        } else if (tagStart != (byteOrderMark ? 1 : 0)) {
+            throw error("XML declaration is allowed only at the start of the document");
+        }
+        return true;
+    }
+
+    /**
+     * Checks the content of the XML declaration, which is stored in {@link #name}.
+     */
+    private void endXmlDeclaration() {
+        Matcher matcher = XML_DECLARATION_CONTENT.matcher(name);
+        if (!matcher.matches()) {
+            throw error("invalid XML declaration, e.g. the version is missing");
+        }
+        String quotedVersion = matcher.group(1);
+        xml11 = quotedVersion.substring(1, quotedVersion.length() - 1).equals("1.1");
+    }
+
+    private void addToReferenceValue(int radix, int digit) {
+        referenceValue = referenceValue * radix + digit;
+        if (referenceValue > MAX_CODE_POINT) {
+            throw error("character reference is out of range");
+        }
+    }
+
+    private void endCharacterReference() {
+        if (!isXmlCharacter(referenceValue)) {
+            throw error("character reference to a character that is not allowed in XML " + (xml11 ? "1.1" : "1.0"));
+        }
+        state = returnState;
+    }
+
+    private void appendToName(StringBuilder builder, char ch) {
+        if (builder.length() >= maximumNameLength) {
+            throw error("name is longer than " + maximumNameLength + " characters");
+        }
+        builder.append(ch);
+    }
+
+    private void endTag() {
+        if (openElements.isEmpty()) {
+            throw error("end tag '" + name + "' without start tag");
+        }
+        String openElement = openElements.remove(openElements.size() - 1);
+        if (!openElement.contentEquals(name)) {
+            throw error("end tag '" + name + "' does not match start tag '" + openElement + "'");
+        }
+        state = State.TEXT;
+    }
+
+    private void startReference(State returnState_) {
+        returnState = returnState_;
+        state = State.REFERENCE_START;
+    }
+
+    private void startKeyword(String keyword_, State returnState_) {
+        keyword = keyword_;
+        keywordIndex = 0;
+        returnState = returnState_;
+        state = State.KEYWORD;
+    }
+
+    private XmlNotWellFormedException error(String message) {
+        return new XmlNotWellFormedException(message, offset);
+    }
+
+    /**
+     * The production rule <code>Char</code> of the XML specification of the version of the document.
+     */
+    private boolean isXmlCharacter(int codePoint) {
+        if (codePoint < 0x20) {
+            return xml11 ? codePoint != 0 : codePoint == 0x9 || codePoint == 0xA || codePoint == 0xD;
+        }
+        return codePoint <= 0xD7FF || (codePoint >= 0xE000 && codePoint <= 0xFFFD)
+                || (codePoint >= 0x10000 && codePoint <= MAX_CODE_POINT);
+    }
+
+    private static boolean isWhitespace(char ch) {
+        return ch == ' ' || ch == '\n' || ch == '\r' || ch == '\t';
+    }
+
+    /**
+     * A simplification of the production rule <code>NameStartChar</code> of the XML specification.
+     */
+    private static boolean isNameStartCharacter(char ch) {
+        return (ch >= 'a' && ch <= 'z') || (ch >= 'A' && ch <= 'Z') || ch == '_' || ch == ':'
+                || (ch >= 0xC0 && ch != 0xD7 && ch != 0xF7);
+    }
+
+    /**
+     * A simplification of the production rule <code>NameChar</code> of the XML specification.
+     */
+    private static boolean isNameCharacter(char ch) {
+        return isNameStartCharacter(ch) || (ch >= '0' && ch <= '9') || ch == '-' || ch == '.' || ch == 0xB7;
+    }
+
+    private static boolean isHexDigit(char ch) {
+        return (ch >= '0' && ch <= '9') || (ch >= 'a' && ch <= 'f') || (ch >= 'A' && ch <= 'F');
+    }
+
+}
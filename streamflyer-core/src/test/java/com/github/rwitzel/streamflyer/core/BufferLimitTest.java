@@ -0,0 +1,125 @@
+/**
+ * Copyright (C) 2011 rwitzel75@googlemail.com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.rwitzel.streamflyer.core;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.util.regex.Pattern;
+
+import org.apache.commons.io.IOUtils;
+import org.junit.Test;
+
+import com.github.rwitzel.streamflyer.regex.RegexModifier;
+
+/**
+ * Tests {@link ModifyingReader#setBufferLimit(int, BufferLimitPolicy)} and
+ * {@link ModifyingWriter#setBufferLimit(int, BufferLimitPolicy)}.
+ * 
+ * @author rwoo
+ * @since 1.2.1
+ */
+public class BufferLimitTest {
+
+    private static final int LIMIT = 8192;
+
+    private String createInputWithUnclosedComment() {
+        StringBuilder sb = new StringBuilder("A<!--1-->B<!--");
+        for (int index = 0; index < 100000; index++) {
+            sb.append('x');
+        }
+        sb.append("-->C<!--2-->D");
+        return sb.toString();
+    }
+
+    private String expectedOutput(String input) {
+        return "AB" + input.substring("A<!--1-->B".length(), input.length() - "<!--2-->D".length()) + "D";
+    }
+
+    private RegexModifier createModifier() {
+        return new RegexModifier("<!--.*?-->", Pattern.DOTALL, "");
+    }
+
+    @Test
+    public void testReader_fail() throws Exception {
+
+        ModifyingReader reader = new ModifyingReader(new StringReader(createInputWithUnclosedComment()),
+                createModifier());
+        reader.setBufferLimit(LIMIT, BufferLimitPolicy.FAIL);
+
+        try {
+            IOUtils.toString(reader);
+            fail("BufferLimitExceededException expected");
+        } catch (BufferLimitExceededException e) {
+            assertEquals(LIMIT, e.getMaximumNumberOfCharactersInBuffer());
+            assertTrue(e.getRequestedNumberOfCharactersInBuffer() > LIMIT);
+        }
+    }
+
+    @Test
+    public void testReader_skip() throws Exception {
+
+        String input = createInputWithUnclosedComment();
+        ModifyingReader reader = new ModifyingReader(new StringReader(input), createModifier());
+        reader.setBufferLimit(LIMIT, BufferLimitPolicy.SKIP);
+
+        assertEquals(expectedOutput(input), IOUtils.toString(reader));
+        assertEquals(1, reader.getNumberOfBufferLimitSkips());
+    }
+
+    @Test
+    public void testReader_limitNotExceeded() throws Exception {
+
+        ModifyingReader reader = new ModifyingReader(new StringReader("A<!--1-->B<!--2-->C"), createModifier());
+        reader.setBufferLimit(LIMIT, BufferLimitPolicy.FAIL);
+
+        assertEquals("ABC", IOUtils.toString(reader));
+        assertEquals(0, reader.getNumberOfBufferLimitSkips());
+    }
+
+    @Test
+    public void testWriter_fail() throws Exception {
+
+        ModifyingWriter writer = new ModifyingWriter(new StringWriter(), createModifier());
+        writer.setBufferLimit(LIMIT, BufferLimitPolicy.FAIL);
+
+        try {
+            writer.write(createInputWithUnclosedComment());
+            writer.close();
+            fail("BufferLimitExceededException expected");
+        } catch (BufferLimitExceededException e) {
+            assertEquals(LIMIT, e.getMaximumNumberOfCharactersInBuffer());
+        }
+    }
+
+    @Test
+    public void testWriter_skip() throws Exception {
+
+        String input = createInputWithUnclosedComment();
+        StringWriter output = new StringWriter();
+        ModifyingWriter writer = new ModifyingWriter(output, createModifier());
+        writer.setBufferLimit(LIMIT, BufferLimitPolicy.SKIP);
+
+        writer.write(input);
+        writer.close();
+
+        assertEquals(expectedOutput(input), output.toString());
+        assertEquals(1, writer.getNumberOfBufferLimitSkips());
+    }
+}
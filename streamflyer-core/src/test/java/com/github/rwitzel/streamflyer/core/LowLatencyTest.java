@@ -0,0 +1,138 @@
+/**
+ * Copyright (C) 2011 rwitzel75@googlemail.com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.rwitzel.streamflyer.core;
+
+import static org.junit.Assert.assertEquals;
+
+import java.io.IOException;
+import java.io.Reader;
+
+import org.apache.commons.io.IOUtils;
+import org.junit.Test;
+
+import com.github.rwitzel.streamflyer.regex.RegexModifier;
+import com.github.rwitzel.streamflyer.xml.XmlVersionModifier;
+
+/**
+ * Tests {@link ModifyingReader#setLowLatency(boolean)}.
+ * 
+ * @author rwoo
+ * @since 1.2.1
+ */
+public class LowLatencyTest {
+
+    /**
+     * Provides the characters chunk by chunk like a slow socket. {@link #ready()} returns false at the end of each
+     * chunk, i.e. reading the next chunk would block.
+     */
+    private static class ChunkedReader extends Reader {
+
+        private final String[] chunks;
+
+        private int chunk = -1;
+
+        private int position = 0;
+
+        private int blockingReads = 0;
+
+        public ChunkedReader(String... chunks) {
+            this.chunks = chunks;
+        }
+
+        @Override
+        public int read(char[] cbuf, int off, int len) throws IOException {
+            if (chunk == -1 || position == chunks[chunk].length()) {
+                if (chunk + 1 == chunks.length) {
+                    return -1;
+                }
+                blockingReads++;
+                chunk++;
+                position = 0;
+            }
+            int count = Math.min(len, chunks[chunk].length() - position);
+            chunks[chunk].getChars(position, position + count, cbuf, off);
+            position += count;
+            return count;
+        }
+
+        @Override
+        public boolean ready() throws IOException {
+            return chunk != -1 && position < chunks[chunk].length();
+        }
+
+        @Override
+        public void close() throws IOException {
+            // nothing to do
+        }
+    }
+
+    @Test
+    public void testRead_returnsWhatCanBeReleasedWithoutBlocking() throws Exception {
+
+        ChunkedReader chunkedReader = new ChunkedReader("zzab", "cab", "d");
+        ModifyingReader reader = new ModifyingReader(chunkedReader, new RegexModifier("ab", 0, "x"));
+        reader.setLowLatency(true);
+
+        char[] cbuf = new char[100];
+        int read = reader.read(cbuf, 0, cbuf.length);
+        assertEquals("zzx", new String(cbuf, 0, read));
+        assertEquals(1, chunkedReader.blockingReads);
+
+        assertEquals("cxd", IOUtils.toString(reader));
+    }
+
+    @Test
+    public void testRead_withoutLowLatency() throws Exception {
+
+        ChunkedReader chunkedReader = new ChunkedReader("zzab", "cab", "d");
+        ModifyingReader reader = new ModifyingReader(chunkedReader, new RegexModifier("ab", 0, "x"));
+
+        char[] cbuf = new char[100];
+        int read = reader.read(cbuf, 0, cbuf.length);
+        assertEquals("zzxcxd", new String(cbuf, 0, read));
+        assertEquals(3, chunkedReader.blockingReads);
+    }
+
+    @Test
+    public void testRead_openMatchIsCompletedWithTheNextChunk() throws Exception {
+
+        ModifyingReader reader = new ModifyingReader(new ChunkedReader("za", "a", "bz"), new RegexModifier("a+b", 0,
+                "x"));
+        reader.setLowLatency(true);
+
+        assertEquals("zxz", IOUtils.toString(reader));
+    }
+
+    @Test
+    public void testXmlVersionModifier_partialProlog() throws Exception {
+
+        ModifyingReader reader = new ModifyingReader(new ChunkedReader("<?x", "ml version='1.0'?>", "<a/>"),
+                new XmlVersionModifier("1.1", 8192));
+        reader.setLowLatency(true);
+
+        assertEquals("<?xml version='1.1'?><a/>", IOUtils.toString(reader));
+    }
+
+    @Test
+    public void testXmlVersionModifier_noProlog() throws Exception {
+
+        ModifyingReader reader = new ModifyingReader(new ChunkedReader("<", "a/>"), new XmlVersionModifier("1.1",
+                8192));
+        reader.setLowLatency(true);
+
+        assertEquals("<?xml version='1.1'><a/>", IOUtils.toString(reader));
+    }
+}
@@ -0,0 +1,140 @@
+/**
+ * Copyright (C) 2011 rwitzel75@googlemail.com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.rwitzel.streamflyer.core;
+
+import static org.junit.Assert.assertEquals;
+
+import java.io.Reader;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.nio.CharBuffer;
+
+import org.apache.commons.io.IOUtils;
+import org.junit.Test;
+
+import com.github.rwitzel.streamflyer.regex.RegexModifier;
+import com.github.rwitzel.streamflyer.xml.XmlVersionModifier;
+
+/**
+ * Tests {@link ModifyingReader#transferTo(java.io.Writer)}, {@link ModifyingReader#skip(long)} and
+ * {@link ModifyingReader#read(CharBuffer)}.
+ * 
+ * @author rwoo
+ * @since 1.2.1
+ */
+public class ModifyingReaderTest {
+
+    private String createInput() {
+        StringBuilder sb = new StringBuilder();
+        for (int index = 0; index < 3000; index++) {
+            sb.append("abc").append(index);
+        }
+        return sb.toString();
+    }
+
+    private ModifyingReader createReader(String input) {
+        return new ModifyingReader(new StringReader(input), new RegexModifier("b(c1)?", 0, "X", 1, 100));
+    }
+
+    private String expectedOutput(String input) {
+        return input.replaceAll("b(c1)?", "X");
+    }
+
+    @Test
+    public void testTransferTo() throws Exception {
+
+        String input = createInput();
+        StringWriter output = new StringWriter();
+
+        long transferred = createReader(input).transferTo(output);
+
+        assertEquals(expectedOutput(input), output.toString());
+        assertEquals(output.toString().length(), transferred);
+    }
+
+    @Test
+    public void testTransferTo_passThrough() throws Exception {
+
+        String input = "<?xml version='1.0'?><a>" + createInput() + "</a>";
+        ModifyingReader reader = new ModifyingReader(new StringReader(input), new XmlVersionModifier("1.1", 8));
+        StringWriter output = new StringWriter();
+
+        long transferred = reader.transferTo(output);
+
+        assertEquals(input.replace("1.0", "1.1"), output.toString());
+        assertEquals(input.length(), transferred);
+        assertEquals(0, reader.transferTo(new StringWriter()));
+    }
+
+    @Test
+    public void testSkip() throws Exception {
+
+        String input = createInput();
+        String expected = expectedOutput(input);
+
+        ModifyingReader reader = createReader(input);
+        char[] cbuf = new char[10];
+
+        assertEquals(10, reader.read(cbuf));
+        assertEquals(expected.substring(0, 10), new String(cbuf));
+
+        assertEquals(5000, reader.skip(5000));
+        assertEquals(10, reader.read(cbuf));
+        assertEquals(expected.substring(5010, 5020), new String(cbuf));
+
+        assertEquals(expected.length() - 5020, reader.skip(Long.MAX_VALUE));
+        assertEquals(0, reader.skip(10));
+        assertEquals(-1, reader.read(cbuf));
+    }
+
+    @Test
+    public void testReadCharBuffer() throws Exception {
+
+        String input = createInput();
+        StringBuilder output = new StringBuilder();
+
+        Reader reader = createReader(input);
+        CharBuffer heapBuffer = CharBuffer.allocate(77);
+        while (reader.read(heapBuffer) != -1) {
+            heapBuffer.flip();
+            output.append(heapBuffer);
+            heapBuffer.clear();
+        }
+
+        assertEquals(expectedOutput(input), output.toString());
+    }
+
+    @Test
+    public void testReadCharBuffer_wrappedArrayWithOffset() throws Exception {
+
+        char[] array = new char[20];
+        CharBuffer buffer = CharBuffer.wrap(array, 5, 10).slice();
+
+        assertEquals(10, createReader("abcdefghijklmnopq").read(buffer));
+        assertEquals(10, buffer.position());
+        assertEquals("aXcdefghij", new String(array, 5, 10));
+    }
+
+    @Test
+    public void testTransferToEqualsRead() throws Exception {
+
+        String input = createInput();
+        StringWriter output = new StringWriter();
+        createReader(input).transferTo(output);
+
+        assertEquals(IOUtils.toString(createReader(input)), output.toString());
+    }
+}
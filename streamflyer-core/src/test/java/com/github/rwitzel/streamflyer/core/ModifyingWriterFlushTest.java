@@ -0,0 +1,130 @@
+/**
+ * Copyright (C) 2011 rwitzel75@googlemail.com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.rwitzel.streamflyer.core;
+
+import static org.junit.Assert.assertEquals;
+
+import java.io.StringWriter;
+
+import org.junit.Test;
+
+import com.github.rwitzel.streamflyer.regex.RegexModifier;
+
+/**
+ * Tests {@link ModifyingWriter#setReleaseOnFlush(boolean)} and {@link ModifyingWriter#setMaximumHoldTime(long)}.
+ * 
+ * @author rwoo
+ * @since 1.2.1
+ */
+public class ModifyingWriterFlushTest {
+
+    @Test
+    public void testFlush_default() throws Exception {
+
+        StringWriter output = new StringWriter();
+        ModifyingWriter writer = new ModifyingWriter(output, new RegexModifier("ab", 0, "x"));
+
+        writer.write("zzabza");
+        writer.flush();
+        // only the first character is confirmed (before the modifier has requested more characters)
+        assertEquals("z", output.toString());
+
+        writer.write("b");
+        writer.close();
+        assertEquals("zzxzx", output.toString());
+    }
+
+    @Test
+    public void testFlush_releaseOnFlush() throws Exception {
+
+        StringWriter output = new StringWriter();
+        ModifyingWriter writer = new ModifyingWriter(output, new RegexModifier("ab", 0, "x"));
+        writer.setReleaseOnFlush(true);
+
+        writer.write("zzabza");
+        writer.flush();
+        // the open match is kept
+        assertEquals("zzxz", output.toString());
+
+        writer.write("b");
+        writer.flush();
+        assertEquals("zzxzx", output.toString());
+
+        writer.write("abab");
+        writer.close();
+        assertEquals("zzxzxxx", output.toString());
+        assertEquals(0, writer.getNumberOfForcedReleases());
+    }
+
+    @Test
+    public void testMaximumHoldTime() throws Exception {
+
+        StringWriter output = new StringWriter();
+        ModifyingWriter writer = new ModifyingWriter(output, new RegexModifier("ab", 0, "x"));
+        writer.setMaximumHoldTime(0);
+
+        writer.write("zzabza");
+        // the open match is forced through
+        assertEquals("zzxza", output.toString());
+        assertEquals(1, writer.getNumberOfForcedReleases());
+
+        writer.write("b");
+        assertEquals("zzxzab", output.toString());
+        assertEquals(1, writer.getNumberOfForcedReleases());
+
+        writer.close();
+        assertEquals("zzxzab", output.toString());
+    }
+
+    @Test
+    public void testMaximumHoldTime_notExceeded() throws Exception {
+
+        StringWriter output = new StringWriter();
+        ModifyingWriter writer = new ModifyingWriter(output, new RegexModifier("ab", 0, "x"));
+        writer.setMaximumHoldTime(60000);
+
+        writer.write("zzabza");
+        writer.flush();
+        // only the first character is confirmed (before the modifier has requested more characters)
+        assertEquals("z", output.toString());
+
+        writer.write("b");
+        writer.close();
+        assertEquals("zzxzx", output.toString());
+    }
+
+    @Test
+    public void testMaximumHoldTime_matchSplitAcrossWrites() throws Exception {
+
+        StringWriter output = new StringWriter();
+        ModifyingWriter writer = new ModifyingWriter(output, new RegexModifier("ab", 0, "XY", 1, 100));
+        writer.setMaximumHoldTime(200);
+
+        writer.write("zq");
+        assertEquals("z", output.toString());
+
+        Thread.sleep(300);
+
+        // the held "q" exceeds the limit and is confirmed but the "a" has just arrived and is kept
+        writer.write("xa");
+        assertEquals("zqx", output.toString());
+
+        writer.write("b");
+        writer.close();
+        assertEquals("zqxXY", output.toString());
+        assertEquals(0, writer.getNumberOfForcedReleases());
+    }
+}
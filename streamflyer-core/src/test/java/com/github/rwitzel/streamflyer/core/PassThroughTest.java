@@ -0,0 +1,163 @@
+/**
+ * Copyright (C) 2011 rwitzel75@googlemail.com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.rwitzel.streamflyer.core;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.Reader;
+import java.io.StringReader;
+import java.io.StringWriter;
+
+import org.apache.commons.io.IOUtils;
+import org.junit.Test;
+
+import com.github.rwitzel.streamflyer.util.ModificationFactory;
+
+/**
+ * Tests that {@link ModifyingReader} and {@link ModifyingWriter} pass through the rest of the stream if the modifier
+ * requests this via {@link AfterModification#isPassThrough()}.
+ * 
+ * @author rwoo
+ * @since 1.2.1
+ */
+public class PassThroughTest {
+
+    /**
+     * Upper-cases the first characters of the stream, then passes through the rest of the stream.
+     */
+    private static class UpperCaseHeadModifier implements Modifier {
+
+        private ModificationFactory factory = new ModificationFactory(0, 4);
+
+        private int numberOfCharactersToModify;
+
+        private int numberOfCalls = 0;
+
+        private boolean passedThrough = false;
+
+        public UpperCaseHeadModifier(int numberOfCharactersToModify) {
+            this.numberOfCharactersToModify = numberOfCharactersToModify;
+        }
+
+        @Override
+        public AfterModification modify(StringBuilder characterBuffer, int firstModifiableCharacterInBuffer,
+                boolean endOfStreamHit) {
+
+            numberOfCalls++;
+
+            if (passedThrough) {
+                fail("the modifier must not be called after it has requested to pass through");
+            }
+
+            int end = Math.min(characterBuffer.length(), firstModifiableCharacterInBuffer + numberOfCharactersToModify);
+            for (int index = firstModifiableCharacterInBuffer; index < end; index++) {
+                characterBuffer.setCharAt(index, Character.toUpperCase(characterBuffer.charAt(index)));
+            }
+            numberOfCharactersToModify -= end - firstModifiableCharacterInBuffer;
+
+            if (numberOfCharactersToModify == 0) {
+                passedThrough = true;
+                return factory.passThrough(characterBuffer, firstModifiableCharacterInBuffer, endOfStreamHit);
+            } else {
+                return factory.skipEntireBuffer(characterBuffer, firstModifiableCharacterInBuffer, endOfStreamHit);
+            }
+        }
+    }
+
+    @Test
+    public void testReader_readArray() throws Exception {
+
+        UpperCaseHeadModifier modifier = new UpperCaseHeadModifier(6);
+        Reader reader = new ModifyingReader(new StringReader("abcdefghijklmnopqrstuvwxyz"), modifier);
+
+        assertEquals("ABCDEFghijklmnopqrstuvwxyz", IOUtils.toString(reader));
+        assertTrue(modifier.passedThrough);
+    }
+
+    @Test
+    public void testReader_readCharacter() throws Exception {
+
+        UpperCaseHeadModifier modifier = new UpperCaseHeadModifier(3);
+        Reader reader = new ModifyingReader(new StringReader("abcdefg"), modifier);
+
+        StringBuilder sb = new StringBuilder();
+        int ch;
+        while ((ch = reader.read()) != -1) {
+            sb.append((char) ch);
+        }
+        assertEquals("ABCdefg", sb.toString());
+        assertTrue(modifier.passedThrough);
+        assertEquals(-1, reader.read());
+    }
+
+    @Test
+    public void testReader_passThroughAtEndOfStream() throws Exception {
+
+        UpperCaseHeadModifier modifier = new UpperCaseHeadModifier(10);
+        Reader reader = new ModifyingReader(new StringReader("abc"), modifier);
+
+        assertEquals("ABC", IOUtils.toString(reader));
+    }
+
+    @Test
+    public void testWriter() throws Exception {
+
+        UpperCaseHeadModifier modifier = new UpperCaseHeadModifier(6);
+        StringWriter stringWriter = new StringWriter();
+        ModifyingWriter writer = new ModifyingWriter(stringWriter, modifier);
+
+        writer.write("abcdefghij");
+        writer.write('k');
+        writer.write("lmnop".toCharArray());
+        writer.close();
+
+        assertEquals("ABCDEFghijklmnop", stringWriter.toString());
+        assertTrue(modifier.passedThrough);
+    }
+
+    @Test
+    public void testFaultyModifier_notAllCharactersSkipped() throws Exception {
+
+        Modifier modifier = new Modifier() {
+            @Override
+            public AfterModification modify(StringBuilder characterBuffer, int firstModifiableCharacterInBuffer,
+                    boolean endOfStreamHit) {
+                return new AfterModification(0, false, 0, 10, true);
+            }
+        };
+        Reader reader = new ModifyingReader(new StringReader("abc"), modifier);
+
+        try {
+            IOUtils.toString(reader);
+            fail("FaultyModifierException expected");
+        } catch (FaultyModifierException e) {
+            assertTrue(e.getMessage(), e.getMessage().contains("-17"));
+        }
+    }
+
+    @Test
+    public void testAfterModification_passThroughAndModifyAgainImmediately() throws Exception {
+
+        try {
+            new AfterModification(0, true, 0, 10, true);
+            fail("IllegalArgumentException expected");
+        } catch (IllegalArgumentException e) {
+            // OK
+        }
+    }
+}
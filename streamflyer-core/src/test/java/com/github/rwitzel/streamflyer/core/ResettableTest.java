@@ -0,0 +1,127 @@
+/**
+ * Copyright (C) 2011 rwitzel75@googlemail.com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.rwitzel.streamflyer.core;
+
+import static java.util.Arrays.asList;
+import static org.junit.Assert.assertEquals;
+
+import java.io.StringReader;
+import java.io.StringWriter;
+
+import org.apache.commons.io.IOUtils;
+import org.junit.Test;
+
+import com.github.rwitzel.streamflyer.regex.RegexModifier;
+import com.github.rwitzel.streamflyer.regex.addons.stateful.State;
+import com.github.rwitzel.streamflyer.regex.addons.stateful.StateMachineTemplate;
+import com.github.rwitzel.streamflyer.regex.addons.stateful.TransitionGuard;
+import com.github.rwitzel.streamflyer.xml.WellFormednessCheckingModifier;
+import com.github.rwitzel.streamflyer.xml.XmlVersionModifier;
+
+/**
+ * Tests {@link ModifyingReader#reset(java.io.Reader)}, {@link ModifyingWriter#reset(java.io.Writer)} and the
+ * {@link Resettable} modifiers.
+ * 
+ * @author rwoo
+ * @since 1.2.1
+ */
+public class ResettableTest {
+
+    @Test
+    public void testResetReader_openMatch() throws Exception {
+
+        ModifyingReader reader = new ModifyingReader(new StringReader("xaaaa"), new RegexModifier("a+b", 0, "X", 1, 2));
+
+        // the modifier waits for the end of the match
+        assertEquals('x', reader.read());
+
+        reader.reset(new StringReader("ab cd"));
+        assertEquals("X cd", IOUtils.toString(reader));
+
+        reader.reset(new StringReader("aab"));
+        assertEquals("X", IOUtils.toString(reader));
+    }
+
+    @Test
+    public void testResetReader_stateMachine() throws Exception {
+
+        TransitionGuard guard = new TransitionGuard();
+
+        // a title is replaced only inside a section
+        State state0 = new State("Start");
+        State state1 = new State("SectionStart", "<section>");
+        State state2 = new State("SectionTitle", "(<h1>)([^<>]*)(</h1>)", "$1TITLE_FOUND$3");
+        State state3 = new State("SectionEnd", "</section>");
+        state0.setTransitions(asList(state1), guard);
+        state1.setTransitions(asList(state2, state3), guard);
+        state2.setTransitions(asList(state3), guard);
+        state3.setTransitions(asList(state1), guard);
+
+        ModifyingReader reader = new ModifyingReader(new StringReader("<section><h1>a</h1>"),
+                new StateMachineTemplate(state0, 1, 2048).newModifier());
+
+        // the state machine enters the section
+        for (int index = 0; index < "<section><".length(); index++) {
+            reader.read();
+        }
+
+        // the state machine is outside of a section again
+        reader.reset(new StringReader("<h1>b</h1><section><h1>c</h1></section>"));
+        assertEquals("<h1>b</h1><section><h1>TITLE_FOUND</h1></section>", IOUtils.toString(reader));
+    }
+
+    @Test
+    public void testResetReader_xmlVersion() throws Exception {
+
+        ModifyingReader reader = new ModifyingReader(new StringReader("<?xml version='1.0'?><a/>"),
+                new XmlVersionModifier("1.1", 8));
+        assertEquals("<?xml version='1.1'?><a/>", IOUtils.toString(reader));
+
+        reader.reset(new StringReader("<?xml version=\"1.0\"?><b/>"));
+        assertEquals("<?xml version=\"1.1\"?><b/>", IOUtils.toString(reader));
+    }
+
+    @Test
+    public void testResetReader_wellFormednessChecker() throws Exception {
+
+        WellFormednessCheckingModifier modifier = new WellFormednessCheckingModifier(new RegexModifier("a", 0, "b"));
+        ModifyingReader reader = new ModifyingReader(new StringReader("<a><a>"), modifier);
+        reader.read();
+
+        // the open elements of the first document are forgotten
+        reader.reset(new StringReader("<c>a</c>"));
+        assertEquals("<c>b</c>", IOUtils.toString(reader));
+        assertEquals(8, modifier.getChecker().getOffset());
+    }
+
+    @Test
+    public void testResetWriter() throws Exception {
+
+        StringWriter output1 = new StringWriter();
+        ModifyingWriter writer = new ModifyingWriter(output1, new RegexModifier("a+b", 0, "X", 1, 2));
+        writer.write("xaab aa");
+        writer.close(false);
+        assertEquals("xX aa", output1.toString());
+
+        StringWriter output2 = new StringWriter();
+        writer.reset(output2);
+        writer.write("ab cd");
+        writer.close();
+        assertEquals("X cd", output2.toString());
+        assertEquals("xX aa", output1.toString());
+    }
+
+}
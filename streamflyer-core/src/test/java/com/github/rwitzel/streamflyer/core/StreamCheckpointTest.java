@@ -0,0 +1,221 @@
+/**
+ * Copyright (C) 2011 rwitzel75@googlemail.com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.rwitzel.streamflyer.core;
+
+import static java.util.Arrays.asList;
+import static org.junit.Assert.assertEquals;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.StringReader;
+import java.io.StringWriter;
+
+import org.apache.commons.io.IOUtils;
+import org.junit.Test;
+
+import com.github.rwitzel.streamflyer.regex.RegexModifier;
+import com.github.rwitzel.streamflyer.regex.addons.stateful.State;
+import com.github.rwitzel.streamflyer.regex.addons.stateful.StateMachineTemplate;
+import com.github.rwitzel.streamflyer.regex.addons.stateful.TransitionGuard;
+import com.github.rwitzel.streamflyer.util.statistics.LineColumnAwareModificationFactory;
+import com.github.rwitzel.streamflyer.util.statistics.OffsetMappingModifier;
+import com.github.rwitzel.streamflyer.util.statistics.PositionAwareModificationFactory;
+import com.github.rwitzel.streamflyer.xml.InvalidXmlCharacterModifier;
+import com.github.rwitzel.streamflyer.xml.XmlVersionModifier;
+
+/**
+ * Tests {@link ModifyingReader#checkpoint()}, {@link ModifyingReader#resume(StreamCheckpoint)},
+ * {@link ModifyingWriter#checkpoint()} and {@link ModifyingWriter#resume(StreamCheckpoint)}.
+ * 
+ * @author rwoo
+ * @since 1.2.1
+ */
+public class StreamCheckpointTest {
+
+    private String createInput() {
+        StringBuilder sb = new StringBuilder();
+        for (int index = 0; index < 1000; index++) {
+            sb.append("abc").append(index);
+        }
+        return sb.toString();
+    }
+
+    private ModifierTemplate createTemplate() {
+        return new ModifierTemplate() {
+            @Override
+            public Modifier newModifier() {
+                return new RegexModifier("b(c1)?", 0, "X", 1, 100);
+            }
+        };
+    }
+
+    private StreamCheckpoint serializeAndDeserialize(StreamCheckpoint checkpoint) throws Exception {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        ObjectOutputStream out = new ObjectOutputStream(bytes);
+        out.writeObject(checkpoint);
+        out.close();
+        return (StreamCheckpoint) new ObjectInputStream(new ByteArrayInputStream(bytes.toByteArray())).readObject();
+    }
+
+    /**
+     * Reads the given number of characters, takes a checkpoint, and then resumes with a new reader.
+     */
+    private String readWithCheckpoint(String input, ModifierTemplate template, int charactersBeforeCheckpoint)
+            throws Exception {
+
+        ModifyingReader reader = new ModifyingReader(new StringReader(input), template.newModifier());
+        char[] cbuf = new char[charactersBeforeCheckpoint];
+        int read = 0;
+        while (read < cbuf.length) {
+            read += reader.read(cbuf, read, cbuf.length - read);
+        }
+        StreamCheckpoint checkpoint = serializeAndDeserialize(reader.checkpoint());
+        assertEquals(charactersBeforeCheckpoint, checkpoint.getOutputOffset());
+
+        // "crash" -> resume
+        ModifyingReader resumedReader = new ModifyingReader(new StringReader(input.substring((int) checkpoint
+                .getInputOffset())), template.newModifier());
+        resumedReader.resume(checkpoint);
+
+        StringBuilder output = new StringBuilder();
+        output.append(cbuf, 0, (int) checkpoint.getOutputOffset());
+        output.append(IOUtils.toString(resumedReader));
+        return output.toString();
+    }
+
+    @Test
+    public void testReader() throws Exception {
+
+        String input = createInput();
+        String expectedOutput = input.replaceAll("b(c1)?", "X");
+
+        for (int charactersBeforeCheckpoint : new int[] { 1, 2, 3, 5, 99, 100, 101, 777, 4096 }) {
+            assertEquals("" + charactersBeforeCheckpoint, expectedOutput,
+                    readWithCheckpoint(input, createTemplate(), charactersBeforeCheckpoint));
+        }
+    }
+
+    @Test
+    public void testReader_stateMachine() throws Exception {
+
+        TransitionGuard guard = new TransitionGuard();
+
+        // a title is replaced only inside a section
+        State state0 = new State("Start");
+        State state1 = new State("SectionStart", "<section>");
+        State state2 = new State("SectionTitle", "(<h1>)([^<>]*)(</h1>)", "$1TITLE_FOUND$3");
+        State state3 = new State("SectionEnd", "</section>");
+        state0.setTransitions(asList(state1), guard);
+        state1.setTransitions(asList(state2, state3), guard);
+        state2.setTransitions(asList(state3), guard);
+        state3.setTransitions(asList(state1), guard);
+
+        ModifierTemplate template = new StateMachineTemplate(state0, 1, 4);
+
+        String input = "<h1>a</h1><section><h1>b</h1></section><h1>c</h1>";
+        String output = "<h1>a</h1><section><h1>TITLE_FOUND</h1></section><h1>c</h1>";
+
+        for (int length = 1; length < output.length(); length++) {
+            assertEquals("" + length, output, readWithCheckpoint(input, template, length));
+        }
+    }
+
+    @Test
+    public void testReader_passThrough() throws Exception {
+
+        String input = "<?xml version='1.0'?><a>" + createInput() + "</a>";
+        ModifierTemplate template = new ModifierTemplate() {
+            @Override
+            public Modifier newModifier() {
+                return new XmlVersionModifier("1.1", 8);
+            }
+        };
+
+        assertEquals(input.replace("1.0", "1.1"), readWithCheckpoint(input, template, 1000));
+    }
+
+    @Test
+    public void testReader_lineColumnAwareFactory() throws Exception {
+
+        StringBuilder input = new StringBuilder();
+        for (int index = 0; index < 100; index++) {
+            input.append("a\u0000b\r\n");
+        }
+
+        final LineColumnAwareModificationFactory[] lastFactory = new LineColumnAwareModificationFactory[1];
+        final PositionAwareModificationFactory[] lastPositionFactory = new PositionAwareModificationFactory[1];
+        ModifierTemplate template = new ModifierTemplate() {
+            @Override
+            public Modifier newModifier() {
+                return new InvalidXmlCharacterModifier("?", InvalidXmlCharacterModifier.XML_10_VERSION) {
+                    {
+                        lastPositionFactory[0] = new PositionAwareModificationFactory(factory);
+                        lastFactory[0] = new LineColumnAwareModificationFactory(lastPositionFactory[0]);
+                        factory = lastFactory[0];
+                    }
+                };
+            }
+        };
+
+        // the counts without checkpoint
+        IOUtils.toString(new ModifyingReader(new StringReader(input.toString()), template.newModifier()));
+        long line = lastFactory[0].getCurrentLine();
+        long column = lastFactory[0].getCurrentColumn();
+        long position = lastPositionFactory[0].getCurrentPosition();
+
+        assertEquals(input.toString().replace('\u0000', '?'), readWithCheckpoint(input.toString(), template, 151));
+
+        // the resumed factories continue counting
+        assertEquals(line, lastFactory[0].getCurrentLine());
+        assertEquals(column, lastFactory[0].getCurrentColumn());
+        assertEquals(position, lastPositionFactory[0].getCurrentPosition());
+    }
+
+    @Test
+    public void testWriter() throws Exception {
+
+        String input = createInput();
+        String expectedOutput = input.replaceAll("b(c1)?", "X");
+
+        for (int charactersBeforeCheckpoint : new int[] { 1, 2, 3, 5, 99, 100, 101, 777, 4096 }) {
+
+            StringWriter output = new StringWriter();
+            ModifyingWriter writer = new ModifyingWriter(output, createTemplate().newModifier());
+            writer.write(input.substring(0, charactersBeforeCheckpoint));
+            StreamCheckpoint checkpoint = serializeAndDeserialize(writer.checkpoint());
+            assertEquals(charactersBeforeCheckpoint, checkpoint.getInputOffset());
+
+            // "crash" -> resume
+            StringWriter resumedOutput = new StringWriter();
+            resumedOutput.append(output.toString().substring(0, (int) checkpoint.getOutputOffset()));
+            ModifyingWriter resumedWriter = new ModifyingWriter(resumedOutput, createTemplate().newModifier());
+            resumedWriter.resume(checkpoint);
+            resumedWriter.write(input.substring((int) checkpoint.getInputOffset()));
+            resumedWriter.close();
+
+            assertEquals("" + charactersBeforeCheckpoint, expectedOutput, resumedOutput.toString());
+        }
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void testCheckpoint_modifierNotCheckpointable() throws Exception {
+        new ModifyingReader(new StringReader("abc"), new OffsetMappingModifier(new RegexModifier("b", 0, "X")))
+                .checkpoint();
+    }
+
+}
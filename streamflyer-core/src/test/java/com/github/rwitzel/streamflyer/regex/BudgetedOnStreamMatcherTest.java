@@ -0,0 +1,115 @@
+/**
+ * Copyright (C) 2011 rwitzel75@googlemail.com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.rwitzel.streamflyer.regex;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.StringReader;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import org.apache.commons.io.IOUtils;
+import org.junit.Test;
+
+import com.github.rwitzel.streamflyer.core.ModifyingReader;
+
+/**
+ * Tests {@link BudgetedOnStreamMatcher}.
+ * 
+ * @author rwoo
+ * @since 1.2.1
+ */
+public class BudgetedOnStreamMatcherTest {
+
+    /**
+     * Backtracks catastrophically on a long run of 'a' that is not followed by 'b'.
+     */
+    private static final String REGEX = "(.*a){12}b";
+
+    private String createInput() {
+        return repeat('a', 30) + "c\n" + repeat('a', 12) + "b";
+    }
+
+    private String repeat(char ch, int times) {
+        StringBuilder sb = new StringBuilder();
+        for (int index = 0; index < times; index++) {
+            sb.append(ch);
+        }
+        return sb.toString();
+    }
+
+    private BudgetedOnStreamMatcher createMatcher(long maxCharAccessesPerAttempt, long maxNanosPerAttempt,
+            MatchBudgetPolicy policy) {
+        Matcher jdkMatcher = Pattern.compile(REGEX).matcher("");
+        jdkMatcher.useTransparentBounds(true);
+        jdkMatcher.useAnchoringBounds(false);
+        return new BudgetedOnStreamMatcher(jdkMatcher, maxCharAccessesPerAttempt, maxNanosPerAttempt, policy);
+    }
+
+    private String modify(String input, BudgetedOnStreamMatcher matcher) throws Exception {
+        RegexModifier modifier = new RegexModifier(matcher, new ReplacingProcessor("X"), 1, 2048);
+        return IOUtils.toString(new ModifyingReader(new StringReader(input), modifier));
+    }
+
+    @Test
+    public void testSkip_charAccesses() throws Exception {
+
+        String input = createInput();
+        BudgetedOnStreamMatcher matcher = createMatcher(100000, 0, MatchBudgetPolicy.SKIP);
+
+        assertEquals(input.replaceAll(REGEX, "X"), modify(input, matcher));
+
+        assertTrue(matcher.getNumberOfAbortedAttempts() > 0);
+        assertTrue(matcher.getNumberOfAttempts() > matcher.getNumberOfAbortedAttempts());
+        assertTrue(matcher.getMaxCharAccessesOfAnAttempt() <= 100001);
+        assertTrue(matcher.getTotalCharAccesses() >= matcher.getMaxCharAccessesOfAnAttempt());
+    }
+
+    @Test
+    public void testSkip_deadline() throws Exception {
+
+        String input = createInput();
+        BudgetedOnStreamMatcher matcher = createMatcher(Long.MAX_VALUE, 50000000L, MatchBudgetPolicy.SKIP);
+
+        assertEquals(input.replaceAll(REGEX, "X"), modify(input, matcher));
+        assertTrue(matcher.getNumberOfAbortedAttempts() > 0);
+    }
+
+    @Test
+    public void testFail() throws Exception {
+
+        BudgetedOnStreamMatcher matcher = createMatcher(100000, 0, MatchBudgetPolicy.FAIL);
+
+        try {
+            modify(createInput(), matcher);
+            fail("MatchBudgetExceededException expected");
+        } catch (MatchBudgetExceededException e) {
+            assertEquals(0, e.getPosition());
+        }
+    }
+
+    @Test
+    public void testBudgetNotExceeded() throws Exception {
+
+        String input = "xx" + repeat('a', 12) + "b" + repeat('a', 12) + "bx";
+        BudgetedOnStreamMatcher matcher = createMatcher(1000000, 0, MatchBudgetPolicy.FAIL);
+
+        assertEquals(input.replaceAll(REGEX, "X"), modify(input, matcher));
+        assertEquals(0, matcher.getNumberOfAbortedAttempts());
+    }
+}
@@ -0,0 +1,84 @@
+/**
+ * Copyright (C) 2011 rwitzel75@googlemail.com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.rwitzel.streamflyer.regex;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.regex.Pattern;
+
+import org.junit.Test;
+
+/**
+ * Tests {@link OnStreamStandardMatcher}.
+ * 
+ * @author rwoo
+ * @since 1.2.1
+ */
+public class OnStreamStandardMatcherTest {
+
+    @Test
+    public void testFirstCharacterOfEachMatch() throws Exception {
+
+        assertFirstCharacter('<', "<x>", 0);
+        assertFirstCharacter('<', "<x>|<y>", Pattern.LITERAL);
+        assertFirstCharacter('a', "a+b", 0);
+        assertFirstCharacter('.', "\\.x", 0);
+        assertFirstCharacter('<', "<", Pattern.DOTALL | Pattern.MULTILINE);
+
+        assertFirstCharacter(-1, "", 0);
+        assertFirstCharacter(-1, "a|b", 0);
+        assertFirstCharacter(-1, "a?b", 0);
+        assertFirstCharacter(-1, "a*b", 0);
+        assertFirstCharacter(-1, "a{0,1}b", 0);
+        assertFirstCharacter(-1, "\\d", 0);
+        assertFirstCharacter(-1, "\\Qa\\E", 0);
+        assertFirstCharacter(-1, "(a)", 0);
+        assertFirstCharacter(-1, "[a]", 0);
+        assertFirstCharacter(-1, ".", 0);
+        assertFirstCharacter(-1, "^a", 0);
+        assertFirstCharacter(-1, "a", Pattern.CASE_INSENSITIVE);
+        assertFirstCharacter(-1, "a", Pattern.COMMENTS);
+    }
+
+    private void assertFirstCharacter(int expectedCharacter, String regex, int flags) {
+        assertEquals(expectedCharacter, OnStreamStandardMatcher.firstCharacterOfEachMatch(Pattern.compile(regex,
+                flags)));
+    }
+
+    @Test
+    public void testFindUnlessHitEnd_firstCharacterKnown() throws Exception {
+
+        OnStreamStandardMatcher matcher = new OnStreamStandardMatcher(Pattern.compile("<x>").matcher(""));
+        matcher.reset(new StringBuilder("abc<y><x>def<"));
+
+        // match found
+        assertTrue(matcher.findUnlessHitEnd(0, 13));
+        assertEquals(6, matcher.start());
+        assertEquals(6, matcher.lastFrom());
+
+        // no match in range
+        assertFalse(matcher.findUnlessHitEnd(7, 10));
+        assertEquals(11, matcher.lastFrom());
+        assertFalse(matcher.hitEnd());
+
+        // end hit
+        assertFalse(matcher.findUnlessHitEnd(7, 13));
+        assertEquals(12, matcher.lastFrom());
+        assertTrue(matcher.hitEnd());
+    }
+}
@@ -0,0 +1,139 @@
+/**
+ * Copyright (C) 2011 rwitzel75@googlemail.com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.rwitzel.streamflyer.regex;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Arrays;
+import java.util.regex.Pattern;
+
+import org.junit.Test;
+
+/**
+ * Tests {@link PatternCache}.
+ * 
+ * @author rwoo
+ * @since 1.2.1
+ */
+public class PatternCacheTest {
+
+    @Test
+    public void testGetPattern() throws Exception {
+
+        PatternCache cache = new PatternCache(PatternCache.DEFAULT_MAXIMUM_WEIGHT);
+
+        Pattern pattern = cache.getPattern("a(b)c", 0);
+        assertSame(pattern, cache.getPattern("a(b)c", 0));
+        assertNotSame(pattern, cache.getPattern("a(b)c", Pattern.CASE_INSENSITIVE));
+        assertEquals(Pattern.CASE_INSENSITIVE, cache.getPattern("a(b)c", Pattern.CASE_INSENSITIVE).flags());
+        assertEquals(1, cache.getGroupCount("a(b)c"));
+
+        assertEquals(3, cache.getHits());
+        assertEquals(2, cache.getMisses());
+        assertEquals(2, cache.size());
+    }
+
+    @Test
+    public void testGetParsedReplacement() throws Exception {
+
+        PatternCache cache = new PatternCache(PatternCache.DEFAULT_MAXIMUM_WEIGHT);
+
+        assertEquals(Arrays.asList("x", 1, "y"), cache.getParsedReplacement("x$1y"));
+        assertSame(cache.getParsedReplacement("x$1y"), cache.getParsedReplacement("x$1y"));
+        // a replacement is not a regular expression
+        assertEquals(0, cache.getGroupCount("x$1y"));
+    }
+
+    @Test
+    public void testEviction() throws Exception {
+
+        PatternCache cache = new PatternCache(1000) {
+            @Override
+            protected long estimateWeight(String string, boolean pattern) {
+                return 300;
+            }
+        };
+
+        Pattern a = cache.getPattern("a", 0);
+        cache.getPattern("b", 0);
+        cache.getPattern("c", 0);
+        assertSame(a, cache.getPattern("a", 0)); // "a" is the most recently used entry now
+        cache.getPattern("d", 0); // evicts "b"
+
+        assertEquals(3, cache.size());
+        assertEquals(900, cache.getWeight());
+        assertEquals(1, cache.getEvictions());
+        assertSame(a, cache.getPattern("a", 0));
+
+        long misses = cache.getMisses();
+        cache.getPattern("b", 0);
+        assertEquals(misses + 1, cache.getMisses());
+    }
+
+    @Test
+    public void testSetMaximumWeight() throws Exception {
+
+        PatternCache cache = new PatternCache(1000) {
+            @Override
+            protected long estimateWeight(String string, boolean pattern) {
+                return 300;
+            }
+        };
+
+        cache.getPattern("a", 0);
+        cache.getPattern("b", 0);
+        Pattern c = cache.getPattern("c", 0);
+        cache.getPattern("a", 0);
+
+        // the least recently used entries are evicted
+        cache.setMaximumWeight(600);
+        assertEquals(600, cache.getMaximumWeight());
+        assertEquals(2, cache.size());
+        assertEquals(1, cache.getEvictions());
+        assertSame(c, cache.getPattern("c", 0));
+
+        cache.setMaximumWeight(0);
+        assertEquals(0, cache.size());
+        assertEquals(0, cache.getWeight());
+    }
+
+    @Test
+    public void testSharedCache() throws Exception {
+
+        PatternCache shared = PatternCache.getShared();
+        long maximumWeight = shared.getMaximumWeight();
+        try {
+            shared.setMaximumWeight(2 * maximumWeight);
+            assertEquals(2 * maximumWeight, shared.getMaximumWeight());
+        } finally {
+            shared.setMaximumWeight(maximumWeight);
+        }
+    }
+
+    @Test
+    public void testEntryHeavierThanMaximum() throws Exception {
+
+        PatternCache cache = new PatternCache(100);
+
+        Pattern pattern = cache.getPattern("a long regular expression", 0);
+        assertTrue(pattern.matcher("a long regular expression").matches());
+        assertEquals(0, cache.size());
+        assertEquals(0, cache.getWeight());
+    }
+}
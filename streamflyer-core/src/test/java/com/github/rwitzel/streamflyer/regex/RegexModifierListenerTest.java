@@ -0,0 +1,104 @@
+/**
+ * Copyright (C) 2011 rwitzel75@googlemail.com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.rwitzel.streamflyer.regex;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.apache.commons.io.IOUtils;
+import org.junit.Test;
+
+import com.github.rwitzel.streamflyer.core.AfterModification;
+import com.github.rwitzel.streamflyer.core.BufferListener;
+import com.github.rwitzel.streamflyer.core.ModifyingReader;
+
+/**
+ * Tests {@link RegexModifierListener}, {@link BufferListener} and {@link CheckpointCounts}.
+ * 
+ * @author rwoo
+ * @since 1.2.1
+ */
+public class RegexModifierListenerTest {
+
+    @Test
+    public void testCheckpointsAndBufferEvents() throws Exception {
+
+        final List<RegexModifierCheckpoint> checkpoints = new ArrayList<RegexModifierCheckpoint>();
+        final List<Integer> capacities = new ArrayList<Integer>();
+        final List<Integer> reads = new ArrayList<Integer>();
+
+        // a greedy operator causes open matches
+        RegexModifier modifier = new RegexModifier("a.*b", 0, "X", 0, 2);
+        modifier.setListener(new RegexModifierListener() {
+            @Override
+            public void onCheckpoint(RegexModifierCheckpoint checkpoint, StringBuilder characterBuffer,
+                    int firstModifiableCharacterInBuffer, boolean endOfStreamHit, AfterModification afterModification) {
+                checkpoints.add(checkpoint);
+            }
+        });
+
+        ModifyingReader reader = new ModifyingReader(new StringReader("xxa1b2345b"), modifier);
+        reader.setBufferListener(new BufferListener() {
+
+            @Override
+            public void onCapacityIncreased(int oldCapacity, int newCapacity) {
+                assertTrue(oldCapacity < newCapacity);
+                capacities.add(newCapacity);
+            }
+
+            @Override
+            public void onDelegateRead(int numberOfCharactersRead, long nanos) {
+                assertTrue(nanos >= 0);
+                reads.add(numberOfCharactersRead);
+            }
+        });
+
+        assertEquals("xxX", IOUtils.toString(reader));
+
+        assertTrue(checkpoints.toString(), checkpoints.contains(RegexModifierCheckpoint.MATCH_OPEN));
+        assertTrue(checkpoints.toString(), checkpoints.contains(RegexModifierCheckpoint.NOMATCH_EOS));
+        assertTrue(capacities.size() > 0);
+        assertEquals(Integer.valueOf(-1), reads.get(reads.size() - 1));
+    }
+
+    @Test
+    public void testCheckpointCounts() throws Exception {
+
+        RegexModifier modifier = new RegexModifier("a.*b", 0, "X", 0, 2);
+        assertFalse(modifier.isCountingCheckpoints());
+        assertNull(modifier.getCheckpointCounts());
+
+        modifier.setCountingCheckpoints(true);
+        assertEquals("xxX", IOUtils.toString(new ModifyingReader(new StringReader("xxa1b2345b"), modifier)));
+
+        CheckpointCounts counts = modifier.getCheckpointCounts();
+        assertTrue(counts.toString(), counts.getCount(RegexModifierCheckpoint.MATCH_OPEN) > 0);
+        assertEquals(0, counts.getCount(RegexModifierCheckpoint.MATCH_N_REFILL));
+        assertTrue(counts.getTotal() > counts.getCount(RegexModifierCheckpoint.MATCH_OPEN));
+        assertTrue(counts.getRatio(RegexModifierCheckpoint.MATCH_OPEN) > 0);
+        assertTrue(counts.getRatio(RegexModifierCheckpoint.MATCH_OPEN) < 1);
+
+        modifier.setCountingCheckpoints(false);
+        assertNull(modifier.getCheckpointCounts());
+    }
+
+}
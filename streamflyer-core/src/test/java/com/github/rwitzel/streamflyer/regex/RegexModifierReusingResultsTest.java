@@ -0,0 +1,43 @@
+/**
+ * Copyright (C) 2011 rwitzel75@googlemail.com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.rwitzel.streamflyer.regex;
+
+import com.github.rwitzel.streamflyer.core.AfterModification;
+import com.github.rwitzel.streamflyer.util.ModificationFactory;
+
+/**
+ * Tests {@link RegexModifier} if it reuses {@link AfterModification} and {@link MatchProcessorResult}.
+ * 
+ * @author rwoo
+ * @since 1.2.1
+ */
+public class RegexModifierReusingResultsTest extends RegexModifierTest {
+
+    @Override
+    protected RegexModifier createModifier(String regex, String replacement, int minimumLengthOfLookBehind,
+            int requestedCapacityOfCharacterBuffer, int flags) {
+
+        RegexModifier modifier = new RegexModifier( //
+                createMatcher(regex, flags), //
+                new ReplacingProcessor(replacement, true), //
+                minimumLengthOfLookBehind, //
+                requestedCapacityOfCharacterBuffer);
+        modifier.factory = new ModificationFactory(minimumLengthOfLookBehind, requestedCapacityOfCharacterBuffer, true);
+
+        return modifier;
+    }
+
+}
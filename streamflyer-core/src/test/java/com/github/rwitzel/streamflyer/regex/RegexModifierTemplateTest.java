@@ -0,0 +1,86 @@
+/**
+ * Copyright (C) 2011 rwitzel75@googlemail.com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.rwitzel.streamflyer.regex;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.apache.commons.io.IOUtils;
+import org.junit.Test;
+
+import com.github.rwitzel.streamflyer.core.ModifierTemplate;
+import com.github.rwitzel.streamflyer.core.ModifyingReader;
+import com.github.rwitzel.streamflyer.util.ModifyingReaderFactory;
+
+/**
+ * Tests {@link RegexModifierTemplate}.
+ * 
+ * @author rwoo
+ * @since 1.2.1
+ */
+public class RegexModifierTemplateTest {
+
+    @Test
+    public void testNewModifier() throws Exception {
+
+        ModifierTemplate template = new RegexModifierTemplate("(a+)(b+)", 0, "<$2$1>", 0, 16);
+
+        assertNotSame(template.newModifier(), template.newModifier());
+
+        ModifyingReader reader = new ModifyingReaderFactory().createModifyingReader(new StringReader(
+                "xabyaabbz".replace("y", "yyyyyyyyyyyyyyyyyyyyyyyy")), template);
+        assertEquals("x<ba>" + "yyyyyyyyyyyyyyyyyyyyyyyy" + "<bbaa>z", IOUtils.toString(reader));
+    }
+
+    @Test
+    public void testNewModifier_concurrentStreams() throws Exception {
+
+        final ModifierTemplate template = new RegexModifierTemplate("ab", 0, "x", 0, 16);
+
+        StringBuilder sb = new StringBuilder();
+        for (int index = 0; index < 1000; index++) {
+            sb.append("abc");
+        }
+        final String input = sb.toString();
+        String expected = input.replace("ab", "x");
+
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            List<Future<String>> futures = new ArrayList<Future<String>>();
+            for (int stream = 0; stream < 40; stream++) {
+                futures.add(executor.submit(new Callable<String>() {
+                    @Override
+                    public String call() throws Exception {
+                        return IOUtils.toString(new ModifyingReader(new StringReader(input), template.newModifier()));
+                    }
+                }));
+            }
+            for (Future<String> future : futures) {
+                assertEquals(expected, future.get());
+            }
+        } finally {
+            executor.shutdown();
+        }
+    }
+}
@@ -0,0 +1,92 @@
+/**
+ * Copyright (C) 2011 rwitzel75@googlemail.com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.rwitzel.streamflyer.regex;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+
+import java.io.StringWriter;
+import java.util.Arrays;
+
+import org.junit.Test;
+
+import com.github.rwitzel.streamflyer.core.AfterModification;
+import com.github.rwitzel.streamflyer.core.ModifyingWriter;
+import com.github.rwitzel.streamflyer.regex.addons.tokens.Token;
+import com.github.rwitzel.streamflyer.regex.addons.tokens.TokensTemplate;
+
+/**
+ * Tests {@link RuleSetHolder}.
+ * 
+ * @author rwoo
+ * @since 1.2.1
+ */
+public class RuleSetHolderTest {
+
+    @Test
+    public void testPublish_ruleSetIsNotSwappedWhileMatchIsOpen() throws Exception {
+
+        RegexModifierTemplate rulesX = new RegexModifierTemplate("a+b", 0, "X", 0, 16);
+        RegexModifierTemplate rulesY = new RegexModifierTemplate("a+b", 0, "Y", 0, 16);
+
+        RuleSetHolder holder = new RuleSetHolder(rulesX);
+        RegexModifier modifier = (RegexModifier) rulesX.newModifier();
+        modifier.setRuleSetHolder(holder);
+
+        // the match is open
+        StringBuilder buffer = new StringBuilder("caaa");
+        AfterModification mod = modifier.modify(buffer, 0, false);
+        assertEquals(1, mod.getNumberOfCharactersToSkip());
+        int first = mod.getNumberOfCharactersToSkip();
+
+        assertSame(rulesX, holder.publish(rulesY));
+
+        // the open match is completed with the old rules
+        buffer.append("abcab");
+        mod = modifier.modify(buffer, first, false);
+        first += mod.getNumberOfCharactersToSkip();
+        while (mod.isModifyAgainImmediately() && first < buffer.length()) {
+            mod = modifier.modify(buffer, first, false);
+            first += mod.getNumberOfCharactersToSkip();
+        }
+        assertEquals("cXcX", buffer.toString());
+
+        // now the new rules are applied
+        buffer.append("cab");
+        modifier.modify(buffer, first, true);
+        assertEquals("cXcXcY", buffer.toString());
+    }
+
+    @Test
+    public void testPublish_writer() throws Exception {
+
+        RuleSetHolder holder = new RuleSetHolder(new RegexModifierTemplate("a", 0, "1", 0, 1));
+        RegexModifier modifier = (RegexModifier) new RegexModifierTemplate("a", 0, "1", 0, 1).newModifier();
+        modifier.setRuleSetHolder(holder);
+
+        StringWriter output = new StringWriter();
+        ModifyingWriter writer = new ModifyingWriter(output, modifier);
+        writer.write("xax");
+        writer.flush();
+
+        holder.publish(new TokensTemplate(Arrays.asList(new Token("a", "a", "2"), new Token("x", "x", "y")), 0, 1));
+        writer.write("xax");
+        writer.close();
+
+        assertEquals("x1xy2y", output.toString());
+    }
+
+}
@@ -0,0 +1,77 @@
+/**
+ * Copyright (C) 2011 rwitzel75@googlemail.com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.rwitzel.streamflyer.regex.addons.stateful;
+
+import static java.util.Arrays.asList;
+import static org.junit.Assert.assertEquals;
+
+import java.io.StringReader;
+import java.io.StringWriter;
+
+import org.apache.commons.io.IOUtils;
+import org.junit.Test;
+
+import com.github.rwitzel.streamflyer.core.ModifierTemplate;
+import com.github.rwitzel.streamflyer.core.ModifyingReader;
+import com.github.rwitzel.streamflyer.core.ModifyingWriter;
+
+/**
+ * Tests {@link StateMachineTemplate}.
+ * 
+ * @author rwoo
+ * @since 1.2.1
+ */
+public class StateMachineTemplateTest {
+
+    @Test
+    public void testNewModifier() throws Exception {
+
+        TransitionGuard guard = new TransitionGuard();
+
+        // +++ define the states (a title is replaced only inside a section)
+        State state0 = new State("Start");
+        State state1 = new State("SectionStart", "<section>");
+        State state2 = new State("SectionTitle", "(<h1>)([^<>]*)(</h1>)", "$1TITLE_FOUND$3");
+        State state3 = new State("SectionEnd", "</section>");
+        state0.setTransitions(asList(state1), guard);
+        state1.setTransitions(asList(state2, state3), guard);
+        state2.setTransitions(asList(state3), guard);
+        state3.setTransitions(asList(state1), guard);
+
+        ModifierTemplate template = new StateMachineTemplate(state0, 1, 2048);
+
+        String input = "<h1>a</h1><section><h1>b</h1></section><h1>c</h1>";
+        String output = "<h1>a</h1><section><h1>TITLE_FOUND</h1></section><h1>c</h1>";
+
+        // two streams are processed alternately -> each stream has its own current state
+        ModifyingReader reader = new ModifyingReader(new StringReader(input), template.newModifier());
+        StringWriter stringWriter = new StringWriter();
+        ModifyingWriter writer = new ModifyingWriter(stringWriter, template.newModifier());
+        StringBuilder readerOutput = new StringBuilder();
+        for (int index = 0; index < input.length(); index++) {
+            writer.write(input.charAt(index));
+            readerOutput.append((char) reader.read());
+        }
+        writer.close();
+        readerOutput.append(IOUtils.toString(reader));
+
+        assertEquals(output, stringWriter.toString());
+        assertEquals(output, readerOutput.toString());
+
+        // the blueprint is not changed
+        assertEquals(output, IOUtils.toString(new ModifyingReader(new StringReader(input), template.newModifier())));
+    }
+}
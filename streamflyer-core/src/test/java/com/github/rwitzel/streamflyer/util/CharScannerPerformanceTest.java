@@ -0,0 +1,84 @@
+/**
+ * Copyright (C) 2011 rwitzel75@googlemail.com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.rwitzel.streamflyer.util;
+
+import java.io.StringReader;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import junit.framework.TestCase;
+
+import org.apache.commons.io.IOUtils;
+
+import com.github.rwitzel.streamflyer.core.ModifyingReader;
+import com.github.rwitzel.streamflyer.regex.RegexModifier;
+import com.github.rwitzel.streamflyer.xml.InvalidXmlCharacterModifier;
+
+/**
+ * Compares the time needed by {@link CharScanner} with the time needed by the regular expression engine to scan
+ * characters that do not need any treatment.
+ * 
+ * @author rwoo
+ * @since 1.2.1
+ */
+public class CharScannerPerformanceTest extends TestCase {
+
+    private static final int SIZE = 10 * 1000 * 1000; // (10M characters, i.e. 20MB)
+
+    public void testFindInvalidXmlCharacters() throws Exception {
+
+        String input = StringUtils.repeat("valid xml characters ", SIZE / 21) + "\uFFFE";
+
+        // regular expression
+        Matcher matcher = Pattern.compile("[^\\u0020-\\uD7FF\\u0009\\u000A\\u000D\\uE000-\\uFFFD]").matcher(input);
+        long start = System.currentTimeMillis();
+        assertTrue(matcher.find());
+        long timeRegex = System.currentTimeMillis() - start;
+
+        // scanner
+        CharScanner scanner = CharScanner.newInstance();
+        start = System.currentTimeMillis();
+        assertEquals(matcher.start(), scanner.indexOfInvalidXmlCharacter(input, 0, input.length(), false));
+        long timeScanner = System.currentTimeMillis() - start;
+
+        System.out.println("Find invalid XML character in " + SIZE + " characters: regex " + timeRegex
+                + " ms, scanner " + timeScanner + " ms");
+
+        // the entire reader
+        start = System.currentTimeMillis();
+        IOUtils.toString(new ModifyingReader(new StringReader(input), new InvalidXmlCharacterModifier("",
+                InvalidXmlCharacterModifier.XML_10_VERSION)));
+        System.out.println("InvalidXmlCharacterModifier: " + (System.currentTimeMillis() - start) + " ms");
+    }
+
+    public void testFindLiteral() throws Exception {
+
+        String input = StringUtils.repeat("some text without the character ", SIZE / 33) + "<";
+
+        // scanner
+        CharScanner scanner = CharScanner.newInstance();
+        long start = System.currentTimeMillis();
+        assertEquals(input.length() - 1, scanner.indexOf(input, '<', 0, input.length()));
+        System.out.println("Find literal in " + SIZE + " characters: scanner "
+                + (System.currentTimeMillis() - start) + " ms");
+
+        // the entire reader
+        start = System.currentTimeMillis();
+        IOUtils.toString(new ModifyingReader(new StringReader(input), new RegexModifier("<x>", 0, "y", 0, 8192)));
+        System.out.println("RegexModifier with literal first character: " + (System.currentTimeMillis() - start)
+                + " ms");
+    }
+}
@@ -0,0 +1,85 @@
+/**
+ * Copyright (C) 2011 rwitzel75@googlemail.com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.rwitzel.streamflyer.util;
+
+import static org.junit.Assert.assertEquals;
+
+import org.junit.Test;
+
+/**
+ * Tests {@link CharScanner}.
+ * 
+ * @author rwoo
+ * @since 1.2.1
+ */
+public class CharScannerTest {
+
+    @Test
+    public void testIndexOf() throws Exception {
+
+        CharScanner scanner = new CharScanner();
+
+        assertEquals(-1, scanner.indexOf("", 'a', 0, 0));
+        assertEquals(0, scanner.indexOf("abc", 'a', 0, 3));
+        assertEquals(-1, scanner.indexOf("abc", 'a', 1, 3));
+        assertEquals(-1, scanner.indexOf("abc", 'c', 0, 2));
+
+        // region spans several chunks of different size
+        String input = StringUtils.repeat("x", 5000) + "a" + StringUtils.repeat("x", 100) + "a";
+        assertEquals(5000, scanner.indexOf(input, 'a', 0, input.length()));
+        assertEquals(5000, scanner.indexOf(new StringBuilder(input), 'a', 17, input.length()));
+        assertEquals(5101, scanner.indexOf(new StringBuffer(input), 'a', 5001, input.length()));
+        assertEquals(-1, scanner.indexOf(input, 'a', 0, 5000));
+    }
+
+    @Test
+    public void testIndexOfInvalidXmlCharacter() throws Exception {
+
+        CharScanner scanner = new CharScanner();
+
+        String valid10 = "\t_1_\n_2_\r_3_ _4_\uD7FF_5_\uE000_6_\uFFFD";
+        assertEquals(-1, scanner.indexOfInvalidXmlCharacter(valid10, 0, valid10.length(), false));
+
+        assertInvalidXmlCharacter(scanner, false, '\u0000', '\u0007', '\u0008', '\u000B', '\u001F', '\uD800',
+                '\uDFFF', '\uFFFE', '\uFFFF');
+
+        String valid11 = "\u0001_1_\u0007_2_\uD7FF_3_\uE000_4_\uFFFD";
+        assertEquals(-1, scanner.indexOfInvalidXmlCharacter(valid11, 0, valid11.length(), true));
+
+        assertInvalidXmlCharacter(scanner, true, '\u0000', '\uD800', '\uDBFF', '\uDC00', '\uDFFF', '\uFFFE',
+                '\uFFFF');
+    }
+
+    private void assertInvalidXmlCharacter(CharScanner scanner, boolean xml11, char... invalidCharacters) {
+        String prefix = StringUtils.repeat("abc", 1000);
+        for (char invalidCharacter : invalidCharacters) {
+            String input = prefix + invalidCharacter + "abc";
+            assertEquals(prefix.length(), scanner.indexOfInvalidXmlCharacter(input, 0, input.length(), xml11));
+            assertEquals(-1, scanner.indexOfInvalidXmlCharacter(input, 0, prefix.length(), xml11));
+        }
+    }
+
+    @Test
+    public void testNewInstance_fallbackToScalarImplementation() throws Exception {
+
+        System.setProperty(CharScanner.IMPLEMENTATION_PROPERTY, "com.example.NoSuchCharScanner");
+        try {
+            assertEquals(CharScanner.class, CharScanner.newInstance().getClass());
+        } finally {
+            System.clearProperty(CharScanner.IMPLEMENTATION_PROPERTY);
+        }
+    }
+}
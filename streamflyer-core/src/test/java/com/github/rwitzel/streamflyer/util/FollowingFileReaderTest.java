@@ -0,0 +1,250 @@
+/**
+ * Copyright (C) 2011 rwitzel75@googlemail.com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.rwitzel.streamflyer.util;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.RandomAccessFile;
+import java.nio.charset.Charset;
+
+import org.apache.commons.io.IOUtils;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.github.rwitzel.streamflyer.core.ModifyingReader;
+import com.github.rwitzel.streamflyer.regex.RegexModifier;
+
+/**
+ * Tests {@link FollowingFileReader}.
+ * 
+ * @author rwoo
+ * @since 1.2.1
+ */
+public class FollowingFileReaderTest {
+
+    private static final Charset UTF_8 = Charset.forName("UTF-8");
+
+    private File file;
+
+    private FollowingFileReader reader;
+
+    @Before
+    public void setUp() throws Exception {
+        file = File.createTempFile("FollowingFileReaderTest", ".log");
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        if (reader != null) {
+            reader.close();
+        }
+        file.delete();
+        new File(file.getPath() + ".1").delete();
+    }
+
+    private void append(String text) throws IOException {
+        OutputStream output = new FileOutputStream(file, true);
+        try {
+            output.write(text.getBytes(UTF_8.name()));
+        } finally {
+            output.close();
+        }
+    }
+
+    private String read(int numberOfCharacters) throws IOException {
+        char[] cbuf = new char[numberOfCharacters];
+        int index = 0;
+        while (index < numberOfCharacters) {
+            index += reader.read(cbuf, index, numberOfCharacters - index);
+        }
+        return new String(cbuf);
+    }
+
+    /**
+     * Calls the given runnable in a background thread after the given delay.
+     */
+    private void later(final long delayInMillis, final Runnable runnable) {
+        Thread thread = new Thread() {
+            @Override
+            public void run() {
+                try {
+                    Thread.sleep(delayInMillis);
+                    runnable.run();
+                } catch (Exception e) {
+                    throw new RuntimeException(e);
+                }
+            }
+        };
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    private Runnable appending(final String text) {
+        return new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    append(text);
+                } catch (IOException e) {
+                    throw new RuntimeException(e);
+                }
+            }
+        };
+    }
+
+    private Runnable stopping() {
+        return new Runnable() {
+            @Override
+            public void run() {
+                reader.stop();
+            }
+        };
+    }
+
+    @Test
+    public void testAppend() throws Exception {
+
+        append("hello ");
+        reader = new FollowingFileReader(file, UTF_8, 1, 10);
+        assertEquals("hello ", read(6));
+        assertFalse(reader.ready());
+
+        // the reader waits for the appended characters
+        later(50, appending("wörld 😀"));
+        assertEquals("wörld 😀", read(8));
+
+        reader.stop();
+        assertEquals(-1, reader.read());
+    }
+
+    @Test
+    public void testReady_doesNotShortenNextRead() throws Exception {
+
+        StringBuilder text = new StringBuilder();
+        for (int index = 0; index < 1000; index++) {
+            text.append("line ").append(index).append('\n');
+        }
+        append(text.toString());
+        reader = new FollowingFileReader(file, UTF_8, 1, 10);
+
+        char[] cbuf = new char[4096];
+        assertEquals(4096, reader.read(cbuf));
+        assertTrue(reader.ready());
+        // the characters are not decoded into a small side buffer by ready()
+        assertEquals(4096, reader.read(cbuf));
+        assertTrue(reader.ready());
+        assertTrue(reader.ready());
+        assertEquals(text.length() - 2 * 4096, reader.read(cbuf));
+        assertFalse(reader.ready());
+    }
+
+    @Test
+    public void testStopWhileWaiting() throws Exception {
+
+        append("abc");
+        reader = new FollowingFileReader(file, UTF_8, 1, 10);
+        later(50, stopping());
+
+        assertEquals("abc", IOUtils.toString(reader));
+    }
+
+    @Test
+    public void testTruncation() throws Exception {
+
+        append("aaaa");
+        reader = new FollowingFileReader(file, UTF_8, 1, 10);
+        assertEquals("aaaa", read(4));
+
+        RandomAccessFile randomAccessFile = new RandomAccessFile(file, "rw");
+        randomAccessFile.setLength(0);
+        randomAccessFile.close();
+        append("bb");
+
+        assertEquals("bb", read(2));
+        assertEquals(1, reader.getNumberOfTruncations());
+        assertEquals(2, reader.getPosition());
+    }
+
+    @Test
+    public void testRotation() throws Exception {
+
+        append("one\n");
+        reader = new FollowingFileReader(file, UTF_8, 1, 10);
+        assertEquals("one\n", read(4));
+
+        // rotate
+        assertTrue(file.renameTo(new File(file.getPath() + ".1")));
+        append("three\n");
+
+        assertEquals("three\n", read(6));
+        assertEquals(1, reader.getNumberOfRotations());
+    }
+
+    @Test
+    public void testRotation_sameLength() throws Exception {
+
+        append("one\n");
+        long lastModified = file.lastModified();
+        reader = new FollowingFileReader(file, UTF_8, 1, 10);
+        assertEquals("one\n", read(4));
+
+        // rotate (the new file is modified later, even on file systems with a coarse time resolution)
+        assertTrue(file.renameTo(new File(file.getPath() + ".1")));
+        append("two\n");
+        assertTrue(file.setLastModified(lastModified + 2000));
+
+        assertEquals("two\n", read(4));
+        assertEquals(1, reader.getNumberOfRotations());
+    }
+
+    @Test
+    public void testModifiedWithoutRotation() throws Exception {
+
+        append("one\n");
+        reader = new FollowingFileReader(file, UTF_8, 1, 10);
+        assertEquals("one\n", read(4));
+
+        // touch -> the reader keeps following the file
+        assertTrue(file.setLastModified(file.lastModified() + 2000));
+        later(50, appending("two\n"));
+
+        assertEquals("two\n", read(4));
+        assertEquals(0, reader.getNumberOfRotations());
+    }
+
+    @Test
+    public void testModifyingReader_matchAcrossEndOfFile() throws Exception {
+
+        append("xaaa");
+        reader = new FollowingFileReader(file, UTF_8, 1, 10);
+        ModifyingReader modifyingReader = new ModifyingReader(reader, new RegexModifier("a+b", 0, "X", 1, 8));
+        modifyingReader.setLowLatency(true);
+
+        // the open match is completed as soon as the rest is appended
+        later(50, appending("ab tail"));
+        later(200, stopping());
+
+        assertEquals("xX tail", IOUtils.toString(modifyingReader));
+    }
+
+}
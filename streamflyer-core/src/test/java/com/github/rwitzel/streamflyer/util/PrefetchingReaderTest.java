@@ -0,0 +1,187 @@
+/**
+ * Copyright (C) 2011 rwitzel75@googlemail.com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.rwitzel.streamflyer.util;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.StringReader;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.commons.io.IOUtils;
+import org.junit.Test;
+
+import com.github.rwitzel.streamflyer.core.ModifyingReader;
+import com.github.rwitzel.streamflyer.regex.RegexModifier;
+
+/**
+ * Tests {@link PrefetchingReader}.
+ * 
+ * @author rwoo
+ * @since 1.2.1
+ */
+public class PrefetchingReaderTest {
+
+    /**
+     * Creates a thread and remembers it.
+     */
+    private static class RememberingThreadFactory implements ThreadFactory {
+
+        private Thread thread;
+
+        @Override
+        public Thread newThread(Runnable runnable) {
+            thread = new Thread(runnable);
+            thread.setDaemon(true);
+            return thread;
+        }
+    }
+
+    /**
+     * Like an idle network source: the read does not return until the peer closes the connection and cannot be
+     * interrupted. The lock is held while reading and closing.
+     */
+    private static class IdleSource extends Reader {
+
+        private final CountDownLatch peerClosed = new CountDownLatch(1);
+
+        private final CountDownLatch closed = new CountDownLatch(1);
+
+        @Override
+        public synchronized int read(char[] cbuf, int off, int len) throws IOException {
+            while (true) {
+                try {
+                    peerClosed.await();
+                    return -1;
+                } catch (InterruptedException e) {
+                    // not interruptible
+                }
+            }
+        }
+
+        @Override
+        public synchronized void close() throws IOException {
+            closed.countDown();
+        }
+    }
+
+    private String createInput() {
+        StringBuilder sb = new StringBuilder();
+        for (int index = 0; index < 10000; index++) {
+            sb.append("abc").append(index);
+        }
+        return sb.toString();
+    }
+
+    @Test
+    public void testRead() throws Exception {
+
+        String input = createInput();
+
+        assertEquals(input, IOUtils.toString(new PrefetchingReader(new StringReader(input))));
+        assertEquals(input, IOUtils.toString(new PrefetchingReader(new StringReader(input), 7, 2, null)));
+        assertEquals("", IOUtils.toString(new PrefetchingReader(new StringReader(""))));
+    }
+
+    @Test
+    public void testRead_modifyingReader() throws Exception {
+
+        String input = createInput();
+
+        ModifyingReader reader = new ModifyingReader(new PrefetchingReader(new StringReader(input), 100, 3, null),
+                new RegexModifier("b(c1)?", 0, "X", 1, 100));
+
+        assertEquals(input.replaceAll("b(c1)?", "X"), IOUtils.toString(reader));
+    }
+
+    @Test
+    public void testRead_exception() throws Exception {
+
+        final IOException exception = new IOException("broken");
+        Reader failingReader = new StringReader("abcdef") {
+
+            private int reads = 0;
+
+            @Override
+            public int read(char[] cbuf, int off, int len) throws IOException {
+                if (reads++ == 2) {
+                    throw exception;
+                }
+                return super.read(cbuf, off, Math.min(len, 2));
+            }
+        };
+
+        Reader reader = new PrefetchingReader(failingReader, 2, 2, null);
+        char[] cbuf = new char[10];
+        StringBuilder sb = new StringBuilder();
+        try {
+            int read;
+            while ((read = reader.read(cbuf)) != -1) {
+                sb.append(cbuf, 0, read);
+            }
+            fail("IOException expected");
+        } catch (IOException e) {
+            assertSame(exception, e);
+        }
+        assertEquals("abcd", sb.toString());
+    }
+
+    @Test
+    public void testClose() throws Exception {
+
+        RememberingThreadFactory threadFactory = new RememberingThreadFactory();
+        PrefetchingReader reader = new PrefetchingReader(new StringReader(createInput()), 10, 2, threadFactory);
+
+        assertEquals('a', reader.read());
+        reader.close();
+
+        threadFactory.thread.join(10000);
+        assertFalse(threadFactory.thread.isAlive());
+
+        try {
+            reader.read();
+            fail("IOException expected");
+        } catch (IOException e) {
+            // expected
+        }
+    }
+
+    @Test(timeout = 10000)
+    public void testClose_sourceNeverSendsData() throws Exception {
+
+        IdleSource source = new IdleSource();
+        RememberingThreadFactory threadFactory = new RememberingThreadFactory();
+        PrefetchingReader reader = new PrefetchingReader(source, 10, 2, threadFactory);
+        Thread.sleep(50); // the background thread waits in read()
+
+        // does not wait for the pending read
+        reader.close();
+        assertEquals(1, source.closed.getCount());
+
+        // the peer closes the connection -> the background thread closes the source
+        source.peerClosed.countDown();
+        assertTrue(source.closed.await(5, TimeUnit.SECONDS));
+        threadFactory.thread.join(5000);
+        assertFalse(threadFactory.thread.isAlive());
+    }
+}
@@ -0,0 +1,192 @@
+/**
+ * Copyright (C) 2011 rwitzel75@googlemail.com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.rwitzel.streamflyer.util;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.io.Writer;
+
+import org.junit.Test;
+
+import com.github.rwitzel.streamflyer.core.ModifyingWriter;
+import com.github.rwitzel.streamflyer.regex.RegexModifier;
+
+/**
+ * Tests {@link WriteBehindWriter}.
+ * 
+ * @author rwoo
+ * @since 1.2.1
+ */
+public class WriteBehindWriterTest {
+
+    /**
+     * Records flushing and closing, and writes slowly.
+     */
+    private static class SlowWriter extends StringWriter {
+
+        private volatile int flushes = 0;
+
+        private volatile boolean closed = false;
+
+        @Override
+        public void write(char[] cbuf, int off, int len) {
+            Thread.yield();
+            super.write(cbuf, off, len);
+        }
+
+        @Override
+        public void flush() {
+            flushes++;
+        }
+
+        @Override
+        public void close() throws IOException {
+            closed = true;
+        }
+    }
+
+    private String createInput() {
+        StringBuilder sb = new StringBuilder();
+        for (int index = 0; index < 10000; index++) {
+            sb.append("abc").append(index);
+        }
+        return sb.toString();
+    }
+
+    @Test
+    public void testWrite() throws Exception {
+
+        String input = createInput();
+        SlowWriter output = new SlowWriter();
+
+        Writer writer = new WriteBehindWriter(output, 16, 2, null);
+        for (int index = 0; index < input.length(); index += 100) {
+            int end = Math.min(input.length(), index + 100);
+            switch (index % 3) {
+            case 0:
+                writer.write(input.toCharArray(), index, end - index);
+                break;
+            case 1:
+                writer.write(input, index, end - index);
+                break;
+            default:
+                writer.append(new StringBuilder(input), index, end);
+                break;
+            }
+        }
+        writer.write('!');
+        writer.close();
+
+        assertEquals(input + "!", output.toString());
+        assertTrue(output.closed);
+    }
+
+    @Test
+    public void testFlush() throws Exception {
+
+        SlowWriter output = new SlowWriter();
+        Writer writer = new WriteBehindWriter(output);
+
+        writer.write("abc");
+        assertEquals(0, output.flushes);
+
+        writer.flush();
+        assertEquals("abc", output.toString());
+        assertEquals(1, output.flushes);
+
+        writer.close();
+    }
+
+    @Test
+    public void testModifyingWriter() throws Exception {
+
+        String input = createInput();
+        SlowWriter output = new SlowWriter();
+
+        ModifyingWriter writer = new ModifyingWriter(new WriteBehindWriter(output, 64, 3, null), new RegexModifier(
+                "b(c1)?", 0, "X", 1, 100));
+        writer.write(input);
+        writer.close();
+
+        assertEquals(input.replaceAll("b(c1)?", "X"), output.toString());
+    }
+
+    @Test
+    public void testException() throws Exception {
+
+        final IOException exception = new IOException("broken");
+        Writer failingWriter = new StringWriter() {
+            @Override
+            public void write(char[] cbuf, int off, int len) {
+                throw new RuntimeException("unexpected");
+            }
+
+            @Override
+            public void flush() {
+                // nothing to do
+            }
+
+            @Override
+            public void close() throws IOException {
+                throw exception;
+            }
+        };
+
+        Writer writer = new WriteBehindWriter(failingWriter, 4, 2, null);
+        writer.write("abcdefgh");
+        try {
+            writer.flush();
+            fail("RuntimeException expected");
+        } catch (RuntimeException e) {
+            assertEquals("unexpected", e.getMessage());
+        }
+
+        // the first exception is reported again
+        try {
+            writer.close();
+            fail("RuntimeException expected");
+        } catch (RuntimeException e) {
+            assertEquals("unexpected", e.getMessage());
+        }
+    }
+
+    @Test
+    public void testException_close() throws Exception {
+
+        final IOException exception = new IOException("broken");
+        Writer failingWriter = new StringWriter() {
+            @Override
+            public void close() throws IOException {
+                throw exception;
+            }
+        };
+
+        Writer writer = new WriteBehindWriter(failingWriter);
+        writer.write("abc");
+        try {
+            writer.close();
+            fail("IOException expected");
+        } catch (IOException e) {
+            assertSame(exception, e);
+        }
+        assertEquals("abc", failingWriter.toString());
+    }
+}
@@ -0,0 +1,165 @@
+/**
+ * Copyright (C) 2011 rwitzel75@googlemail.com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.rwitzel.streamflyer.util.metrics;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.apache.commons.io.IOUtils;
+import org.junit.Test;
+
+import com.github.rwitzel.streamflyer.core.AfterModification;
+import com.github.rwitzel.streamflyer.core.Modifier;
+import com.github.rwitzel.streamflyer.core.ModifyingReader;
+import com.github.rwitzel.streamflyer.regex.RegexModifier;
+import com.github.rwitzel.streamflyer.regex.ReplacingProcessor;
+import com.github.rwitzel.streamflyer.util.ModificationFactory;
+import com.github.rwitzel.streamflyer.xml.XmlVersionModifier;
+
+/**
+ * Tests {@link MetricsModifier}, {@link MetricsMatchProcessor} and {@link SimpleMetricsRegistry}.
+ * 
+ * @author rwoo
+ * @since 1.2.1
+ */
+public class MetricsModifierTest {
+
+    private static final String INPUT = "xaaxaxxxaaax";
+
+    private static final String OUTPUT = "xbxbxxxbx";
+
+    @Test
+    public void testCounts() throws Exception {
+
+        SimpleMetricsRegistry registry = new SimpleMetricsRegistry();
+
+        assertEquals(OUTPUT, modify(registry));
+        assertEquals(OUTPUT, modify(registry));
+
+        ModifierMetrics metrics = registry.getMetrics("regex");
+        assertEquals(2 * INPUT.length(), metrics.getCharactersIn());
+        assertEquals(2 * OUTPUT.length(), metrics.getCharactersOut());
+        assertEquals(6, metrics.getMatches());
+        assertTrue(metrics.getModifyCalls() >= metrics.getSkips());
+        assertTrue(metrics.getBufferHighWaterMark() > 0);
+        assertTrue(metrics.getNanosInModify() > 0);
+        assertEquals(1, registry.getAllMetrics().size());
+    }
+
+    @Test
+    public void testCounts_insertionBeforeModifyAgain() throws Exception {
+
+        // inserts some characters and then modifies again before it skips them
+        Modifier inserting = new Modifier() {
+
+            private final ModificationFactory factory = new ModificationFactory(0, 8);
+
+            private boolean inserted = false;
+
+            @Override
+            public AfterModification modify(StringBuilder characterBuffer, int firstModifiableCharacterInBuffer,
+                    boolean endOfStreamHit) {
+                if (!inserted) {
+                    inserted = true;
+                    characterBuffer.insert(firstModifiableCharacterInBuffer, "<<");
+                    return factory.modifyAgainImmediately(8, firstModifiableCharacterInBuffer);
+                }
+                return factory.skipEntireBuffer(characterBuffer, firstModifiableCharacterInBuffer, endOfStreamHit);
+            }
+        };
+
+        SimpleMetricsRegistry registry = new SimpleMetricsRegistry();
+        ModifierMetrics metrics = registry.getMetrics("inserting");
+        MetricsModifier modifier = new MetricsModifier(inserting, metrics);
+
+        assertEquals("<<xyz", IOUtils.toString(new ModifyingReader(new StringReader("xyz"), modifier)));
+        assertEquals(3, metrics.getCharactersIn());
+        assertEquals(5, metrics.getCharactersOut());
+        assertEquals(1, metrics.getModifyAgainImmediately());
+    }
+
+    @Test
+    public void testCounts_passThrough() throws Exception {
+
+        StringBuilder input = new StringBuilder("<?xml version='1.0'?><a>");
+        for (int index = 0; index < 1000; index++) {
+            input.append("<b>").append(index).append("</b>");
+        }
+        input.append("</a>");
+
+        SimpleMetricsRegistry registry = new SimpleMetricsRegistry();
+        ModifierMetrics metrics = registry.getMetrics("xmlVersion");
+        MetricsModifier modifier = new MetricsModifier(new XmlVersionModifier("1.1", 8), metrics);
+
+        String output = IOUtils.toString(new ModifyingReader(new StringReader(input.toString()), modifier));
+        assertEquals(input.toString().replace("1.0", "1.1"), output);
+
+        // the counts are added to the metrics as soon as the rest of the stream is passed through
+        assertTrue(metrics.getModifyCalls() > 0);
+        assertTrue(metrics.getCharactersOut() > 0);
+        // the characters passed through are not counted
+        assertTrue(metrics.getCharactersIn() < input.length());
+        assertEquals(metrics.getCharactersIn(), metrics.getCharactersOut());
+    }
+
+    @Test
+    public void testConcurrentStreams() throws Exception {
+
+        final SimpleMetricsRegistry registry = new SimpleMetricsRegistry();
+        final int numberOfStreams = 200;
+
+        List<Thread> threads = new ArrayList<Thread>();
+        for (int index = 0; index < 4; index++) {
+            threads.add(new Thread() {
+                @Override
+                public void run() {
+                    try {
+                        for (int stream = 0; stream < numberOfStreams; stream++) {
+                            modify(registry);
+                        }
+                    } catch (Exception e) {
+                        throw new RuntimeException(e);
+                    }
+                }
+            });
+        }
+        for (Thread thread : threads) {
+            thread.start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+
+        ModifierMetrics metrics = registry.getMetrics("regex");
+        assertEquals(4 * numberOfStreams * INPUT.length(), metrics.getCharactersIn());
+        assertEquals(4 * numberOfStreams * OUTPUT.length(), metrics.getCharactersOut());
+        assertEquals(4 * numberOfStreams * 3, metrics.getMatches());
+    }
+
+    private String modify(MetricsRegistry registry) throws Exception {
+
+        ModifierMetrics metrics = registry.getMetrics("regex");
+        MetricsMatchProcessor matchProcessor = new MetricsMatchProcessor(new ReplacingProcessor("b"), metrics);
+        MetricsModifier modifier = new MetricsModifier(new RegexModifier("a+", 0, matchProcessor, 1, 4), metrics,
+                matchProcessor);
+
+        return IOUtils.toString(new ModifyingReader(new StringReader(INPUT), modifier));
+    }
+}
@@ -0,0 +1,177 @@
+/**
+ * Copyright (C) 2011 rwitzel75@googlemail.com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.rwitzel.streamflyer.util.parallel;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.github.rwitzel.streamflyer.core.AfterModification;
+import com.github.rwitzel.streamflyer.core.Modifier;
+import com.github.rwitzel.streamflyer.core.ModifierTemplate;
+import com.github.rwitzel.streamflyer.regex.RegexModifierTemplate;
+import com.github.rwitzel.streamflyer.util.parallel.BatchTransformer.ResultHandler;
+import com.github.rwitzel.streamflyer.util.parallel.BatchTransformer.ResultOrder;
+
+/**
+ * Tests {@link BatchTransformer}.
+ * 
+ * @author rwoo
+ * @since 1.2.1
+ */
+public class BatchTransformerTest {
+
+    private ExecutorService executor;
+
+    @Before
+    public void setUp() {
+        executor = Executors.newFixedThreadPool(4);
+    }
+
+    @After
+    public void tearDown() {
+        executor.shutdownNow();
+    }
+
+    private List<String> createDocuments() {
+        List<String> documents = new ArrayList<String>();
+        for (int index = 0; index < 2000; index++) {
+            StringBuilder sb = new StringBuilder("<doc id='" + index + "'>");
+            // the documents have different lengths
+            for (int item = 0; item < index % 50; item++) {
+                sb.append("<item>").append(item).append("</item>");
+            }
+            documents.add(sb.append("</doc>").toString());
+        }
+        return documents;
+    }
+
+    private BatchTransformer createTransformer() {
+        return new BatchTransformer(new RegexModifierTemplate("<item>(\\d+)</item>", 0, "<i v='$1'/>", 0, 64),
+                executor, 4);
+    }
+
+    private String expected(String document) {
+        return document.replaceAll("<item>(\\d+)</item>", "<i v='$1'/>");
+    }
+
+    @Test
+    public void testTransform_list() throws Exception {
+
+        List<String> documents = createDocuments();
+
+        List<String> results = createTransformer().transform(documents);
+
+        assertEquals(documents.size(), results.size());
+        for (int index = 0; index < documents.size(); index++) {
+            assertEquals(expected(documents.get(index)), results.get(index));
+        }
+    }
+
+    @Test
+    public void testTransform_iteratorOrdered() throws Exception {
+
+        final List<String> documents = createDocuments();
+        final List<Integer> indexes = new ArrayList<Integer>();
+
+        createTransformer().transform(documents.iterator(), new ResultHandler() {
+            @Override
+            public void onResult(int index, String result) {
+                assertEquals(expected(documents.get(index)), result);
+                indexes.add(index);
+            }
+        }, ResultOrder.ORDERED);
+
+        assertEquals(documents.size(), indexes.size());
+        for (int index = 0; index < indexes.size(); index++) {
+            assertEquals(index, indexes.get(index).intValue());
+        }
+    }
+
+    @Test
+    public void testTransform_iteratorUnordered() throws Exception {
+
+        final List<String> documents = createDocuments();
+        final List<Integer> indexes = Collections.synchronizedList(new ArrayList<Integer>());
+
+        createTransformer().transform(documents.iterator(), new ResultHandler() {
+            @Override
+            public void onResult(int index, String result) {
+                assertEquals(expected(documents.get(index)), result);
+                indexes.add(index);
+            }
+        }, ResultOrder.UNORDERED);
+
+        List<Integer> sortedIndexes = new ArrayList<Integer>(indexes);
+        Collections.sort(sortedIndexes);
+        assertEquals(documents.size(), sortedIndexes.size());
+        for (int index = 0; index < sortedIndexes.size(); index++) {
+            assertEquals(index, sortedIndexes.get(index).intValue());
+        }
+    }
+
+    @Test
+    public void testTransform_exception() throws Exception {
+
+        ModifierTemplate failingTemplate = new ModifierTemplate() {
+            @Override
+            public Modifier newModifier() {
+                return new Modifier() {
+                    @Override
+                    public AfterModification modify(StringBuilder characterBuffer,
+                            int firstModifiableCharacterInBuffer, boolean endOfStreamHit) {
+                        if (characterBuffer.indexOf("f") != -1) {
+                            throw new IllegalStateException("failed");
+                        }
+                        return new AfterModification(characterBuffer.length() - firstModifiableCharacterInBuffer,
+                                false, 0, 1);
+                    }
+                };
+            }
+        };
+
+        List<String> documents = createDocuments();
+        documents.set(100, "fail");
+
+        BatchTransformer transformer = new BatchTransformer(failingTemplate, executor, 4);
+        try {
+            transformer.transform(documents);
+            fail("IllegalStateException expected");
+        } catch (IllegalStateException e) {
+            assertEquals("failed", e.getMessage());
+        }
+        try {
+            transformer.transform(documents.iterator(), new ResultHandler() {
+                @Override
+                public void onResult(int index, String result) {
+                    // nothing to do
+                }
+            }, ResultOrder.ORDERED);
+            fail("IllegalStateException expected");
+        } catch (IllegalStateException e) {
+            assertEquals("failed", e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,173 @@
+/**
+ * Copyright (C) 2011 rwitzel75@googlemail.com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.rwitzel.streamflyer.util.parallel;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+
+import java.io.PipedReader;
+import java.io.PipedWriter;
+import java.io.StringReader;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import org.apache.commons.io.IOUtils;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.github.rwitzel.streamflyer.core.AfterModification;
+import com.github.rwitzel.streamflyer.core.Modifier;
+import com.github.rwitzel.streamflyer.core.ModifierTemplate;
+import com.github.rwitzel.streamflyer.regex.RegexModifierTemplate;
+
+/**
+ * Tests {@link RecordParallelReader}.
+ * 
+ * @author rwoo
+ * @since 1.2.1
+ */
+public class RecordParallelReaderTest {
+
+    private ExecutorService executor;
+
+    @Before
+    public void setUp() {
+        executor = Executors.newFixedThreadPool(4);
+    }
+
+    @After
+    public void tearDown() {
+        executor.shutdownNow();
+    }
+
+    private RecordLocalModifierTemplate createTemplate(final boolean recordLocal) {
+        final ModifierTemplate template = new RegexModifierTemplate("\"id\":\\s*(\\d+)", 0, "\"id\":\"$1\"", 0, 64);
+        return new RecordLocalModifierTemplate() {
+
+            @Override
+            public Modifier newModifier() {
+                return template.newModifier();
+            }
+
+            @Override
+            public boolean neverMatchesAcross(char delimiter) {
+                return recordLocal;
+            }
+        };
+    }
+
+    private String createInput() {
+        StringBuilder sb = new StringBuilder();
+        for (int index = 0; index < 5000; index++) {
+            sb.append("{\"id\": ").append(index).append(", \"name\":\"n").append(index % 7).append("\"}\n");
+        }
+        // the last record has no delimiter
+        sb.append("{\"id\":5000}");
+        return sb.toString();
+    }
+
+    private String expectedOutput(String input) {
+        return input.replaceAll("\"id\":\\s*(\\d+)", "\"id\":\"$1\"");
+    }
+
+    @Test
+    public void testRead() throws Exception {
+
+        String input = createInput();
+
+        for (int batchSize : new int[] { 1, 100, 8192, 1000000 }) {
+            RecordParallelReader reader = new RecordParallelReader(new StringReader(input), createTemplate(true),
+                    '\n', batchSize, 8, executor);
+            assertEquals("batchSize " + batchSize, expectedOutput(input), IOUtils.toString(reader));
+            reader.close();
+        }
+    }
+
+    @Test(timeout = 10000)
+    public void testRead_recordsAvailableWithoutBlocking() throws Exception {
+
+        // the pipe is not closed, i.e. more records might arrive (like on an idle socket)
+        PipedWriter writer = new PipedWriter();
+        PipedReader input = new PipedReader(writer, 1024);
+        writer.write("{\"id\": 1}\n{\"id\": 2}\n");
+
+        RecordParallelReader reader = new RecordParallelReader(input, createTemplate(true), '\n', 1000, 8, executor);
+        char[] cbuf = new char[22];
+        int index = 0;
+        while (index < cbuf.length) {
+            index += reader.read(cbuf, index, cbuf.length - index);
+        }
+        assertEquals("{\"id\":\"1\"}\n{\"id\":\"2\"}\n", new String(cbuf));
+
+        writer.write("{\"id\": 3}");
+        writer.close();
+        assertEquals("{\"id\":\"3\"}", IOUtils.toString(reader));
+        reader.close();
+    }
+
+    @Test
+    public void testRead_emptyInput() throws Exception {
+
+        RecordParallelReader reader = new RecordParallelReader(new StringReader(""), createTemplate(true), '\n', 10,
+                2, executor);
+        assertEquals("", IOUtils.toString(reader));
+    }
+
+    @Test
+    public void testConstructor_notRecordLocal() throws Exception {
+
+        try {
+            new RecordParallelReader(new StringReader(""), createTemplate(false), '\n', 10, 2, executor);
+            fail("IllegalArgumentException expected");
+        } catch (IllegalArgumentException e) {
+            // expected
+        }
+    }
+
+    @Test
+    public void testRead_exceptionOfModifier() throws Exception {
+
+        RecordLocalModifierTemplate failingTemplate = new RecordLocalModifierTemplate() {
+
+            @Override
+            public Modifier newModifier() {
+                return new Modifier() {
+                    @Override
+                    public AfterModification modify(StringBuilder characterBuffer,
+                            int firstModifiableCharacterInBuffer, boolean endOfStreamHit) {
+                        throw new IllegalStateException("failed");
+                    }
+                };
+            }
+
+            @Override
+            public boolean neverMatchesAcross(char delimiter) {
+                return true;
+            }
+        };
+
+        RecordParallelReader reader = new RecordParallelReader(new StringReader(createInput()), failingTemplate, '\n',
+                100, 2, executor);
+        try {
+            IOUtils.toString(reader);
+            fail("IllegalStateException expected");
+        } catch (IllegalStateException e) {
+            assertEquals("failed", e.getMessage());
+        }
+        reader.close();
+    }
+}
@@ -0,0 +1,132 @@
+/**
+ * Copyright (C) 2011 rwitzel75@googlemail.com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.rwitzel.streamflyer.util.statistics;
+
+import static org.junit.Assert.assertEquals;
+
+import org.junit.Test;
+
+import com.github.rwitzel.streamflyer.util.ModificationFactory;
+
+/**
+ * Tests {@link LineColumnAwareModificationFactory}.
+ * 
+ * @author rwoo
+ * @since 1.2.1
+ */
+public class LineColumnAwareModificationFactoryTest {
+
+    /**
+     * Overrides {@link #onCharacterSkipped(char)} so that the characters are counted one by one.
+     */
+    private static class CharByCharFactory extends LineColumnAwareModificationFactory {
+
+        public CharByCharFactory() {
+            super(new ModificationFactory(0, 1));
+        }
+
+        @Override
+        protected void onCharacterSkipped(char ch) {
+            super.onCharacterSkipped(ch);
+        }
+    }
+
+    @Test
+    public void testSkip_lineBreaks() throws Exception {
+        assertSkip("", 0, 0);
+        assertSkip("abc", 0, 3);
+        assertSkip("a\nb", 1, 1);
+        assertSkip("a\rb", 1, 1);
+        assertSkip("a\r\nb", 1, 1);
+        assertSkip("a\n\rb", 2, 1);
+        assertSkip("a\r\n\r\nbc", 2, 2);
+        assertSkip("\r\r\n\n", 3, 0);
+        assertSkip("ab\r\n", 1, 0);
+    }
+
+    @Test
+    public void testSkip_lineBreakSplitBetweenChunksAndSkips() throws Exception {
+
+        StringBuilder sb = new StringBuilder();
+        for (int index = 0; index < 3000; index++) {
+            sb.append(index % 7 == 0 ? "\r\n" : index % 11 == 0 ? "\r" : index % 13 == 0 ? "\n" : "x");
+        }
+        // a \r\n at the border of the first chunk
+        sb.replace(1023, 1025, "\r\n");
+        String input = sb.toString();
+
+        for (int step : new int[] { 1, 2, 3, 1023, 1024, 1025, 5000 }) {
+            LineColumnAwareModificationFactory fast = new LineColumnAwareModificationFactory(new ModificationFactory(
+                    0, 1));
+            LineColumnAwareModificationFactory slow = new CharByCharFactory();
+            skipInSteps(fast, input, step);
+            skipInSteps(slow, input, step);
+            assertEquals("step " + step, slow.getCurrentLine(), fast.getCurrentLine());
+            assertEquals("step " + step, slow.getCurrentColumn(), fast.getCurrentColumn());
+        }
+    }
+
+    @Test
+    public void testGetLineAtAndGetColumnAt() throws Exception {
+
+        LineColumnAwareModificationFactory factory = new LineColumnAwareModificationFactory(new ModificationFactory(
+                0, 1));
+        StringBuilder buffer = new StringBuilder("ab\r\ncd\r\nef");
+        factory.skip(3, buffer, 0, false); // skips "ab\r"
+
+        assertEquals(1, factory.getCurrentLine());
+        assertEquals(0, factory.getCurrentColumn());
+
+        // the \n of the skipped \r\n does not start another line
+        assertEquals(1, factory.getLineAt(buffer, 3, 4));
+        assertEquals(0, factory.getColumnAt(buffer, 3, 4));
+        assertEquals(1, factory.getLineAt(buffer, 3, 5));
+        assertEquals(1, factory.getColumnAt(buffer, 3, 5));
+        assertEquals(2, factory.getLineAt(buffer, 3, 9));
+        assertEquals(1, factory.getColumnAt(buffer, 3, 9));
+
+        // the current position is not changed
+        assertEquals(1, factory.getCurrentLine());
+        assertEquals(0, factory.getCurrentColumn());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testGetLineAt_positionOutOfRange() throws Exception {
+        LineColumnAwareModificationFactory factory = new LineColumnAwareModificationFactory(new ModificationFactory(
+                0, 1));
+        factory.getLineAt(new StringBuilder("abc"), 1, 0);
+    }
+
+    private void assertSkip(String input, long expectedLine, long expectedColumn) {
+        LineColumnAwareModificationFactory fast = new LineColumnAwareModificationFactory(new ModificationFactory(0,
+                1));
+        skipInSteps(fast, input, input.length() + 1);
+        assertEquals(expectedLine, fast.getCurrentLine());
+        assertEquals(expectedColumn, fast.getCurrentColumn());
+
+        LineColumnAwareModificationFactory slow = new CharByCharFactory();
+        skipInSteps(slow, input, input.length() + 1);
+        assertEquals(expectedLine, slow.getCurrentLine());
+        assertEquals(expectedColumn, slow.getCurrentColumn());
+    }
+
+    private void skipInSteps(LineColumnAwareModificationFactory factory, String input, int step) {
+        StringBuilder buffer = new StringBuilder(input);
+        for (int first = 0; first < input.length(); first += step) {
+            factory.skip(Math.min(step, input.length() - first), buffer, first, false);
+        }
+    }
+}
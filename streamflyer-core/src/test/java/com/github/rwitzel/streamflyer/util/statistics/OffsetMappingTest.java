@@ -0,0 +1,177 @@
+/**
+ * Copyright (C) 2011 rwitzel75@googlemail.com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.rwitzel.streamflyer.util.statistics;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.io.Writer;
+
+import org.apache.commons.io.IOUtils;
+import org.junit.Test;
+
+import com.github.rwitzel.streamflyer.core.ModifyingReader;
+import com.github.rwitzel.streamflyer.core.ModifyingWriter;
+import com.github.rwitzel.streamflyer.regex.RegexModifier;
+
+/**
+ * Tests {@link OffsetMapping}, {@link OffsetMappingModifier} and {@link OffsetMappingMatchProcessor}.
+ * 
+ * @author rwoo
+ * @since 1.2.1
+ */
+public class OffsetMappingTest {
+
+    @Test
+    public void testMapping_noEdits() throws Exception {
+        OffsetMapping mapping = new OffsetMapping();
+        assertEquals(0, mapping.toOutputOffset(0));
+        assertEquals(17, mapping.toOutputOffset(17));
+        assertEquals(17, mapping.toInputOffset(17));
+    }
+
+    @Test
+    public void testMapping_edits() throws Exception {
+
+        // input: "0123456789", output: "0xyz3459"
+        OffsetMapping mapping = new OffsetMapping();
+        mapping.addEdit(1, 2, 3); // "12" -> "xyz"
+        mapping.addEdit(7, 3, 0); // "678" -> ""
+
+        assertEquals(2, mapping.getNumberOfEdits());
+
+        long[] outputOffsets = { 0, 1, 1, 4, 5, 6, 7, 7, 7, 7, 8 };
+        for (int inputOffset = 0; inputOffset <= 10; inputOffset++) {
+            assertEquals("" + inputOffset, outputOffsets[inputOffset], mapping.toOutputOffset(inputOffset));
+        }
+
+        long[] inputOffsets = { 0, 1, 1, 1, 3, 4, 5, 9, 10 };
+        for (int outputOffset = 0; outputOffset <= 8; outputOffset++) {
+            assertEquals("" + outputOffset, inputOffsets[outputOffset], mapping.toInputOffset(outputOffset));
+        }
+    }
+
+    @Test
+    public void testMapping_overlappingEditsAreMerged() throws Exception {
+
+        // input: "0123456789", "12" -> "xyz" -> "xw"
+        OffsetMapping mapping = new OffsetMapping();
+        mapping.addEdit(1, 2, 3);
+        mapping.addEdit(2, 3, 1); // "yz3" -> "w"
+
+        assertEquals(1, mapping.getNumberOfEdits());
+        assertEquals(1, mapping.toOutputOffset(3));
+        assertEquals(3, mapping.toOutputOffset(4));
+        assertEquals(4, mapping.toInputOffset(3));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testMapping_editsInDescendingOrder() throws Exception {
+        OffsetMapping mapping = new OffsetMapping();
+        mapping.addEdit(5, 1, 1);
+        mapping.addEdit(4, 1, 1);
+    }
+
+    @Test
+    public void testReader_exactEdits() throws Exception {
+
+        String input = createInput(1000);
+        RegexModifier regexModifier = new RegexModifier("ab", 0, "xyz", 0, 16);
+        OffsetMappingModifier modifier = new OffsetMappingModifier(regexModifier);
+        regexModifier.setMatchProcessor(new OffsetMappingMatchProcessor(regexModifier.getMatchProcessor(), modifier));
+
+        String output = IOUtils.toString(new ModifyingReader(new StringReader(input), modifier));
+
+        assertEquals(input.replace("ab", "xyz"), output);
+        assertEquals(1000, modifier.getOffsetMapping().getNumberOfEdits());
+        assertExactMapping(input, output, modifier.getOffsetMapping());
+    }
+
+    @Test
+    public void testWriter_exactEdits() throws Exception {
+
+        String input = createInput(100);
+        RegexModifier regexModifier = new RegexModifier("ab", 0, "xyz", 0, 16);
+        OffsetMappingModifier modifier = new OffsetMappingModifier(regexModifier);
+        regexModifier.setMatchProcessor(new OffsetMappingMatchProcessor(regexModifier.getMatchProcessor(), modifier));
+
+        StringWriter output = new StringWriter();
+        Writer writer = new ModifyingWriter(output, modifier);
+        writer.write(input);
+        writer.close();
+
+        assertExactMapping(input, output.toString(), modifier.getOffsetMapping());
+    }
+
+    @Test
+    public void testReader_coarseEdits() throws Exception {
+
+        String input = createInput(100);
+        OffsetMappingModifier modifier = new OffsetMappingModifier(new RegexModifier("ab", 0, "xyz", 0, 16));
+
+        String output = IOUtils.toString(new ModifyingReader(new StringReader(input), modifier));
+
+        OffsetMapping mapping = modifier.getOffsetMapping();
+        assertEquals(output.length(), mapping.toOutputOffset(input.length()));
+        assertEquals(input.length(), mapping.toInputOffset(output.length()));
+        long previous = 0;
+        for (int inputOffset = 0; inputOffset <= input.length(); inputOffset++) {
+            long outputOffset = mapping.toOutputOffset(inputOffset);
+            assertTrue(outputOffset >= previous);
+            previous = outputOffset;
+        }
+    }
+
+    private String createInput(int numberOfMatches) {
+        StringBuilder sb = new StringBuilder();
+        for (int index = 0; index < numberOfMatches; index++) {
+            sb.append("ab");
+            for (int gap = 0; gap <= index % 5; gap++) {
+                sb.append("cd");
+            }
+        }
+        return sb.toString();
+    }
+
+    /**
+     * Asserts that each unchanged character is mapped to itself and that each match is mapped to its replacement.
+     */
+    private void assertExactMapping(String input, String output, OffsetMapping mapping) {
+
+        for (int inputOffset = 0; inputOffset < input.length(); inputOffset++) {
+            int outputOffset = (int) mapping.toOutputOffset(inputOffset);
+            if (input.startsWith("ab", inputOffset)) {
+                assertTrue(output.startsWith("xyz", outputOffset));
+            } else if (input.charAt(inputOffset) != 'b') {
+                assertEquals(input.charAt(inputOffset), output.charAt(outputOffset));
+            }
+        }
+
+        for (int outputOffset = 0; outputOffset < output.length(); outputOffset++) {
+            int inputOffset = (int) mapping.toInputOffset(outputOffset);
+            if (output.startsWith("xyz", outputOffset)) {
+                assertTrue(input.startsWith("ab", inputOffset));
+            } else if (output.charAt(outputOffset) != 'y' && output.charAt(outputOffset) != 'z') {
+                assertEquals(output.charAt(outputOffset), input.charAt(inputOffset));
+            }
+        }
+
+        assertEquals(output.length(), mapping.toOutputOffset(input.length()));
+        assertEquals(input.length(), mapping.toInputOffset(output.length()));
+    }
+}
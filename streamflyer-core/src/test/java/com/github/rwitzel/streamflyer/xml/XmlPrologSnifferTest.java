@@ -0,0 +1,121 @@
+/**
+ * Copyright (C) 2011 rwitzel75@googlemail.com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.rwitzel.streamflyer.xml;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+
+import org.apache.commons.io.IOUtils;
+import org.junit.Test;
+
+/**
+ * Tests {@link XmlPrologSniffer}.
+ * 
+ * @author rwoo
+ * @since 1.2.1
+ */
+public class XmlPrologSnifferTest {
+
+    @Test
+    public void testNoXmlVersionInProlog() throws Exception {
+        assertXmlVersion("1.0", "<html>");
+        assertXmlVersion("1.0", "<html version='1.1'>");
+        assertXmlVersion("1.1", "<?xml version='1.1'?><html version='1.0'>");
+        assertXmlVersion("1.0", "<?xml encoding='UTF-8'?><html version='1.1'>");
+        assertXmlVersion("1.0", "");
+    }
+
+    @Test
+    public void testXmlVersionInProlog() throws Exception {
+        assertXmlVersion("1.0", "<?xml encoding='UTF-8' version='1.0' standalone='true'");
+        assertXmlVersion("1.1", "<?xml encoding=\"UTF-8\" version  =  \"1.1\" standalone=\"true\"?>");
+        assertXmlVersion("1.1", "<?xml\n\t version='1.1'?>");
+    }
+
+    @Test
+    public void testEncoding_noBom() throws Exception {
+        assertEncoding("UTF-8", "<html>", "UTF-8", new byte[0]);
+        assertEncoding("UTF-8", "<?xml version='1.0'?><a/>", "UTF-8", new byte[0]);
+        assertEncoding("ISO-8859-1", "<?xml version='1.0' encoding='ISO-8859-1'?><a>\u00e9</a>", "ISO-8859-1",
+                new byte[0]);
+        assertEncoding("UTF-16BE", "<?xml version='1.1' encoding='UTF-16'?><a>\u00e9</a>", "UTF-16BE", new byte[0]);
+        assertEncoding("UTF-16LE", "<?xml version='1.1' encoding='UTF-16'?><a>\u00e9</a>", "UTF-16LE", new byte[0]);
+    }
+
+    @Test
+    public void testEncoding_bom() throws Exception {
+        assertEncoding("UTF-8", "<?xml version='1.1'?><a>\u00e9</a>", "UTF-8", new byte[] { (byte) 0xEF,
+                (byte) 0xBB, (byte) 0xBF });
+        assertEncoding("UTF-16BE", "<?xml version='1.1'?><a>\u00e9</a>", "UTF-16BE", new byte[] { (byte) 0xFE,
+                (byte) 0xFF });
+        assertEncoding("UTF-16LE", "<a>\u00e9</a>", "UTF-16LE", new byte[] { (byte) 0xFF, (byte) 0xFE });
+    }
+
+    @Test
+    public void testLongDocument() throws Exception {
+
+        StringBuilder sb = new StringBuilder("<?xml");
+        for (int index = 0; index < 5000; index++) {
+            sb.append(' ');
+        }
+        sb.append("version='1.1'?><a>");
+        for (int index = 0; index < 10000; index++) {
+            sb.append("\u00e9x");
+        }
+        sb.append("</a>");
+
+        XmlPrologSniffer sniffer = assertEncoding("UTF-8", sb.toString(), "UTF-8", new byte[0]);
+        // the prolog is longer than the sniffed bytes
+        assertEquals("1.0", sniffer.getXmlVersion());
+    }
+
+    @Test
+    public void testUnsupportedEncoding() throws Exception {
+        try {
+            new XmlPrologSniffer(new ByteArrayInputStream("<?xml version='1.0' encoding='hossa'?>".getBytes("UTF-8")));
+            fail("IOException expected");
+        } catch (IOException e) {
+            assertTrue(e.getMessage(), e.getMessage().contains("hossa"));
+        }
+    }
+
+    private void assertXmlVersion(String expectedXmlVersion, String xml) throws Exception {
+
+        XmlPrologSniffer sniffer = new XmlPrologSniffer(new ByteArrayInputStream(xml.getBytes("UTF-8")));
+
+        assertEquals(expectedXmlVersion, sniffer.getXmlVersion());
+        assertEquals(xml, IOUtils.toString(sniffer.getReader()));
+    }
+
+    private XmlPrologSniffer assertEncoding(String expectedEncoding, String xml, String encoding, byte[] bom)
+            throws Exception {
+
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        bytes.write(bom);
+        bytes.write(xml.getBytes(encoding));
+
+        XmlPrologSniffer sniffer = new XmlPrologSniffer(new ByteArrayInputStream(bytes.toByteArray()));
+
+        assertEquals(expectedEncoding, sniffer.getEncoding());
+        assertEquals(xml, IOUtils.toString(sniffer.getReader()));
+        return sniffer;
+    }
+}
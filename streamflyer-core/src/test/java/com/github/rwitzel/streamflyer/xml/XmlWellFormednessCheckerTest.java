@@ -0,0 +1,163 @@
+/**
+ * Copyright (C) 2011 rwitzel75@googlemail.com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.rwitzel.streamflyer.xml;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.ByteArrayInputStream;
+import java.io.Reader;
+
+import org.apache.commons.io.IOUtils;
+import org.junit.Test;
+
+import com.github.rwitzel.streamflyer.util.ModifyingReaderFactory;
+
+/**
+ * Tests {@link XmlWellFormednessChecker} and {@link WellFormednessCheckingModifier}.
+ * 
+ * @author rwoo
+ * @since 1.2.1
+ */
+public class XmlWellFormednessCheckerTest {
+
+    @Test
+    public void testWellFormed() throws Exception {
+        assertWellFormed("<a/>");
+        assertWellFormed("<?xml version='1.0'?>\n<!DOCTYPE a [<!ENTITY x 'y'>]>\n<a x='1' y = \"2\">text</a>\n");
+        assertWellFormed("<a><b c='&amp;&#38;&#x26;'/>&lt;<![CDATA[<]]]]><!-- - --><?pi ? ?></a>");
+        assertWellFormed("\uFEFF<a>]]</a>");
+        assertWellFormed("\uFEFF<?xml version=\"1.0\" encoding='UTF-8' standalone='yes' ?><a/>");
+        assertWellFormed("<a>&#9;&#xD;&#xD7FF;&#xE000;&#xFFFD;&#x10000;&#x10FFFF;&#65;</a>");
+        assertWellFormed("<?xml version='1.1'?><a>&#1;&#x1F;</a>");
+        assertWellFormed("<?xml-stylesheet href='a.xsl'?><a/>");
+    }
+
+    @Test
+    public void testNotWellFormed() throws Exception {
+
+        // tags
+        assertNotWellFormed("<a><b></a>", 9, "does not match start tag 'b'");
+        assertNotWellFormed("<a></a></b>", 10, "without start tag");
+        assertNotWellFormed("<a></a><b/>", 8, "only one root element");
+        assertNotWellFormed("<a>", 3, "element 'a' is not closed");
+        assertNotWellFormed("", 0, "root element is missing");
+        assertNotWellFormed("<a></a>x", 7, "outside of the root element");
+        assertNotWellFormed("< a/>", 1, "invalid start of a tag");
+
+        // attributes
+        assertNotWellFormed("<a b=c/>", 5, "must be quoted");
+        assertNotWellFormed("<a b/>", 4, "'=' expected");
+        assertNotWellFormed("<a b='1'c='2'/>", 8, "whitespace expected");
+        assertNotWellFormed("<a b='<'/>", 6, "'<' is not allowed");
+
+        // references
+        assertNotWellFormed("<a>& </a>", 4, "invalid reference");
+        assertNotWellFormed("<a>&#x;</a>", 6, "invalid character reference");
+        assertNotWellFormed("<a>&amp </a>", 7, "invalid entity reference");
+        assertNotWellFormed("<a>&#0;</a>", 6, "not allowed in XML 1.0");
+        assertNotWellFormed("<a>&#12;</a>", 7, "not allowed in XML 1.0");
+        assertNotWellFormed("<a b='&#xD800;'/>", 13, "not allowed in XML 1.0");
+        assertNotWellFormed("<a>&#xFFFE;</a>", 10, "not allowed in XML 1.0");
+        assertNotWellFormed("<?xml version='1.1'?><a>&#0;</a>", 27, "not allowed in XML 1.1");
+        assertNotWellFormed("<a>&#99999999999;</a>", 11, "out of range");
+        assertNotWellFormed("<a>&#x110000;</a>", 11, "out of range");
+
+        // duplicate attributes
+        assertNotWellFormed("<a b='1' b='2'/>", 10, "duplicate attribute 'b'");
+        assertNotWellFormed("<a b='1' c='2' b ='3'/>", 16, "duplicate attribute 'b'");
+        assertWellFormed("<a b='1'><c b='2'/></a>");
+
+        // XML declaration and processing instructions
+        assertNotWellFormed("<?XML version='1.0'?><a/>", 5, "'XML' is reserved");
+        assertNotWellFormed("<?xml?><a/>", 6, "version is missing");
+        assertNotWellFormed("<?xml encoding='UTF-8'?><a/>", 23, "version is missing");
+        assertNotWellFormed("<?xml version='1.0'?><?xml version='1.0'?><a/>", 26,
+                "allowed only at the start of the document");
+        assertNotWellFormed(" <?xml version='1.0'?><a/>", 6, "allowed only at the start of the document");
+        assertNotWellFormed("<? pi?><a/>", 2, "invalid processing instruction target");
+
+        // names
+        assertNotWellFormed("<abcdef/>", 5, "name is longer than 4 characters", 4);
+        assertNotWellFormed("<a bcdef='1'/>", 7, "name is longer than 4 characters", 4);
+
+        // comments, CDATA sections
+        assertNotWellFormed("<a><!-- -- --></a>", 10, "'--' is not allowed");
+        assertNotWellFormed("<a><![CDAT[x]]></a>", 10, "invalid markup declaration");
+        assertNotWellFormed("<![CDATA[x]]><a/>", 2, "CDATA section is not allowed");
+        assertNotWellFormed("<a><![CDATA[x</a>", 17, "unexpected end of document");
+        assertNotWellFormed("<a>]]></a>", 5, "']]>' is not allowed");
+    }
+
+    @Test
+    public void testCheckInSeveralPieces() throws Exception {
+
+        XmlWellFormednessChecker checker = new XmlWellFormednessChecker();
+        String xml = "<a b='1'><!-- c --></a>";
+        for (int index = 0; index < xml.length(); index++) {
+            checker.check(xml, index, index + 1);
+        }
+        checker.endOfDocument();
+        assertEquals(xml.length(), checker.getOffset());
+        assertEquals(0, checker.getDepth());
+    }
+
+    @Test
+    public void testCreateInvalidXmlCharacterReplacingReader() throws Exception {
+
+        // well-formed after replacing the invalid character
+        assertEquals("<a>x</a>", IOUtils.toString(createReader("<a>\u0001x</a>")));
+
+        // not well-formed
+        try {
+            IOUtils.toString(createReader("<a>\u0001x</b>"));
+            fail("XmlNotWellFormedException expected");
+        } catch (XmlNotWellFormedException e) {
+            // the offset refers to the modified stream
+            assertEquals(7, e.getOffset());
+        }
+    }
+
+    private Reader createReader(String xml) throws Exception {
+        return new ModifyingReaderFactory().createInvalidXmlCharacterReplacingReader(new ByteArrayInputStream(
+                xml.getBytes("UTF-8")), "", true);
+    }
+
+    private void assertWellFormed(String xml) {
+        XmlWellFormednessChecker checker = new XmlWellFormednessChecker();
+        checker.check(xml, 0, xml.length());
+        checker.endOfDocument();
+    }
+
+    private void assertNotWellFormed(String xml, long expectedOffset, String expectedMessagePart) {
+        assertNotWellFormed(xml, expectedOffset, expectedMessagePart,
+                XmlWellFormednessChecker.DEFAULT_MAXIMUM_NAME_LENGTH);
+    }
+
+    private void assertNotWellFormed(String xml, long expectedOffset, String expectedMessagePart,
+            int maximumNameLength) {
+        XmlWellFormednessChecker checker = new XmlWellFormednessChecker(maximumNameLength);
+        try {
+            checker.check(xml, 0, xml.length());
+            checker.endOfDocument();
+            fail("XmlNotWellFormedException expected for " + xml);
+        } catch (XmlNotWellFormedException e) {
+            assertTrue(e.getMessage(), e.getMessage().contains(expectedMessagePart));
+            assertEquals(xml, expectedOffset, e.getOffset());
+        }
+    }
+}
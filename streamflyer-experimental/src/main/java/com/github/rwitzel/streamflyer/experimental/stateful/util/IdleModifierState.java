@@ -21,7 +21,8 @@ import com.github.rwitzel.streamflyer.internal.thirdparty.ZzzValidate;
 import com.github.rwitzel.streamflyer.util.ModificationFactory;
 
 /**
- * This state does not modify the character stream and does not switch to another state.
+ * This state does not modify the character stream and does not switch to another state. Therefore, the rest of the
+ * stream is {@link com.github.rwitzel.streamflyer.core.AfterModification#isPassThrough() passed through}.
  * 
  * @author rwoo
  * 
@@ -46,7 +47,7 @@ public class IdleModifierState implements State {
     public StatefulAfterModification modify(StringBuilder characterBuffer, int firstModifiableCharacterInBuffer,
             boolean endOfStreamHit) {
 
-        return new StatefulAfterModification(factory.skipEntireBuffer(characterBuffer,
-                firstModifiableCharacterInBuffer, endOfStreamHit), this);
+        return new StatefulAfterModification(factory.passThrough(characterBuffer, firstModifiableCharacterInBuffer,
+                endOfStreamHit), this);
     }
 }